@@ -1,9 +1,13 @@
 import UI.View;
+import Util.LineaComandos;
 
 public class App {
     public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            System.exit(LineaComandos.ejecutar(args));
+        }
+
         View ventana = new View("Analizador Lexico");
         ventana.setVisible(true);
     }
 }
-
@@ -0,0 +1,70 @@
+package UI;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+import Util.Nodo;
+
+/**
+ * Modelo de JTree sobre el árbol que construye AnalizadorSintactico. Los nodos
+ * que ve el JTree son los mismos Nodo del analizador: no se arma una copia con
+ * DefaultMutableTreeNode, y el JTree solo pide (y guarda estado de) los hijos
+ * de las ramas que el usuario expande. Abrir el árbol de un programa con
+ * millones de nodos cuesta lo mismo que abrir uno chico.
+ *
+ * El árbol no cambia después del análisis, por eso no se emiten eventos: un
+ * análisis nuevo reemplaza el modelo completo.
+ */
+public class ModeloArbolSintactico implements TreeModel {
+
+    private final Nodo raiz;
+    private final EventListenerList oyentes = new EventListenerList();
+
+    public ModeloArbolSintactico(Nodo raiz) {
+        this.raiz = raiz;
+    }
+
+    @Override
+    public Object getRoot() {
+        return raiz;
+    }
+
+    @Override
+    public Object getChild(Object padre, int indice) {
+        return ((Nodo) padre).getHijo(indice);
+    }
+
+    @Override
+    public int getChildCount(Object padre) {
+        return ((Nodo) padre).getCantidadHijos();
+    }
+
+    @Override
+    public boolean isLeaf(Object nodo) {
+        return ((Nodo) nodo).getCantidadHijos() == 0;
+    }
+
+    @Override
+    public int getIndexOfChild(Object padre, Object hijo) {
+        if (padre == null || hijo == null) return -1;
+        // Nodo no redefine equals: indexOf compara por identidad
+        return ((Nodo) padre).getHijos().indexOf(hijo);
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath ruta, Object valor) {
+        // El árbol no se edita desde la vista
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener oyente) {
+        oyentes.add(TreeModelListener.class, oyente);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener oyente) {
+        oyentes.remove(TreeModelListener.class, oyente);
+    }
+}
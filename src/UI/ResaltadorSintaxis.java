@@ -0,0 +1,383 @@
+package UI;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JEditorPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainView;
+import javax.swing.text.Segment;
+import javax.swing.text.Utilities;
+import javax.swing.text.ViewFactory;
+
+import Util.AnalizadorLexico;
+import Util.Token;
+
+/**
+ * Resaltado de sintaxis del editor con los tipos de token del AnalizadorLexico.
+ *
+ * No guarda atributos en el documento: el editor pinta cada línea con una vista
+ * de texto plano que colorea los tramos ya analizados de esa línea. Solo se
+ * analizan las líneas visibles (y una pantalla más arriba y abajo); al
+ * desplazarse, el ChangeListener del viewport pide las que faltan y se olvidan
+ * las que quedaron lejos, así que la memoria no crece con el archivo.
+ *
+ * Cada cambio ensucia solo la línea que tocó (ningún token cruza de una línea a
+ * otra). Un hilo aparte analiza las líneas pendientes por lotes y cada lote se
+ * guarda en el EDT de una sola vez. Si el documento cambió mientras se
+ * analizaba, el lote se descarta y se retoma cuando el usuario deja de escribir.
+ */
+public class ResaltadorSintaxis implements DocumentListener, ChangeListener {
+
+    private static final int LOTE_LINEAS = 200;
+    private static final int ESPERA_MS = 40;
+    // Las líneas a más de esta distancia de lo visible pierden sus colores
+    private static final int LEJOS_LINEAS = 1000;
+
+    private static final int NORMAL = 0;
+    private static final int PALABRA_CLAVE = 1;
+    private static final int NUMERO = 2;
+    private static final int CADENA = 3;
+    private static final int OPERADOR = 4;
+    private static final int COMENTARIO = 5;
+
+    // Solo color: negrita o cursiva cambiarían el ancho que PlainView usa para ubicar el cursor
+    private static final Color[] COLORES = {
+        Color.BLACK,
+        new Color(0, 0, 160),
+        new Color(170, 80, 0),
+        new Color(0, 128, 0),
+        new Color(120, 0, 0),
+        Color.GRAY
+    };
+
+    private final JEditorPane editor;
+    private final JViewport viewport;
+    private final Document documento;
+
+    // Estado del EDT
+    private final TreeMap<Integer, Linea> lineas = new TreeMap<>();
+    private int cantidadLineas;
+    private int version;
+    private boolean loteEnCurso;
+    private final Timer espera;
+
+    // Solo lo usa el hilo de análisis
+    private final AnalizadorLexico lexico = new AnalizadorLexico();
+    private final ExecutorService hilo = Executors.newSingleThreadExecutor(tarea -> {
+        Thread t = new Thread(tarea, "resaltado-sintaxis");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Tramos {desde, longitud, estilo} de una línea, con desde relativo al inicio de la línea */
+    private static final class Linea {
+        final int[] tramos;
+        boolean sucia;
+
+        Linea(int[] tramos) {
+            this.tramos = tramos;
+        }
+    }
+
+    /** Lote de líneas copiado del documento para analizarlo fuera del EDT */
+    private static final class Lote {
+        final int version;
+        final int[] lineas;
+        final String[] textos;
+        final int[][] tramos;
+
+        Lote(int version, int cantidad) {
+            this.version = version;
+            this.lineas = new int[cantidad];
+            this.textos = new String[cantidad];
+            this.tramos = new int[cantidad][];
+        }
+    }
+
+    /** Instala en el editor la vista que pinta los colores; el documento del editor se conserva */
+    public ResaltadorSintaxis(JEditorPane editor, JViewport viewport) {
+        this.editor = editor;
+        this.viewport = viewport;
+        this.documento = editor.getDocument();
+        this.espera = new Timer(ESPERA_MS, e -> programar());
+        this.espera.setRepeats(false);
+
+        editor.setEditorKit(new Kit(this));
+        editor.setDocument(documento);
+        cantidadLineas = documento.getDefaultRootElement().getElementCount();
+        documento.addDocumentListener(this);
+        viewport.addChangeListener(this);
+        espera.restart();
+    }
+
+    // ------------------ LÍNEAS SUCIAS ------------------
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        marcar(e.getOffset());
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        marcar(e.getOffset());
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // Los colores no dependen de atributos del documento
+    }
+
+    /**
+     * Ensucia la línea del cambio y desplaza los tramos de las líneas de más abajo
+     * según cuántas líneas se agregaron o quitaron. Las líneas nuevas quedan sin
+     * tramos hasta que se analizan; la sucia se sigue pintando con los viejos.
+     */
+    private void marcar(int desplazamiento) {
+        version++;
+        Element raiz = documento.getDefaultRootElement();
+        int primera = raiz.getElementIndex(desplazamiento);
+        int nuevas = raiz.getElementCount();
+        int delta = nuevas - cantidadLineas;
+        cantidadLineas = nuevas;
+
+        if (delta != 0) {
+            SortedMap<Integer, Linea> resto = lineas.tailMap(primera + 1);
+            Map<Integer, Linea> movidas = new TreeMap<>();
+            for (Map.Entry<Integer, Linea> e : resto.entrySet()) {
+                // Al borrar, las líneas unidas a la primera desaparecen
+                if (delta > 0 || e.getKey() > primera - delta) movidas.put(e.getKey() + delta, e.getValue());
+            }
+            resto.clear();
+            lineas.putAll(movidas);
+        }
+        Linea editada = lineas.get(primera);
+        if (editada != null) editada.sucia = true;
+        espera.restart();
+    }
+
+    /** El viewport se desplazó o cambió de tamaño */
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        olvidarLejanas();
+        programar();
+    }
+
+    /** Primera y última línea visibles */
+    private int[] visibles() {
+        Rectangle vista = viewport.getViewRect();
+        Element raiz = documento.getDefaultRootElement();
+        int primera = raiz.getElementIndex(editor.viewToModel2D(new Point(vista.x, vista.y)));
+        int ultima = raiz.getElementIndex(editor.viewToModel2D(new Point(vista.x, vista.y + vista.height)));
+        return new int[] {primera, Math.max(primera, ultima)};
+    }
+
+    private void olvidarLejanas() {
+        int[] visibles = visibles();
+        lineas.headMap(visibles[0] - LEJOS_LINEAS).clear();
+        lineas.tailMap(visibles[1] + LEJOS_LINEAS, false).clear();
+    }
+
+    // ------------------ LOTES ------------------
+
+    /** Copia el próximo lote de líneas pendientes (primero las visibles) y lo manda a analizar */
+    private void programar() {
+        if (loteEnCurso) return;
+        int[] visibles = visibles();
+        int alto = visibles[1] - visibles[0] + 1;
+
+        List<Integer> elegidas = new ArrayList<>();
+        pendientes(visibles[0], visibles[1], elegidas);
+        pendientes(visibles[1] + 1, visibles[1] + alto, elegidas);
+        pendientes(visibles[0] - alto, visibles[0] - 1, elegidas);
+        if (elegidas.isEmpty()) return;
+
+        Lote lote = new Lote(version, elegidas.size());
+        Element raiz = documento.getDefaultRootElement();
+        try {
+            for (int k = 0; k < elegidas.size(); k++) {
+                Element linea = raiz.getElement(elegidas.get(k));
+                int desde = linea.getStartOffset();
+                int hasta = Math.min(linea.getEndOffset(), documento.getLength());
+                lote.lineas[k] = elegidas.get(k);
+                lote.textos[k] = documento.getText(desde, hasta - desde).replace("\n", "");
+            }
+        } catch (BadLocationException e) {
+            return;
+        }
+
+        loteEnCurso = true;
+        hilo.execute(() -> {
+            for (int k = 0; k < lote.lineas.length; k++) lote.tramos[k] = tramos(lote.textos[k], lote.lineas[k]);
+            SwingUtilities.invokeLater(() -> aplicar(lote));
+        });
+    }
+
+    /** Agrega las líneas de [desde, hasta] sin tramos o sucias, hasta llenar el lote */
+    private void pendientes(int desde, int hasta, List<Integer> elegidas) {
+        for (int i = Math.max(0, desde); i <= hasta && i < cantidadLineas && elegidas.size() < LOTE_LINEAS; i++) {
+            Linea linea = lineas.get(i);
+            if (linea == null || linea.sucia) elegidas.add(i);
+        }
+    }
+
+    /** En el EDT: guarda los tramos del lote si el documento no cambió, repinta y sigue con el próximo */
+    private void aplicar(Lote lote) {
+        loteEnCurso = false;
+        if (lote.version != version) {
+            // Si la espera venció mientras este lote se analizaba, programar no hizo
+            // nada; se reinicia para que las líneas pendientes se pinten al dejar de escribir
+            espera.restart();
+            return;
+        }
+
+        for (int k = 0; k < lote.lineas.length; k++) lineas.put(lote.lineas[k], new Linea(lote.tramos[k]));
+        olvidarLejanas();
+        editor.repaint(viewport.getViewRect());
+        programar();
+    }
+
+    // ------------------ HILO DE ANÁLISIS ------------------
+
+    /**
+     * Tramos de una línea que cubren todo su texto. Los espacios entre dos tokens
+     * se suman al tramo anterior para que tokens seguidos del mismo estilo se
+     * pinten de una vez; lo que sigue a "//" fuera de los tokens es comentario.
+     */
+    private int[] tramos(String texto, int linea) {
+        List<Token> tokens = new ArrayList<>();
+        lexico.analizarLinea(texto, linea + 1, tokens, new ArrayList<>());
+
+        List<int[]> tramos = new ArrayList<>();
+        int pos = 0;
+        for (Token t : tokens) {
+            int desde = t.getColumna() - 1;
+            int hasta = desde + t.getLexema().length();
+            if (desde > pos) {
+                if (texto.substring(pos, desde).isBlank() && !tramos.isEmpty()) {
+                    tramos.get(tramos.size() - 1)[1] += desde - pos;
+                } else {
+                    agregar(tramos, pos, desde - pos, NORMAL);
+                }
+            }
+            agregar(tramos, desde, hasta - desde, estiloDe(t));
+            pos = hasta;
+        }
+
+        int comentario = texto.indexOf("//", pos);
+        if (comentario >= 0) {
+            if (comentario > pos) agregar(tramos, pos, comentario - pos, NORMAL);
+            agregar(tramos, comentario, texto.length() - comentario, COMENTARIO);
+        } else if (pos < texto.length()) {
+            agregar(tramos, pos, texto.length() - pos, NORMAL);
+        }
+
+        int[] resultado = new int[tramos.size() * 3];
+        for (int i = 0; i < tramos.size(); i++) System.arraycopy(tramos.get(i), 0, resultado, i * 3, 3);
+        return resultado;
+    }
+
+    private static void agregar(List<int[]> tramos, int desde, int longitud, int estilo) {
+        if (!tramos.isEmpty()) {
+            int[] anterior = tramos.get(tramos.size() - 1);
+            if (anterior[2] == estilo && anterior[0] + anterior[1] == desde) {
+                anterior[1] += longitud;
+                return;
+            }
+        }
+        tramos.add(new int[] {desde, longitud, estilo});
+    }
+
+    private static int estiloDe(Token t) {
+        switch (t.getTipo()) {
+            case "Palabra Clave": return PALABRA_CLAVE;
+            case "Entero":
+            case "Decimal": return NUMERO;
+            case "Cadena":
+            case "Carácter": return CADENA;
+            case "Operador":
+            case "Separador": return OPERADOR;
+            default: return NORMAL;
+        }
+    }
+
+    // ------------------ PINTADO ------------------
+
+    /** Kit del editor: texto plano pintado por Vista */
+    private static final class Kit extends DefaultEditorKit implements ViewFactory {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ResaltadorSintaxis resaltador;
+
+        Kit(ResaltadorSintaxis resaltador) {
+            this.resaltador = resaltador;
+        }
+
+        @Override
+        public ViewFactory getViewFactory() {
+            return this;
+        }
+
+        @Override
+        public javax.swing.text.View create(Element elemento) {
+            return resaltador.new Vista(elemento);
+        }
+    }
+
+    /** PlainView que pinta el texto no seleccionado con los tramos de su línea */
+    private final class Vista extends PlainView {
+
+        Vista(Element elemento) {
+            super(elemento);
+        }
+
+        @Override
+        protected float drawUnselectedText(Graphics2D g, float x, float y, int p0, int p1) throws BadLocationException {
+            Element raiz = getElement();
+            int indice = raiz.getElementIndex(p0);
+            Linea linea = lineas.get(indice);
+            if (linea == null || !getContainer().isEnabled()) return super.drawUnselectedText(g, x, y, p0, p1);
+
+            // Los tramos de una línea sucia pueden pasarse de su largo actual: se recortan a [p0, p1)
+            int inicio = raiz.getElement(indice).getStartOffset();
+            int[] tramos = linea.tramos;
+            int pos = p0;
+            for (int i = 0; i < tramos.length && pos < p1; i += 3) {
+                int desde = Math.max(pos, inicio + tramos[i]);
+                int hasta = Math.min(p1, inicio + tramos[i] + tramos[i + 1]);
+                if (desde >= hasta) continue;
+                if (desde > pos) x = dibujar(g, x, y, pos, desde, NORMAL);
+                x = dibujar(g, x, y, desde, hasta, tramos[i + 2]);
+                pos = hasta;
+            }
+            if (pos < p1) x = dibujar(g, x, y, pos, p1, NORMAL);
+            return x;
+        }
+
+        private float dibujar(Graphics2D g, float x, float y, int p0, int p1, int estilo) throws BadLocationException {
+            Segment texto = getLineBuffer();
+            getDocument().getText(p0, p1 - p0, texto);
+            g.setColor(COLORES[estilo]);
+            return Utilities.drawTabbedText(texto, x, y, g, this, p0);
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package UI;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * Contenido de un documento Swing guardado como tabla de piezas: el texto es una
+ * secuencia de trozos de otros textos (el String insertado, o el búfer de
+ * agregados para las inserciones chicas). Las piezas forman un treap persistente
+ * ordenado por posición, así que insertar y borrar cuestan O(log n) sin copiar
+ * el texto, y getTexto() entrega una vista CharSequence de la versión actual en
+ * O(1) que no cambia aunque se siga editando.
+ *
+ * Las Position también están en un treap (con desplazamientos perezosos), para
+ * que una edición no tenga que recorrer todas las marcas de las líneas.
+ */
+public class TablaPiezas implements AbstractDocument.Content {
+
+    // Las inserciones de hasta este tamaño se copian al búfer de agregados y se
+    // pegan a la pieza anterior si es contigua; las más grandes se referencian
+    private static final int MAXIMO_AGREGADO = 1024;
+
+    // ------------------ PIEZAS ------------------
+
+    /** Nodo inmutable del treap de piezas */
+    private static final class Pieza {
+        final CharSequence fuente;
+        final int inicio;
+        final int longitud;
+        final int prioridad;
+        final Pieza izq, der;
+        final int total;
+
+        Pieza(CharSequence fuente, int inicio, int longitud, int prioridad, Pieza izq, Pieza der) {
+            this.fuente = fuente;
+            this.inicio = inicio;
+            this.longitud = longitud;
+            this.prioridad = prioridad;
+            this.izq = izq;
+            this.der = der;
+            this.total = total(izq) + longitud + total(der);
+        }
+
+        Pieza conHijos(Pieza izq, Pieza der) {
+            return new Pieza(fuente, inicio, longitud, prioridad, izq, der);
+        }
+    }
+
+    private static int total(Pieza p) {
+        return p == null ? 0 : p.total;
+    }
+
+    /** Búfer de solo agregar en bloques fijos: lo ya escrito no se mueve y se puede leer desde otros hilos */
+    private static final class Agregados implements CharSequence {
+        private static final int BITS = 14;
+        private static final int BLOQUE = 1 << BITS;
+
+        private volatile char[][] bloques = new char[0][];
+        private int longitud;
+
+        int agregar(String texto) {
+            int inicio = longitud;
+            for (int i = 0; i < texto.length(); ) {
+                int bloque = longitud >>> BITS, desde = longitud & (BLOQUE - 1);
+                if (bloque == bloques.length) {
+                    char[][] nuevos = Arrays.copyOf(bloques, bloques.length + 1);
+                    nuevos[bloque] = new char[BLOQUE];
+                    bloques = nuevos;
+                }
+                int cuantos = Math.min(texto.length() - i, BLOQUE - desde);
+                texto.getChars(i, i + cuantos, bloques[bloque], desde);
+                i += cuantos;
+                longitud += cuantos;
+            }
+            return inicio;
+        }
+
+        @Override
+        public char charAt(int indice) {
+            return bloques[indice >>> BITS][indice & (BLOQUE - 1)];
+        }
+
+        void copiar(int desde, int cantidad, char[] destino, int pos) {
+            char[][] b = bloques;
+            while (cantidad > 0) {
+                int dentro = desde & (BLOQUE - 1);
+                int cuantos = Math.min(cantidad, BLOQUE - dentro);
+                System.arraycopy(b[desde >>> BITS], dentro, destino, pos, cuantos);
+                desde += cuantos;
+                pos += cuantos;
+                cantidad -= cuantos;
+            }
+        }
+
+        @Override
+        public int length() {
+            return longitud;
+        }
+
+        @Override
+        public CharSequence subSequence(int desde, int hasta) {
+            char[] copia = new char[hasta - desde];
+            copiar(desde, copia.length, copia, 0);
+            return new String(copia);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, longitud).toString();
+        }
+    }
+
+    private final Agregados agregados = new Agregados();
+    private volatile Pieza raiz;
+
+    public TablaPiezas() {
+        // Como GapContent: el contenido vacío tiene el salto de línea implícito del final
+        raiz = hoja("\n", 0, 1);
+    }
+
+    private static Pieza hoja(CharSequence fuente, int inicio, int longitud) {
+        return new Pieza(fuente, inicio, longitud, ThreadLocalRandom.current().nextInt(), null, null);
+    }
+
+    /** Las primeras k posiciones a la izquierda y el resto a la derecha; corta una pieza si hace falta */
+    private static Pieza[] dividir(Pieza t, int k) {
+        if (t == null) return new Pieza[2];
+        int izquierda = total(t.izq);
+        if (k <= izquierda) {
+            Pieza[] partes = dividir(t.izq, k);
+            return new Pieza[] {partes[0], t.conHijos(partes[1], t.der)};
+        }
+        if (k >= izquierda + t.longitud) {
+            Pieza[] partes = dividir(t.der, k - izquierda - t.longitud);
+            return new Pieza[] {t.conHijos(t.izq, partes[0]), partes[1]};
+        }
+        // Ambas mitades conservan la prioridad: cada una queda como raíz de su lado
+        int corte = k - izquierda;
+        return new Pieza[] {
+            new Pieza(t.fuente, t.inicio, corte, t.prioridad, t.izq, null),
+            new Pieza(t.fuente, t.inicio + corte, t.longitud - corte, t.prioridad, null, t.der)
+        };
+    }
+
+    private static Pieza unir(Pieza a, Pieza b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.prioridad >= b.prioridad) return a.conHijos(a.izq, unir(a.der, b));
+        return b.conHijos(unir(a, b.izq), b.der);
+    }
+
+    /** Si la pieza que termina en k es la última del búfer de agregados, la alarga en n */
+    private Pieza alargar(Pieza t, int k, int n) {
+        if (t == null) return null;
+        int izquierda = total(t.izq);
+        if (k <= izquierda) {
+            Pieza hijo = alargar(t.izq, k, n);
+            return hijo == null ? null : t.conHijos(hijo, t.der);
+        }
+        if (k > izquierda + t.longitud) {
+            Pieza hijo = alargar(t.der, k - izquierda - t.longitud, n);
+            return hijo == null ? null : t.conHijos(t.izq, hijo);
+        }
+        if (k != izquierda + t.longitud || t.fuente != agregados || t.inicio + t.longitud != agregados.length()) {
+            return null;
+        }
+        return new Pieza(t.fuente, t.inicio, t.longitud + n, t.prioridad, t.izq, t.der);
+    }
+
+    // ------------------ CONTENT ------------------
+
+    @Override
+    public int length() {
+        return raiz.total;
+    }
+
+    @Override
+    public synchronized UndoableEdit insertString(int donde, String texto) throws BadLocationException {
+        if (donde < 0 || donde >= length()) throw new BadLocationException("posición de inserción inválida", donde);
+        insertar(donde, texto);
+        return new Edicion(donde, texto.length(), null);
+    }
+
+    @Override
+    public synchronized UndoableEdit remove(int donde, int cantidad) throws BadLocationException {
+        if (donde < 0 || cantidad < 0 || donde + cantidad >= length()) {
+            throw new BadLocationException("rango a borrar inválido", donde + cantidad);
+        }
+        Edicion edicion = new Edicion(donde, cantidad, getString(donde, cantidad));
+        quitar(donde, cantidad, edicion);
+        return edicion;
+    }
+
+    private void insertar(int donde, String texto) {
+        if (texto.isEmpty()) return;
+        Pieza actual = raiz;
+        Pieza nueva = null;
+        if (texto.length() <= MAXIMO_AGREGADO) {
+            Pieza alargada = alargar(actual, donde, texto.length());
+            int inicio = agregados.agregar(texto);
+            nueva = alargada != null ? alargada : insertarPieza(actual, donde, hoja(agregados, inicio, texto.length()));
+        } else {
+            nueva = insertarPieza(actual, donde, hoja(texto, 0, texto.length()));
+        }
+        raiz = nueva;
+        desplazarMarcas(donde == 0 ? 1 : donde, texto.length());
+    }
+
+    private static Pieza insertarPieza(Pieza t, int donde, Pieza pieza) {
+        Pieza[] partes = dividir(t, donde);
+        return unir(unir(partes[0], pieza), partes[1]);
+    }
+
+    /** Borra el rango; las marcas que había adentro se anotan en la edición para restaurarlas al deshacer */
+    private void quitar(int donde, int cantidad, Edicion edicion) {
+        if (cantidad == 0) return;
+        Pieza[] partes = dividir(raiz, donde);
+        Pieza[] resto = dividir(partes[1], cantidad);
+        raiz = unir(partes[0], resto[1]);
+        colapsarMarcas(donde, cantidad, edicion);
+    }
+
+    @Override
+    public String getString(int donde, int cantidad) throws BadLocationException {
+        Pieza t = raiz;
+        verificar(t, donde, cantidad);
+        char[] texto = new char[cantidad];
+        copiar(t, donde, donde + cantidad, texto, 0);
+        return new String(texto);
+    }
+
+    @Override
+    public void getChars(int donde, int cantidad, Segment txt) throws BadLocationException {
+        Pieza t = raiz;
+        verificar(t, donde, cantidad);
+        char[] texto = new char[cantidad];
+        copiar(t, donde, donde + cantidad, texto, 0);
+        txt.array = texto;
+        txt.offset = 0;
+        txt.count = cantidad;
+    }
+
+    private static void verificar(Pieza t, int donde, int cantidad) throws BadLocationException {
+        if (donde < 0 || cantidad < 0 || donde + cantidad > total(t)) {
+            throw new BadLocationException("rango fuera del contenido", donde + cantidad);
+        }
+    }
+
+    /** Copia las posiciones [desde, hasta) del subárbol t a destino desde pos */
+    private static void copiar(Pieza t, int desde, int hasta, char[] destino, int pos) {
+        while (t != null && desde < hasta) {
+            int izquierda = total(t.izq);
+            if (desde < izquierda) {
+                int fin = Math.min(hasta, izquierda);
+                copiar(t.izq, desde, fin, destino, pos);
+                pos += fin - desde;
+                desde = fin;
+                continue;
+            }
+            int finPieza = izquierda + t.longitud;
+            if (desde < finPieza) {
+                int fin = Math.min(hasta, finPieza);
+                int origen = t.inicio + desde - izquierda;
+                if (t.fuente instanceof String) {
+                    ((String) t.fuente).getChars(origen, origen + fin - desde, destino, pos);
+                } else {
+                    ((Agregados) t.fuente).copiar(origen, fin - desde, destino, pos);
+                }
+                pos += fin - desde;
+                desde = fin;
+            }
+            // El resto está en el subárbol derecho
+            desde -= finPieza;
+            hasta -= finPieza;
+            t = t.der;
+        }
+    }
+
+    // ------------------ VISTA CharSequence ------------------
+
+    /**
+     * Texto del documento (sin el salto de línea implícito del final) en la
+     * versión actual. No copia nada y no cambia con las ediciones siguientes;
+     * cada hilo debe usar su propia vista porque guarda la última pieza leída.
+     */
+    public CharSequence getTexto() {
+        Pieza t = raiz;
+        return new Texto(t, 0, t.total - 1);
+    }
+
+    private static final class Texto implements CharSequence {
+        private final Pieza raiz;
+        private final int desde;
+        private final int longitud;
+
+        // Última pieza leída: un recorrido secuencial no vuelve a bajar por el árbol
+        private Pieza pieza;
+        private int inicioPieza = 0, finPieza = 0;
+
+        Texto(Pieza raiz, int desde, int longitud) {
+            this.raiz = raiz;
+            this.desde = desde;
+            this.longitud = longitud;
+        }
+
+        @Override
+        public int length() {
+            return longitud;
+        }
+
+        @Override
+        public char charAt(int indice) {
+            if (indice < 0 || indice >= longitud) throw new IndexOutOfBoundsException(indice);
+            int posicion = desde + indice;
+            if (posicion < inicioPieza || posicion >= finPieza) ubicar(posicion);
+            return pieza.fuente.charAt(pieza.inicio + posicion - inicioPieza);
+        }
+
+        private void ubicar(int posicion) {
+            Pieza t = raiz;
+            int base = 0;
+            while (true) {
+                int izquierda = total(t.izq);
+                if (posicion < base + izquierda) {
+                    t = t.izq;
+                } else if (posicion < base + izquierda + t.longitud) {
+                    pieza = t;
+                    inicioPieza = base + izquierda;
+                    finPieza = inicioPieza + t.longitud;
+                    return;
+                } else {
+                    base += izquierda + t.longitud;
+                    t = t.der;
+                }
+            }
+        }
+
+        @Override
+        public CharSequence subSequence(int inicio, int fin) {
+            if (inicio < 0 || fin > longitud || inicio > fin) throw new IndexOutOfBoundsException(inicio);
+            return new Texto(raiz, desde + inicio, fin - inicio);
+        }
+
+        @Override
+        public String toString() {
+            char[] texto = new char[longitud];
+            copiar(raiz, desde, desde + longitud, texto, 0);
+            return new String(texto);
+        }
+    }
+
+    // ------------------ POSICIONES ------------------
+
+    /**
+     * Nodo del treap de marcas; valor no incluye los desplazamientos pendientes de
+     * sus ancestros. Es también la referencia débil a su Position: se encola cuando
+     * nadie la usa ya, para sacar la marca del treap.
+     */
+    private static final class Marca extends WeakReference<Posicion> {
+        int valor;
+        int pendiente;
+        final int prioridad = ThreadLocalRandom.current().nextInt();
+        Marca izq, der, padre;
+        // Quedó dentro de un borrado: deshacerlo la devuelve a su lugar, así que no se comparte
+        boolean anotada;
+
+        Marca(int valor, Posicion posicion, ReferenceQueue<Posicion> cola) {
+            super(posicion, cola);
+            this.valor = valor;
+        }
+    }
+
+    private final class Posicion implements Position {
+        private Marca marca;
+
+        @Override
+        public int getOffset() {
+            synchronized (TablaPiezas.this) {
+                int valor = marca.valor;
+                for (Marca m = marca.padre; m != null; m = m.padre) valor += m.pendiente;
+                return valor;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(getOffset());
+        }
+    }
+
+    private Marca marcas;
+    private final ReferenceQueue<Posicion> sinUso = new ReferenceQueue<>();
+
+    /**
+     * Como en GapContent, una Position que ya está en ese desplazamiento se
+     * comparte: el fin de cada línea es el inicio de la siguiente, así que el
+     * documento necesita la mitad de marcas.
+     */
+    @Override
+    public synchronized Position createPosition(int desplazamiento) throws BadLocationException {
+        if (desplazamiento < 0 || desplazamiento > length()) throw new BadLocationException("posición inválida", desplazamiento);
+        purgar();
+        Posicion existente = buscarPosicion(desplazamiento);
+        if (existente != null) return existente;
+
+        Posicion posicion = new Posicion();
+        posicion.marca = new Marca(desplazamiento, posicion, sinUso);
+        insertarMarca(posicion.marca);
+        return posicion;
+    }
+
+    /** Alguna Position en uso en el desplazamiento, o null */
+    private Posicion buscarPosicion(int desplazamiento) {
+        int acumulado = 0;
+        Marca m = marcas;
+        while (m != null) {
+            int valor = m.valor + acumulado;
+            if (valor == desplazamiento && !m.anotada) {
+                Posicion posicion = m.get();
+                if (posicion != null) return posicion;
+            }
+            acumulado += m.pendiente;
+            m = desplazamiento <= valor ? m.izq : m.der;
+        }
+        return null;
+    }
+
+    private void insertarMarca(Marca marca) {
+        Marca[] partes = dividirMarcas(marcas, marca.valor);
+        marcas = unirMarcas(unirMarcas(partes[0], marca), partes[1]);
+    }
+
+    /** Las marcas en desde o más adelante se mueven delta posiciones */
+    private void desplazarMarcas(int desde, int delta) {
+        purgar();
+        Marca[] partes = dividirMarcas(marcas, desde);
+        sumar(partes[1], delta);
+        marcas = unirMarcas(partes[0], partes[1]);
+    }
+
+    /**
+     * Tras borrar [donde, donde + cantidad): las marcas de adentro quedan en donde y
+     * las de después retroceden. Como en GapContent, se anotan también las que
+     * estaban justo al final del rango: al deshacer un borrado en 0 la inserción no
+     * mueve las marcas en 0, y sin anotarlas quedarían ahí.
+     */
+    private void colapsarMarcas(int donde, int cantidad, Edicion edicion) {
+        purgar();
+        Marca[] partes = dividirMarcas(marcas, donde);
+        Marca[] resto = dividirMarcas(partes[1], donde + cantidad + 1);
+        asignar(resto[0], donde, edicion);
+        sumar(resto[1], -cantidad);
+        marcas = unirMarcas(partes[0], unirMarcas(resto[0], resto[1]));
+    }
+
+    private static void sumar(Marca m, int delta) {
+        if (m == null) return;
+        m.valor += delta;
+        m.pendiente += delta;
+    }
+
+    private static void asignar(Marca m, int valor, Edicion edicion) {
+        if (m == null) return;
+        bajar(m);
+        edicion.anotar(m);
+        m.valor = valor;
+        asignar(m.izq, valor, edicion);
+        asignar(m.der, valor, edicion);
+    }
+
+    private static void bajar(Marca m) {
+        if (m.pendiente == 0) return;
+        sumar(m.izq, m.pendiente);
+        sumar(m.der, m.pendiente);
+        m.pendiente = 0;
+    }
+
+    /** Marcas con valor menor que clave a la izquierda, el resto a la derecha */
+    private static Marca[] dividirMarcas(Marca t, int clave) {
+        if (t == null) return new Marca[2];
+        bajar(t);
+        t.padre = null;
+        if (t.valor < clave) {
+            Marca[] partes = dividirMarcas(t.der, clave);
+            enlazarDer(t, partes[0]);
+            return new Marca[] {t, partes[1]};
+        }
+        Marca[] partes = dividirMarcas(t.izq, clave);
+        enlazarIzq(t, partes[1]);
+        return new Marca[] {partes[0], t};
+    }
+
+    private static Marca unirMarcas(Marca a, Marca b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.prioridad >= b.prioridad) {
+            bajar(a);
+            enlazarDer(a, unirMarcas(a.der, b));
+            a.padre = null;
+            return a;
+        }
+        bajar(b);
+        enlazarIzq(b, unirMarcas(a, b.izq));
+        b.padre = null;
+        return b;
+    }
+
+    private static void enlazarIzq(Marca padre, Marca hijo) {
+        padre.izq = hijo;
+        if (hijo != null) hijo.padre = padre;
+    }
+
+    private static void enlazarDer(Marca padre, Marca hijo) {
+        padre.der = hijo;
+        if (hijo != null) hijo.padre = padre;
+    }
+
+    /** Saca del treap las marcas cuyas Position ya no se usan */
+    private void purgar() {
+        Marca marca;
+        while ((marca = (Marca) sinUso.poll()) != null) eliminar(marca);
+    }
+
+    private void eliminar(Marca marca) {
+        List<Marca> camino = new ArrayList<>();
+        for (Marca m = marca; m != null; m = m.padre) camino.add(m);
+        for (int i = camino.size() - 1; i >= 0; i--) bajar(camino.get(i));
+
+        Marca padre = marca.padre;
+        Marca reemplazo = unirMarcas(marca.izq, marca.der);
+        if (padre == null) {
+            marcas = reemplazo;
+            if (reemplazo != null) reemplazo.padre = null;
+        } else if (padre.izq == marca) {
+            enlazarIzq(padre, reemplazo);
+        } else {
+            enlazarDer(padre, reemplazo);
+        }
+        marca.izq = marca.der = marca.padre = null;
+    }
+
+    // ------------------ DESHACER ------------------
+
+    /**
+     * Inserción (quitado == null) o borrado que se puede deshacer. Como en
+     * GapContent, las marcas que quedaron dentro de un texto borrado vuelven a
+     * su posición cuando el texto se restaura.
+     */
+    private final class Edicion extends AbstractUndoableEdit {
+        private static final long serialVersionUID = 1L;
+
+        private final int donde;
+        private final int cantidad;
+        private String texto;
+        private final boolean insercion;
+        private final List<Marca> marcasQuitadas = new ArrayList<>();
+        private final List<Integer> posiciones = new ArrayList<>();
+
+        Edicion(int donde, int cantidad, String quitado) {
+            this.donde = donde;
+            this.cantidad = cantidad;
+            this.texto = quitado;
+            this.insercion = quitado == null;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            if (insercion) sacar(); else poner();
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            if (insercion) poner(); else sacar();
+        }
+
+        private void sacar() {
+            synchronized (TablaPiezas.this) {
+                try {
+                    texto = getString(donde, cantidad);
+                } catch (BadLocationException e) {
+                    throw new CannotUndoException();
+                }
+                marcasQuitadas.clear();
+                posiciones.clear();
+                quitar(donde, cantidad, this);
+            }
+        }
+
+        private void poner() {
+            synchronized (TablaPiezas.this) {
+                insertar(donde, texto);
+                for (int i = 0; i < marcasQuitadas.size(); i++) {
+                    Marca marca = marcasQuitadas.get(i);
+                    if (marca.get() == null) continue;      // su Position ya no se usa
+                    eliminar(marca);
+                    marca.valor = posiciones.get(i);
+                    marca.pendiente = 0;
+                    insertarMarca(marca);
+                }
+            }
+        }
+
+        void anotar(Marca marca) {
+            marca.anotada = true;
+            marcasQuitadas.add(marca);
+            posiciones.add(marca.valor);
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package UI;
 
 import java.awt.BorderLayout;
+import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JEditorPane;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
@@ -19,14 +24,26 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane; 
+import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.JTextArea;
+import javax.swing.JTree;
+import javax.swing.ListSelectionModel;
 import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeSelectionModel;
 
 import Util.AnalizadorLexico;
+import Util.AnalizadorSemantico;
 import Util.AnalizadorSintactico;
+import Util.IndiceReferencias;
+import Util.Nodo;
 import Util.Simbolo;
 import Util.Token;
 
@@ -34,6 +51,9 @@ public class View extends JFrame implements ActionListener{
 
     private static final long serialVersionUID = 1L;
 
+    // Caracteres que se leen del archivo por cada inserción en el documento
+    private static final int BLOQUE_LECTURA = 1 << 16;
+
     private JPanel panelPrincipal;
     
 
@@ -43,7 +63,10 @@ public class View extends JFrame implements ActionListener{
     private JMenuItem JMIOpen, JMISave, JMISaveError, JMISaveLexemas, JMISaveSimbolos;
 
     // CONTENIDO SUPERIOR
-    private JTextArea codigoArea;
+    private JEditorPane codigoArea;
+
+    // Contenido del editor: tabla de piezas, los análisis leen su vista sin copiar el texto
+    private TablaPiezas contenidoCodigo;
     
     private JTextArea erroresArea;
 
@@ -54,12 +77,22 @@ public class View extends JFrame implements ActionListener{
 
     private JTable tablaSimbolos;
 
+    private JTable tablaUsos;
+
+    // Árbol sintáctico del último análisis; el modelo crea las ramas al expandirlas
+    private JTree arbolSintactico;
+
     private JSplitPane splitTablas;
 
+    // Tokens e índice de referencias del último análisis, para el panel de usos
+    private List<Token> tokensAnalizados;
+    private IndiceReferencias indiceReferencias;
+
     // CONTENIDO SUR (BOTON)
     private JPanel panelBoton;
     private JButton btnAnalisisLexico;
     private JButton btnAnalisisSintactico;
+    private JButton btnAnalisisSemantico;
 
     public View(String title) {
         super(title);
@@ -143,8 +176,20 @@ public class View extends JFrame implements ActionListener{
 
     private void ContenidoSuperior() {
         // Zona de código
-        codigoArea = new JTextArea(15,20); // Solo estetico tamaño del text area
+        contenidoCodigo = new TablaPiezas();
+        codigoArea = new JEditorPane() {
+            private static final long serialVersionUID = 1L;
+
+            // Sin ajuste de línea, como el editor de texto plano
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return getUI().getPreferredSize(this).width <= getParent().getSize().width;
+            }
+        };
+        codigoArea.setDocument(new PlainDocument(contenidoCodigo));
+        codigoArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
         JScrollPane scrollCodigo = new JScrollPane(codigoArea);
+        new ResaltadorSintaxis(codigoArea, scrollCodigo.getViewport());
         scrollCodigo.setBorder(BorderFactory.createTitledBorder("Editor de Código (Zona de Entrada)"));
 
         // Zona de errores
@@ -169,6 +214,36 @@ public class View extends JFrame implements ActionListener{
         JScrollPane scrollLexemas = new JScrollPane(tablaLexemas);
         scrollLexemas.setBorder(BorderFactory.createTitledBorder("Zona de Lexemas y Componentes Léxicos"));
 
+        // Árbol sintáctico: muestra tipo, valor, tipo de dato y línea de cada nodo
+        arbolSintactico = new JTree(new DefaultTreeModel(null)) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String convertValueToText(Object valor, boolean seleccionado, boolean expandido,
+                                             boolean hoja, int fila, boolean foco) {
+                if (!(valor instanceof Nodo)) return super.convertValueToText(valor, seleccionado, expandido, hoja, fila, foco);
+                Nodo nodo = (Nodo) valor;
+                String texto = nodo.toString();
+                if (nodo.getTipoDato() != null) texto += " : " + nodo.getTipoDato();
+                if (nodo.getLinea() > 0) texto += "  (línea " + nodo.getLinea() + ")";
+                return texto;
+            }
+        };
+        // Con alto de fila fijo y modelo grande el JTree no mide ni guarda cada fila visible
+        arbolSintactico.setRowHeight(18);
+        arbolSintactico.setLargeModel(true);
+        arbolSintactico.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
+        arbolSintactico.addTreeSelectionListener(ev -> {
+            Object nodo = ev.getPath().getLastPathComponent();
+            if (nodo instanceof Nodo) MarcarToken(((Nodo) nodo).getToken(), false);
+        });
+        JScrollPane scrollArbol = new JScrollPane(arbolSintactico);
+        scrollArbol.setBorder(BorderFactory.createTitledBorder("Árbol Sintáctico"));
+
+        JTabbedPane pestanasAnalisis = new JTabbedPane();
+        pestanasAnalisis.addTab("Lexemas", scrollLexemas);
+        pestanasAnalisis.addTab("Árbol Sintáctico", scrollArbol);
+
         // Tabla de símbolos
         
         // Identificador: nombre
@@ -184,23 +259,101 @@ public class View extends JFrame implements ActionListener{
         tablaSimbolos = new JTable(modeloSimbolos);
         JScrollPane scrollSimbolos = new JScrollPane(tablaSimbolos);
         scrollSimbolos.setBorder(BorderFactory.createTitledBorder("Tabla de Símbolos"));
+
+        // Usos del símbolo seleccionado; al elegir uno se marca en el editor
+        String[] columnasUsos = {"Línea", "Columna", "Código"};
+        DefaultTableModel modeloUsos = new DefaultTableModel(columnasUsos, 0);
+        tablaUsos = new JTable(modeloUsos);
+        JScrollPane scrollUsos = new JScrollPane(tablaUsos);
+        scrollUsos.setBorder(BorderFactory.createTitledBorder("Usos del Símbolo"));
+
+        tablaSimbolos.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        tablaSimbolos.getSelectionModel().addListSelectionListener(ev -> {
+            if (!ev.getValueIsAdjusting()) MostrarUsos(tablaSimbolos.getSelectedRow());
+        });
+        tablaUsos.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        tablaUsos.getSelectionModel().addListSelectionListener(ev -> {
+            if (!ev.getValueIsAdjusting()) MarcarUso(tablaUsos.getSelectedRow());
+        });
+
+        JSplitPane splitSimbolos = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, scrollSimbolos, scrollUsos);
+        splitSimbolos.setResizeWeight(0.7);
+        splitSimbolos.setOneTouchExpandable(true);
         
-        splitTablas = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, scrollLexemas, scrollSimbolos);
+        splitTablas = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, pestanasAnalisis, splitSimbolos);
         splitTablas.setDividerLocation(0.5); 
         splitTablas.setResizeWeight(0.5);
         splitTablas.setOneTouchExpandable(true);
     }
 
+    /** Llena la tabla de usos con los del símbolo de la fila indicada (la fila es su id en el índice) */
+    private void MostrarUsos(int fila) {
+        DefaultTableModel modeloUsos = (DefaultTableModel) tablaUsos.getModel();
+        modeloUsos.setRowCount(0);
+        if (indiceReferencias == null || fila < 0 || fila >= indiceReferencias.getCantidadDeclaraciones()) return;
+
+        CharSequence texto = contenidoCodigo.getTexto();
+        Element raiz = codigoArea.getDocument().getDefaultRootElement();
+        for (int posicion : indiceReferencias.getUsos(fila)) {
+            Token t = tokensAnalizados.get(posicion);
+            Element linea = raiz.getElement(t.getLinea() - 1);
+            String codigo = "";
+            if (linea != null && linea.getStartOffset() < texto.length()) {
+                codigo = texto.subSequence(linea.getStartOffset(), Math.min(linea.getEndOffset() - 1, texto.length())).toString().trim();
+            }
+            modeloUsos.addRow(new Object[]{t.getLinea(), t.getColumna(), codigo});
+        }
+    }
+
+    /** Selecciona en el editor el token del uso de la fila indicada */
+    private void MarcarUso(int fila) {
+        int simbolo = tablaSimbolos.getSelectedRow();
+        if (indiceReferencias == null || simbolo < 0 || fila < 0) return;
+        int[] usos = indiceReferencias.getUsos(simbolo);
+        if (fila >= usos.length) return;
+
+        MarcarToken(tokensAnalizados.get(usos[fila]), true);
+    }
+
+    /**
+     * Selecciona en el editor el texto del token. Sin enfocar el editor (al recorrer
+     * el árbol con el teclado) la selección se deja visible igual.
+     */
+    private void MarcarToken(Token t, boolean enfocar) {
+        if (t == null) return;
+        try {
+            Element linea = codigoArea.getDocument().getDefaultRootElement().getElement(t.getLinea() - 1);
+            if (linea == null) throw new BadLocationException("línea fuera del documento", t.getLinea());
+            int inicio = linea.getStartOffset() + t.getColumna() - 1;
+            if (enfocar) codigoArea.requestFocusInWindow();
+            codigoArea.select(inicio, inicio + t.getLexema().length());
+            if (!enfocar) codigoArea.getCaret().setSelectionVisible(true);
+        } catch (BadLocationException ex) {
+            // El código cambió después del análisis: no hay nada que marcar
+        }
+    }
+
+    /** Guarda tokens e índice de referencias para el panel de usos y muestra el árbol */
+    private void GuardarReferencias(AnalizadorLexico lexico, AnalizadorSintactico sintactico) {
+        tokensAnalizados = lexico.getTokens();
+        indiceReferencias = sintactico.getIndiceReferencias();
+        ((DefaultTableModel) tablaUsos.getModel()).setRowCount(0);
+        arbolSintactico.setModel(new ModeloArbolSintactico(sintactico.getArbol()));
+    }
+
     private void ContenidoSur() {
         btnAnalisisLexico = new JButton("Análisis Léxico");
         btnAnalisisSintactico = new JButton("Análisis Sintáctico");
+        btnAnalisisSemantico = new JButton("Análisis Semántico");
         
         panelBoton = new JPanel();
         panelBoton.add(btnAnalisisLexico);
          panelBoton.add(btnAnalisisSintactico);
+        panelBoton.add(btnAnalisisSemantico);
 
         btnAnalisisLexico.addActionListener(this);
         btnAnalisisSintactico.addActionListener(this);
+        btnAnalisisSemantico.addActionListener(this);
 
         panelPrincipal.add(panelBoton, BorderLayout.SOUTH);
     }
@@ -235,28 +388,46 @@ public class View extends JFrame implements ActionListener{
                 return;
             }
 
-            // LIMPIAR ZONA DE CODIGO
-            codigoArea.setText("");
-
-            try(BufferedReader br = new BufferedReader(new FileReader(archivo))) {
-                StringBuilder contenido = new StringBuilder();
-                String linea;
-
-                while ((linea = br.readLine()) != null) {
-                    contenido.append(linea).append("\n");
+            // El archivo se lee por bloques y cada bloque entra como una pieza del
+            // documento: nunca se junta todo el texto en un solo String
+            try (Reader lector = new InputStreamReader(Files.newInputStream(archivo.toPath()), Charset.defaultCharset())) {
+                // LIMPIAR ZONA DE CODIGO
+                Document documento = codigoArea.getDocument();
+                documento.remove(0, documento.getLength());
+
+                char[] bloque = new char[BLOQUE_LECTURA];
+                boolean retornoPendiente = false;   // un "\r\n" puede quedar partido entre dos bloques
+                int leidos;
+                while ((leidos = llenar(lector, bloque)) > 0) {
+                    String texto = new String(bloque, 0, leidos);
+                    if (retornoPendiente) texto = "\r" + texto;
+                    retornoPendiente = texto.endsWith("\r");
+                    if (retornoPendiente) texto = texto.substring(0, texto.length() - 1);
+                    if (texto.indexOf('\r') >= 0) texto = texto.replace("\r\n", "\n");
+                    documento.insertString(documento.getLength(), texto, null);
                 }
-
-                codigoArea.setText(contenido.toString());
+                if (retornoPendiente) documento.insertString(documento.getLength(), "\r", null);
+                int largo = documento.getLength();
+                if (largo == 0 || !documento.getText(largo - 1, 1).equals("\n")) documento.insertString(largo, "\n", null);
+                codigoArea.setCaretPosition(0);
                 System.out.println("Archivo cargado correctamente!");
             } 
-            catch (IOException e) 
+            catch (IOException | BadLocationException e) 
             {
                 JOptionPane.showMessageDialog(this, "Error al leer el archivo: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
 
-    private void SaveTextFile(String titulo, String contenido) {
+    /** Lee hasta llenar el bloque o terminar el archivo; devuelve cuántos caracteres leyó */
+    private static int llenar(Reader lector, char[] bloque) throws IOException {
+        int leidos = 0;
+        int n;
+        while (leidos < bloque.length && (n = lector.read(bloque, leidos, bloque.length - leidos)) > 0) leidos += n;
+        return leidos;
+    }
+
+    private void SaveTextFile(String titulo, CharSequence contenido) {
         JFileChooser jfcGuardar = new JFileChooser();
         jfcGuardar.setDialogTitle("Guardar " + titulo + " como...");
         FileNameExtensionFilter filtro = new FileNameExtensionFilter("Archivos de texto (*.txt)", "txt");
@@ -270,7 +441,10 @@ public class View extends JFrame implements ActionListener{
             }
 
             try (java.io.FileWriter fw = new java.io.FileWriter(ruta)) {
-                fw.write(contenido);
+                // Por tramos, para no armar un String con todo el documento
+                for (int i = 0; i < contenido.length(); i += 8192) {
+                    fw.append(contenido, i, Math.min(contenido.length(), i + 8192));
+                }
                 JOptionPane.showMessageDialog(this, titulo + " guardado correctamente.");
             } catch (IOException e) {
                 JOptionPane.showMessageDialog(this, "Error al guardar " + titulo + ": " + e.getMessage());
@@ -324,7 +498,7 @@ public class View extends JFrame implements ActionListener{
         if (e.getSource() == btnAnalisisLexico) {
             // 🔹 Crear y ejecutar el analizador léxico
             AnalizadorLexico analizador = new AnalizadorLexico();
-            analizador.analizar(codigoArea.getText());
+            analizador.analizar(contenidoCodigo.getTexto());
 
             // ---------- LIMPIAR ZONAS ----------
             erroresArea.setText("");
@@ -349,7 +523,7 @@ public class View extends JFrame implements ActionListener{
         if (e.getActionCommand().equals("Análisis Sintáctico")) {
             //Ejecutar primero el análisis léxico
             AnalizadorLexico analizadorLexico = new AnalizadorLexico();
-            analizadorLexico.analizar(codigoArea.getText());
+            analizadorLexico.analizar(contenidoCodigo.getTexto());
 
             
 
@@ -366,7 +540,9 @@ public class View extends JFrame implements ActionListener{
 
             // ---------- EJECUTAR ANÁLISIS SINTÁCTICO ----------
             AnalizadorSintactico analizadorSintactico = new AnalizadorSintactico();
+            analizadorSintactico.setIndiceReferencias(true);
             analizadorSintactico.analizar(analizadorLexico.getTokens());
+            GuardarReferencias(analizadorLexico, analizadorSintactico);
             
             for (Simbolo s : analizadorSintactico.getTablaSimbolos()) {
                 modeloSimbolos.addRow(new Object[]{
@@ -387,10 +563,62 @@ public class View extends JFrame implements ActionListener{
         }
 
 
+        if (e.getSource() == btnAnalisisSemantico) {
+            AnalizadorLexico analizadorLexico = new AnalizadorLexico();
+            analizadorLexico.analizar(contenidoCodigo.getTexto());
+
+            // ---------- LIMPIAR ZONAS ----------
+            erroresArea.setText("");
+            DefaultTableModel modeloSimbolos = (DefaultTableModel) tablaSimbolos.getModel();
+            modeloSimbolos.setRowCount(0);
+
+            if (analizadorLexico.getTokens().isEmpty()) {
+                erroresArea.setText("No se encontraron tokens. Asegúrate de ejecutar el análisis léxico correctamente.\n");
+                return;
+            }
+
+            AnalizadorSintactico analizadorSintactico = new AnalizadorSintactico();
+            analizadorSintactico.setIndiceReferencias(true);
+            analizadorSintactico.analizar(analizadorLexico.getTokens());
+            GuardarReferencias(analizadorLexico, analizadorSintactico);
+
+            for (Simbolo s : analizadorSintactico.getTablaSimbolos()) {
+                modeloSimbolos.addRow(new Object[]{
+                    s.getNombre(), s.getTipo(), s.getClase(), s.getValor(),
+                    s.getVisibilidad(), s.getPosicion(), s.getRol()
+                });
+            }
+
+            // El análisis semántico solo tiene sentido sobre un árbol sin errores sintácticos
+            if (!analizadorSintactico.getErrores().isEmpty()) {
+                erroresArea.append("Corrige los errores sintácticos antes del análisis semántico.\n");
+                for (String err : analizadorSintactico.getErrores()) {
+                    erroresArea.append(err + "\n");
+                }
+                return;
+            }
+
+            // ---------- EJECUTAR ANÁLISIS SEMÁNTICO ----------
+            AnalizadorSemantico analizadorSemantico = new AnalizadorSemantico();
+            analizadorSemantico.analizar(analizadorSintactico.getArbol());
+
+            // ---------- MOSTRAR ERRORES ----------
+            if (analizadorSemantico.getErrores().isEmpty()) {
+                erroresArea.setText("Análisis semántico completado sin errores.\n");
+            } else {
+                for (String err : analizadorSemantico.getErrores()) {
+                    erroresArea.append(err + "\n");
+                }
+            }
+            for (String advertencia : analizadorSemantico.getAdvertencias()) {
+                erroresArea.append(advertencia + "\n");
+            }
+        }
+
         if(e.getSource() == JMIOpen){ OpenFile(); }
 
         if (e.getSource() == JMISave) { 
-            SaveTextFile("Código", codigoArea.getText()); 
+            SaveTextFile("Código", contenidoCodigo.getTexto()); 
         }
 
         if (e.getSource() == JMISaveError) { 
@@ -0,0 +1,345 @@
+package Util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Lista de solo agregado con un presupuesto de memoria. Los elementos se guardan
+ * en segmentos de tamaño fijo; cuando los segmentos en memoria pasan el
+ * presupuesto, los más viejos se escriben en formato binario compacto en un
+ * archivo temporal, se mapean con FileChannel.map y se sueltan del heap. Al
+ * leerlos se decodifican de nuevo desde el mapeo (y pueden desalojar a otros).
+ *
+ * Un elemento que volvió del disco es una copia igual al original, no el mismo
+ * objeto. La lectura se puede hacer desde varios hilos a la vez (el sintáctico
+ * paralelo lee los tokens así); agregar y modificar, desde uno solo y sin
+ * lecturas simultáneas.
+ */
+public class AlmacenSegmentado<T> extends AbstractList<T> implements RandomAccess {
+
+    /** Formato binario de un tipo de elemento y cuánto ocupa en el heap */
+    public interface Codificador<T> {
+        void escribir(T elemento, Escritor salida);
+        T leer(Lector entrada);
+        /** Estimación de los bytes de heap del elemento */
+        int bytesEnMemoria(T elemento);
+    }
+
+    static final Codificador<Token> TOKENS = new Codificador<Token>() {
+        @Override
+        public void escribir(Token t, Escritor salida) {
+            salida.texto(t.getTipo());
+            salida.texto(t.getLexema());
+            salida.entero(t.getLinea());
+            salida.entero(t.getColumna());
+        }
+
+        @Override
+        public Token leer(Lector entrada) {
+            return new Token(entrada.texto(), entrada.texto(), entrada.entero(), entrada.entero());
+        }
+
+        @Override
+        public int bytesEnMemoria(Token t) {
+            // Objeto (32) y el String del lexema; el tipo es una constante compartida
+            return 32 + bytesTexto(t.getLexema());
+        }
+    };
+
+    static final Codificador<Simbolo> SIMBOLOS = new Codificador<Simbolo>() {
+        @Override
+        public void escribir(Simbolo s, Escritor salida) {
+            salida.texto(s.getNombre());
+            salida.texto(s.getTipo());
+            salida.texto(s.getClase());
+            salida.texto(s.getValor());
+            salida.texto(s.getVisibilidad());
+            salida.texto(s.getPosicion());
+            salida.texto(s.getRol());
+        }
+
+        @Override
+        public Simbolo leer(Lector entrada) {
+            return new Simbolo(entrada.texto(), entrada.texto(), entrada.texto(), entrada.texto(),
+                entrada.texto(), entrada.texto(), entrada.texto());
+        }
+
+        @Override
+        public int bytesEnMemoria(Simbolo s) {
+            return 48 + bytesTexto(s.getNombre()) + bytesTexto(s.getTipo()) + bytesTexto(s.getClase()) +
+                bytesTexto(s.getValor()) + bytesTexto(s.getPosicion());
+        }
+    };
+
+    private static int bytesTexto(String texto) {
+        return texto == null ? 0 : 40 + texto.length();
+    }
+
+    // ------------------ FORMATO ------------------
+
+    /**
+     * Escribe enteros como varint con zigzag y textos con un diccionario por
+     * segmento: la primera aparición va completa (UTF-8) y las siguientes son una
+     * referencia a ella. Así palabras clave, separadores y tipos ocupan uno o dos bytes.
+     */
+    public static final class Escritor {
+        private byte[] datos = new byte[1 << 12];
+        private int largo;
+        private final Map<String, Integer> vistos = new HashMap<>();
+
+        public void entero(int valor) {
+            int v = (valor << 1) ^ (valor >> 31);
+            while ((v & ~0x7F) != 0) {
+                byte_((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            byte_(v);
+        }
+
+        /** 0 es null; 2k+1 es el texto ya visto número k; 2n+2 es un texto nuevo de n bytes */
+        public void texto(String texto) {
+            if (texto == null) {
+                entero(0);
+                return;
+            }
+            Integer visto = vistos.get(texto);
+            if (visto != null) {
+                entero(2 * visto + 1);
+                return;
+            }
+            vistos.put(texto, vistos.size());
+            byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+            entero(2 * utf8.length + 2);
+            asegurar(utf8.length);
+            System.arraycopy(utf8, 0, datos, largo, utf8.length);
+            largo += utf8.length;
+        }
+
+        private void byte_(int b) {
+            asegurar(1);
+            datos[largo++] = (byte) b;
+        }
+
+        private void asegurar(int bytes) {
+            if (largo + bytes > datos.length) datos = Arrays.copyOf(datos, Math.max(datos.length * 2, largo + bytes));
+        }
+    }
+
+    public static final class Lector {
+        private final ByteBuffer datos;
+        private final List<String> vistos = new ArrayList<>();
+
+        Lector(ByteBuffer datos) {
+            this.datos = datos;
+        }
+
+        public int entero() {
+            int v = 0, desplazamiento = 0, b;
+            do {
+                b = datos.get();
+                v |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while ((b & 0x80) != 0);
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        public String texto() {
+            int marca = entero();
+            if (marca == 0) return null;
+            if ((marca & 1) == 1) return vistos.get(marca >>> 1);
+            byte[] utf8 = new byte[(marca - 2) >>> 1];
+            datos.get(utf8);
+            String texto = new String(utf8, StandardCharsets.UTF_8);
+            vistos.add(texto);
+            return texto;
+        }
+    }
+
+    // ------------------ SEGMENTOS ------------------
+
+    static final int ELEMENTOS_POR_SEGMENTO = 4096;
+
+    private static final Cleaner LIMPIEZA = Cleaner.create();
+
+    private static final class Segmento {
+        volatile Object[] elementos;    // null mientras está solo en disco
+        ByteBuffer mapeo;               // null si nunca se escribió o se modificó después
+        long bytes;                     // estimación en el heap de sus elementos
+        int cantidad;
+    }
+
+    /** Borra el archivo temporal cuando el almacén ya no se usa */
+    private static final class Archivo implements Runnable {
+        volatile Path ruta;
+
+        @Override
+        public void run() {
+            try {
+                if (ruta != null) Files.deleteIfExists(ruta);
+            } catch (IOException e) {
+                // Queda en el directorio temporal del sistema
+            }
+        }
+    }
+
+    private final Codificador<T> codificador;
+    private final long presupuesto;
+    private final List<Segmento> segmentos = new ArrayList<>();
+    private final Deque<Segmento> enMemoria = new ArrayDeque<>();   // del más viejo al más nuevo
+    private final Archivo archivo = new Archivo();
+    private long bytesEnMemoria;
+    private long bytesEnDisco;
+    private int cantidad;
+    private int segmentosLeidos;
+
+    /** presupuesto: bytes de heap estimados que pueden ocupar los elementos en memoria */
+    public AlmacenSegmentado(Codificador<T> codificador, long presupuesto) {
+        this.codificador = codificador;
+        this.presupuesto = presupuesto;
+        LIMPIEZA.register(this, archivo);
+    }
+
+    @Override
+    public int size() {
+        return cantidad;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int indice) {
+        if (indice < 0 || indice >= cantidad) throw new IndexOutOfBoundsException(indice);
+        Segmento segmento = segmentos.get(indice / ELEMENTOS_POR_SEGMENTO);
+        Object[] elementos = segmento.elementos;
+        if (elementos == null) elementos = cargar(segmento);
+        return (T) elementos[indice % ELEMENTOS_POR_SEGMENTO];
+    }
+
+    @Override
+    public boolean add(T elemento) {
+        if (cantidad % ELEMENTOS_POR_SEGMENTO == 0) {
+            Segmento nuevo = new Segmento();
+            nuevo.elementos = new Object[ELEMENTOS_POR_SEGMENTO];
+            segmentos.add(nuevo);
+            enMemoria.addLast(nuevo);
+        }
+        Segmento ultimo = segmentos.get(segmentos.size() - 1);
+        if (ultimo.elementos == null) cargar(ultimo);
+        ultimo.elementos[ultimo.cantidad++] = elemento;
+        int bytes = codificador.bytesEnMemoria(elemento);
+        ultimo.bytes += bytes;
+        ultimo.mapeo = null;
+        cantidad++;
+        modCount++;
+        bytesEnMemoria += bytes;
+        if (bytesEnMemoria > presupuesto) desalojar(ultimo);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int indice, T elemento) {
+        if (indice < 0 || indice >= cantidad) throw new IndexOutOfBoundsException(indice);
+        Segmento segmento = segmentos.get(indice / ELEMENTOS_POR_SEGMENTO);
+        Object[] elementos = segmento.elementos != null ? segmento.elementos : cargar(segmento);
+        T anterior = (T) elementos[indice % ELEMENTOS_POR_SEGMENTO];
+        elementos[indice % ELEMENTOS_POR_SEGMENTO] = elemento;
+        long diferencia = codificador.bytesEnMemoria(elemento) - codificador.bytesEnMemoria(anterior);
+        segmento.bytes += diferencia;
+        bytesEnMemoria += diferencia;
+        // La copia del disco quedó vieja: se vuelve a escribir si hace falta desalojarlo
+        segmento.mapeo = null;
+        return anterior;
+    }
+
+    @Override
+    public void clear() {
+        segmentos.clear();
+        enMemoria.clear();
+        bytesEnMemoria = 0;
+        cantidad = 0;
+        modCount++;
+    }
+
+    /** Elementos que no están en memoria en este momento */
+    public synchronized int getElementosEnDisco() {
+        int enDisco = 0;
+        for (Segmento segmento : segmentos) if (segmento.elementos == null) enDisco += segmento.cantidad;
+        return enDisco;
+    }
+
+    public synchronized long getBytesEnMemoria() { return bytesEnMemoria; }
+    public synchronized long getBytesEnDisco() { return bytesEnDisco; }
+    /** Veces que un segmento se tuvo que decodificar del disco */
+    public synchronized int getSegmentosLeidos() { return segmentosLeidos; }
+
+    // ------------------ DISCO ------------------
+
+    /** Decodifica un segmento desde su mapeo y lo vuelve a contar en el presupuesto */
+    private synchronized Object[] cargar(Segmento segmento) {
+        if (segmento.elementos != null) return segmento.elementos;   // otro hilo ya lo trajo
+        Lector lector = new Lector(segmento.mapeo.duplicate());
+        Object[] elementos = new Object[ELEMENTOS_POR_SEGMENTO];
+        for (int i = 0; i < segmento.cantidad; i++) elementos[i] = codificador.leer(lector);
+        segmento.elementos = elementos;
+        segmentosLeidos++;
+        enMemoria.addLast(segmento);
+        bytesEnMemoria += segmento.bytes;
+        if (bytesEnMemoria > presupuesto) desalojar(segmento);
+        return elementos;
+    }
+
+    /** Manda a disco los segmentos más viejos hasta entrar en el presupuesto, salvo el indicado */
+    private synchronized void desalojar(Segmento conservar) {
+        while (bytesEnMemoria > presupuesto && !enMemoria.isEmpty()) {
+            Segmento segmento = enMemoria.peekFirst();
+            if (segmento == conservar) {
+                if (enMemoria.size() == 1) return;
+                enMemoria.pollFirst();
+                enMemoria.addLast(segmento);
+                continue;
+            }
+            enMemoria.pollFirst();
+            if (segmento.mapeo == null) escribir(segmento);
+            segmento.elementos = null;
+            bytesEnMemoria -= segmento.bytes;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void escribir(Segmento segmento) {
+        Escritor escritor = new Escritor();
+        for (int i = 0; i < segmento.cantidad; i++) codificador.escribir((T) segmento.elementos[i], escritor);
+        try {
+            if (archivo.ruta == null) {
+                archivo.ruta = Files.createTempFile("analizador-", ".segmentos");
+                // Si la JVM termina antes de que el almacén se descarte
+                archivo.ruta.toFile().deleteOnExit();
+            }
+            try (FileChannel canal = FileChannel.open(archivo.ruta, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long posicion = canal.size();
+                canal.write(ByteBuffer.wrap(escritor.datos, 0, escritor.largo), posicion);
+                // El mapeo sigue valiendo después de cerrar el canal
+                segmento.mapeo = canal.map(FileChannel.MapMode.READ_ONLY, posicion, escritor.largo);
+            }
+            bytesEnDisco += escritor.largo;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el almacén temporal", e);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Análisis de flujo de datos sobre los GrafoFlujo de cada método:
+ * asignación definida (una variable local no se lee antes de asignarse en todos
+ * los caminos), variables vivas (valores asignados que nunca se leen) y
+ * variables declaradas que no se usan.
+ *
+ * Los análisis son problemas gen/kill resueltos con una lista de trabajo sobre
+ * BitSet densos, uno por bloque básico. Los bloques se visitan en orden posterior
+ * inverso (o su reverso para los análisis hacia atrás), así el número de pasadas
+ * depende del anidamiento de los ciclos y no de la cantidad de sentencias.
+ */
+public class AnalisisFlujo {
+
+    private final List<String> errores;
+    private final List<String> advertencias;
+    private final List<GrafoFlujo> grafos;
+
+    public AnalisisFlujo() {
+        this.errores = new ArrayList<>();
+        this.advertencias = new ArrayList<>();
+        this.grafos = new ArrayList<>();
+    }
+
+    /** Analiza todos los métodos, el main y los bloques estáticos del programa */
+    public void analizar(Nodo programa) {
+        errores.clear();
+        advertencias.clear();
+        grafos.clear();
+        if (programa == null) return;
+
+        for (Nodo clase : programa.getHijos()) {
+            for (Nodo miembro : clase.getHijos()) {
+                switch (miembro.getTipo()) {
+                    case "Metodo":
+                    case "Main":
+                    case "Estatico":
+                        analizarMetodo(GrafoFlujo.construir(clase.getValor() + "." +
+                            (miembro.getValor() != null ? miembro.getValor() : "static"), miembro));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    public List<String> getErrores() { return errores; }
+    public List<String> getAdvertencias() { return advertencias; }
+    public List<GrafoFlujo> getGrafos() { return grafos; }
+
+    private void analizarMetodo(GrafoFlujo grafo) {
+        grafos.add(grafo);
+        int[] orden = grafo.ordenPosteriorInverso();
+        asignacionDefinida(grafo, orden);
+        variablesVivas(grafo, orden);
+    }
+
+    // ------------------ ASIGNACIÓN DEFINIDA ------------------
+
+    /**
+     * Hacia adelante con intersección: al entrar a un bloque una variable está
+     * asignada solo si lo está al salir de todos sus predecesores.
+     */
+    private void asignacionDefinida(GrafoFlujo grafo, int[] orden) {
+        List<GrafoFlujo.BloqueBasico> bloques = grafo.getBloques();
+        BitSet[] gen = new BitSet[bloques.size()];
+        BitSet[] kill = new BitSet[bloques.size()];
+        for (GrafoFlujo.BloqueBasico bloque : bloques) {
+            BitSet g = new BitSet(), k = new BitSet();
+            for (GrafoFlujo.Instruccion instruccion : bloque.getInstrucciones()) {
+                // Una declaración sin valor deja la variable sin asignar (en un ciclo, en cada vuelta)
+                if (instruccion.getDeclarada() >= 0) {
+                    g.clear(instruccion.getDeclarada());
+                    k.set(instruccion.getDeclarada());
+                }
+                for (int d : instruccion.getDefiniciones()) {
+                    g.set(d);
+                    k.clear(d);
+                }
+            }
+            gen[bloque.getId()] = g;
+            kill[bloque.getId()] = k;
+        }
+
+        BitSet[] entrada = resolver(grafo, orden, true, true, new BitSet(), gen, kill);
+
+        Set<Nodo> reportados = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int b : orden) {
+            BitSet asignadas = (BitSet) entrada[b].clone();
+            for (GrafoFlujo.Instruccion instruccion : bloques.get(b).getInstrucciones()) {
+                int[] usos = instruccion.getUsos();
+                for (int i = 0; i < usos.length; i++) {
+                    Nodo uso = instruccion.getNodosUso()[i];
+                    if (!asignadas.get(usos[i]) && reportados.add(uso)) {
+                        registrarError(uso, "La variable '" + uso.getValor() + "' podría no haber sido inicializada.");
+                    }
+                }
+                if (instruccion.getDeclarada() >= 0) asignadas.clear(instruccion.getDeclarada());
+                for (int d : instruccion.getDefiniciones()) asignadas.set(d);
+            }
+        }
+    }
+
+    // ------------------ VARIABLES VIVAS ------------------
+
+    /**
+     * Hacia atrás con unión: una variable está viva al salir de un bloque si algún
+     * sucesor la lee antes de volver a asignarla. Una asignación a una variable
+     * que no está viva justo después es un valor que nunca se usa.
+     *
+     * Las sentencias de un finally están dos veces en el grafo (ver
+     * GrafoFlujo.sentenciaTry): una asignación o una declaración se advierte una
+     * sola vez y solo si lo es en todas sus copias.
+     */
+    private void variablesVivas(GrafoFlujo grafo, int[] orden) {
+        List<GrafoFlujo.BloqueBasico> bloques = grafo.getBloques();
+        List<Nodo> variables = grafo.getVariables();
+        BitSet[] gen = new BitSet[bloques.size()];
+        BitSet[] kill = new BitSet[bloques.size()];
+        BitSet leidas = new BitSet();
+
+        for (GrafoFlujo.BloqueBasico bloque : bloques) {
+            BitSet g = new BitSet(), k = new BitSet();
+            List<GrafoFlujo.Instruccion> instrucciones = bloque.getInstrucciones();
+            for (int i = instrucciones.size() - 1; i >= 0; i--) {
+                GrafoFlujo.Instruccion instruccion = instrucciones.get(i);
+                for (int d : instruccion.getDefiniciones()) {
+                    g.clear(d);
+                    k.set(d);
+                }
+                for (int u : instruccion.getUsos()) {
+                    g.set(u);
+                    leidas.set(u);
+                }
+            }
+            gen[bloque.getId()] = g;
+            kill[bloque.getId()] = k;
+        }
+
+        int[] inverso = new int[orden.length];
+        for (int i = 0; i < orden.length; i++) inverso[i] = orden[orden.length - 1 - i];
+        BitSet[] salida = resolver(grafo, inverso, false, false, new BitSet(), gen, kill);
+
+        // Se recorre en orden de bloques para que las advertencias salgan según el código.
+        // Cada candidata es {asignación, declaración}; usadas guarda las que se leen en alguna copia
+        List<Nodo[]> candidatas = new ArrayList<>();
+        Map<Nodo, Set<Nodo>> usadas = new IdentityHashMap<>();
+        for (int b : orden) {
+            BitSet vivas = (BitSet) salida[b].clone();
+            List<GrafoFlujo.Instruccion> instrucciones = bloques.get(b).getInstrucciones();
+            List<Nodo[]> delBloque = new ArrayList<>();
+            for (int i = instrucciones.size() - 1; i >= 0; i--) {
+                GrafoFlujo.Instruccion instruccion = instrucciones.get(i);
+                Nodo nodo = instruccion.getNodo();
+                boolean esAsignacion = nodo.getTipo().equals("Asignacion") || nodo.getTipo().equals("Variable");
+                for (int d : instruccion.getDefiniciones()) {
+                    if (esAsignacion && leidas.get(d)) {
+                        if (!vivas.get(d)) delBloque.add(new Nodo[] {nodo, variables.get(d)});
+                        else usadas.computeIfAbsent(nodo, k -> identidad()).add(variables.get(d));
+                    }
+                    vivas.clear(d);
+                }
+                for (int u : instruccion.getUsos()) vivas.set(u);
+            }
+            Collections.reverse(delBloque);
+            candidatas.addAll(delBloque);
+        }
+
+        Map<Nodo, Set<Nodo>> advertidas = new IdentityHashMap<>();
+        for (Nodo[] candidata : candidatas) {
+            Nodo nodo = candidata[0], declaracion = candidata[1];
+            if (usadas.getOrDefault(nodo, Collections.emptySet()).contains(declaracion)) continue;
+            if (!advertidas.computeIfAbsent(nodo, k -> identidad()).add(declaracion)) continue;
+            advertencias.add(advertencia(nodo, "El valor asignado a '" + declaracion.getValor() + "' nunca se usa."));
+        }
+
+        Set<Nodo> declaracionesLeidas = identidad();
+        for (int v = leidas.nextSetBit(0); v >= 0; v = leidas.nextSetBit(v + 1)) declaracionesLeidas.add(variables.get(v));
+        Set<Nodo> reportadas = identidad();
+        for (Nodo declaracion : variables) {
+            if (declaracion.getTipo().equals("Variable") && !declaracionesLeidas.contains(declaracion) && reportadas.add(declaracion)) {
+                advertencias.add(advertencia(declaracion, "La variable '" + declaracion.getValor() + "' se declara pero nunca se usa."));
+            }
+        }
+    }
+
+    private static Set<Nodo> identidad() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    // ------------------ MOTOR ------------------
+
+    /**
+     * Resuelve un problema gen/kill: estado' = gen ∪ (estado − kill).
+     * haciaAdelante indica si el estado fluye de predecesores a sucesores;
+     * interseccion, si se combinan con intersección (análisis "en todos los
+     * caminos") o con unión. frontera es el estado en la entrada (o en la salida
+     * para los análisis hacia atrás). Devuelve, por bloque, el estado combinado
+     * antes de aplicar su transferencia.
+     */
+    static BitSet[] resolver(GrafoFlujo grafo, int[] orden, boolean haciaAdelante, boolean interseccion,
+                             BitSet frontera, BitSet[] gen, BitSet[] kill) {
+        List<GrafoFlujo.BloqueBasico> bloques = grafo.getBloques();
+        int cantidad = bloques.size();
+        int inicial = haciaAdelante ? grafo.getEntrada().getId() : grafo.getSalida().getId();
+
+        // Con intersección el valor neutro es "todas las variables". Los bloques aún
+        // no visitados quedan en null y no participan en la combinación, así no se
+        // reservan conjuntos llenos para cada bloque
+        BitSet[] antes = new BitSet[cantidad];
+        BitSet[] despues = new BitSet[cantidad];
+
+        ArrayDeque<Integer> pendientes = new ArrayDeque<>(cantidad);
+        boolean[] enLista = new boolean[cantidad];
+        for (int b : orden) {
+            pendientes.add(b);
+            enLista[b] = true;
+        }
+
+        while (!pendientes.isEmpty()) {
+            int b = pendientes.poll();
+            enLista[b] = false;
+            GrafoFlujo.BloqueBasico bloque = bloques.get(b);
+
+            BitSet estado = null;
+            if (b == inicial) {
+                estado = (BitSet) frontera.clone();
+            } else {
+                for (int fuente : haciaAdelante ? bloque.getPredecesores() : bloque.getSucesores()) {
+                    if (despues[fuente] == null) continue;
+                    if (estado == null) estado = (BitSet) despues[fuente].clone();
+                    else if (interseccion) estado.and(despues[fuente]);
+                    else estado.or(despues[fuente]);
+                }
+                if (estado == null) {
+                    estado = new BitSet();
+                    if (interseccion) estado.set(0, grafo.getVariables().size());
+                }
+            }
+            antes[b] = estado;
+
+            BitSet nuevo = (BitSet) estado.clone();
+            nuevo.andNot(kill[b]);
+            nuevo.or(gen[b]);
+            if (nuevo.equals(despues[b])) continue;
+            despues[b] = nuevo;
+
+            for (int destino : haciaAdelante ? bloque.getSucesores() : bloque.getPredecesores()) {
+                if (!enLista[destino]) {
+                    pendientes.add(destino);
+                    enLista[destino] = true;
+                }
+            }
+        }
+        return antes;
+    }
+
+    // ------------------ MENSAJES ------------------
+
+    private void registrarError(Nodo nodo, String mensaje) {
+        if (nodo != null && nodo.getToken() != null) {
+            errores.add(String.format("Error semántico en línea %d, columna %d: %s",
+                nodo.getLinea(), nodo.getColumna(), mensaje));
+        } else {
+            errores.add("Error semántico: " + mensaje);
+        }
+    }
+
+    private static String advertencia(Nodo nodo, String mensaje) {
+        if (nodo != null && nodo.getToken() != null) {
+            return String.format("Advertencia en línea %d, columna %d: %s", nodo.getLinea(), nodo.getColumna(), mensaje);
+        }
+        return "Advertencia: " + mensaje;
+    }
+}
@@ -0,0 +1,256 @@
+package Util;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modo sombra: analiza el mismo código con dos configuraciones del léxico y el
+ * sintáctico (por defecto la original contra la rápida) y compara tokens, tabla
+ * de símbolos y errores. Así un motor nuevo se puede poner en producción
+ * viendo en qué archivos difiere y cuánto más rápido es en cada uno.
+ *
+ * Se puede usar sobre una muestra: muestrear decide por el nombre y el contenido
+ * del archivo, de modo que el mismo archivo sin cambios siempre cae del mismo lado.
+ * Los totales se acumulan de forma sincronizada porque AnalizadorProyecto
+ * compara archivos desde varios hilos.
+ */
+public class AnalisisSombra {
+
+    /** Configuración de los analizadores que se compara */
+    public static final class Motor {
+        public static final Motor ORIGINAL = new Motor("original", false, false);
+        public static final Motor RAPIDO = new Motor("rápido", true, true);
+
+        private final String nombre;
+        private final boolean lexicoRapido;
+        private final boolean sintacticoParalelo;
+
+        public Motor(String nombre, boolean lexicoRapido, boolean sintacticoParalelo) {
+            this.nombre = nombre;
+            this.lexicoRapido = lexicoRapido;
+            this.sintacticoParalelo = sintacticoParalelo;
+        }
+
+        public String getNombre() { return nombre; }
+    }
+
+    /** Resultado de un motor sobre un archivo */
+    private static final class Corrida {
+        List<Token> tokens = Collections.emptyList();
+        List<Simbolo> simbolos = Collections.emptyList();
+        List<String> errores = new ArrayList<>();
+        long nanosLexico;
+        long nanosSintactico;
+    }
+
+    /** Comparación de los dos motores sobre un archivo */
+    public static final class Comparacion {
+        private final String archivo;
+        private final List<String> diferencias = new ArrayList<>();
+        private long nanosReferencia;
+        private long nanosNuevo;
+
+        Comparacion(String archivo) {
+            this.archivo = archivo;
+        }
+
+        public String getArchivo() { return archivo; }
+        /** Descripción de cada diferencia; vacía si los dos motores coinciden */
+        public List<String> getDiferencias() { return diferencias; }
+        public boolean coinciden() { return diferencias.isEmpty(); }
+        public long getNanosReferencia() { return nanosReferencia; }
+        public long getNanosNuevo() { return nanosNuevo; }
+        /** Cuántas veces más rápido fue el motor nuevo */
+        public double getAceleracion() { return (double) nanosReferencia / Math.max(1, nanosNuevo); }
+    }
+
+    // Diferencias que se describen por categoría; del resto solo se informa la cantidad
+    private static final int DIFERENCIAS_POR_CATEGORIA = 5;
+
+    private final Motor referencia;
+    private final Motor nuevo;
+    private final double fraccion;
+    private PrintStream registro;
+
+    private int archivos;
+    private int divergentes;
+    private long nanosReferencia;
+    private long nanosNuevo;
+
+    public AnalisisSombra(double fraccion) {
+        this(Motor.ORIGINAL, Motor.RAPIDO, fraccion);
+    }
+
+    /** fraccion: parte de los archivos que se compara, entre 0 y 1 */
+    public AnalisisSombra(Motor referencia, Motor nuevo, double fraccion) {
+        this.referencia = referencia;
+        this.nuevo = nuevo;
+        this.fraccion = Math.max(0, Math.min(1, fraccion));
+    }
+
+    /** Si no es null, se escribe una línea por cada archivo comparado */
+    public void setRegistro(PrintStream registro) {
+        this.registro = registro;
+    }
+
+    public boolean muestrear(String archivo, String codigo) {
+        if (fraccion >= 1) return true;
+        int huella = 31 * archivo.hashCode() + codigo.hashCode();
+        return Math.floorMod(huella * 0x9E3779B9, 10000) < fraccion * 10000;
+    }
+
+    /** Analiza el código con los dos motores y compara lo que produjeron */
+    public Comparacion comparar(String archivo, String codigo) {
+        // El orden se alterna para que el calentamiento de la JVM no favorezca siempre al mismo
+        boolean primeroNuevo = (archivo.hashCode() & 1) == 1;
+        Corrida a = ejecutar(primeroNuevo ? nuevo : referencia, codigo);
+        Corrida b = ejecutar(primeroNuevo ? referencia : nuevo, codigo);
+        Corrida deReferencia = primeroNuevo ? b : a;
+        Corrida delNuevo = primeroNuevo ? a : b;
+
+        Comparacion comparacion = new Comparacion(archivo);
+        comparacion.nanosReferencia = deReferencia.nanosLexico + deReferencia.nanosSintactico;
+        comparacion.nanosNuevo = delNuevo.nanosLexico + delNuevo.nanosSintactico;
+        compararTokens(deReferencia.tokens, delNuevo.tokens, comparacion.diferencias);
+        compararSimbolos(deReferencia.simbolos, delNuevo.simbolos, comparacion.diferencias);
+        compararErrores(deReferencia.errores, delNuevo.errores, comparacion.diferencias);
+
+        synchronized (this) {
+            archivos++;
+            if (!comparacion.coinciden()) divergentes++;
+            nanosReferencia += comparacion.nanosReferencia;
+            nanosNuevo += comparacion.nanosNuevo;
+            if (registro != null) {
+                registro.printf("%s: léxico %s, sintáctico %s, %s%n", archivo,
+                    razon(deReferencia.nanosLexico, delNuevo.nanosLexico),
+                    razon(deReferencia.nanosSintactico, delNuevo.nanosSintactico),
+                    comparacion.coinciden() ? "sin diferencias" : comparacion.diferencias.size() + " diferencias");
+                for (String diferencia : comparacion.diferencias) registro.println("  " + diferencia);
+            }
+        }
+        return comparacion;
+    }
+
+    private static Corrida ejecutar(Motor motor, String codigo) {
+        Corrida corrida = new Corrida();
+        long inicio = System.nanoTime();
+        AnalizadorLexico lexico = new AnalizadorLexico();
+        lexico.setModoRapido(motor.lexicoRapido);
+        lexico.analizar(codigo);
+        corrida.nanosLexico = System.nanoTime() - inicio;
+        corrida.tokens = lexico.getTokens();
+        corrida.errores.addAll(lexico.getErrores());
+        if (!lexico.getErrores().isEmpty()) return corrida;
+
+        inicio = System.nanoTime();
+        AnalizadorSintactico sintactico = new AnalizadorSintactico();
+        sintactico.setModoParalelo(motor.sintacticoParalelo);
+        sintactico.analizar(lexico.getTokens());
+        corrida.nanosSintactico = System.nanoTime() - inicio;
+        corrida.simbolos = sintactico.getTablaSimbolos();
+        corrida.errores.addAll(sintactico.getErrores());
+        return corrida;
+    }
+
+    // ------------------ DIFERENCIAS ------------------
+
+    private void compararTokens(List<Token> a, List<Token> b, List<String> diferencias) {
+        int distintos = 0;
+        int comunes = Math.min(a.size(), b.size());
+        for (int i = 0; i < comunes; i++) {
+            if (mismoToken(a.get(i), b.get(i))) continue;
+            if (distintos++ < DIFERENCIAS_POR_CATEGORIA) {
+                diferencias.add("Token " + i + ": " + describir(a.get(i)) + " (" + referencia.nombre + ") vs. " +
+                    describir(b.get(i)) + " (" + nuevo.nombre + ")");
+            }
+        }
+        if (distintos > DIFERENCIAS_POR_CATEGORIA) {
+            diferencias.add("... y " + (distintos - DIFERENCIAS_POR_CATEGORIA) + " tokens distintos más");
+        }
+        if (a.size() != b.size()) {
+            diferencias.add("Cantidad de tokens: " + a.size() + " (" + referencia.nombre + ") vs. " +
+                b.size() + " (" + nuevo.nombre + ")");
+        }
+    }
+
+    private void compararSimbolos(List<Simbolo> a, List<Simbolo> b, List<String> diferencias) {
+        int distintos = 0;
+        int comunes = Math.min(a.size(), b.size());
+        for (int i = 0; i < comunes; i++) {
+            String x = describir(a.get(i)), y = describir(b.get(i));
+            if (x.equals(y)) continue;
+            if (distintos++ < DIFERENCIAS_POR_CATEGORIA) {
+                diferencias.add("Símbolo " + i + ": " + x + " (" + referencia.nombre + ") vs. " + y + " (" + nuevo.nombre + ")");
+            }
+        }
+        if (distintos > DIFERENCIAS_POR_CATEGORIA) {
+            diferencias.add("... y " + (distintos - DIFERENCIAS_POR_CATEGORIA) + " símbolos distintos más");
+        }
+        if (a.size() != b.size()) {
+            diferencias.add("Cantidad de símbolos: " + a.size() + " (" + referencia.nombre + ") vs. " +
+                b.size() + " (" + nuevo.nombre + ")");
+        }
+    }
+
+    /** Los errores se comparan como conjuntos con repetición: un cambio de orden no es diferencia */
+    private void compararErrores(List<String> a, List<String> b, List<String> diferencias) {
+        Map<String, Integer> pendientes = new HashMap<>();
+        for (String error : a) pendientes.merge(error, 1, Integer::sum);
+        List<String> sobrantes = new ArrayList<>();
+        for (String error : b) {
+            if (pendientes.merge(error, -1, Integer::sum) < 0) sobrantes.add(error);
+        }
+        List<String> faltantes = new ArrayList<>();
+        for (String error : a) {
+            if (pendientes.getOrDefault(error, 0) > 0) {
+                faltantes.add(error);
+                pendientes.merge(error, -1, Integer::sum);
+            }
+        }
+        agregarErrores("Error solo en " + referencia.nombre + ": ", faltantes, diferencias);
+        agregarErrores("Error solo en " + nuevo.nombre + ": ", sobrantes, diferencias);
+    }
+
+    private static void agregarErrores(String prefijo, List<String> errores, List<String> diferencias) {
+        for (int i = 0; i < Math.min(errores.size(), DIFERENCIAS_POR_CATEGORIA); i++) {
+            diferencias.add(prefijo + errores.get(i));
+        }
+        if (errores.size() > DIFERENCIAS_POR_CATEGORIA) {
+            diferencias.add("... y " + (errores.size() - DIFERENCIAS_POR_CATEGORIA) + " errores más");
+        }
+    }
+
+    private static boolean mismoToken(Token a, Token b) {
+        return a.getLinea() == b.getLinea() && a.getColumna() == b.getColumna() &&
+            a.getTipo().equals(b.getTipo()) && a.getLexema().equals(b.getLexema());
+    }
+
+    private static String describir(Token t) {
+        return t.getTipo() + " '" + t.getLexema() + "' en " + t.getLinea() + ":" + t.getColumna();
+    }
+
+    private static String describir(Simbolo s) {
+        return String.join(" | ", s.getNombre(), s.getTipo(), s.getClase(), s.getValor(),
+            s.getVisibilidad(), s.getPosicion(), s.getRol());
+    }
+
+    private static String razon(long referencia, long nuevo) {
+        if (referencia == 0 && nuevo == 0) return "-";
+        return String.format("%.1fx", (double) referencia / Math.max(1, nuevo));
+    }
+
+    // ------------------ TOTALES ------------------
+
+    public synchronized int getArchivos() { return archivos; }
+    public synchronized int getDivergentes() { return divergentes; }
+
+    public synchronized void imprimirResumen(PrintStream salida) {
+        salida.printf("Modo sombra (%s vs. %s): %d archivos comparados, %d con diferencias. %s vs. %s (%s)%n",
+            referencia.nombre, nuevo.nombre, archivos, divergentes, Benchmark.milisegundos(nanosReferencia),
+            Benchmark.milisegundos(nanosNuevo), razon(nanosReferencia, nanosNuevo));
+    }
+}
@@ -0,0 +1,126 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analizador predictivo dirigido por la tabla que genera GeneradorLL1 (TablaLL1).
+ * Reconoce la gramática de MiniJAVA_BNF.md con una pila explícita de enteros:
+ * cada token se traduce una vez a su código de terminal y en cada paso la
+ * producción a aplicar es una sola lectura de la tabla.
+ *
+ * Solo valida la sintaxis: no construye árbol ni tabla de símbolos y se detiene
+ * en el primer error. Lo que la BNF no incluye (for, switch, inicializadores,
+ * etc.) se informa como error aunque AnalizadorSintactico lo acepte.
+ */
+public class AnalizadorLL1 {
+
+    private static final int TERMINALES = TablaLL1.TERMINALES.length;
+    private static final Map<String, Integer> LEXEMAS = new HashMap<>();
+    private static final Map<String, Integer> CLASES = new HashMap<>();
+
+    static {
+        Map<String, String> tipos = Map.of(
+            "<IDENTIFIER>", "Identificador",
+            "<INTEGER_LITERAL>", "Entero",
+            "<STRING_LITERAL>", "Cadena");
+        for (int t = 1; t < TERMINALES; t++) {
+            String terminal = TablaLL1.TERMINALES[t];
+            if (terminal.startsWith("\"")) LEXEMAS.put(terminal.substring(1, terminal.length() - 1), t);
+            else if (tipos.containsKey(terminal)) CLASES.put(tipos.get(terminal), t);
+        }
+    }
+
+    private final List<String> errores = new ArrayList<>();
+    private int producciones;
+
+    public void analizar(List<Token> tokens) {
+        errores.clear();
+        producciones = 0;
+
+        int[] codigos = codificar(tokens);
+        short[] tabla = TablaLL1.TABLA;
+        short[] derechas = TablaLL1.DERECHAS;
+        short[] inicios = TablaLL1.INICIOS;
+
+        int[] pila = new int[64];
+        int tope = 0;
+        pila[tope++] = TablaLL1.INICIAL;
+        int i = 0;
+        while (tope > 0) {
+            int simbolo = pila[--tope];
+            int terminal = codigos[i];
+            if (simbolo < TERMINALES) {
+                if (simbolo != terminal) {
+                    error(tokens, i, List.of(simbolo));
+                    return;
+                }
+                i++;
+                continue;
+            }
+            int produccion = tabla[(simbolo - TERMINALES) * TERMINALES + terminal];
+            if (produccion < 0) {
+                error(tokens, i, esperados(simbolo - TERMINALES));
+                return;
+            }
+            producciones++;
+            int desde = inicios[produccion], hasta = inicios[produccion + 1];
+            if (tope + hasta - desde > pila.length) pila = Arrays.copyOf(pila, pila.length * 2 + hasta - desde);
+            for (int k = desde; k < hasta; k++) pila[tope++] = derechas[k];
+        }
+
+        // Se reconoció el fin de archivo antes del último token: ese token no es de la gramática
+        if (i - 1 < tokens.size()) error(tokens, i - 1, List.of(0));
+    }
+
+    public List<String> getErrores() { return errores; }
+
+    /** Producciones aplicadas en el último análisis */
+    public int getProducciones() { return producciones; }
+
+    /**
+     * Código de terminal de cada token, terminado en 0 (fin de archivo). Las palabras
+     * de la gramática valen por su lexema aunque el léxico las trate como
+     * identificadores (String, main, length). Un token que la gramática no conoce
+     * corta la entrada: el análisis falla ahí con un error sobre ese token.
+     */
+    static int[] codificar(List<Token> tokens) {
+        int[] codigos = new int[tokens.size() + 1];
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            Integer codigo = LEXEMAS.get(token.getLexema());
+            if (codigo == null) codigo = CLASES.get(token.getTipo());
+            if (codigo == null) break;      // codigos[i] queda en 0
+            codigos[i] = codigo;
+        }
+        return codigos;
+    }
+
+    private static List<Integer> esperados(int noTerminal) {
+        List<Integer> esperados = new ArrayList<>();
+        for (int t = 0; t < TERMINALES; t++) {
+            if (TablaLL1.TABLA[noTerminal * TERMINALES + t] >= 0) esperados.add(t);
+        }
+        return esperados;
+    }
+
+    private void error(List<Token> tokens, int posicion, List<Integer> esperados) {
+        StringBuilder lista = new StringBuilder();
+        for (int k = 0; k < esperados.size(); k++) {
+            if (k > 0) lista.append(k == esperados.size() - 1 ? " o " : ", ");
+            String terminal = TablaLL1.TERMINALES[esperados.get(k)];
+            lista.append(terminal.startsWith("\"") ? "'" + terminal.substring(1, terminal.length() - 1) + "'" : terminal);
+        }
+        if (posicion < tokens.size()) {
+            Token t = tokens.get(posicion);
+            errores.add(String.format(
+                "Error sintáctico en línea %d, columna %d: Se esperaba %s pero se encontró '%s'.",
+                t.getLinea(), t.getColumna(), lista, t.getLexema()));
+        } else {
+            errores.add("Error sintáctico: fin de archivo inesperado, se esperaba " + lista + ".");
+        }
+    }
+}
@@ -33,192 +33,455 @@ public class AnalizadorLexico {
     ));
 
 
+    // Con un presupuesto (bytes), los tokens van a un AlmacenSegmentado que manda a disco lo que sobra
+    private long presupuestoMemoria = 0;
+
+    // Límite de tiempo y tokens, consultado al empezar cada línea
+    private Presupuesto presupuesto = Presupuesto.ILIMITADO;
+    private boolean truncado = false;
+
+    // Modo rápido: clasificación de caracteres ASCII por tabla y lectura por tramos
+    private boolean modoRapido = false;
+
+    private static final byte ESPACIO = 1;      // Character.isWhitespace
+    private static final byte CORTE = 2;        // esSeparadorOOperador
+    private static final byte PALABRA = 4;      // se acumula en el lexema
+    private static final byte[] CLASES = new byte[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            if (Character.isWhitespace(c)) CLASES[c] = ESPACIO;
+            else if (esSeparadorOOperador(c)) CLASES[c] = CORTE;
+            else if (c != '.' && c != '"') CLASES[c] = PALABRA;
+        }
+    }
+
     public AnalizadorLexico() {
         tokens = new ArrayList<>();
         errores = new ArrayList<>();
     }
 
-    public void analizar(String codigo) {
-        tokens.clear();
+    /**
+     * Con true usa el camino rápido: los caracteres ASCII se clasifican con una
+     * tabla precalculada a partir de las mismas reglas, los espacios, palabras y
+     * cadenas se recorren por tramos y los tokens se clasifican sin expresiones
+     * regulares. Los caracteres no ASCII fuera de cadenas y comentarios usan las
+     * reglas del camino normal. Los tokens y errores son idénticos en ambos modos.
+     */
+    public void setModoRapido(boolean modoRapido) {
+        this.modoRapido = modoRapido;
+    }
+
+    /**
+     * Bytes de heap que pueden ocupar los tokens del análisis; pasado ese tamaño los
+     * más viejos se guardan en un archivo temporal mapeado y se leen de ahí cuando
+     * hacen falta. 0 (el valor por defecto) los deja todos en memoria.
+     */
+    public void setPresupuestoMemoria(long bytes) {
+        this.presupuestoMemoria = bytes;
+    }
+
+    /**
+     * Límite de tiempo y de tokens del próximo análisis. Se consulta al empezar
+     * cada línea: si se agotó, el análisis termina ahí (los tokens y errores de
+     * las líneas anteriores quedan) e isTruncado devuelve true.
+     */
+    public void setPresupuesto(Presupuesto presupuesto) {
+        this.presupuesto = presupuesto;
+    }
+
+    /** true si el último análisis se cortó por el presupuesto */
+    public boolean isTruncado() {
+        return truncado;
+    }
+
+    /**
+     * Analiza el código completo. Acepta cualquier CharSequence (por ejemplo la
+     * vista del documento del editor) y recorre las líneas sin copiar el texto.
+     */
+    public void analizar(CharSequence codigo) {
+        if (presupuestoMemoria > 0) tokens = new AlmacenSegmentado<>(AlmacenSegmentado.TOKENS, presupuestoMemoria);
+        else tokens.clear();
         errores.clear();
+        truncado = false;
 
-        String[] lineas = codigo.split("\n");
         int numLinea = 1;
+        int inicio = 0;
+        if (modoRapido && codigo instanceof String) {
+            // indexOf de String está vectorizado en la JVM: busca el salto de línea de a varios bytes
+            String texto = (String) codigo;
+            int fin;
+            while ((fin = texto.indexOf('\n', inicio)) >= 0) {
+                if (agotado(numLinea)) return;
+                analizarLinea(texto.substring(inicio, fin), numLinea++, tokens, errores);
+                inicio = fin + 1;
+            }
+            if (!agotado(numLinea)) analizarLinea(texto.substring(inicio), numLinea, tokens, errores);
+            return;
+        }
+        for (int i = 0; i <= codigo.length(); i++) {
+            if (i == codigo.length() || codigo.charAt(i) == '\n') {
+                if (agotado(numLinea)) return;
+                analizarLinea(codigo.subSequence(inicio, i), numLinea, tokens, errores);
+                numLinea++;
+                inicio = i + 1;
+            }
+        }
+    }
 
-        for (String linea : lineas) {
-            int columna = 1;
-            StringBuilder lexema = new StringBuilder();
-            boolean enCadena = false;
-            boolean enComentarioLinea = false;
-
-            for (int i = 0; i < linea.length(); i++) {
-                char c = linea.charAt(i);
+    /** El reloj se mira cada 64 líneas */
+    private boolean agotado(int numLinea) {
+        if (presupuesto == Presupuesto.ILIMITADO) return false;
+        if (presupuesto.tokensAgotados(tokens.size()) || (numLinea & 0x3F) == 0 && presupuesto.tiempoAgotado()) {
+            truncado = true;
+        }
+        return truncado;
+    }
 
-                // Detectar comentarios de línea //
-                if (!enCadena && i + 1 < linea.length() && c == '/' && linea.charAt(i + 1) == '/') {
-                    enComentarioLinea = true;
-                    // Terminar token actual si existe
-                    if (lexema.length() > 0) {
-                        Token token = clasificarToken(lexema.toString(), numLinea, columna);
-                        if (token != null) {
-                            tokens.add(token);
-                        } else {
-                            errores.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
-                        }
-                        lexema.setLength(0);
+    /**
+     * Analiza una sola línea y agrega sus tokens y errores a las listas dadas.
+     * Ningún token cruza de una línea a otra, así que una línea se puede volver a
+     * analizar sin mirar el resto del documento. La columna de cada token es la
+     * posición de su primer carácter, empezando en 1.
+     */
+    public void analizarLinea(CharSequence linea, int numLinea, List<Token> tokensLinea, List<String> erroresLinea) {
+        if (modoRapido) {
+            analizarLineaRapida(linea, numLinea, tokensLinea, erroresLinea);
+            return;
+        }
+        int inicio = 0;
+        StringBuilder lexema = new StringBuilder();
+        boolean enCadena = false;
+        boolean enComentarioLinea = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+
+            // Detectar comentarios de línea //
+            if (!enCadena && i + 1 < linea.length() && c == '/' && linea.charAt(i + 1) == '/') {
+                enComentarioLinea = true;
+                // Terminar token actual si existe
+                if (lexema.length() > 0) {
+                    Token token = clasificarToken(lexema.toString(), numLinea, inicio + 1);
+                    if (token != null) {
+                        tokensLinea.add(token);
+                    } else {
+                        erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
                     }
-                    break; // Saltar el resto de la línea
-                }
-
-                // Si estamos en comentario de línea, ignorar todo
-                if (enComentarioLinea) {
-                    continue;
+                    lexema.setLength(0);
                 }
+                break; // Saltar el resto de la línea
+            }
 
-                if (c == '"') {
-                    lexema.append(c);
+            // Si estamos en comentario de línea, ignorar todo
+            if (enComentarioLinea) {
+                continue;
+            }
 
-                    if (enCadena) {
-                        Token token = clasificarToken(lexema.toString(), numLinea, columna);
+            if (c == '"') {
+                if (lexema.length() == 0) inicio = i;
+                lexema.append(c);
 
-                        if (token != null){
-                            tokens.add(token);
-                        } else {
-                            errores.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
-                        }
+                if (enCadena) {
+                    Token token = clasificarToken(lexema.toString(), numLinea, inicio + 1);
 
-                        lexema.setLength(0);
+                    if (token != null){
+                        tokensLinea.add(token);
+                    } else {
+                        erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
                     }
 
-                    enCadena = !enCadena;
+                    lexema.setLength(0);
                 }
-                else if (enCadena) {
-                    lexema.append(c);
-                }
-                else if (Character.isWhitespace(c)) {
-                    if (lexema.length() > 0) {
-                        Token token = clasificarToken(lexema.toString(), numLinea, columna);
-                        if (token != null) {
-                            tokens.add(token);
-                        }
-                        else {
-                            errores.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
-                        }
-                        
-                        lexema.setLength(0);
+
+                enCadena = !enCadena;
+            }
+            else if (enCadena) {
+                lexema.append(c);
+            }
+            else if (Character.isWhitespace(c)) {
+                if (lexema.length() > 0) {
+                    Token token = clasificarToken(lexema.toString(), numLinea, inicio + 1);
+                    if (token != null) {
+                        tokensLinea.add(token);
+                    }
+                    else {
+                        erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
                     }
+                    
+                    lexema.setLength(0);
                 }
-                else if (c == '.') {
-                    if (lexema.length() > 0 && lexema.toString().matches("[0-9]+")) {
-                        if (i + 1 < linea.length() && Character.isDigit(linea.charAt(i + 1))) {
-                            lexema.append(c);
-                        } else {
-                            Token token = clasificarToken(lexema.toString(), numLinea, columna);
-                            if (token != null) {
-                                tokens.add(token);
-                            } else {
-                                errores.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
-                            }
-                            lexema.setLength(0);
-                            
-                            Token tokenPunto = clasificarToken(".", numLinea, columna);
-                            if (tokenPunto != null) {
-                                tokens.add(tokenPunto);
-                            }
-                        }
+            }
+            else if (c == '.') {
+                if (lexema.length() > 0 && lexema.toString().matches("[0-9]+")) {
+                    if (i + 1 < linea.length() && Character.isDigit(linea.charAt(i + 1))) {
+                        lexema.append(c);
                     } else {
-                        if (lexema.length() > 0) {
-                            Token token = clasificarToken(lexema.toString(), numLinea, columna);
-                            if (token != null) {
-                                tokens.add(token);
-                            } else {
-                                errores.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
-                            }
-                            lexema.setLength(0);
+                        Token token = clasificarToken(lexema.toString(), numLinea, inicio + 1);
+                        if (token != null) {
+                            tokensLinea.add(token);
+                        } else {
+                            erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
                         }
+                        lexema.setLength(0);
                         
-                        Token tokenPunto = clasificarToken(".", numLinea, columna);
+                        Token tokenPunto = clasificarToken(".", numLinea, i + 1);
                         if (tokenPunto != null) {
-                            tokens.add(tokenPunto);
+                            tokensLinea.add(tokenPunto);
                         }
                     }
-                }
-                else if (esSeparadorOOperador(c)) {
+                } else {
                     if (lexema.length() > 0) {
-                        Token token = clasificarToken(lexema.toString(), numLinea, columna);
+                        Token token = clasificarToken(lexema.toString(), numLinea, inicio + 1);
                         if (token != null) {
-                            tokens.add(token);
-                        }
-                        else {
-                            errores.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
+                            tokensLinea.add(token);
+                        } else {
+                            erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
                         }
-                        
                         lexema.setLength(0);
                     }
                     
-                    StringBuilder posibleOperador = new StringBuilder();
-                    posibleOperador.append(c);
+                    Token tokenPunto = clasificarToken(".", numLinea, i + 1);
+                    if (tokenPunto != null) {
+                        tokensLinea.add(tokenPunto);
+                    }
+                }
+            }
+            else if (esSeparadorOOperador(c)) {
+                if (lexema.length() > 0) {
+                    Token token = clasificarToken(lexema.toString(), numLinea, inicio + 1);
+                    if (token != null) {
+                        tokensLinea.add(token);
+                    }
+                    else {
+                        erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
+                    }
+                    
+                    lexema.setLength(0);
+                }
+                
+                StringBuilder posibleOperador = new StringBuilder();
+                posibleOperador.append(c);
+                
+                if (i + 1 < linea.length()) {
+                    char siguienteChar = linea.charAt(i + 1);
                     
-                    if (i + 1 < linea.length()) {
-                        char siguienteChar = linea.charAt(i + 1);
+                    if (c == '.' && Character.isDigit(siguienteChar)) {
+                        // Ya se manejó arriba
+                    } else {
+                        String posibleOperadorCompuesto = posibleOperador.toString() + siguienteChar;
                         
-                        if (c == '.' && Character.isDigit(siguienteChar)) {
-                            // Ya se manejó arriba
-                        } else {
-                            String posibleOperadorCompuesto = posibleOperador.toString() + siguienteChar;
-                            
-                            if (OPERADORES.contains(posibleOperadorCompuesto)) {
-                                Token tokenOp = clasificarToken(posibleOperadorCompuesto, numLinea, columna);
+                        if (OPERADORES.contains(posibleOperadorCompuesto)) {
+                            Token tokenOp = clasificarToken(posibleOperadorCompuesto, numLinea, i + 1);
+                            if (tokenOp != null) {
+                                tokensLinea.add(tokenOp);
+                                i++;
+                                continue;
+                            }
+                        }
+                        
+                        if (i + 2 < linea.length()) {
+                            char tercerChar = linea.charAt(i + 2);
+                            String posibleOperadorTriple = posibleOperadorCompuesto + tercerChar;
+                            if (OPERADORES.contains(posibleOperadorTriple)) {
+                                Token tokenOp = clasificarToken(posibleOperadorTriple, numLinea, i + 1);
                                 if (tokenOp != null) {
-                                    tokens.add(tokenOp);
-                                    i++;
+                                    tokensLinea.add(tokenOp);
+                                    i += 2;
                                     continue;
                                 }
                             }
-                            
-                            if (i + 2 < linea.length()) {
-                                char tercerChar = linea.charAt(i + 2);
-                                String posibleOperadorTriple = posibleOperadorCompuesto + tercerChar;
-                                if (OPERADORES.contains(posibleOperadorTriple)) {
-                                    Token tokenOp = clasificarToken(posibleOperadorTriple, numLinea, columna);
-                                    if (tokenOp != null) {
-                                        tokens.add(tokenOp);
-                                        i += 2;
-                                        continue;
-                                    }
-                                }
-                            }
                         }
                     }
-                    
-                    Token token = clasificarToken(String.valueOf(c), numLinea, columna);
-                    if (token != null) {
-                        tokens.add(token);
-                    }
-                    else {
-                        errores.add("Error léxico en línea " + numLinea + ": '" + c + "' no reconocido.");
-                    }
+                }
+                
+                Token token = clasificarToken(String.valueOf(c), numLinea, i + 1);
+                if (token != null) {
+                    tokensLinea.add(token);
                 }
                 else {
-                    lexema.append(c);
+                    erroresLinea.add("Error léxico en línea " + numLinea + ": '" + c + "' no reconocido.");
                 }
             }
+            else {
+                if (lexema.length() == 0) inicio = i;
+                lexema.append(c);
+            }
+        }
 
-            if (lexema.length() > 0 && !enComentarioLinea) {
-                Token token = clasificarToken(lexema.toString(), numLinea, columna);
-                if (token != null) {
-                    tokens.add(token);
+        if (lexema.length() > 0 && !enComentarioLinea) {
+            Token token = clasificarToken(lexema.toString(), numLinea, inicio + 1);
+            if (token != null) {
+                tokensLinea.add(token);
+            }
+            else {
+                erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
+            }
+        }
+    }
+
+    // ------------------ MODO RÁPIDO ------------------
+
+    private static byte clase(char c) {
+        if (c < 128) return CLASES[c];
+        if (Character.isWhitespace(c)) return ESPACIO;
+        return esSeparadorOOperador(c) ? CORTE : PALABRA;
+    }
+
+    /** Mismo recorrido que analizarLinea, con la tabla de clases y avanzando por tramos */
+    private void analizarLineaRapida(CharSequence linea, int numLinea, List<Token> tokensLinea, List<String> erroresLinea) {
+        int longitud = linea.length();
+        int inicio = 0;
+        StringBuilder lexema = new StringBuilder();
+        boolean enCadena = false;
+
+        for (int i = 0; i < longitud; i++) {
+            char c = linea.charAt(i);
+
+            if (enCadena) {
+                // Todo hasta la comilla de cierre va al lexema de una vez
+                int fin = i;
+                while (fin < longitud && linea.charAt(fin) != '"') fin++;
+                lexema.append(linea, i, fin);
+                if (fin == longitud) break;
+                lexema.append('"');
+                emitir(lexema, numLinea, inicio, tokensLinea, erroresLinea);
+                enCadena = false;
+                i = fin;
+                continue;
+            }
+
+            if (c == '/' && i + 1 < longitud && linea.charAt(i + 1) == '/') {
+                emitir(lexema, numLinea, inicio, tokensLinea, erroresLinea);
+                return;
+            }
+
+            if (c == '"') {
+                if (lexema.length() == 0) inicio = i;
+                lexema.append(c);
+                enCadena = true;
+                continue;
+            }
+
+            byte clase = clase(c);
+            if (clase == ESPACIO) {
+                emitir(lexema, numLinea, inicio, tokensLinea, erroresLinea);
+                while (i + 1 < longitud && clase(linea.charAt(i + 1)) == ESPACIO) i++;
+            } else if (clase == PALABRA) {
+                if (lexema.length() == 0) inicio = i;
+                int fin = i + 1;
+                while (fin < longitud && clase(linea.charAt(fin)) == PALABRA) fin++;
+                lexema.append(linea, i, fin);
+                i = fin - 1;
+            } else if (c == '.') {
+                if (lexema.length() > 0 && soloDigitos(lexema) && i + 1 < longitud && Character.isDigit(linea.charAt(i + 1))) {
+                    lexema.append(c);
+                } else {
+                    emitir(lexema, numLinea, inicio, tokensLinea, erroresLinea);
+                    tokensLinea.add(new Token("Separador", ".", numLinea, i + 1));
                 }
-                else {
-                    errores.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
+            } else {
+                emitir(lexema, numLinea, inicio, tokensLinea, erroresLinea);
+                i += operador(linea, i, numLinea, tokensLinea, erroresLinea);
+            }
+        }
+
+        if (lexema.length() > 0) emitir(lexema, numLinea, inicio, tokensLinea, erroresLinea);
+    }
+
+    /** Separador u operador que empieza en i (mismas reglas que el camino normal); devuelve los caracteres extra consumidos */
+    private int operador(CharSequence linea, int i, int numLinea, List<Token> tokensLinea, List<String> erroresLinea) {
+        char c = linea.charAt(i);
+        if (i + 1 < linea.length()) {
+            String compuesto = new String(new char[] {c, linea.charAt(i + 1)});
+            if (OPERADORES.contains(compuesto)) {
+                tokensLinea.add(new Token("Operador", compuesto, numLinea, i + 1));
+                return 1;
+            }
+            if (i + 2 < linea.length()) {
+                String triple = compuesto + linea.charAt(i + 2);
+                if (OPERADORES.contains(triple)) {
+                    tokensLinea.add(new Token("Operador", triple, numLinea, i + 1));
+                    return 2;
                 }
             }
+        }
+        String simple = String.valueOf(c);
+        Token token = clasificarRapido(simple, numLinea, i + 1);
+        if (token != null) tokensLinea.add(token);
+        else erroresLinea.add("Error léxico en línea " + numLinea + ": '" + c + "' no reconocido.");
+        return 0;
+    }
+
+    private void emitir(StringBuilder lexema, int numLinea, int inicio, List<Token> tokensLinea, List<String> erroresLinea) {
+        if (lexema.length() == 0) return;
+        Token token = clasificarRapido(lexema.toString(), numLinea, inicio + 1);
+        if (token != null) tokensLinea.add(token);
+        else erroresLinea.add("Error léxico en línea " + numLinea + ": '" + lexema + "' no reconocido.");
+        lexema.setLength(0);
+    }
+
+    /** Misma clasificación que clasificarToken, comprobando los patrones a mano */
+    private Token clasificarRapido(String lexema, int linea, int columna) {
+        if (PALABRAS_CLAVE.contains(lexema)) return new Token("Palabra Clave", lexema, linea, columna);
+
+        char primero = lexema.charAt(0);
+        int n = lexema.length();
+        if (esInicioIdentificador(primero)) {
+            int i = 1;
+            while (i < n && (esInicioIdentificador(lexema.charAt(i)) || esDigitoAscii(lexema.charAt(i)))) i++;
+            if (i == n) return new Token("Identificador", lexema, linea, columna);
+        }
+        if (esDigitoAscii(primero)) {
+            int i = 1;
+            while (i < n && esDigitoAscii(lexema.charAt(i))) i++;
+            if (i == n) return new Token("Entero", lexema, linea, columna);
+            if (lexema.charAt(i) == '.' && i + 1 < n) {
+                int j = i + 1;
+                while (j < n && esDigitoAscii(lexema.charAt(j))) j++;
+                if (j == n) return new Token("Decimal", lexema, linea, columna);
+            }
+        }
+        if (primero == '"' && n >= 2 && lexema.charAt(n - 1) == '"' && !tieneFinDeLinea(lexema, 1, n - 1)) {
+            return new Token("Cadena", lexema, linea, columna);
+        }
+        if (primero == '\'' && lexema.charAt(n - 1) == '\'' &&
+            (n == 3 && lexema.charAt(1) != '\\' && lexema.charAt(1) != '\'' ||
+             n == 4 && lexema.charAt(1) == '\\' && !tieneFinDeLinea(lexema, 2, 3))) {
+            return new Token("Carácter", lexema, linea, columna);
+        }
+        if (SEPARADORES.contains(lexema)) return new Token("Separador", lexema, linea, columna);
+        if (OPERADORES.contains(lexema)) return new Token("Operador", lexema, linea, columna);
+        return null;
+    }
 
-            numLinea++;
+    private static boolean esInicioIdentificador(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c == '$';
+    }
+
+    private static boolean esDigitoAscii(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean soloDigitos(CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (!esDigitoAscii(texto.charAt(i))) return false;
         }
+        return true;
     }
 
-    private boolean esSeparadorOOperador(char c) {
+    /** Caracteres que '.' no acepta en una expresión regular de Java */
+    private static boolean tieneFinDeLinea(String texto, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            char c = texto.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
+        }
+        return false;
+    }
+
+    // ------------------ CLASIFICACIÓN ------------------
+
+    private static boolean esSeparadorOOperador(char c) {
         if (c == '.') return false;
         String str = String.valueOf(c);
         return SEPARADORES.contains(str) || OPERADORES.stream().anyMatch(op -> op.startsWith(str));
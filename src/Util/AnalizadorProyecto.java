@@ -0,0 +1,345 @@
+package Util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Análisis de un proyecto de varios archivos MiniJava.
+ * Trabaja en dos fases, cada una en paralelo sobre los archivos:
+ *   1. Declaraciones: léxico y sintáctico de cada archivo; sus clases y miembros
+ *      se publican en un IndiceGlobal compartido.
+ *   2. Resolución: análisis semántico de cada archivo contra el índice, así
+ *      new X(), extends X o una llamada a un método de X se resuelven aunque X
+ *      esté en otro archivo.
+ * La segunda fase empieza cuando la primera terminó en todos los archivos, de
+ * modo que solo lee el índice y los árboles ajenos.
+ *
+ * Con actualizar solo se vuelven a leer los archivos que cambiaron; la
+ * resolución se repite además en los archivos que usan alguna de sus clases.
+ */
+public class AnalizadorProyecto {
+
+    /** Resultado del análisis de un archivo del proyecto */
+    public static final class ResultadoArchivo {
+        private final Path archivo;
+        private final int orden;
+        private final List<String> errores = new ArrayList<>();
+        private final List<String> advertencias = new ArrayList<>();
+        private List<Simbolo> simbolos = Collections.emptyList();
+        private Nodo arbol;
+        private boolean sintaxisValida;
+        private int erroresDeclaraciones;
+        // Texto analizado: un hash igual no prueba que el contenido no cambió
+        private String codigo;
+        private Set<String> dependencias = Collections.emptySet();
+        private long nanos;
+
+        ResultadoArchivo(Path archivo, int orden) {
+            this.archivo = archivo;
+            this.orden = orden;
+        }
+
+        public Path getArchivo() { return archivo; }
+        public List<String> getErrores() { return errores; }
+        public List<String> getAdvertencias() { return advertencias; }
+        /** Tabla de símbolos del analizador sintáctico */
+        public List<Simbolo> getSimbolos() { return simbolos; }
+        /** Árbol anotado; null si el archivo no se pudo leer o tiene errores léxicos */
+        public Nodo getArbol() { return arbol; }
+        /** Tiempo de las dos fases sumado, sin contar la espera entre ellas */
+        public long getNanos() { return nanos; }
+    }
+
+    private final IndiceGlobal indice = new IndiceGlobal();
+    private final Map<Path, ResultadoArchivo> resultados = new LinkedHashMap<>();
+    private int siguienteOrden;
+    private Consumer<ResultadoArchivo> oyente;
+    private AnalisisSombra sombra;
+    private long nanosDeclaraciones;
+    private long nanosResolucion;
+
+    /** Archivos .java y .mj bajo el directorio, ordenados por ruta */
+    public static List<Path> buscarArchivos(Path raiz) throws IOException {
+        if (!Files.isDirectory(raiz)) return List.of(raiz);
+        try (Stream<Path> recorrido = Files.walk(raiz)) {
+            return recorrido
+                .filter(Files::isRegularFile)
+                .filter(AnalizadorProyecto::esFuente)
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    public static boolean esFuente(Path archivo) {
+        String nombre = archivo.toString();
+        return nombre.endsWith(".java") || nombre.endsWith(".mj");
+    }
+
+    /**
+     * Recibe cada archivo apenas termina su resolución. Se llama desde los hilos
+     * del análisis, posiblemente varios a la vez.
+     */
+    public void setOyente(Consumer<ResultadoArchivo> oyente) {
+        this.oyente = oyente;
+    }
+
+    /**
+     * Con un AnalisisSombra, los archivos que caen en su muestra se analizan además
+     * con los dos motores que compara; ese tiempo no se suma al del archivo.
+     */
+    public void setSombra(AnalisisSombra sombra) {
+        this.sombra = sombra;
+    }
+
+    /** Analiza los archivos desde cero; el resultado respeta el orden de la lista */
+    public List<ResultadoArchivo> analizar(List<Path> archivos) {
+        indice.limpiar();
+        resultados.clear();
+        siguienteOrden = archivos.size();
+
+        ResultadoArchivo[] nuevos = new ResultadoArchivo[archivos.size()];
+        long inicio = System.nanoTime();
+        IntStream.range(0, archivos.size()).parallel().forEach(i -> {
+            nuevos[i] = new ResultadoArchivo(archivos.get(i), i);
+            declaraciones(nuevos[i], leer(nuevos[i]));
+        });
+        nanosDeclaraciones = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        IntStream.range(0, nuevos.length).parallel().forEach(i -> resolucion(nuevos[i]));
+        nanosResolucion = System.nanoTime() - inicio;
+
+        for (ResultadoArchivo resultado : nuevos) resultados.put(resultado.archivo, resultado);
+        return List.of(nuevos);
+    }
+
+    /**
+     * Vuelve a analizar los archivos indicados (nuevos, modificados o borrados).
+     * Los que no cambiaron de contenido se ignoran. Devuelve los resultados que se
+     * recalcularon: los de los archivos cambiados y los de quienes dependen de ellos.
+     */
+    public List<ResultadoArchivo> actualizar(Collection<Path> archivos) {
+        Set<String> afectadas = new HashSet<>();
+        List<ResultadoArchivo> cambiados = new ArrayList<>();
+        List<String> codigos = new ArrayList<>();
+        int sinCambios = 0;
+
+        for (Path archivo : archivos) {
+            ResultadoArchivo anterior = resultados.get(archivo);
+            String codigo = null;
+            if (Files.isRegularFile(archivo)) {
+                ResultadoArchivo nuevo = new ResultadoArchivo(archivo, anterior != null ? anterior.orden : siguienteOrden++);
+                codigo = leer(nuevo);
+                // Un guardado sin cambios (o un evento repetido) no se vuelve a analizar
+                if (anterior != null && codigo != null && codigo.equals(anterior.codigo)) {
+                    sinCambios++;
+                    continue;
+                }
+                cambiados.add(nuevo);
+                codigos.add(codigo);
+            }
+            if (anterior != null) {
+                retirar(anterior, afectadas);
+                if (codigo == null) resultados.remove(archivo);
+            }
+        }
+        MetricasAnalizador.GLOBAL.registrarCache(sinCambios, cambiados.size());
+        if (cambiados.isEmpty() && afectadas.isEmpty()) return Collections.emptyList();
+
+        long inicio = System.nanoTime();
+        IntStream.range(0, cambiados.size()).parallel().forEach(i -> declaraciones(cambiados.get(i), codigos.get(i)));
+        nanosDeclaraciones = System.nanoTime() - inicio;
+
+        for (ResultadoArchivo resultado : cambiados) {
+            resultados.put(resultado.archivo, resultado);
+            if (resultado.arbol != null) {
+                for (Nodo clase : resultado.arbol.getHijos()) afectadas.add(clase.getValor());
+            }
+        }
+
+        // Otro archivo puede declarar una clase retirada (estaba duplicada): vuelve a publicarse
+        List<ResultadoArchivo> pendientes = new ArrayList<>(cambiados);
+        for (ResultadoArchivo resultado : resultados.values()) {
+            if (cambiados.contains(resultado) || resultado.arbol == null) continue;
+            boolean declara = false;
+            for (Nodo clase : resultado.arbol.getHijos()) declara |= afectadas.contains(clase.getValor());
+            if (declara) indice.publicar(resultado.archivo, resultado.orden, resultado.arbol);
+            if (declara || !Collections.disjoint(resultado.dependencias, afectadas)) pendientes.add(resultado);
+        }
+
+        inicio = System.nanoTime();
+        pendientes.parallelStream().forEach(this::resolucion);
+        nanosResolucion = System.nanoTime() - inicio;
+        return pendientes;
+    }
+
+    public IndiceGlobal getIndice() { return indice; }
+    public Collection<ResultadoArchivo> getResultados() { return resultados.values(); }
+    public long getNanosDeclaraciones() { return nanosDeclaraciones; }
+    public long getNanosResolucion() { return nanosResolucion; }
+
+    // ------------------ FASE 1: DECLARACIONES ------------------
+
+    private static String leer(ResultadoArchivo resultado) {
+        try {
+            return Files.readString(resultado.archivo, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            resultado.errores.add("Error de entrada/salida: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void declaraciones(ResultadoArchivo resultado, String codigo) {
+        if (codigo == null) return;
+        long inicio = System.nanoTime();
+        resultado.codigo = codigo;
+
+        MetricasAnalizador metricas = MetricasAnalizador.GLOBAL;
+        AnalizadorLexico lexico = new AnalizadorLexico();
+        lexico.setModoRapido(true);
+        lexico.analizar(codigo);
+        long finLexico = System.nanoTime();
+        metricas.registrarFase(MetricasAnalizador.LEXICO, finLexico - inicio);
+        metricas.registrarArchivo(lexico.getTokens().size());
+        metricas.registrarErrores(MetricasAnalizador.LEXICO, lexico.getErrores().size());
+        if (!lexico.getErrores().isEmpty()) {
+            resultado.errores.addAll(lexico.getErrores());
+        } else {
+            // Los archivos ya se reparten entre los hilos: cada uno se analiza en secuencia
+            AnalizadorSintactico sintactico = new AnalizadorSintactico();
+            sintactico.analizar(lexico.getTokens());
+            metricas.registrarFase(MetricasAnalizador.SINTACTICO, System.nanoTime() - finLexico);
+            metricas.registrarErrores(MetricasAnalizador.SINTACTICO, sintactico.getErrores().size());
+            resultado.errores.addAll(sintactico.getErrores());
+            resultado.sintaxisValida = sintactico.getErrores().isEmpty();
+            resultado.arbol = sintactico.getArbol();
+            resultado.simbolos = sintactico.getTablaSimbolos();
+
+            // Aun con errores de sintaxis se publican las clases reconocidas, así los
+            // demás archivos no reportan en cascada clases "no declaradas"
+            indice.publicar(resultado.archivo, resultado.orden, resultado.arbol);
+        }
+        resultado.erroresDeclaraciones = resultado.errores.size();
+        resultado.nanos = System.nanoTime() - inicio;
+
+        if (sombra != null && sombra.muestrear(resultado.archivo.toString(), codigo)) {
+            sombra.comparar(resultado.archivo.toString(), codigo);
+        }
+    }
+
+    /** Quita del índice las clases que publicó el archivo y anota sus nombres */
+    private void retirar(ResultadoArchivo resultado, Set<String> afectadas) {
+        if (resultado.arbol == null) return;
+        for (Nodo clase : resultado.arbol.getHijos()) {
+            if (clase.getValor() == null) continue;
+            indice.retirar(resultado.archivo, clase.getValor());
+            afectadas.add(clase.getValor());
+        }
+    }
+
+    // ------------------ FASE 2: RESOLUCIÓN ------------------
+
+    private void resolucion(ResultadoArchivo resultado) {
+        if (!resultado.sintaxisValida) {
+            if (oyente != null) oyente.accept(resultado);
+            return;
+        }
+        long inicio = System.nanoTime();
+        // Una resolución repetida reemplaza los errores semánticos anteriores
+        resultado.errores.subList(resultado.erroresDeclaraciones, resultado.errores.size()).clear();
+        resultado.advertencias.clear();
+
+        for (Nodo clase : resultado.arbol.getHijos()) {
+            IndiceGlobal.Declaracion declaracion = indice.buscar(clase.getValor());
+            if (declaracion != null && !declaracion.getArchivo().equals(resultado.archivo)) {
+                resultado.errores.add(String.format("Error semántico en línea %d, columna %d: La clase '%s' ya fue declarada en '%s'.",
+                    clase.getLinea(), clase.getColumna(), clase.getValor(), declaracion.getArchivo().getFileName()));
+            }
+        }
+
+        AnalizadorSemantico semantico = new AnalizadorSemantico();
+        semantico.analizar(resultado.arbol, externas(resultado));
+        resultado.errores.addAll(semantico.getErrores());
+        resultado.advertencias.addAll(semantico.getAdvertencias());
+        long nanos = System.nanoTime() - inicio;
+        resultado.nanos += nanos;
+        MetricasAnalizador.GLOBAL.registrarFase(MetricasAnalizador.SEMANTICO, nanos);
+        MetricasAnalizador.GLOBAL.registrarErrores(MetricasAnalizador.SEMANTICO, semantico.getErrores().size());
+        if (oyente != null) oyente.accept(resultado);
+    }
+
+    /**
+     * Clases de otros archivos que el archivo puede llegar a usar: las que nombra
+     * directamente y, por cada una, las que aparecen en su encabezado y en las
+     * firmas de sus miembros (el tipo de a.b.c depende de las firmas de b).
+     * Así cada archivo arma su jerarquía con lo que necesita y no con el proyecto
+     * entero. Los nombres consultados, existan o no, quedan como dependencias.
+     */
+    private List<Nodo> externas(ResultadoArchivo resultado) {
+        Set<String> propias = new HashSet<>();
+        for (Nodo clase : resultado.arbol.getHijos()) propias.add(clase.getValor());
+
+        Set<String> vistas = new HashSet<>(propias);
+        Deque<String> pendientes = new ArrayDeque<>();
+        for (Nodo clase : resultado.arbol.getHijos()) referencias(clase, true, vistas, pendientes);
+
+        List<Nodo> externas = new ArrayList<>();
+        while (!pendientes.isEmpty()) {
+            IndiceGlobal.Declaracion declaracion = indice.buscar(pendientes.poll());
+            if (declaracion == null) continue;
+            externas.add(declaracion.getClase());
+            referencias(declaracion.getClase(), false, vistas, pendientes);
+        }
+        resultado.dependencias = vistas;
+        return externas;
+    }
+
+    /** Encola los nombres de clase que aparecen en el nodo; con completo también recorre los cuerpos */
+    private static void referencias(Nodo nodo, boolean completo, Set<String> vistas, Deque<String> pendientes) {
+        switch (nodo.getTipo()) {
+            case "Extiende":
+            case "Implementa":
+            case "NuevoObjeto":
+            case "Identificador":
+                referencia(nodo.getValor(), vistas, pendientes);
+                break;
+            case "Variable":
+            case "Parametro":
+            case "Metodo":
+            case "Catch":
+                referencia(nodo.getTipoDato(), vistas, pendientes);
+                break;
+            default:
+                break;
+        }
+
+        boolean esMiembro = nodo.getTipo().equals("Metodo") || nodo.getTipo().equals("Main") || nodo.getTipo().equals("Estatico");
+        for (Nodo hijo : nodo.getHijos()) {
+            if (!completo && esMiembro && !hijo.getTipo().equals("Parametro")) continue;
+            if (!completo && nodo.getTipo().equals("Variable")) continue;
+            referencias(hijo, completo, vistas, pendientes);
+        }
+    }
+
+    private static void referencia(String tipo, Set<String> vistas, Deque<String> pendientes) {
+        if (tipo == null) return;
+        while (tipo.endsWith("[]")) tipo = tipo.substring(0, tipo.length() - 2);
+        if (vistas.add(tipo)) pendientes.add(tipo);
+    }
+}
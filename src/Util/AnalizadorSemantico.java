@@ -0,0 +1,843 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analizador Semántico de MiniJava.
+ * Recorre una sola vez el árbol que produce AnalizadorSintactico resolviendo cada
+ * identificador y verificando los tipos de las expresiones. Cada expresión queda
+ * anotada con su tipo (Nodo.getTipoDato) para las fases posteriores.
+ * Al final corre AnalisisFlujo: la asignación definida se reporta como error y
+ * las variables sin usar o los valores que nunca se leen como advertencias.
+ */
+public class AnalizadorSemantico {
+
+    private static final String DESCONOCIDO = "?";
+
+    private List<String> errores;
+    private List<String> advertencias;
+    private Nodo arbol;
+
+    // Declaraciones de nivel de clase (se recolectan antes del recorrido)
+    private Map<String, Nodo> clases;
+    private JerarquiaClases jerarquia;
+
+    // Tabla de nombres visibles: cada nombre apunta a la pila de sus declaraciones,
+    // así la búsqueda es O(1) sin importar cuántos ámbitos estén anidados
+    private Map<String, Deque<Nodo>> visibles;
+    private Deque<List<String>> ambitos;
+
+    // Uso -> declaración de lo que nombra (variable, atributo, método o clase)
+    private Map<Nodo, Nodo> referencias;
+
+    // En modo proyecto un nombre desconocido puede ser una clase de otro archivo
+    private boolean proyecto;
+
+    private String claseActual;
+    private Nodo metodoActual;
+    private boolean contextoEstatico;
+
+    public AnalizadorSemantico() {
+        this.errores = new ArrayList<>();
+        this.advertencias = new ArrayList<>();
+        this.clases = new LinkedHashMap<>();
+        this.jerarquia = new JerarquiaClases();
+        this.visibles = new HashMap<>();
+        this.ambitos = new ArrayDeque<>();
+        this.referencias = new IdentityHashMap<>();
+    }
+
+    /** Analiza el árbol de un programa (nodo "Programa" de AnalizadorSintactico) */
+    public void analizar(Nodo programa) {
+        proyecto = false;
+        analizarPrograma(programa, Collections.emptyList());
+    }
+
+    /**
+     * Analiza un programa que usa clases declaradas en otros archivos (modo proyecto).
+     * Las clases externas se resuelven igual que las propias, pero no se recorren
+     * ni se anotan: eso lo hace el análisis de su propio archivo.
+     */
+    public void analizar(Nodo programa, Collection<Nodo> externas) {
+        proyecto = true;
+        analizarPrograma(programa, externas);
+    }
+
+    private void analizarPrograma(Nodo programa, Collection<Nodo> externas) {
+        arbol = programa;
+        errores.clear();
+        advertencias.clear();
+        clases.clear();
+        visibles.clear();
+        ambitos.clear();
+        referencias.clear();
+
+        if (programa == null) return;
+
+        recolectarDeclaraciones(programa);
+        for (Nodo clase : externas) clases.putIfAbsent(clase.getValor(), clase);
+        jerarquia.construir(programa, externas);
+        errores.addAll(jerarquia.getErrores());
+
+        for (Nodo clase : programa.getHijos()) {
+            analizarClase(clase);
+        }
+
+        AnalisisFlujo flujo = new AnalisisFlujo();
+        flujo.analizar(programa);
+        errores.addAll(flujo.getErrores());
+        advertencias.addAll(flujo.getAdvertencias());
+    }
+
+    // ------------------ DECLARACIONES ------------------
+
+    private void recolectarDeclaraciones(Nodo programa) {
+        for (Nodo clase : programa.getHijos()) {
+            if (clases.containsKey(clase.getValor())) {
+                registrarError(clase, "La clase '" + clase.getValor() + "' ya fue declarada.");
+                continue;
+            }
+            clases.put(clase.getValor(), clase);
+        }
+
+        for (Nodo clase : clases.values()) {
+            Map<String, Nodo> camposClase = new HashMap<>();
+            Map<String, Nodo> metodosClase = new HashMap<>();
+
+            for (Nodo miembro : clase.getHijos()) {
+                if (miembro.getTipo().equals("Variable")) {
+                    if (camposClase.putIfAbsent(miembro.getValor(), miembro) != null) {
+                        registrarError(miembro, "El atributo '" + miembro.getValor() + "' ya fue declarado en la clase '" + clase.getValor() + "'.");
+                    }
+                } else if (miembro.getTipo().equals("Metodo") || miembro.getTipo().equals("Main")) {
+                    if (metodosClase.putIfAbsent(miembro.getValor(), miembro) != null) {
+                        registrarError(miembro, "El método '" + miembro.getValor() + "' ya fue declarado en la clase '" + clase.getValor() + "'.");
+                    }
+                }
+            }
+        }
+    }
+
+    private void analizarClase(Nodo clase) {
+        claseActual = clase.getValor();
+
+        for (Nodo miembro : clase.getHijos()) {
+            switch (miembro.getTipo()) {
+                case "Extiende":
+                    if (!clases.containsKey(miembro.getValor())) {
+                        registrarError(miembro, "La clase padre '" + miembro.getValor() + "' no está declarada.");
+                    } else {
+                        referencias.put(miembro, clases.get(miembro.getValor()));
+                    }
+                    break;
+                case "Variable":
+                    contextoEstatico = false;
+                    verificarTipoDeclarado(miembro, miembro.getTipoDato());
+                    if (miembro.getCantidadHijos() > 0) {
+                        verificarAsignable(miembro, miembro.getTipoDato(), expresion(miembro.getHijo(0)));
+                    }
+                    break;
+                case "Metodo":
+                case "Main":
+                    analizarMetodo(miembro);
+                    break;
+                case "Estatico":
+                    contextoEstatico = true;
+                    abrirAmbito();
+                    sentencia(miembro.getHijo(0));
+                    cerrarAmbito();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void analizarMetodo(Nodo metodo) {
+        metodoActual = metodo;
+        contextoEstatico = metodo.getTipo().equals("Main");
+
+        if (!metodo.getTipoDato().equals("void")) {
+            verificarTipoDeclarado(metodo, metodo.getTipoDato());
+        }
+
+        abrirAmbito();
+        for (Nodo hijo : metodo.getHijos()) {
+            if (hijo.getTipo().equals("Parametro")) {
+                verificarTipoDeclarado(hijo, hijo.getTipoDato());
+                declarar(hijo);
+            } else {
+                // El cuerpo comparte el ámbito de los parámetros
+                for (Nodo s : hijo.getHijos()) {
+                    sentencia(s);
+                }
+            }
+        }
+        cerrarAmbito();
+
+        metodoActual = null;
+    }
+
+    // ------------------ SENTENCIAS ------------------
+
+    private void sentencia(Nodo s) {
+        switch (s.getTipo()) {
+            case "Bloque":
+                abrirAmbito();
+                for (Nodo hijo : s.getHijos()) sentencia(hijo);
+                cerrarAmbito();
+                break;
+            case "Variable":
+                verificarTipoDeclarado(s, s.getTipoDato());
+                if (s.getCantidadHijos() > 0) {
+                    verificarAsignable(s, s.getTipoDato(), expresion(s.getHijo(0)));
+                }
+                declarar(s);
+                break;
+            case "If":
+            case "While":
+                verificarCondicion(s.getHijo(0));
+                for (int i = 1; i < s.getCantidadHijos(); i++) sentencia(s.getHijo(i));
+                break;
+            case "DoWhile":
+                sentencia(s.getHijo(0));
+                verificarCondicion(s.getHijo(1));
+                break;
+            case "For":
+                abrirAmbito();
+                for (Nodo inicial : s.getHijo(0).getHijos()) sentencia(inicial);
+                if (!s.getHijo(1).getTipo().equals("Vacio")) verificarCondicion(s.getHijo(1));
+                if (!s.getHijo(2).getTipo().equals("Vacio")) sentencia(s.getHijo(2));
+                sentencia(s.getHijo(3));
+                cerrarAmbito();
+                break;
+            case "Switch":
+                String tipoSwitch = expresion(s.getHijo(0));
+                for (int i = 1; i < s.getCantidadHijos(); i++) {
+                    Nodo caso = s.getHijo(i);
+                    int inicio = 0;
+                    if (caso.getValor().equals("case")) {
+                        verificarAsignable(caso.getHijo(0), tipoSwitch, expresion(caso.getHijo(0)));
+                        inicio = 1;
+                    }
+                    abrirAmbito();
+                    for (int j = inicio; j < caso.getCantidadHijos(); j++) sentencia(caso.getHijo(j));
+                    cerrarAmbito();
+                }
+                break;
+            case "Try":
+                for (Nodo hijo : s.getHijos()) {
+                    if (hijo.getTipo().equals("Catch")) {
+                        abrirAmbito();
+                        if (hijo.getValor() != null) declarar(hijo);
+                        sentencia(hijo.getHijo(0));
+                        cerrarAmbito();
+                    } else if (hijo.getTipo().equals("Finally")) {
+                        sentencia(hijo.getHijo(0));
+                    } else {
+                        sentencia(hijo);
+                    }
+                }
+                break;
+            case "Imprimir":
+                if (s.getCantidadHijos() > 0 && expresion(s.getHijo(0)).equals("void")) {
+                    registrarError(s.getHijo(0), "No se puede imprimir una expresión de tipo 'void'.");
+                }
+                break;
+            case "Return":
+                verificarRetorno(s);
+                break;
+            case "Throw":
+                expresion(s.getHijo(0));
+                break;
+            case "Asignacion":
+                asignacion(s);
+                break;
+            case "ExpresionSentencia":
+                expresion(s.getHijo(0));
+                break;
+            default:
+                // Break, Continue, Error: sin verificación semántica
+                break;
+        }
+    }
+
+    private void asignacion(Nodo s) {
+        Nodo destino = s.getHijo(0);
+        String tipoDestino = expresion(destino);
+        String tipoValor = expresion(s.getHijo(1));
+
+        if (!esAsignableComoDestino(destino)) {
+            registrarError(destino, "El lado izquierdo de la asignación no es una variable.");
+            return;
+        }
+
+        if (s.getValor().equals("=")) {
+            verificarAsignable(s.getHijo(1), tipoDestino, tipoValor);
+        } else if (s.getValor().equals("+=") && tipoDestino.equals("String")) {
+            // Concatenación: cualquier valor se convierte a cadena
+        } else if (!esDesconocido(tipoDestino, tipoValor) && (!esNumerico(tipoDestino) || !esNumerico(tipoValor))) {
+            registrarError(s, "El operador '" + s.getValor() + "' requiere operandos numéricos, se encontró '" +
+                tipoDestino + "' y '" + tipoValor + "'.");
+        }
+    }
+
+    private void verificarRetorno(Nodo s) {
+        if (metodoActual == null) {
+            if (s.getCantidadHijos() > 0) expresion(s.getHijo(0));
+            return;
+        }
+
+        String tipoRetorno = metodoActual.getTipoDato();
+        if (s.getCantidadHijos() == 0) {
+            if (!tipoRetorno.equals("void")) {
+                registrarError(s, "El método '" + metodoActual.getValor() + "' debe devolver un valor de tipo '" + tipoRetorno + "'.");
+            }
+            return;
+        }
+
+        String tipo = expresion(s.getHijo(0));
+        if (tipoRetorno.equals("void")) {
+            registrarError(s, "El método '" + metodoActual.getValor() + "' es void y no puede devolver un valor.");
+        } else {
+            verificarAsignable(s.getHijo(0), tipoRetorno, tipo);
+        }
+    }
+
+    private void verificarCondicion(Nodo condicion) {
+        String tipo = expresion(condicion);
+        if (!tipo.equals("boolean") && !tipo.equals(DESCONOCIDO)) {
+            registrarError(condicion, "La condición debe ser de tipo 'boolean', se encontró '" + tipo + "'.");
+        }
+    }
+
+    // ------------------ EXPRESIONES ------------------
+
+    /** Expresión pendiente en el recorrido: el siguiente hijo a anotar y, si ya se resolvió, el tipo del receptor */
+    private static final class Marco {
+        final Nodo nodo;
+        int hijo;
+        String receptor;
+
+        Marco(Nodo nodo) {
+            this.nodo = nodo;
+        }
+    }
+
+    /**
+     * Calcula, anota y devuelve el tipo de la expresión. El recorrido es en
+     * postorden con una pila explícita, como el sintáctico: una expresión de
+     * cualquier profundidad no consume pila de la JVM. Cada nodo se calcula
+     * cuando sus operandos ya están anotados, en el mismo orden (y con los
+     * mismos errores) que un recorrido recursivo de izquierda a derecha.
+     */
+    private String expresion(Nodo raiz) {
+        Deque<Marco> pila = new ArrayDeque<>();
+        pila.push(new Marco(raiz));
+        while (true) {
+            Marco marco = pila.peek();
+            Nodo operando = siguienteOperando(marco);
+            if (operando != null) {
+                pila.push(new Marco(operando));
+                continue;
+            }
+            pila.pop();
+            String tipo = calcularTipo(marco);
+            marco.nodo.setTipoDato(tipo);
+            if (pila.isEmpty()) return tipo;
+        }
+    }
+
+    /** Siguiente hijo de la expresión que se anota antes que ella; null cuando ya están todos */
+    private Nodo siguienteOperando(Marco marco) {
+        Nodo e = marco.nodo;
+        int cantidad;
+        switch (e.getTipo()) {
+            case "Binaria":
+                // El lado derecho de instanceof es un nombre de clase, no una expresión
+                cantidad = e.getValor().equals("instanceof") ? 1 : 2;
+                break;
+            case "Unaria":
+            case "Postfija":
+            case "Longitud":
+                cantidad = 1;
+                break;
+            case "Indice":
+                cantidad = 2;
+                break;
+            case "NuevoObjeto":
+                cantidad = e.getCantidadHijos();
+                break;
+            case "NuevoArreglo":
+                while (marco.hijo < e.getCantidadHijos() && e.getHijo(marco.hijo).getTipo().equals("Vacio")) marco.hijo++;
+                cantidad = e.getCantidadHijos();
+                break;
+            case "Acceso":
+            case "Llamada":
+                if (marco.hijo == 0) {
+                    marco.hijo = 1;
+                    Nodo receptor = e.getHijo(0);
+                    if (e.getTipo().equals("Llamada") && receptor.getTipo().equals("Vacio")) {
+                        marco.receptor = claseActual;
+                    } else if (esReferenciaAClase(receptor)) {
+                        marco.receptor = tipoReceptor(receptor);
+                    } else {
+                        return receptor;
+                    }
+                }
+                cantidad = e.getTipo().equals("Llamada") ? e.getCantidadHijos() : 1;
+                break;
+            default:
+                return null;
+        }
+        return marco.hijo < cantidad ? e.getHijo(marco.hijo++) : null;
+    }
+
+    /** Tipo ya anotado de un operando */
+    private static String tipoDe(Nodo operando) {
+        return operando.getTipoDato();
+    }
+
+    private String calcularTipo(Marco marco) {
+        Nodo e = marco.nodo;
+        switch (e.getTipo()) {
+            case "Literal":
+                return tipoLiteral(e);
+            case "Identificador":
+                return identificador(e);
+            case "This":
+                if (contextoEstatico) {
+                    registrarError(e, "No se puede usar 'this' en un contexto estático.");
+                    return DESCONOCIDO;
+                }
+                return claseActual;
+            case "Binaria":
+                return binaria(e);
+            case "Unaria":
+                return unaria(e);
+            case "Postfija": {
+                String tipo = tipoDe(e.getHijo(0));
+                if (!esNumerico(tipo) && !tipo.equals(DESCONOCIDO)) {
+                    registrarError(e, "El operador '" + e.getValor() + "' requiere un operando numérico, se encontró '" + tipo + "'.");
+                }
+                return tipo;
+            }
+            case "Indice": {
+                String tipoArreglo = tipoDe(e.getHijo(0));
+                String tipoIndice = tipoDe(e.getHijo(1));
+                if (!esEntero(tipoIndice) && !tipoIndice.equals(DESCONOCIDO)) {
+                    registrarError(e.getHijo(1), "El índice de un arreglo debe ser de tipo 'int', se encontró '" + tipoIndice + "'.");
+                }
+                if (tipoArreglo.endsWith("[]")) return tipoArreglo.substring(0, tipoArreglo.length() - 2);
+                if (!tipoArreglo.equals(DESCONOCIDO)) {
+                    registrarError(e, "Solo se pueden indexar arreglos, se encontró '" + tipoArreglo + "'.");
+                }
+                return DESCONOCIDO;
+            }
+            case "Longitud": {
+                String tipo = tipoDe(e.getHijo(0));
+                if (!tipo.endsWith("[]") && !tipo.equals(DESCONOCIDO)) {
+                    registrarError(e, "'length' solo está definido para arreglos, se encontró '" + tipo + "'.");
+                }
+                return "int";
+            }
+            case "Acceso":
+                return acceso(e, marco.receptor != null ? marco.receptor : tipoDe(e.getHijo(0)));
+            case "Llamada":
+                return llamada(e, marco.receptor != null ? marco.receptor : tipoDe(e.getHijo(0)));
+            case "NuevoObjeto":
+                if (!clases.containsKey(e.getValor()) && !e.getValor().equals("String")) {
+                    registrarError(e, "La clase '" + e.getValor() + "' no está declarada.");
+                    return DESCONOCIDO;
+                }
+                referencias.put(e, clases.get(e.getValor()));
+                return e.getValor();
+            case "NuevoArreglo": {
+                String tipo = e.getValor();
+                for (Nodo dimension : e.getHijos()) {
+                    if (!dimension.getTipo().equals("Vacio")) {
+                        String tipoDimension = tipoDe(dimension);
+                        if (!esEntero(tipoDimension) && !tipoDimension.equals(DESCONOCIDO)) {
+                            registrarError(dimension, "El tamaño de un arreglo debe ser de tipo 'int', se encontró '" + tipoDimension + "'.");
+                        }
+                    }
+                    tipo += "[]";
+                }
+                verificarTipoDeclarado(e, e.getValor());
+                return tipo;
+            }
+            default:
+                return DESCONOCIDO;
+        }
+    }
+
+    private String tipoLiteral(Nodo e) {
+        String lex = e.getValor();
+        if (lex.equals("true") || lex.equals("false")) return "boolean";
+        if (lex.equals("null")) return "null";
+        switch (e.getToken().getTipo()) {
+            case "Entero": return "int";
+            case "Decimal": return "double";
+            case "Cadena": return "String";
+            case "Carácter": return "char";
+            default: return DESCONOCIDO;
+        }
+    }
+
+    private String identificador(Nodo e) {
+        Nodo declaracion = buscarLocal(e.getValor());
+        if (declaracion != null) {
+            referencias.put(e, declaracion);
+            return declaracion.getTipoDato();
+        }
+
+        Nodo campo = buscarCampo(claseActual, e.getValor());
+        if (campo != null) {
+            referencias.put(e, campo);
+            if (contextoEstatico) {
+                registrarError(e, "No se puede acceder al atributo '" + e.getValor() + "' desde un contexto estático.");
+            }
+            return campo.getTipoDato();
+        }
+
+        registrarError(e, "La variable '" + e.getValor() + "' no está declarada.");
+        return DESCONOCIDO;
+    }
+
+    private String binaria(Nodo e) {
+        String op = e.getValor();
+        if (op.equals("instanceof")) return instanceOf(e);
+
+        String izq = tipoDe(e.getHijo(0));
+        String der = tipoDe(e.getHijo(1));
+        // Concatenación; con otros operandos '+' es aritmético
+        if (op.equals("+") && (izq.equals("String") || der.equals("String"))) return "String";
+
+        switch (op) {
+            case "&&":
+            case "||":
+                if (!esDesconocido(izq, der) && (!izq.equals("boolean") || !der.equals("boolean"))) {
+                    errorOperandos(e, izq, der);
+                }
+                return "boolean";
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+            case "%":
+                if (esDesconocido(izq, der)) return DESCONOCIDO;
+                if (!esNumerico(izq) || !esNumerico(der)) {
+                    errorOperandos(e, izq, der);
+                    return DESCONOCIDO;
+                }
+                return promover(izq, der);
+            case "<":
+            case ">":
+            case "<=":
+            case ">=":
+                if (!esDesconocido(izq, der) && (!esNumerico(izq) || !esNumerico(der))) {
+                    errorOperandos(e, izq, der);
+                }
+                return "boolean";
+            case "==":
+            case "!=":
+                if (!esDesconocido(izq, der) && !sonComparables(izq, der)) {
+                    errorOperandos(e, izq, der);
+                }
+                return "boolean";
+            case "&":
+            case "|":
+            case "^":
+                if (izq.equals("boolean") && der.equals("boolean")) return "boolean";
+                if (esDesconocido(izq, der)) return DESCONOCIDO;
+                if (!esEntero(izq) || !esEntero(der)) {
+                    errorOperandos(e, izq, der);
+                    return DESCONOCIDO;
+                }
+                return promover(izq, der);
+            case "<<":
+            case ">>":
+            case ">>>":
+                if (esDesconocido(izq, der)) return DESCONOCIDO;
+                if (!esEntero(izq) || !esEntero(der)) {
+                    errorOperandos(e, izq, der);
+                    return DESCONOCIDO;
+                }
+                return izq.equals("long") ? "long" : "int";
+            default:
+                return DESCONOCIDO;
+        }
+    }
+
+    /** El lado derecho de instanceof es un nombre de clase, no una expresión */
+    private String instanceOf(Nodo e) {
+        String tipo = tipoDe(e.getHijo(0));
+        Nodo clase = e.getHijo(1);
+        if (!clase.getTipo().equals("Identificador")) {
+            registrarError(clase, "Se esperaba un nombre de clase después de 'instanceof'.");
+        } else if (!clases.containsKey(clase.getValor()) && !clase.getValor().equals("String")) {
+            registrarError(clase, "La clase '" + clase.getValor() + "' no está declarada.");
+        } else {
+            clase.setTipoDato(clase.getValor());
+            referencias.put(clase, clases.get(clase.getValor()));
+            if (esPrimitivo(tipo)) {
+                registrarError(e, "El operador 'instanceof' no se puede aplicar a '" + tipo + "'.");
+            }
+        }
+        return "boolean";
+    }
+
+    private String unaria(Nodo e) {
+        String op = e.getValor();
+        String tipo = tipoDe(e.getHijo(0));
+        if (tipo.equals(DESCONOCIDO)) return op.equals("!") ? "boolean" : DESCONOCIDO;
+
+        if (op.equals("!")) {
+            if (!tipo.equals("boolean")) {
+                registrarError(e, "El operador '!' requiere un operando 'boolean', se encontró '" + tipo + "'.");
+            }
+            return "boolean";
+        }
+        if (op.equals("~") ? !esEntero(tipo) : !esNumerico(tipo)) {
+            registrarError(e, "El operador '" + op + "' requiere un operando numérico, se encontró '" + tipo + "'.");
+            return DESCONOCIDO;
+        }
+        return tipo;
+    }
+
+    private String acceso(Nodo e, String receptor) {
+        if (receptor.equals(DESCONOCIDO) || !clases.containsKey(receptor)) {
+            if (esPrimitivo(receptor) || receptor.endsWith("[]")) {
+                registrarError(e, "El tipo '" + receptor + "' no tiene atributos.");
+            }
+            return DESCONOCIDO;
+        }
+
+        Nodo campo = buscarCampo(receptor, e.getValor());
+        if (campo == null) {
+            registrarError(e, "El atributo '" + e.getValor() + "' no está declarado en la clase '" + receptor + "'.");
+            return DESCONOCIDO;
+        }
+        referencias.put(e, campo);
+        return campo.getTipoDato();
+    }
+
+    private String llamada(Nodo e, String receptor) {
+        List<String> argumentos = new ArrayList<>();
+        for (int i = 1; i < e.getCantidadHijos(); i++) {
+            argumentos.add(tipoDe(e.getHijo(i)));
+        }
+
+        if (receptor.equals(DESCONOCIDO) || !clases.containsKey(receptor)) {
+            if (esPrimitivo(receptor) || receptor.endsWith("[]")) {
+                registrarError(e, "No se pueden invocar métodos sobre el tipo '" + receptor + "'.");
+            }
+            return DESCONOCIDO;
+        }
+
+        Nodo metodo = buscarMetodo(receptor, e.getValor());
+        if (metodo == null) {
+            registrarError(e, "El método '" + e.getValor() + "' no está declarado en la clase '" + receptor + "'.");
+            return DESCONOCIDO;
+        }
+        referencias.put(e, metodo);
+
+        List<Nodo> parametros = new ArrayList<>();
+        for (Nodo hijo : metodo.getHijos()) {
+            if (hijo.getTipo().equals("Parametro")) parametros.add(hijo);
+        }
+
+        if (parametros.size() != argumentos.size()) {
+            registrarError(e, String.format("El método '%s' espera %d argumento(s) pero recibió %d.",
+                e.getValor(), parametros.size(), argumentos.size()));
+        } else {
+            for (int i = 0; i < argumentos.size(); i++) {
+                String esperado = parametros.get(i).getTipoDato();
+                if (!esAsignable(esperado, argumentos.get(i))) {
+                    registrarError(e.getHijo(i + 1), String.format(
+                        "Argumento %d de '%s': se esperaba '%s' pero se encontró '%s'.",
+                        i + 1, e.getValor(), esperado, argumentos.get(i)));
+                }
+            }
+        }
+        return metodo.getTipoDato();
+    }
+
+    /** Receptor de un acceso o llamada que es un identificador y no nombra una variable ni un atributo */
+    private boolean esReferenciaAClase(Nodo receptor) {
+        return receptor.getTipo().equals("Identificador") && buscarLocal(receptor.getValor()) == null &&
+            buscarCampo(claseActual, receptor.getValor()) == null;
+    }
+
+    /**
+     * Tipo del receptor que es referencia a una clase (ver esReferenciaAClase). Si
+     * no es una clase conocida, en modo proyecto se asume una clase que el índice
+     * no tiene y no se reporta error; con un solo archivo es un nombre no declarado.
+     */
+    private String tipoReceptor(Nodo receptor) {
+        receptor.setTipoDato(receptor.getValor());
+        if (!clases.containsKey(receptor.getValor())) {
+            if (!proyecto) registrarError(receptor, "La variable o clase '" + receptor.getValor() + "' no está declarada.");
+            return DESCONOCIDO;
+        }
+        referencias.put(receptor, clases.get(receptor.getValor()));
+        return receptor.getValor();
+    }
+
+    // ------------------ ÁMBITOS ------------------
+
+    private void abrirAmbito() {
+        ambitos.push(new ArrayList<>());
+    }
+
+    private void cerrarAmbito() {
+        for (String nombre : ambitos.pop()) {
+            Deque<Nodo> pila = visibles.get(nombre);
+            pila.pop();
+            if (pila.isEmpty()) visibles.remove(nombre);
+        }
+    }
+
+    private void declarar(Nodo declaracion) {
+        String nombre = declaracion.getValor();
+        if (buscarLocal(nombre) != null) {
+            registrarError(declaracion, "La variable '" + nombre + "' ya fue declarada en este ámbito.");
+            return;
+        }
+        visibles.computeIfAbsent(nombre, k -> new ArrayDeque<>()).push(declaracion);
+        ambitos.peek().add(nombre);
+    }
+
+    private Nodo buscarLocal(String nombre) {
+        Deque<Nodo> pila = visibles.get(nombre);
+        return pila != null ? pila.peek() : null;
+    }
+
+    private Nodo buscarCampo(String clase, String nombre) {
+        return jerarquia.buscarCampo(clase, nombre);
+    }
+
+    private Nodo buscarMetodo(String clase, String nombre) {
+        return jerarquia.buscarMetodo(clase, nombre);
+    }
+
+    // ------------------ TIPOS ------------------
+
+    private void verificarTipoDeclarado(Nodo nodo, String tipo) {
+        String base = tipo;
+        while (base.endsWith("[]")) base = base.substring(0, base.length() - 2);
+        if (!esPrimitivo(base) && !base.equals("String") && !clases.containsKey(base)) {
+            registrarError(nodo, "El tipo '" + base + "' no está declarado.");
+        }
+    }
+
+    private void verificarAsignable(Nodo nodo, String destino, String origen) {
+        if (!esAsignable(destino, origen)) {
+            registrarError(nodo, "Tipos incompatibles: se esperaba '" + destino + "' pero se encontró '" + origen + "'.");
+        }
+    }
+
+    private boolean esAsignable(String destino, String origen) {
+        if (destino.equals(origen) || esDesconocido(destino, origen)) return true;
+        if (origen.equals("null")) return !esPrimitivo(destino);
+        if (esNumerico(destino) && esNumerico(origen)) return rangoNumerico(origen) <= rangoNumerico(destino);
+        return jerarquia.esSubtipo(origen, destino);
+    }
+
+    private boolean sonComparables(String a, String b) {
+        if (esNumerico(a) && esNumerico(b)) return true;
+        if (esPrimitivo(a) || esPrimitivo(b)) return a.equals(b);
+        return true;
+    }
+
+    private boolean esAsignableComoDestino(Nodo destino) {
+        String tipo = destino.getTipo();
+        return tipo.equals("Identificador") || tipo.equals("Acceso") || tipo.equals("Indice");
+    }
+
+    private boolean esPrimitivo(String tipo) {
+        return tipo.equals("int") || tipo.equals("boolean") || tipo.equals("double") || tipo.equals("float") ||
+               tipo.equals("char") || tipo.equals("byte") || tipo.equals("short") || tipo.equals("long") ||
+               tipo.equals("void");
+    }
+
+    private boolean esNumerico(String tipo) {
+        return rangoNumerico(tipo) >= 0;
+    }
+
+    private boolean esEntero(String tipo) {
+        int rango = rangoNumerico(tipo);
+        return rango >= 0 && rango <= 4;
+    }
+
+    /** Orden de promoción numérica: byte < short < char < int < long < float < double */
+    private int rangoNumerico(String tipo) {
+        switch (tipo) {
+            case "byte": return 0;
+            case "short": return 1;
+            case "char": return 2;
+            case "int": return 3;
+            case "long": return 4;
+            case "float": return 5;
+            case "double": return 6;
+            default: return -1;
+        }
+    }
+
+    private String promover(String a, String b) {
+        String mayor = rangoNumerico(a) >= rangoNumerico(b) ? a : b;
+        return rangoNumerico(mayor) < 3 ? "int" : mayor;
+    }
+
+    private boolean esDesconocido(String a, String b) {
+        return a.equals(DESCONOCIDO) || b.equals(DESCONOCIDO);
+    }
+
+    // ------------------ ERRORES ------------------
+
+    private void errorOperandos(Nodo e, String izq, String der) {
+        registrarError(e, "El operador '" + e.getValor() + "' no se puede aplicar a '" + izq + "' y '" + der + "'.");
+    }
+
+    private void registrarError(Nodo nodo, String mensaje) {
+        if (nodo != null && nodo.getToken() != null) {
+            errores.add(String.format("Error semántico en línea %d, columna %d: %s",
+                nodo.getLinea(), nodo.getColumna(), mensaje));
+        } else {
+            errores.add("Error semántico: " + mensaje);
+        }
+    }
+
+    public List<String> getErrores() {
+        return errores;
+    }
+
+    /** Variables sin usar y valores asignados que nunca se leen */
+    public List<String> getAdvertencias() {
+        return advertencias;
+    }
+
+    /** Árbol anotado en el último análisis */
+    public Nodo getArbol() {
+        return arbol;
+    }
+
+    /** Cada uso (identificador, atributo, llamada, new, extends) con la declaración que nombra */
+    public Map<Nodo, Nodo> getReferencias() {
+        return referencias;
+    }
+
+    /** Jerarquía de clases construida durante el último análisis */
+    public JerarquiaClases getJerarquia() {
+        return jerarquia;
+    }
+}
@@ -2,10 +2,19 @@ package Util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Analizador Sintáctico de MiniJava mejorado.
  * Parser descendente recursivo que usa los tokens generados por AnalizadorLexico.
+ * En modo paralelo (setModoParalelo) las clases de primer nivel se analizan en
+ * hilos distintos; el resultado es idéntico al del análisis secuencial.
+ * Con setIndiceReferencias además registra dónde se usa cada símbolo declarado
+ * (ver IndiceReferencias).
  */
 public class AnalizadorSintactico {
 
@@ -13,11 +22,64 @@ public class AnalizadorSintactico {
     private int indiceActual;
     private List<String> errores;
     private List<Simbolo> tablaSimbolos = new ArrayList<>();
+    private Nodo arbol;
 
     private String claseActual = "";
+    private String metodoActual = "";
     private String visibilidadActual = "default";
 
-    private static final int LIMITE_ERRORES = 100;
+    // Índice de referencias: null si no se pidió
+    private IndiceReferencias.Registro registro;
+    private IndiceReferencias indiceReferencias;
+
+    // Ajustables en ejecución (ver MetricasAnalizador): cada analizador toma el
+    // límite vigente al crearse, así un análisis en curso no cambia a la mitad
+    private static volatile int limiteErroresGlobal = 100;
+    private static volatile ForkJoinPool hilosParalelos;     // null: ForkJoinPool común
+    private final int limiteErrores = limiteErroresGlobal;
+
+    // Modo paralelo: por debajo de estos tamaños (en tokens) no compensa repartir
+    private static final int MINIMO_PARALELO = 4000;
+    private static final int TOKENS_POR_TAREA = 2000;
+    private boolean modoParalelo = false;
+
+    // Presupuesto en bytes de la tabla de símbolos; 0 la deja entera en memoria
+    private long presupuestoMemoria = 0;
+
+    // Límite de tiempo y tokens: al agotarse se salta al final y el resultado queda truncado
+    private Presupuesto presupuesto = Presupuesto.ILIMITADO;
+    private boolean truncado = false;
+    private int producciones;
+
+    // Recuperación en modo pánico: mientras está activa no se registran errores en cascada
+    private boolean enRecuperacion = false;
+
+    // Conjuntos de sincronización (';' y '}' actúan como sincronización en todos los niveles)
+    private static final Set<String> SINC_CLASE = Set.of("class", "public");
+
+    private static final Set<String> SINC_MIEMBRO = Set.of(
+        "public", "private", "protected", "static", "final", "abstract", "class",
+        "int", "boolean", "String", "void", "double", "float", "char", "byte", "short", "long"
+    );
+
+    private static final Set<String> SINC_SENTENCIA = Set.of(
+        "{", "if", "while", "for", "do", "switch", "try", "System", "return",
+        "break", "continue", "throw", "int", "boolean", "String", "double", "float",
+        "char", "byte", "short", "long", "final"
+    );
+
+    // Precedencia de los operadores binarios (mayor valor = liga más fuerte)
+    private static final Map<String, Integer> PRECEDENCIA = Map.ofEntries(
+        Map.entry("||", 1), Map.entry("&&", 2),
+        Map.entry("|", 3), Map.entry("^", 4), Map.entry("&", 5),
+        Map.entry("==", 6), Map.entry("!=", 6),
+        Map.entry("<", 7), Map.entry(">", 7), Map.entry("<=", 7), Map.entry(">=", 7), Map.entry("instanceof", 7),
+        Map.entry("<<", 8), Map.entry(">>", 8), Map.entry(">>>", 8),
+        Map.entry("+", 9), Map.entry("-", 9),
+        Map.entry("*", 10), Map.entry("/", 10), Map.entry("%", 10)
+    );
+
+    private static final Set<String> SINC_EXPRESION = Set.of(";", ")", "]", ",", "}", ":");
 
     public AnalizadorSintactico() {
         this.tokens = new ArrayList<>();
@@ -30,20 +92,244 @@ public class AnalizadorSintactico {
         this.tokens = tokensEntrada;
         this.indiceActual = 0;
         this.errores.clear();
-        this.tablaSimbolos.clear();
+        if (presupuestoMemoria > 0) this.tablaSimbolos = new AlmacenSegmentado<>(AlmacenSegmentado.SIMBOLOS, presupuestoMemoria);
+        else this.tablaSimbolos.clear();
+        this.enRecuperacion = false;
+        this.truncado = false;
+        this.producciones = 0;
+        this.arbol = new Nodo("Programa", null, null);
+        this.indiceReferencias = null;
+        if (registro != null) registro = new IndiceReferencias.Registro();
+
+        // El límite de tokens se cuenta sobre la posición en la lista completa: solo en secuencia
+        boolean paralelo = modoParalelo && tokens.size() >= MINIMO_PARALELO && !presupuesto.tokensAgotados(tokens.size());
+        if (!(paralelo && analizarEnParalelo())) {
+            goal();
+
+            // Si quedan tokens sin consumir
+            if (indiceActual < tokens.size()) {
+                Token t = tokens.get(indiceActual);
+                errores.add(String.format(
+                    "Error sintáctico: tokens inesperados después del final del programa. Ejemplo: '%s' en línea %d.",
+                    t.getLexema(), t.getLinea()
+                ));
+            }
+        }
 
-        goal();
+        if (registro != null) indiceReferencias = IndiceReferencias.construir(tokens, tablaSimbolos, registro);
+    }
 
-        // Si quedan tokens sin consumir
-        if (indiceActual < tokens.size()) {
-            Token t = tokens.get(indiceActual);
-            errores.add(String.format(
-                "Error sintáctico: tokens inesperados después del final del programa. Ejemplo: '%s' en línea %d.",
-                t.getLexema(), t.getLinea()
-            ));
+    /** Con true, analizar también arma el índice de referencias cruzadas */
+    public void setIndiceReferencias(boolean activo) {
+        this.registro = activo ? new IndiceReferencias.Registro() : null;
+    }
+
+    /** Índice del último análisis; null si no se activó con setIndiceReferencias */
+    public IndiceReferencias getIndiceReferencias() {
+        return indiceReferencias;
+    }
+
+    /**
+     * Bytes de heap que puede ocupar la tabla de símbolos antes de mandar a disco
+     * sus partes más viejas (ver AlmacenSegmentado). 0 la deja toda en memoria.
+     */
+    public void setPresupuestoMemoria(long bytes) {
+        this.presupuestoMemoria = bytes;
+    }
+
+    /**
+     * Límite de tiempo y de tokens del próximo análisis. Se consulta al entrar a
+     * cada clase, sentencia y expresión (y en cada paso del motor de expresiones);
+     * al agotarse el análisis termina como si se hubieran acabado los tokens, sin
+     * registrar más errores, y isTruncado devuelve true.
+     */
+    public void setPresupuesto(Presupuesto presupuesto) {
+        this.presupuesto = presupuesto;
+    }
+
+    /** true si el último análisis se cortó por el presupuesto: árbol, símbolos y errores son parciales */
+    public boolean isTruncado() {
+        return truncado;
+    }
+
+    /** Con true, analizar reparte las clases del programa entre hilos (ver setParalelismo) */
+    public void setModoParalelo(boolean modoParalelo) {
+        this.modoParalelo = modoParalelo;
+    }
+
+    /** Errores que registra cada análisis antes de dejar de informar; vale para los analizadores que se creen después */
+    public static void setLimiteErrores(int limite) {
+        if (limite < 1) throw new IllegalArgumentException("El límite de errores debe ser al menos 1");
+        limiteErroresGlobal = limite;
+    }
+
+    public static int getLimiteErrores() {
+        return limiteErroresGlobal;
+    }
+
+    /**
+     * Hilos propios para el modo paralelo; 0 vuelve al ForkJoinPool común. El grupo
+     * anterior termina las tareas que tenga y se cierra.
+     */
+    public static synchronized void setParalelismo(int hilos) {
+        if (hilos < 0) throw new IllegalArgumentException("El paralelismo no puede ser negativo");
+        ForkJoinPool anterior = hilosParalelos;
+        hilosParalelos = hilos > 0 ? new ForkJoinPool(hilos) : null;
+        if (anterior != null) anterior.shutdown();
+    }
+
+    /** Hilos del modo paralelo; 0 si se usa el ForkJoinPool común */
+    public static int getParalelismo() {
+        ForkJoinPool hilos = hilosParalelos;
+        return hilos != null ? hilos.getParallelism() : 0;
+    }
+
+    // ------------------ ANÁLISIS PARALELO ------------------
+
+    /**
+     * Analiza cada clase con su propio AnalizadorSintactico (errores, tabla de
+     * símbolos y árbol independientes) y une los resultados en el orden del código.
+     * Devuelve false si el programa no se puede dividir o si alguna clase tiene
+     * errores: en ese caso se repite el análisis secuencial, de modo que los
+     * mensajes y la recuperación de errores no dependen del modo.
+     */
+    private boolean analizarEnParalelo() {
+        List<int[]> segmentos = dividirEnClases(tokens);
+        if (segmentos == null || segmentos.size() < 2) return false;
+
+        AnalizadorSintactico[] resultados = new AnalizadorSintactico[segmentos.size()];
+        ForkJoinPool hilos = hilosParalelos;
+        try {
+            (hilos != null ? hilos : ForkJoinPool.commonPool()).invoke(
+                new TareaClases(tokens, segmentos, resultados, 0, segmentos.size(), registro != null, presupuesto));
+        } catch (RejectedExecutionException e) {
+            // El grupo se cerró por un cambio de paralelismo justo ahora: se analiza en secuencia
+            return false;
+        }
+
+        // Si se agotó el tiempo no se repite en secuencia: se une lo que se alcanzó a analizar
+        for (AnalizadorSintactico resultado : resultados) truncado |= resultado.truncado;
+        if (!truncado) {
+            for (AnalizadorSintactico resultado : resultados) {
+                if (!resultado.segmentoCompleto()) return false;
+            }
+        }
+        for (AnalizadorSintactico resultado : resultados) {
+            for (Nodo clase : resultado.arbol.getHijos()) arbol.agregarHijo(clase);
+            tablaSimbolos.addAll(resultado.tablaSimbolos);
+            if (truncado) errores.addAll(resultado.errores);
+            if (registro != null) registro.agregar(resultado.registro);
         }
+        indiceActual = tokens.size();
+        return true;
+    }
+
+    /**
+     * Prerecorrido con conteo de llaves: cada segmento [inicio, fin) va desde el
+     * modificador o 'class' hasta la '}' que cierra el cuerpo de la clase.
+     * Devuelve null si hay tokens fuera de una clase o llaves sin cerrar.
+     */
+    static List<int[]> dividirEnClases(List<Token> tokens) {
+        List<int[]> segmentos = new ArrayList<>();
+        int i = 0;
+        while (i < tokens.size()) {
+            String lex = tokens.get(i).getLexema();
+            if (!lex.equals("public") && !lex.equals("private") && !lex.equals("protected") && !lex.equals("class")) {
+                return null;
+            }
+
+            int j = i;
+            while (j < tokens.size() && !tokens.get(j).getLexema().equals("{")) {
+                String encabezado = tokens.get(j).getLexema();
+                if (encabezado.equals("}") || encabezado.equals(";")) return null;
+                j++;
+            }
+
+            int profundidad = 0;
+            for (; j < tokens.size(); j++) {
+                String llave = tokens.get(j).getLexema();
+                if (llave.equals("{")) {
+                    profundidad++;
+                } else if (llave.equals("}") && --profundidad == 0) {
+                    break;
+                }
+            }
+            if (j >= tokens.size()) return null;
+
+            segmentos.add(new int[] {i, j + 1});
+            i = j + 1;
+        }
+        return segmentos;
+    }
+
+    /**
+     * Analiza los tokens de una sola clase con un analizador propio. El resultado
+     * conserva su árbol, tabla de símbolos y errores, y si consumió todo el segmento.
+     */
+    static AnalizadorSintactico analizarSegmento(List<Token> segmento) {
+        return analizarSegmento(segmento, false);
+    }
+
+    static AnalizadorSintactico analizarSegmento(List<Token> segmento, boolean conReferencias) {
+        return analizarSegmento(segmento, conReferencias, Presupuesto.ILIMITADO);
+    }
+
+    static AnalizadorSintactico analizarSegmento(List<Token> segmento, boolean conReferencias, Presupuesto presupuesto) {
+        AnalizadorSintactico analizador = new AnalizadorSintactico();
+        analizador.setIndiceReferencias(conReferencias);
+        analizador.setPresupuesto(presupuesto);
+        analizador.tokens = segmento;
+        analizador.arbol = new Nodo("Programa", null, null);
+        analizador.goal();
+        return analizador;
     }
 
+    /** true si el análisis de un segmento terminó sin errores y sin tokens sobrantes */
+    boolean segmentoCompleto() {
+        return errores.isEmpty() && indiceActual >= tokens.size();
+    }
+
+    /** Divide los segmentos en mitades hasta que cada tarea tenga pocos tokens */
+    private static final class TareaClases extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Token> tokens;
+        private final List<int[]> segmentos;
+        private final AnalizadorSintactico[] resultados;
+        private final int desde;
+        private final int hasta;
+        private final boolean conReferencias;
+        private final Presupuesto presupuesto;
+
+        TareaClases(List<Token> tokens, List<int[]> segmentos, AnalizadorSintactico[] resultados, int desde, int hasta,
+                    boolean conReferencias, Presupuesto presupuesto) {
+            this.tokens = tokens;
+            this.segmentos = segmentos;
+            this.resultados = resultados;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.conReferencias = conReferencias;
+            this.presupuesto = presupuesto;
+        }
+
+        @Override
+        protected void compute() {
+            int cantidadTokens = segmentos.get(hasta - 1)[1] - segmentos.get(desde)[0];
+            if (hasta - desde == 1 || cantidadTokens <= TOKENS_POR_TAREA) {
+                for (int i = desde; i < hasta; i++) {
+                    int[] segmento = segmentos.get(i);
+                    resultados[i] = analizarSegmento(tokens.subList(segmento[0], segmento[1]), conReferencias, presupuesto);
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaClases(tokens, segmentos, resultados, desde, medio, conReferencias, presupuesto),
+                      new TareaClases(tokens, segmentos, resultados, medio, hasta, conReferencias, presupuesto));
+        }
+    }
+
+    // ------------------ PROGRAMA ------------------
+
     private void goal() {
         if (tokens.isEmpty()) {
             errores.add("Error sintáctico: archivo vacío, se esperaba al menos una clase.");
@@ -52,18 +338,22 @@ public class AnalizadorSintactico {
 
         // Procesar todas las clases (pueden ser múltiples clases públicas o no públicas)
         while (indiceActual < tokens.size()) {
+            if (agotado()) break;
+            int antes = indiceActual;
             if (verificarLexema("public") || verificarLexema("class")) {
-                classDeclaration();
+                Nodo clase = classDeclaration();
+                if (clase != null) arbol.agregarHijo(clase);
             } else {
                 registrarError("Se esperaba una declaración de clase.");
-                avanzar();
+                sincronizar(SINC_CLASE);
             }
+            asegurarAvance(antes, SINC_CLASE);
             
-            if (errores.size() >= LIMITE_ERRORES) break;
+            if (errores.size() >= limiteErrores) break;
         }
     }
 
-    private void classDeclaration() {
+    private Nodo classDeclaration() {
         String visibilidad = "default";
         String nombreClase = "";
         String clasePadre = null;
@@ -81,12 +371,12 @@ public class AnalizadorSintactico {
             match("protected");
         }
 
-        if (!match("class")) return;
+        if (!match("class")) return null;
 
         // Nombre de la clase
         if (!verificarTipo("Identificador")) {
             registrarError("Se esperaba un identificador como nombre de clase.");
-            return;
+            return null;
         }
 
         tokenClase = tokens.get(indiceActual);
@@ -94,6 +384,8 @@ public class AnalizadorSintactico {
         claseActual = nombreClase;
         avanzar();
 
+        Nodo clase = new Nodo("Clase", nombreClase, tokenClase);
+
         // Herencia (extends)
         if (verificarLexema("extends")) {
             match("extends");
@@ -101,6 +393,8 @@ public class AnalizadorSintactico {
                 registrarError("Se esperaba identificador después de 'extends'.");
             } else { 
                 clasePadre = tokens.get(indiceActual).getLexema(); 
+                usarTipo(tokens.get(indiceActual));
+                clase.agregarHijo(new Nodo("Extiende", clasePadre, tokens.get(indiceActual)));
                 avanzar(); 
             }
         }
@@ -111,6 +405,8 @@ public class AnalizadorSintactico {
             if (!verificarTipo("Identificador")) {
                 registrarError("Se esperaba identificador después de 'implements'.");
             } else {
+                clase.agregarHijo(new Nodo("Implementa", tokens.get(indiceActual).getLexema(), tokens.get(indiceActual)));
+                usarTipo(tokens.get(indiceActual));
                 avanzar();
                 // Puede implementar múltiples interfaces
                 while (verificarLexema(",")) {
@@ -118,6 +414,8 @@ public class AnalizadorSintactico {
                     if (!verificarTipo("Identificador")) {
                         registrarError("Se esperaba identificador después de ','.");
                     } else {
+                        clase.agregarHijo(new Nodo("Implementa", tokens.get(indiceActual).getLexema(), tokens.get(indiceActual)));
+                        usarTipo(tokens.get(indiceActual));
                         avanzar();
                     }
                 }
@@ -125,50 +423,62 @@ public class AnalizadorSintactico {
         }
 
         // Registrar clase en tabla de símbolos
-        tablaSimbolos.add(new Simbolo(nombreClase, "class", clasePadre != null ? clasePadre : "-", "-", visibilidad,
-            "Línea " + tokenClase.getLinea() + ", Columna " + tokenClase.getColumna(), "Clase"));
+        declarar(new Simbolo(nombreClase, "class", clasePadre != null ? clasePadre : "-", "-", visibilidad,
+            "Línea " + tokenClase.getLinea() + ", Columna " + tokenClase.getColumna(), "Clase"), tokenClase);
 
-        if (!match("{")) return;
+        if (!match("{")) return clase;
 
         // Cuerpo de la clase: variables de instancia y métodos
         while (indiceActual < tokens.size() && !verificarLexema("}")) {
+            if (agotado()) break;
+            int antes = indiceActual;
             
             // Verificar si es el método main
             if (esMetodoMain()) {
-                mainMethod();
+                clase.agregarHijo(mainMethod());
             }
             // Verificar si es una declaración de método
             else if (esDeclaracionMetodo()) {
-                methodDeclaration(nombreClase);
+                Nodo metodo = methodDeclaration(nombreClase);
+                if (metodo != null) clase.agregarHijo(metodo);
             }
             // Verificar si es una declaración de variable
             else if (esDeclaracionVariable()) {
                 String visVar = obtenerVisibilidad();
-                varDeclaration(nombreClase, visVar);
+                varDeclaration(nombreClase, visVar, clase);
             }
             // Bloque estático o inicializador
             else if (verificarLexema("static") && siguienteEs("{")) {
                 match("static");
+                Nodo estatico = new Nodo("Estatico", null, tokens.get(indiceActual));
+                Nodo bloque = new Nodo("Bloque", null, tokens.get(indiceActual));
                 match("{");
                 while (!verificarLexema("}") && indiceActual < tokens.size()) {
+                    if (agotado()) break;
+                    int antesBloque = indiceActual;
                     if (esInicioDeSentencia()) {
-                        statement();
+                        bloque.agregarHijo(statement());
                     } else {
                         avanzar();
                     }
+                    asegurarAvance(antesBloque, SINC_SENTENCIA);
                 }
                 match("}");
+                estatico.agregarHijo(bloque);
+                clase.agregarHijo(estatico);
             }
             else {
                 registrarError("Declaración no reconocida dentro de la clase.");
-                avanzar();
+                sincronizar(SINC_MIEMBRO);
             }
+            asegurarAvance(antes, SINC_MIEMBRO);
 
-            if (errores.size() >= LIMITE_ERRORES) break;
+            if (errores.size() >= limiteErrores) break;
         }
 
         match("}");
         claseActual = "";
+        return clase;
     }
 
     private boolean esMetodoMain() {
@@ -189,11 +499,14 @@ public class AnalizadorSintactico {
         return false;
     }
 
-    private void mainMethod() {
+    private Nodo mainMethod() {
         match("public");
         match("static");
         match("void");
+        Nodo metodo = new Nodo("Main", "main", tokens.get(indiceActual));
+        metodo.setTipoDato("void");
         match("main");
+        metodoActual = "main";
         match("(");
         
         // Parámetro: String[] args
@@ -204,6 +517,9 @@ public class AnalizadorSintactico {
             if (!verificarTipo("Identificador")) {
                 registrarError("Se esperaba un identificador como parámetro de 'main'.");
             } else {
+                Nodo parametro = new Nodo("Parametro", tokens.get(indiceActual).getLexema(), tokens.get(indiceActual));
+                parametro.setTipoDato("String[]");
+                metodo.agregarHijo(parametro);
                 avanzar();
             }
         }
@@ -211,22 +527,29 @@ public class AnalizadorSintactico {
         match(")");
         
         // Cuerpo del main
-        if (!match("{")) return;
+        Nodo cuerpo = new Nodo("Bloque", null, indiceActual < tokens.size() ? tokens.get(indiceActual) : null);
+        metodo.agregarHijo(cuerpo);
+        if (!match("{")) return metodo;
 
         while (indiceActual < tokens.size() && !verificarLexema("}")) {
+            if (agotado()) break;
+            int antes = indiceActual;
             if (esDeclaracionVariable()) {
-                varDeclaration(claseActual + ".main", "local");
+                varDeclaration(claseActual + ".main", "local", cuerpo);
             } else if (esInicioDeSentencia()) {
-                statement();
+                cuerpo.agregarHijo(statement());
             } else {
                 registrarError("Token inesperado dentro del cuerpo del main.");
-                avanzar();
+                sincronizar(SINC_SENTENCIA);
             }
+            asegurarAvance(antes, SINC_SENTENCIA);
             
-            if (errores.size() >= LIMITE_ERRORES) break;
+            if (errores.size() >= limiteErrores) break;
         }
 
         match("}");
+        metodoActual = "";
+        return metodo;
     }
 
     private boolean esDeclaracionMetodo() {
@@ -328,34 +651,42 @@ public class AnalizadorSintactico {
         return siguiente.equals(";") || siguiente.equals("=") || siguiente.equals(",");
     }
 
+    /**
+     * Consume los modificadores en cualquier orden (los mismos que aceptan
+     * esDeclaracionMetodo y esDeclaracionVariable) y devuelve la visibilidad.
+     */
     private String obtenerVisibilidad() {
         String vis = "default";
         
-        if (verificarLexema("public")) {
-            vis = "public";
-            match("public");
-        } else if (verificarLexema("private")) {
-            vis = "private";
-            match("private");
-        } else if (verificarLexema("protected")) {
-            vis = "protected";
-            match("protected");
+        while (indiceActual < tokens.size()) {
+            String lex = tokens.get(indiceActual).getLexema();
+            if (lex.equals("public") || lex.equals("private") || lex.equals("protected")) {
+                vis = lex;
+            } else if (!lex.equals("static") && !lex.equals("final") && !lex.equals("abstract")) {
+                break;
+            }
+            avanzar();
         }
         
-        // Modificadores adicionales
-        if (verificarLexema("static")) match("static");
-        if (verificarLexema("final")) match("final");
-        
         return vis;
     }
 
-    private void varDeclaration(String claseContenedora, String visibilidad) {
+    /** Declaración de una o más variables; cada una se agrega como nodo "Variable" al padre */
+    private void varDeclaration(String claseContenedora, String visibilidad, Nodo padre) {
+        // Una variable local solo admite 'final'; los miembros ya consumieron sus modificadores
+        while (verificarLexema("final") || verificarLexema("public") || verificarLexema("private") ||
+               verificarLexema("protected") || verificarLexema("static")) {
+            if (!verificarLexema("final")) registrarError("Modificador no permitido en una variable local.");
+            avanzar();
+        }
+
         if (!esTipo()) {
             registrarError("Se esperaba un tipo de dato.");
             return;
         }
 
         String tipo = tokens.get(indiceActual).getLexema();
+        usarTipo(tokens.get(indiceActual));
         avanzar();
         
         // Manejo de arrays: int[] o int []
@@ -384,6 +715,10 @@ public class AnalizadorSintactico {
                 tipoFinal += "[]";
             }
 
+            Nodo variable = new Nodo("Variable", nombre, tokenVar);
+            variable.setTipoDato(tipoFinal);
+            padre.agregarHijo(variable);
+
             // Manejo de inicialización opcional
             String valor = "-";
             if (verificarLexema("=")) {
@@ -396,11 +731,11 @@ public class AnalizadorSintactico {
                     valor = tokens.get(indiceActual).getLexema();
                 }
                 
-                expression();
+                variable.agregarHijo(expression());
             }
 
-            tablaSimbolos.add(new Simbolo(nombre, tipoFinal, claseContenedora, valor, visibilidad,
-                "Línea " + tokenVar.getLinea() + ", Columna " + tokenVar.getColumna(), "Variable"));
+            declarar(new Simbolo(nombre, tipoFinal, claseContenedora, valor, visibilidad,
+                "Línea " + tokenVar.getLinea() + ", Columna " + tokenVar.getColumna(), "Variable"), tokenVar);
             
             // Siguiente variable en la misma declaración
             if (verificarLexema(",")) {
@@ -413,7 +748,7 @@ public class AnalizadorSintactico {
         match(";");
     }
 
-    private void methodDeclaration(String claseContenedora) {
+    private Nodo methodDeclaration(String claseContenedora) {
         String visibilidad = obtenerVisibilidad();
         String tipoRetorno = "";
         String nombreMetodo = "";
@@ -422,9 +757,10 @@ public class AnalizadorSintactico {
         // Tipo de retorno
         if (!esTipo()) {
             registrarError("Se esperaba un tipo de retorno.");
-            return;
+            return null;
         }
         tipoRetorno = tokens.get(indiceActual).getLexema();
+        usarTipo(tokens.get(indiceActual));
         avanzar();
         
         // Arrays en tipo de retorno
@@ -437,24 +773,29 @@ public class AnalizadorSintactico {
         // Nombre del método
         if (!verificarTipo("Identificador")) {
             registrarError("Se esperaba un identificador como nombre de método.");
-            return;
+            return null;
         }
 
         tokenMetodo = tokens.get(indiceActual);
         nombreMetodo = tokenMetodo.getLexema();
         avanzar();
 
+        Nodo metodo = new Nodo("Metodo", nombreMetodo, tokenMetodo);
+        metodo.setTipoDato(tipoRetorno);
+
         // Registrar método en la tabla de símbolos
-        tablaSimbolos.add(new Simbolo(
+        declarar(new Simbolo(
             nombreMetodo, tipoRetorno, claseContenedora, "-", visibilidad,
             "Línea " + tokenMetodo.getLinea() + ", Columna " + tokenMetodo.getColumna(), "Método"
-        ));
+        ), tokenMetodo);
+        metodoActual = nombreMetodo;
 
         // Parámetros
         match("(");
 
         if (esTipo()) {
             String tipoParam = tokens.get(indiceActual).getLexema();
+            usarTipo(tokens.get(indiceActual));
             avanzar();
             
             // Arrays en parámetros
@@ -468,11 +809,14 @@ public class AnalizadorSintactico {
                 registrarError("Se esperaba un identificador de parámetro.");
             } else {
                 Token tParam = tokens.get(indiceActual);
-                tablaSimbolos.add(new Simbolo(
+                declarar(new Simbolo(
                     tParam.getLexema(), tipoParam,
                     claseContenedora + "." + nombreMetodo, "-", "local",
                     "Línea " + tParam.getLinea() + ", Columna " + tParam.getColumna(), "Parámetro"
-                ));
+                ), tParam);
+                Nodo parametro = new Nodo("Parametro", tParam.getLexema(), tParam);
+                parametro.setTipoDato(tipoParam);
+                metodo.agregarHijo(parametro);
                 avanzar();
             }
 
@@ -483,6 +827,7 @@ public class AnalizadorSintactico {
                     break;
                 }
                 tipoParam = tokens.get(indiceActual).getLexema();
+                usarTipo(tokens.get(indiceActual));
                 avanzar();
                 
                 while (verificarLexema("[")) {
@@ -496,11 +841,14 @@ public class AnalizadorSintactico {
                     break;
                 }
                 Token tParam = tokens.get(indiceActual);
-                tablaSimbolos.add(new Simbolo(
+                declarar(new Simbolo(
                     tParam.getLexema(), tipoParam,
                     claseContenedora + "." + nombreMetodo, "-", "local",
                     "Línea " + tParam.getLinea() + ", Columna " + tParam.getColumna(), "Parámetro"
-                ));
+                ), tParam);
+                Nodo parametro = new Nodo("Parametro", tParam.getLexema(), tParam);
+                parametro.setTipoDato(tipoParam);
+                metodo.agregarHijo(parametro);
                 avanzar();
             }
         }
@@ -508,107 +856,135 @@ public class AnalizadorSintactico {
         match(")");
 
         // Cuerpo del método
-        if (!match("{")) return;
+        Nodo cuerpo = new Nodo("Bloque", null, indiceActual < tokens.size() ? tokens.get(indiceActual) : null);
+        metodo.agregarHijo(cuerpo);
+        if (!match("{")) return metodo;
 
         while (!verificarLexema("}") && indiceActual < tokens.size()) {
+            if (agotado()) break;
+            int antes = indiceActual;
             if (esDeclaracionVariable()) {
-                varDeclaration(claseContenedora + "." + nombreMetodo, "local");
+                varDeclaration(claseContenedora + "." + nombreMetodo, "local", cuerpo);
             } else if (esInicioDeSentencia()) {
-                statement();
+                cuerpo.agregarHijo(statement());
             } else {
                 registrarError("Token inesperado dentro del cuerpo del método.");
-                avanzar();
+                sincronizar(SINC_SENTENCIA);
             }
+            asegurarAvance(antes, SINC_SENTENCIA);
             
-            if (errores.size() >= LIMITE_ERRORES) break;
+            if (errores.size() >= limiteErrores) break;
         }
 
         match("}");
+        metodoActual = "";
+        return metodo;
     }
 
-    private void statement() {
+    private Nodo statement() {
+        if (agotado()) return new Nodo("Vacio", null, null);
+        Token inicio = indiceActual < tokens.size() ? tokens.get(indiceActual) : null;
+
         // Bloque de sentencias
         if (verificarLexema("{")) {
+            Nodo bloque = new Nodo("Bloque", null, inicio);
             match("{");
             while (indiceActual < tokens.size() && !verificarLexema("}")) {
+                if (agotado()) break;
+                int antes = indiceActual;
                 if (esDeclaracionVariable()) {
-                    varDeclaration(claseActual, "local");
+                    varDeclaration(claseActual, "local", bloque);
                 } else if (esInicioDeSentencia()) {
-                    statement();
+                    bloque.agregarHijo(statement());
                 } else {
                     registrarError("Token inesperado en bloque.");
-                    avanzar();
+                    sincronizar(SINC_SENTENCIA);
                 }
-                if (errores.size() >= LIMITE_ERRORES) break;
+                asegurarAvance(antes, SINC_SENTENCIA);
+                if (errores.size() >= limiteErrores) break;
             }
             match("}");
-            return;
+            registrarBloque(inicio);
+            return bloque;
         }
 
         // Sentencia if
         if (verificarLexema("if")) {
-            match("if"); match("("); expression(); match(")"); statement();
-            if (verificarLexema("else")) { match("else"); statement(); }
-            return;
+            Nodo si = new Nodo("If", null, inicio);
+            match("if"); match("("); si.agregarHijo(expression()); match(")"); si.agregarHijo(statement());
+            if (verificarLexema("else")) { match("else"); si.agregarHijo(statement()); }
+            return si;
         }
 
         // Sentencia while
         if (verificarLexema("while")) {
-            match("while"); match("("); expression(); match(")"); statement();
-            return;
+            Nodo mientras = new Nodo("While", null, inicio);
+            match("while"); match("("); mientras.agregarHijo(expression()); match(")"); mientras.agregarHijo(statement());
+            return mientras;
         }
 
-        // Sentencia for
+        // Sentencia for: hijos inicialización, condición, actualización y cuerpo ("Vacio" si se omiten)
         if (verificarLexema("for")) {
+            Nodo para = new Nodo("For", null, inicio);
             match("for"); match("(");
             
+            Nodo inicializacion = new Nodo("Bloque", null, inicio);
             if (esDeclaracionVariable()) {
-                varDeclaration(claseActual, "local");
+                varDeclaration(claseActual, "local", inicializacion);
             } else if (!verificarLexema(";")) {
-                expression();
+                inicializacion.agregarHijo(expresionOAsignacion());
                 match(";");
             } else {
                 match(";");
             }
+            para.agregarHijo(inicializacion);
             
             if (!verificarLexema(";")) {
-                expression();
+                para.agregarHijo(expression());
+            } else {
+                para.agregarHijo(new Nodo("Vacio", null, null));
             }
             match(";");
             
             if (!verificarLexema(")")) {
-                expression();
+                para.agregarHijo(expresionOAsignacion());
+            } else {
+                para.agregarHijo(new Nodo("Vacio", null, null));
             }
             
             match(")");
-            statement();
-            return;
+            para.agregarHijo(statement());
+            registrarBloque(inicio);
+            return para;
         }
 
         // do-while
         if (verificarLexema("do")) {
+            Nodo hacer = new Nodo("DoWhile", null, inicio);
             match("do");
-            statement();
+            hacer.agregarHijo(statement());
             match("while");
             match("(");
-            expression();
+            hacer.agregarHijo(expression());
             match(")");
             match(";");
-            return;
+            return hacer;
         }
 
-        // switch
+        // switch: hijos expresión y casos; un "Caso" case lleva la etiqueta como primer hijo
         if (verificarLexema("switch")) {
+            Nodo seleccion = new Nodo("Switch", null, inicio);
             match("switch");
             match("(");
-            expression();
+            seleccion.agregarHijo(expression());
             match(")");
             match("{");
             
             while (verificarLexema("case") || verificarLexema("default")) {
+                Nodo caso = new Nodo("Caso", tokens.get(indiceActual).getLexema(), tokens.get(indiceActual));
                 if (verificarLexema("case")) {
                     match("case");
-                    expression();
+                    caso.agregarHijo(expression());
                     match(":");
                 } else {
                     match("default");
@@ -618,48 +994,65 @@ public class AnalizadorSintactico {
                 while (!verificarLexema("case") && !verificarLexema("default") && 
                        !verificarLexema("}") && indiceActual < tokens.size()) {
                     if (verificarLexema("break")) {
+                        caso.agregarHijo(new Nodo("Break", null, tokens.get(indiceActual)));
                         match("break");
                         match(";");
                         break;
                     }
-                    statement();
+                    caso.agregarHijo(statement());
                 }
+                registrarBloque(caso.getToken());
+                seleccion.agregarHijo(caso);
             }
             
             match("}");
-            return;
+            return seleccion;
         }
 
         // try-catch
         if (verificarLexema("try")) {
+            Nodo intento = new Nodo("Try", null, inicio);
             match("try");
-            statement();
+            intento.agregarHijo(statement());
             
             while (verificarLexema("catch")) {
+                Token tokenCatch = tokens.get(indiceActual);
+                String tipoExcepcion = "-";
+                String nombre = null;
                 match("catch");
                 match("(");
                 if (esTipo()) {
+                    tipoExcepcion = tokens.get(indiceActual).getLexema();
+                    usarTipo(tokens.get(indiceActual));
                     avanzar();
                     if (verificarTipo("Identificador")) {
+                        nombre = tokens.get(indiceActual).getLexema();
                         avanzar();
                     }
                 }
                 match(")");
-                statement();
+                Nodo captura = new Nodo("Catch", nombre, tokenCatch);
+                captura.setTipoDato(tipoExcepcion);
+                captura.agregarHijo(statement());
+                intento.agregarHijo(captura);
             }
             
             if (verificarLexema("finally")) {
+                Nodo finalmente = new Nodo("Finally", null, tokens.get(indiceActual));
                 match("finally");
-                statement();
+                finalmente.agregarHijo(statement());
+                intento.agregarHijo(finalmente);
             }
-            return;
+            return intento;
         }
 
         // System.out.println() o System.out.print()
         if (verificarLexema("System")) {
             match("System"); match("."); match("out"); match(".");
             
+            Nodo imprimir = new Nodo("Imprimir", "println", inicio);
             if (verificarLexema("println") || verificarLexema("print")) {
+                imprimir = new Nodo("Imprimir", tokens.get(indiceActual).getLexema(), inicio);
                 avanzar();
             } else {
                 registrarError("Se esperaba 'println' o 'print' después de 'System.out.'");
@@ -667,251 +1060,416 @@ public class AnalizadorSintactico {
             
             match("(");
             if (!verificarLexema(")")) {
-                expression();
+                imprimir.agregarHijo(expression());
             }
             match(")"); 
             match(";");
-            return;
+            return imprimir;
         }
 
         // Sentencia return
         if (verificarLexema("return")) {
+            Nodo retorno = new Nodo("Return", null, inicio);
             match("return");
             if (!verificarLexema(";")) {
-                expression();
+                retorno.agregarHijo(expression());
             }
             match(";");
-            return;
+            return retorno;
         }
 
         // break, continue
         if (verificarLexema("break") || verificarLexema("continue")) {
+            Nodo salto = new Nodo(verificarLexema("break") ? "Break" : "Continue", null, inicio);
             avanzar();
             match(";");
-            return;
+            return salto;
         }
 
         // throw
         if (verificarLexema("throw")) {
+            Nodo lanzar = new Nodo("Throw", null, inicio);
             match("throw");
-            expression();
+            lanzar.agregarHijo(expression());
             match(";");
-            return;
+            return lanzar;
         }
 
         // Asignaciones, llamadas a métodos o expresiones
         if (verificarTipo("Identificador")) {
+            Nodo sentencia = expresionOAsignacion();
+            match(";");
+            return sentencia;
+        }
+
+        registrarError("Sentencia no reconocida.");
+        sincronizar(SINC_SENTENCIA);
+        return new Nodo("Error", inicio != null ? inicio.getLexema() : null, inicio);
+    }
+
+    /**
+     * Expresión usada como sentencia: asignación simple o compuesta (destino = valor)
+     * o expresión suelta como una llamada a método o un incremento.
+     */
+    private Nodo expresionOAsignacion() {
+        Nodo destino = expression();
+
+        if (indiceActual < tokens.size() && esOperadorAsignacion(tokens.get(indiceActual).getLexema())) {
+            Token operador = tokens.get(indiceActual);
             avanzar();
+            Nodo asignacion = new Nodo("Asignacion", operador.getLexema(), operador);
+            asignacion.agregarHijo(destino);
+            asignacion.agregarHijo(expression());
+            return asignacion;
+        }
 
-            // Operadores de incremento/decremento postfijos
-            if (verificarLexema("++") || verificarLexema("--")) {
-                avanzar();
-                match(";");
-                return;
-            }
+        Nodo sentencia = new Nodo("ExpresionSentencia", null, destino.getToken());
+        sentencia.agregarHijo(destino);
+        return sentencia;
+    }
 
-            // Acceso a miembros o métodos
-            while (verificarLexema(".")) {
-                match(".");
-                if (!verificarTipo("Identificador")) {
-                    registrarError("Se esperaba un identificador después de '.'");
-                    break;
+    private boolean esOperadorAsignacion(String op) {
+        return op.equals("=") || op.equals("+=") || op.equals("-=") || op.equals("*=") ||
+               op.equals("/=") || op.equals("%=") || op.equals("&=") || op.equals("|=") ||
+               op.equals("^=") || op.equals("<<=") || op.equals(">>=") || op.equals(">>>=");
+    }
+
+    /**
+     * Motor de expresiones por precedencia con pilas explícitas de operadores y
+     * operandos. Los paréntesis, índices y argumentos se apilan como marcas en lugar
+     * de llamadas recursivas, así la profundidad de la pila de Java es constante sin
+     * importar cuántos niveles de anidamiento tenga la expresión.
+     */
+    private Nodo expression() {
+        List<Nodo> operandos = new ArrayList<>();
+        List<Operador> operadores = new ArrayList<>();
+        boolean esperaOperando = true;
+
+        while (true) {
+            // Agotado el presupuesto, la expresión se cierra como en el fin de archivo
+            agotado();
+            if (esperaOperando) {
+                // Operadores unarios prefijos
+                if (verificarLexema("!") || verificarLexema("-") || verificarLexema("+") ||
+                    verificarLexema("~") || verificarLexema("++") || verificarLexema("--")) {
+                    operadores.add(new Operador(Operador.UNARIO, tokens.get(indiceActual), null, 0));
+                    avanzar();
+                    continue;
                 }
-                avanzar();
-                
+
+                // Paréntesis de agrupación
                 if (verificarLexema("(")) {
-                    match("(");
-                    if (!verificarLexema(")")) {
-                        while (true) {
-                            expression();
-                            if (verificarLexema(",")) match(",");
-                            else break;
+                    operadores.add(new Operador(Operador.GRUPO, tokens.get(indiceActual), null, operandos.size()));
+                    avanzar();
+                    continue;
+                }
+
+                // Creación de objetos y arreglos
+                if (verificarLexema("new")) {
+                    Token tokenNew = tokens.get(indiceActual);
+                    match("new");
+
+                    String tipo = "";
+                    if (verificarTipo("Identificador") || (indiceActual < tokens.size() &&
+                        esTipoValido(tokens.get(indiceActual).getLexema()))) {
+                        tipo = tokens.get(indiceActual).getLexema();
+                        usarTipo(tokens.get(indiceActual));
+                        avanzar();
+                    } else {
+                        registrarError("Se esperaba un identificador después de 'new'.");
+                    }
+
+                    if (verificarLexema("[")) {
+                        avanzar();
+                        operadores.add(new Operador(Operador.NUEVO_ARREGLO, tokenNew,
+                            new Nodo("NuevoArreglo", tipo, tokenNew), operandos.size()));
+                        continue;
+                    }
+
+                    Nodo nuevo = new Nodo("NuevoObjeto", tipo, tokenNew);
+                    if (verificarLexema("(")) {
+                        avanzar();
+                        if (!verificarLexema(")")) {
+                            operadores.add(new Operador(Operador.NUEVO_OBJETO, tokenNew, nuevo, operandos.size()));
+                            continue;
                         }
+                        avanzar();
                     }
-                    match(")");
+                    operandos.add(nuevo);
+                    esperaOperando = false;
+                    continue;
                 }
-            }
 
-            // Asignación simple
-            if (verificarLexema("=")) {
-                match("="); expression(); match(";");
-            }
-            // Operadores de asignación compuesta
-            else if (verificarLexema("+=") || verificarLexema("-=") || verificarLexema("*=") || 
-                     verificarLexema("/=") || verificarLexema("%=") || verificarLexema("&=") || 
-                     verificarLexema("|=") || verificarLexema("^=") || verificarLexema("<<=") || 
-                     verificarLexema(">>=") || verificarLexema(">>>=")) {
-                avanzar();
-                expression(); 
-                match(";");
-            }
-            // Acceso/asignación a array
-            else if (verificarLexema("[")) {
-                match("["); expression(); match("]"); 
-                
-                if (verificarLexema("=")) {
-                    match("="); expression();
+                Nodo primario = primario();
+                if (primario == null) {
+                    Token tokenError = indiceActual < tokens.size() ? tokens.get(indiceActual) : null;
+                    registrarError("Expresión no reconocida.");
+                    sincronizarExpresion();
+                    primario = new Nodo("Error", tokenError != null ? tokenError.getLexema() : null, tokenError);
                 }
-                match(";");
-            } 
-            // Llamada a método
-            else if (verificarLexema("(")) {
-                match("(");
-                if (!verificarLexema(")")) {
-                    while (true) {
-                        expression();
-                        if (verificarLexema(",")) match(",");
-                        else break;
+                operandos.add(primario);
+                esperaOperando = false;
+                continue;
+            }
+
+            // Acceso a miembros: .length, .campo o .metodo(...)
+            if (verificarLexema(".")) {
+                match(".");
+                Nodo receptor = operandos.remove(operandos.size() - 1);
+                if (verificarLexema("length")) {
+                    Nodo longitud = new Nodo("Longitud", "length", tokens.get(indiceActual));
+                    longitud.agregarHijo(receptor);
+                    operandos.add(longitud);
+                    avanzar();
+                } else if (verificarTipo("Identificador")) {
+                    Token tokenMiembro = tokens.get(indiceActual);
+                    if (registro != null) usarMiembro(tokenMiembro, receptor);
+                    avanzar();
+                    if (verificarLexema("(")) {
+                        avanzar();
+                        Nodo llamada = new Nodo("Llamada", tokenMiembro.getLexema(), tokenMiembro);
+                        llamada.agregarHijo(receptor);
+                        if (abrirArgumentos(llamada, Operador.LLAMADA, operandos, operadores)) {
+                            esperaOperando = true;
+                        }
+                    } else {
+                        Nodo acceso = new Nodo("Acceso", tokenMiembro.getLexema(), tokenMiembro);
+                        acceso.agregarHijo(receptor);
+                        operandos.add(acceso);
                     }
+                } else {
+                    registrarError("Se esperaba un identificador después de '.'");
+                    operandos.add(receptor);
                 }
-                match(")");
-                match(";");
-            } 
-            else {
-                match(";");
+                continue;
             }
-            return;
-        }
 
-        registrarError("Sentencia no reconocida.");
-        avanzar();
-    }
-
-    private void expression() {
-        simpleExpression();
-        while (indiceActual < tokens.size()) {
-            Token t = tokens.get(indiceActual);
-            if (t.getTipo().equals("Operador") && esOperadorBinario(t.getLexema())) {
+            // Acceso a arreglos
+            if (verificarLexema("[")) {
+                Token tokenIndice = tokens.get(indiceActual);
                 avanzar();
-                simpleExpression();
-            } else break;
-        }
-    }
+                Nodo indice = new Nodo("Indice", null, tokenIndice);
+                indice.agregarHijo(operandos.remove(operandos.size() - 1));
+                operadores.add(new Operador(Operador.INDICE, tokenIndice, indice, operandos.size()));
+                esperaOperando = true;
+                continue;
+            }
 
-    private void simpleExpression() {
-        // Operadores unarios prefijos
-        if (verificarLexema("!") || verificarLexema("-") || verificarLexema("+") || 
-            verificarLexema("~") || verificarLexema("++") || verificarLexema("--")) {
-            avanzar();
-        }
+            Nodo ultimo = operandos.get(operandos.size() - 1);
+
+            // Llamada a método sin receptor: metodo(...)
+            if (verificarLexema("(") && ultimo.getTipo().equals("Identificador")) {
+                avanzar();
+                operandos.remove(operandos.size() - 1);
+                Nodo llamada = new Nodo("Llamada", ultimo.getValor(), ultimo.getToken());
+                llamada.agregarHijo(new Nodo("Vacio", null, null));
+                if (abrirArgumentos(llamada, Operador.LLAMADA, operandos, operadores)) {
+                    esperaOperando = true;
+                }
+                continue;
+            }
 
-        if (verificarTipo("Identificador")) {
-            avanzar();
-            
             // Operadores postfijos
-            if (verificarLexema("++") || verificarLexema("--")) {
+            if ((verificarLexema("++") || verificarLexema("--")) && (ultimo.getTipo().equals("Identificador") ||
+                ultimo.getTipo().equals("Acceso") || ultimo.getTipo().equals("Indice"))) {
+                Nodo postfija = new Nodo("Postfija", tokens.get(indiceActual).getLexema(), tokens.get(indiceActual));
+                postfija.agregarHijo(operandos.remove(operandos.size() - 1));
+                operandos.add(postfija);
                 avanzar();
+                continue;
             }
-            
-            // Acceso a miembros
-            while (verificarLexema(".")) {
-                match(".");
-                if (verificarLexema("length")) {
+
+            // Operadores binarios: se reducen los de mayor o igual precedencia (asociatividad izquierda)
+            if (indiceActual < tokens.size()) {
+                Token t = tokens.get(indiceActual);
+                if ((t.getTipo().equals("Operador") || t.getLexema().equals("instanceof")) &&
+                    esOperadorBinario(t.getLexema())) {
+                    int precedencia = PRECEDENCIA.get(t.getLexema());
+                    while (!operadores.isEmpty()) {
+                        Operador tope = operadores.get(operadores.size() - 1);
+                        if (tope.clase == Operador.UNARIO ||
+                            (tope.clase == Operador.BINARIO && tope.precedencia >= precedencia)) {
+                            reducir(operadores.remove(operadores.size() - 1), operandos);
+                        } else {
+                            break;
+                        }
+                    }
+                    Operador binario = new Operador(Operador.BINARIO, t, null, 0);
+                    binario.precedencia = precedencia;
+                    operadores.add(binario);
                     avanzar();
-                } else if (verificarTipo("Identificador")) {
+                    esperaOperando = true;
+                    continue;
+                }
+            }
+
+            // Separadores que cierran una marca abierta
+            if (verificarLexema(",") || verificarLexema(")") || verificarLexema("]")) {
+                Operador marca = reducirHastaMarca(operadores, operandos);
+                String lex = tokens.get(indiceActual).getLexema();
+
+                if (marca == null) break;
+
+                boolean esArgumento = marca.clase == Operador.LLAMADA || marca.clase == Operador.NUEVO_OBJETO;
+                if (lex.equals(",") && esArgumento) {
                     avanzar();
-                    if (verificarLexema("(")) {
-                        match("(");
-                        if (!verificarLexema(")")) {
-                            while (true) {
-                                expression();
-                                if (verificarLexema(",")) match(",");
+                    esperaOperando = true;
+                    continue;
+                }
+                if (lex.equals(")") && (esArgumento || marca.clase == Operador.GRUPO)) {
+                    avanzar();
+                    cerrarMarca(operadores.remove(operadores.size() - 1), operandos);
+                    continue;
+                }
+                if (lex.equals("]") && (marca.clase == Operador.INDICE || marca.clase == Operador.NUEVO_ARREGLO)) {
+                    avanzar();
+                    operadores.remove(operadores.size() - 1);
+
+                    // Arreglos multidimensionales: new int[5][] o new int[5][3]
+                    if (marca.clase == Operador.NUEVO_ARREGLO && verificarLexema("[")) {
+                        marca.nodo.agregarHijo(operandos.remove(operandos.size() - 1));
+                        avanzar();
+                        if (verificarLexema("]")) {
+                            while (verificarLexema("]")) {
+                                marca.nodo.agregarHijo(new Nodo("Vacio", null, null));
+                                avanzar();
+                                if (verificarLexema("[") && siguienteEs("]")) avanzar();
                                 else break;
                             }
+                            operandos.add(marca.nodo);
+                        } else {
+                            marca.base = operandos.size();
+                            operadores.add(marca);
+                            esperaOperando = true;
                         }
-                        match(")");
+                        continue;
                     }
+
+                    cerrarMarca(marca, operandos);
+                    continue;
                 }
+                break;
             }
-            
-            // Acceso a arrays
-            while (verificarLexema("[")) {
-                match("[");
-                expression();
-                match("]");
-            }
-            
-            // Llamada a método
-            if (verificarLexema("(")) {
-                match("(");
-                if (!verificarLexema(")")) {
-                    while (true) {
-                        expression();
-                        if (verificarLexema(",")) match(",");
-                        else break;
-                    }
-                }
-                match(")");
+
+            break;
+        }
+
+        // Fin de la expresión: las marcas aún abiertas no encontraron su cierre
+        while (!operadores.isEmpty()) {
+            Operador tope = operadores.remove(operadores.size() - 1);
+            switch (tope.clase) {
+                case Operador.GRUPO:
+                case Operador.LLAMADA:
+                case Operador.NUEVO_OBJETO:
+                    match(")");
+                    cerrarMarca(tope, operandos);
+                    break;
+                case Operador.INDICE:
+                case Operador.NUEVO_ARREGLO:
+                    match("]");
+                    cerrarMarca(tope, operandos);
+                    break;
+                default:
+                    reducir(tope, operandos);
             }
-        } 
-        else if (verificarTipo("Entero") || verificarTipo("Decimal")) {
+        }
+
+        return operandos.get(operandos.size() - 1);
+    }
+
+    /** Literales, identificadores y this; null si el token no inicia un operando */
+    private Nodo primario() {
+        if (indiceActual >= tokens.size()) return null;
+        Token t = tokens.get(indiceActual);
+        String tipo = t.getTipo();
+
+        if (tipo.equals("Identificador")) {
+            if (registro != null) registro.nombre(t, claseActual, metodoActual);
             avanzar();
-        } 
-        else if (verificarTipo("Cadena")) {
+            return new Nodo("Identificador", t.getLexema(), t);
+        }
+        if (tipo.equals("Entero") || tipo.equals("Decimal") || tipo.equals("Cadena") || tipo.equals("Carácter") ||
+            verificarLexema("true") || verificarLexema("false") || verificarLexema("null")) {
             avanzar();
+            return new Nodo("Literal", t.getLexema(), t);
         }
-        else if (verificarTipo("Carácter")) {
+        if (verificarLexema("this")) {
             avanzar();
+            return new Nodo("This", "this", t);
         }
-        else if (verificarLexema("true") || verificarLexema("false") || 
-                 verificarLexema("this") || verificarLexema("null")) {
+        return null;
+    }
+
+    /** Abre la lista de argumentos; devuelve true si hay argumentos por leer */
+    private boolean abrirArgumentos(Nodo llamada, int clase, List<Nodo> operandos, List<Operador> operadores) {
+        if (verificarLexema(")")) {
             avanzar();
-        } 
-        else if (verificarLexema("(")) {
-            match("("); 
-            expression(); 
-            match(")");
-        } 
-        else if (verificarLexema("new")) {
-            match("new");
-            if (!verificarTipo("Identificador")) {
-                registrarError("Se esperaba un identificador después de 'new'.");
-            } else {
-                avanzar();
-            }
-            
-            // Array o constructor
-            if (verificarLexema("[")) {
-                match("[");
-                expression();
-                match("]");
-                
-                // Arrays multidimensionales vacíos: new int[5][]
-                while (verificarLexema("[")) {
-                    match("[");
-                    if (!verificarLexema("]")) {
-                        expression();
-                    }
-                    match("]");
-                }
-            } else if (verificarLexema("(")) {
-                match("(");
-                if (!verificarLexema(")")) {
-                    while (true) {
-                        expression();
-                        if (verificarLexema(",")) match(",");
-                        else break;
-                    }
-                }
-                match(")");
-            }
-        } 
-        else {
-            registrarError("Expresión no reconocida.");
-            if (indiceActual < tokens.size()) {
-                avanzar();
-            }
+            operandos.add(llamada);
+            return false;
+        }
+        operadores.add(new Operador(clase, llamada.getToken(), llamada, operandos.size()));
+        return true;
+    }
+
+    private Operador reducirHastaMarca(List<Operador> operadores, List<Nodo> operandos) {
+        while (!operadores.isEmpty()) {
+            Operador tope = operadores.get(operadores.size() - 1);
+            if (tope.clase != Operador.BINARIO && tope.clase != Operador.UNARIO) return tope;
+            reducir(operadores.remove(operadores.size() - 1), operandos);
         }
+        return null;
+    }
+
+    private void reducir(Operador op, List<Nodo> operandos) {
+        String tipoNodo = op.clase == Operador.BINARIO ? "Binaria" : "Unaria";
+        Nodo nodo = new Nodo(tipoNodo, op.token.getLexema(), op.token);
+        if (op.clase == Operador.BINARIO) {
+            Nodo derecho = operandos.remove(operandos.size() - 1);
+            nodo.agregarHijo(operandos.remove(operandos.size() - 1));
+            nodo.agregarHijo(derecho);
+        } else {
+            nodo.agregarHijo(operandos.remove(operandos.size() - 1));
+        }
+        operandos.add(nodo);
+    }
+
+    /** Cierra una marca: los operandos apilados desde su base pasan a ser hijos del nodo */
+    private void cerrarMarca(Operador marca, List<Nodo> operandos) {
+        if (marca.clase == Operador.GRUPO) return;
+        List<Nodo> argumentos = operandos.subList(marca.base, operandos.size());
+        for (Nodo argumento : argumentos) {
+            marca.nodo.agregarHijo(argumento);
+        }
+        argumentos.clear();
+        operandos.add(marca.nodo);
     }
 
     private boolean esOperadorBinario(String op) {
-        return op.equals("+") || op.equals("-") || op.equals("*") || op.equals("/") || op.equals("%") ||
-               op.equals("==") || op.equals("!=") || op.equals(">") || op.equals("<") || 
-               op.equals(">=") || op.equals("<=") || 
-               op.equals("&&") || op.equals("||") || 
-               op.equals("&") || op.equals("|") || op.equals("^") ||
-               op.equals("<<") || op.equals(">>") || op.equals(">>>") ||
-               op.equals("instanceof");
+        return PRECEDENCIA.containsKey(op);
+    }
+
+    /** Entrada de la pila de operadores: operador unario/binario o marca de agrupación */
+    private static class Operador {
+        static final int BINARIO = 0;
+        static final int UNARIO = 1;
+        static final int GRUPO = 2;
+        static final int LLAMADA = 3;
+        static final int INDICE = 4;
+        static final int NUEVO_ARREGLO = 5;
+        static final int NUEVO_OBJETO = 6;
+
+        final int clase;
+        final Token token;
+        final Nodo nodo;    // Nodo parcial de la marca (llamada, índice, new)
+        int base;           // Altura de la pila de operandos al abrir la marca
+        int precedencia;
+
+        Operador(int clase, Token token, Nodo nodo, int base) {
+            this.clase = clase;
+            this.token = token;
+            this.nodo = nodo;
+            this.base = base;
+        }
     }
 
     // ------------------ MÉTODOS AUXILIARES ------------------
@@ -936,20 +1494,52 @@ public class AnalizadorSintactico {
     private boolean match(String esperado) {
         if (indiceActual < tokens.size() && tokens.get(indiceActual).getLexema().equals(esperado)) {
             indiceActual++;
+            enRecuperacion = false;
             return true;
         } else {
             if (indiceActual < tokens.size()) {
                 Token t = tokens.get(indiceActual);
-                errores.add(String.format(
+                agregarError(String.format(
                     "Error sintáctico en línea %d, columna %d: Se esperaba '%s' pero se encontró '%s'.",
                     t.getLinea(), t.getColumna(), esperado, t.getLexema()));
             } else {
-                errores.add("Error sintáctico: fin de archivo inesperado, se esperaba '" + esperado + "'.");
+                agregarError("Error sintáctico: fin de archivo inesperado, se esperaba '" + esperado + "'.");
             }
             return false;
         }
     }
 
+    // ------------------ ÍNDICE DE REFERENCIAS ------------------
+
+    /** Agrega el símbolo a la tabla y, si se arma el índice, el token que lo declara */
+    private void declarar(Simbolo simbolo, Token token) {
+        tablaSimbolos.add(simbolo);
+        if (registro == null) return;
+        String ambito;
+        if (simbolo.getRol().equals("Clase")) ambito = "";
+        else if (simbolo.getVisibilidad().equals("local")) ambito = claseActual + "." + metodoActual;
+        else ambito = claseActual;
+        registro.declaracion(token, ambito);
+    }
+
+    /** Bloque, for o caso de switch que empezó en inicio y termina en el último token consumido */
+    private void registrarBloque(Token inicio) {
+        if (registro != null && inicio != null && indiceActual > 0) registro.bloque(inicio, tokens.get(indiceActual - 1));
+    }
+
+    private void usarTipo(Token token) {
+        if (registro != null) registro.tipo(token);
+    }
+
+    /** Uso de un miembro después de '.', con la clase del receptor cuando se conoce al parsear */
+    private void usarMiembro(Token miembro, Nodo receptor) {
+        String tipoReceptor = null, nombreReceptor = null;
+        if (receptor.getTipo().equals("This")) tipoReceptor = claseActual;
+        else if (receptor.getTipo().equals("NuevoObjeto")) tipoReceptor = receptor.getValor();
+        else if (receptor.getTipo().equals("Identificador")) nombreReceptor = receptor.getValor();
+        registro.miembro(miembro, claseActual, metodoActual, tipoReceptor, nombreReceptor);
+    }
+
     private boolean esTipo() {
         if (indiceActual >= tokens.size()) return false;
         String lex = tokens.get(indiceActual).getLexema();
@@ -968,14 +1558,87 @@ public class AnalizadorSintactico {
     }
 
     private void registrarError(String mensaje) {
-        if (errores.size() >= LIMITE_ERRORES) return;
         if (indiceActual < tokens.size()) {
             Token t = tokens.get(indiceActual);
-            errores.add(String.format(
+            agregarError(String.format(
                 "Error sintáctico en línea %d, columna %d: %s (token: '%s')",
                 t.getLinea(), t.getColumna(), mensaje, t.getLexema()));
         } else {
-            errores.add("Error sintáctico: " + mensaje + " (fin de archivo).");
+            agregarError("Error sintáctico: " + mensaje + " (fin de archivo).");
+        }
+    }
+
+    /**
+     * Consulta el presupuesto en el límite de una producción (el reloj, cada 64
+     * consultas). Al agotarse lleva la posición al final de los tokens, de modo
+     * que todas las producciones abiertas terminan por el camino del fin de archivo.
+     */
+    private boolean agotado() {
+        if (truncado) return true;
+        if (presupuesto == Presupuesto.ILIMITADO) return false;
+        if (presupuesto.tokensAgotados(indiceActual) || (++producciones & 0x3F) == 0 && presupuesto.tiempoAgotado()) {
+            truncado = true;
+            indiceActual = tokens.size();
+        }
+        return truncado;
+    }
+
+    /** Registra el error salvo que se esté recuperando de uno anterior (evita cascadas) o se haya truncado */
+    private void agregarError(String error) {
+        if (truncado || enRecuperacion || errores.size() >= limiteErrores) return;
+        errores.add(error);
+        enRecuperacion = true;
+    }
+
+    /**
+     * Recuperación en modo pánico: descarta el token erróneo y todos los siguientes
+     * hasta un token del conjunto de sincronización, un ';' (que se consume) o la
+     * '}' que cierra el bloque contenedor. Los bloques anidados se saltan completos,
+     * por lo que cada token se descarta una sola vez.
+     */
+    private void sincronizar(Set<String> conjunto) {
+        int profundidad = 0;
+        boolean primero = true;
+
+        while (indiceActual < tokens.size()) {
+            String lex = tokens.get(indiceActual).getLexema();
+            if (!primero && profundidad == 0 && (lex.equals("}") || conjunto.contains(lex))) break;
+
+            indiceActual++;
+            primero = false;
+
+            if (lex.equals("{")) profundidad++;
+            else if (lex.equals("}") && profundidad > 0) profundidad--;
+            else if (lex.equals(";") && profundidad == 0) break;
+        }
+
+        enRecuperacion = false;
+    }
+
+    /**
+     * Garantiza que cada vuelta de un ciclo de cuerpo consuma algo: si la producción
+     * falló sin avanzar (con un error ya registrado, o callado por la recuperación)
+     * se sincroniza, que siempre descarta al menos un token.
+     */
+    private void asegurarAvance(int antes, Set<String> conjunto) {
+        if (indiceActual == antes && indiceActual < tokens.size()) sincronizar(conjunto);
+    }
+
+    /**
+     * Recuperación dentro de expresiones: descarta tokens hasta el FOLLOW de la
+     * expresión (';', ')', ']', ',', '}', ':') o el inicio de una sentencia, sin
+     * consumirlo para que la producción que la contiene pueda continuar.
+     */
+    private void sincronizarExpresion() {
+        int profundidad = 0;
+
+        while (indiceActual < tokens.size()) {
+            String lex = tokens.get(indiceActual).getLexema();
+            if (profundidad == 0 && (SINC_EXPRESION.contains(lex) || SINC_SENTENCIA.contains(lex))) break;
+
+            if (lex.equals("(") || lex.equals("[")) profundidad++;
+            else if ((lex.equals(")") || lex.equals("]")) && profundidad > 0) profundidad--;
+            indiceActual++;
         }
     }
 
@@ -986,4 +1649,9 @@ public class AnalizadorSintactico {
     public List<Simbolo> getTablaSimbolos() { 
         return tablaSimbolos; 
     }
+
+    /** Árbol sintáctico del último análisis (nodo "Programa" con una "Clase" por hijo) */
+    public Nodo getArbol() {
+        return arbol;
+    }
 }
\ No newline at end of file
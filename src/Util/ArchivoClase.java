@@ -0,0 +1,190 @@
+package Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escritor mínimo del formato class de la JVM.
+ * Arma la tabla de constantes sin duplicados, los atributos y los métodos con su
+ * atributo Code. Genera la versión 49 (Java 5): esa versión no exige la tabla
+ * StackMapTable y la JVM verifica el código por inferencia de tipos.
+ */
+public class ArchivoClase {
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+
+    private static final int CONSTANTE_UTF8 = 1;
+    private static final int CONSTANTE_ENTERO = 3;
+    private static final int CONSTANTE_CLASE = 7;
+    private static final int CONSTANTE_CADENA = 8;
+    private static final int CONSTANTE_CAMPO = 9;
+    private static final int CONSTANTE_METODO = 10;
+    private static final int CONSTANTE_NOMBRE_TIPO = 12;
+
+    private final ByteArrayOutputStream constantes = new ByteArrayOutputStream();
+    private final DataOutputStream salidaConstantes = new DataOutputStream(constantes);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int cantidadConstantes = 1;     // La posición 0 no se usa
+
+    private final int clase;
+    private final int padre;
+    private final List<byte[]> campos = new ArrayList<>();
+    private final List<byte[]> metodos = new ArrayList<>();
+
+    /** nombre y padre en forma interna ("java/lang/Object") */
+    public ArchivoClase(String nombre, String padre) {
+        this.clase = clase(nombre);
+        this.padre = clase(padre);
+    }
+
+    // ------------------ TABLA DE CONSTANTES ------------------
+
+    public int utf8(String valor) {
+        return constante("U" + valor, () -> {
+            salidaConstantes.writeByte(CONSTANTE_UTF8);
+            salidaConstantes.writeUTF(valor);
+        });
+    }
+
+    public int entero(int valor) {
+        return constante("I" + valor, () -> {
+            salidaConstantes.writeByte(CONSTANTE_ENTERO);
+            salidaConstantes.writeInt(valor);
+        });
+    }
+
+    public int clase(String nombreInterno) {
+        int nombre = utf8(nombreInterno);
+        return constante("C" + nombreInterno, () -> {
+            salidaConstantes.writeByte(CONSTANTE_CLASE);
+            salidaConstantes.writeShort(nombre);
+        });
+    }
+
+    public int cadena(String valor) {
+        int texto = utf8(valor);
+        return constante("S" + valor, () -> {
+            salidaConstantes.writeByte(CONSTANTE_CADENA);
+            salidaConstantes.writeShort(texto);
+        });
+    }
+
+    public int campo(String propietario, String nombre, String descriptor) {
+        return referencia(CONSTANTE_CAMPO, propietario, nombre, descriptor);
+    }
+
+    public int metodo(String propietario, String nombre, String descriptor) {
+        return referencia(CONSTANTE_METODO, propietario, nombre, descriptor);
+    }
+
+    private int referencia(int etiqueta, String propietario, String nombre, String descriptor) {
+        int claseIndice = clase(propietario);
+        int nombreIndice = utf8(nombre);
+        int descriptorIndice = utf8(descriptor);
+        int nombreTipo = constante("N" + nombre + ":" + descriptor, () -> {
+            salidaConstantes.writeByte(CONSTANTE_NOMBRE_TIPO);
+            salidaConstantes.writeShort(nombreIndice);
+            salidaConstantes.writeShort(descriptorIndice);
+        });
+        return constante(etiqueta + propietario + "." + nombre + ":" + descriptor, () -> {
+            salidaConstantes.writeByte(etiqueta);
+            salidaConstantes.writeShort(claseIndice);
+            salidaConstantes.writeShort(nombreTipo);
+        });
+    }
+
+    private interface Escritura {
+        void escribir() throws IOException;
+    }
+
+    private int constante(String clave, Escritura escritura) {
+        Integer indice = indices.get(clave);
+        if (indice != null) return indice;
+        if (cantidadConstantes >= 0xFFFF) {
+            throw new IllegalStateException("La tabla de constantes excede el límite de la JVM.");
+        }
+        try {
+            escritura.escribir();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indices.put(clave, cantidadConstantes);
+        return cantidadConstantes++;
+    }
+
+    // ------------------ MIEMBROS ------------------
+
+    public void agregarCampo(int acceso, String nombre, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        escribir(() -> {
+            salida.writeShort(acceso);
+            salida.writeShort(utf8(nombre));
+            salida.writeShort(utf8(descriptor));
+            salida.writeShort(0);
+        });
+        campos.add(bytes.toByteArray());
+    }
+
+    public void agregarMetodo(int acceso, String nombre, String descriptor, byte[] codigo, int maxPila, int maxLocales) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        int atributoCodigo = utf8("Code");
+        escribir(() -> {
+            salida.writeShort(acceso);
+            salida.writeShort(utf8(nombre));
+            salida.writeShort(utf8(descriptor));
+            salida.writeShort(1);
+            salida.writeShort(atributoCodigo);
+            salida.writeInt(12 + codigo.length);
+            salida.writeShort(maxPila);
+            salida.writeShort(maxLocales);
+            salida.writeInt(codigo.length);
+            salida.write(codigo);
+            salida.writeShort(0);   // Tabla de excepciones
+            salida.writeShort(0);   // Atributos del código
+        });
+        metodos.add(bytes.toByteArray());
+    }
+
+    /** Bytes del archivo class completo */
+    public byte[] generar() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        escribir(() -> {
+            salida.writeInt(0xCAFEBABE);
+            salida.writeShort(0);
+            salida.writeShort(VERSION);
+            salida.writeShort(cantidadConstantes);
+            constantes.writeTo(salida);
+            salida.writeShort(ACC_PUBLIC | ACC_SUPER);
+            salida.writeShort(clase);
+            salida.writeShort(padre);
+            salida.writeShort(0);   // Interfaces
+            salida.writeShort(campos.size());
+            for (byte[] campo : campos) salida.write(campo);
+            salida.writeShort(metodos.size());
+            for (byte[] metodo : metodos) salida.write(metodo);
+            salida.writeShort(0);   // Atributos de la clase
+        });
+        return bytes.toByteArray();
+    }
+
+    private static void escribir(Escritura escritura) {
+        try {
+            escritura.escribir();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Mediciones de rendimiento de las distintas fases del analizador.
+ * Cada suite imprime sus tiempos (mejor de varias repeticiones, después de un
+ * calentamiento para que el JIT compile el código medido).
+ */
+public class Benchmark {
+
+    static final List<String> SUITES = List.of("interprete", "optimizador", "sintactico", "lexico", "escalado", "ll1");
+
+    private static final int REPETICIONES = 5;
+
+    public static void ejecutar(String[] suites, PrintStream salida) {
+        List<String> elegidas = suites.length == 0 ? SUITES : Arrays.asList(suites);
+        for (String suite : elegidas) {
+            switch (suite) {
+                case "interprete":
+                    interprete(salida);
+                    break;
+                case "optimizador":
+                    optimizador(salida);
+                    break;
+                case "sintactico":
+                    sintactico(salida);
+                    break;
+                case "lexico":
+                    lexico(salida);
+                    break;
+                case "escalado":
+                    escalado(salida);
+                    break;
+                case "ll1":
+                    ll1(salida);
+                    break;
+                default:
+                    salida.println("Suite desconocida: " + suite);
+                    break;
+            }
+        }
+    }
+
+    /** Mejor tiempo en nanosegundos de varias ejecuciones, tras igual número de calentamientos */
+    static long medir(Runnable tarea, int repeticiones) {
+        for (int i = 0; i < repeticiones; i++) tarea.run();
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < repeticiones; i++) {
+            long inicio = System.nanoTime();
+            tarea.run();
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        return mejor;
+    }
+
+    static String milisegundos(long nanos) {
+        return String.format("%.2f ms", nanos / 1e6);
+    }
+
+    // ------------------ INTÉRPRETE ------------------
+
+    private static final String PROGRAMA_CARGA = String.join("\n",
+        "public class Principal {",
+        "    public static void main(String[] args) {",
+        "        Carga c = new Carga();",
+        "        System.out.println(c.fib(22));",
+        "        System.out.println(c.criba(100000));",
+        "        System.out.println(\"figuras: \" + c.figuras(100000));",
+        "        System.out.println(c.ordenar(400));",
+        "    }",
+        "}",
+        "class Figura {",
+        "    int lado;",
+        "    public int area() { return lado * lado; }",
+        "    public void setLado(int l) { lado = l; }",
+        "}",
+        "class Rectangulo extends Figura {",
+        "    int alto = 3;",
+        "    public int area() { return lado * alto; }",
+        "}",
+        "class Carga {",
+        "    public int fib(int n) {",
+        "        if (n < 2) { return n; }",
+        "        return this.fib(n - 1) + this.fib(n - 2);",
+        "    }",
+        "    public int criba(int n) {",
+        "        boolean[] compuesto = new boolean[n + 1];",
+        "        int cuenta = 0;",
+        "        for (int i = 2; i <= n; i++) {",
+        "            if (!compuesto[i]) {",
+        "                cuenta++;",
+        "                for (int j = i + i; j <= n; j += i) { compuesto[j] = true; }",
+        "            }",
+        "        }",
+        "        return cuenta;",
+        "    }",
+        "    public int figuras(int n) {",
+        "        Figura[] fs = new Figura[16];",
+        "        for (int i = 0; i < fs.length; i++) {",
+        "            if (i % 2 == 0) { fs[i] = new Figura(); } else { fs[i] = new Rectangulo(); }",
+        "            fs[i].setLado(i);",
+        "        }",
+        "        int total = 0;",
+        "        for (int k = 0; k < n; k++) { total = (total + fs[k % 16].area()) % 1000007; }",
+        "        return total;",
+        "    }",
+        "    public int ordenar(int n) {",
+        "        int[] a = new int[n];",
+        "        int semilla = 12345;",
+        "        for (int i = 0; i < n; i++) { semilla = (semilla * 1103515245 + 12345) & 2147483647; a[i] = semilla % 1000; }",
+        "        for (int i = 0; i < n; i++) {",
+        "            for (int j = 0; j < n - 1 - i; j++) {",
+        "                if (a[j] > a[j + 1]) { int t = a[j]; a[j] = a[j + 1]; a[j + 1] = t; }",
+        "            }",
+        "        }",
+        "        return a[0] * 1000 + a[n - 1];",
+        "    }",
+        "}");
+
+    /** Evaluador sobre el árbol contra el intérprete de bytecode y las clases generadas para la JVM */
+    private static void interprete(PrintStream salida) {
+        salida.println("== Ejecución: árbol vs. bytecode vs. JVM ==");
+
+        AnalizadorSemantico semantico = LineaComandos.analizar(PROGRAMA_CARGA);
+        if (semantico == null) return;
+
+        Nodo arbol = semantico.getArbol();
+        JerarquiaClases jerarquia = semantico.getJerarquia();
+
+        CompiladorBytecode compilador = new CompiladorBytecode();
+        ProgramaBytecode programa = compilador.compilar(arbol, jerarquia);
+        if (programa == null) {
+            compilador.getErrores().forEach(salida::println);
+            return;
+        }
+
+        GeneradorClases generador = new GeneradorClases();
+        Map<String, byte[]> clases = generador.generar(arbol, jerarquia);
+        if (clases == null) {
+            generador.getErrores().forEach(salida::println);
+            return;
+        }
+        Method main = new CargadorClases(clases).buscarMain(generador.getClasePrincipal());
+
+        String esperado = capturar(s -> new EvaluadorArbol(arbol, jerarquia).ejecutar(s));
+        if (!coincide(salida, "bytecode", esperado, capturar(s -> new InterpreteBytecode(programa).ejecutar(s))) ||
+            !coincide(salida, "JVM", esperado, capturar(s -> CargadorClases.ejecutar(main, s)))) {
+            return;
+        }
+
+        PrintStream descarte = new PrintStream(PrintStream.nullOutputStream());
+        long compilacion = medir(() -> new CompiladorBytecode().compilar(arbol, jerarquia), REPETICIONES);
+        long tiempoArbol = medir(() -> new EvaluadorArbol(arbol, jerarquia).ejecutar(descarte), REPETICIONES);
+        long tiempoBytecode = medir(() -> new InterpreteBytecode(programa).ejecutar(descarte), REPETICIONES);
+        long generacion = medir(() -> new GeneradorClases().generar(arbol, jerarquia), REPETICIONES);
+        long tiempoJvm = medir(() -> CargadorClases.ejecutar(main, descarte), REPETICIONES);
+
+        salida.printf("Compilación:       %s (%d enteros de código)%n", milisegundos(compilacion), programa.getTamanoCodigo());
+        salida.printf("Árbol:             %s%n", milisegundos(tiempoArbol));
+        salida.printf("Bytecode:          %s%n", milisegundos(tiempoBytecode));
+        salida.printf("Aceleración:       %.1fx%n", (double) tiempoArbol / tiempoBytecode);
+        salida.printf("Generación JVM:    %s (%d clases)%n", milisegundos(generacion), clases.size());
+        salida.printf("JVM:               %s (%.1fx sobre el árbol)%n", milisegundos(tiempoJvm), (double) tiempoArbol / tiempoJvm);
+    }
+
+    // ------------------ OPTIMIZADOR ------------------
+
+    private static final String PROGRAMA_CONSTANTES = String.join("\n",
+        "public class Principal {",
+        "    public static void main(String[] args) {",
+        "        Calculo c = new Calculo();",
+        "        System.out.println(c.sumar(300000));",
+        "        System.out.println(c.mensaje());",
+        "    }",
+        "}",
+        "class Calculo {",
+        "    public int sumar(int n) {",
+        "        int segundos = 60 * 60 * 24;",
+        "        int escala = segundos;",
+        "        boolean depurar = false;",
+        "        int total = 0;",
+        "        for (int i = 0; i < n; i++) {",
+        "            int paso = (escala / 3600) * 2 + 1 - (8 << 1);",
+        "            if (depurar) { System.out.println(\"i = \" + i); }",
+        "            if (depurar || i % 7 == 0) { total = (total + paso * i) % 1000003; }",
+        "            while (false) { total++; }",
+        "            total = (total + (2 + 3) * 4) % 1000003;",
+        "        }",
+        "        return total;",
+        "    }",
+        "    public String mensaje() {",
+        "        String prefijo = \"Resultado\" + \": \" + 42;",
+        "        return prefijo + (1 < 2);",
+        "    }",
+        "}");
+
+    /** Efecto de los pases: informe por pase y ejecución en bytecode antes y después */
+    private static void optimizador(PrintStream salida) {
+        salida.println("== Optimizador: plegado, ramas muertas, copias ==");
+
+        AnalizadorSemantico original = LineaComandos.analizar(PROGRAMA_CONSTANTES);
+        AnalizadorSemantico optimizado = LineaComandos.analizar(PROGRAMA_CONSTANTES);
+        if (original == null || optimizado == null) return;
+
+        Optimizador optimizador = new Optimizador();
+        optimizador.optimizar(optimizado.getArbol());
+        optimizador.imprimirInforme(salida);
+
+        ProgramaBytecode antes = new CompiladorBytecode().compilar(original.getArbol(), original.getJerarquia());
+        ProgramaBytecode despues = new CompiladorBytecode().compilar(optimizado.getArbol(), optimizado.getJerarquia());
+        if (antes == null || despues == null) return;
+
+        String esperado = capturar(s -> new InterpreteBytecode(antes).ejecutar(s));
+        if (!coincide(salida, "bytecode optimizado", esperado, capturar(s -> new InterpreteBytecode(despues).ejecutar(s)))) return;
+
+        PrintStream descarte = new PrintStream(PrintStream.nullOutputStream());
+        long tiempoAntes = medir(() -> new InterpreteBytecode(antes).ejecutar(descarte), REPETICIONES);
+        long tiempoDespues = medir(() -> new InterpreteBytecode(despues).ejecutar(descarte), REPETICIONES);
+        salida.printf("Código:            %d -> %d enteros%n", antes.getTamanoCodigo(), despues.getTamanoCodigo());
+        salida.printf("Sin optimizar:     %s%n", milisegundos(tiempoAntes));
+        salida.printf("Optimizado:        %s (%.2fx)%n", milisegundos(tiempoDespues), (double) tiempoAntes / tiempoDespues);
+    }
+
+    // ------------------ SINTÁCTICO ------------------
+
+    /** Programa con muchas clases independientes, del tamaño de un proyecto mediano */
+    static String programaConClases(int clases) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("public class Principal {\n");
+        sb.append("    public static void main(String[] args) {\n");
+        sb.append("        System.out.println(new Clase0().calcular(10));\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        for (int i = 0; i < clases; i++) {
+            sb.append("class Clase").append(i).append(i > 0 ? " extends Clase" + (i - 1) : "").append(" {\n");
+            sb.append("    int contador").append(i).append(" = ").append(i).append(";\n");
+            sb.append("    int[] datos").append(i).append(";\n");
+            sb.append("    public int calcular(int n) {\n");
+            sb.append("        int total = 0;\n");
+            sb.append("        for (int i = 0; i < n; i++) {\n");
+            sb.append("            if (i % 3 == 0 && n > 2) { total += i * contador").append(i).append("; }\n");
+            sb.append("            else { total = total - (i << 1) + n / 2; }\n");
+            sb.append("        }\n");
+            sb.append("        while (total > 1000) { total = total / 2; }\n");
+            sb.append("        return total;\n");
+            sb.append("    }\n");
+            sb.append("    public void llenar(int n) {\n");
+            sb.append("        datos").append(i).append(" = new int[n];\n");
+            sb.append("        for (int k = 0; k < n; k++) { datos").append(i).append("[k] = k * k + this.calcular(k); }\n");
+            sb.append("        switch (n) { case 1: System.out.println(\"uno\"); break; default: System.out.println(n); }\n");
+            sb.append("    }\n");
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    /** Análisis sintáctico secuencial contra el paralelo por clases */
+    private static void sintactico(PrintStream salida) {
+        salida.println("== Sintáctico: secuencial vs. paralelo ==");
+
+        AnalizadorLexico lexico = new AnalizadorLexico();
+        lexico.analizar(programaConClases(600));
+        List<Token> tokens = lexico.getTokens();
+
+        AnalizadorSintactico secuencial = new AnalizadorSintactico();
+        secuencial.analizar(tokens);
+        AnalizadorSintactico paralelo = new AnalizadorSintactico();
+        paralelo.setModoParalelo(true);
+        paralelo.analizar(tokens);
+        if (!mismoArbol(secuencial.getArbol(), paralelo.getArbol()) ||
+            secuencial.getTablaSimbolos().size() != paralelo.getTablaSimbolos().size()) {
+            salida.println("El análisis paralelo no coincide con el secuencial.");
+            return;
+        }
+
+        long tiempoSecuencial = medir(() -> new AnalizadorSintactico().analizar(tokens), REPETICIONES);
+        long tiempoParalelo = medir(() -> {
+            AnalizadorSintactico analizador = new AnalizadorSintactico();
+            analizador.setModoParalelo(true);
+            analizador.analizar(tokens);
+        }, REPETICIONES);
+
+        salida.printf("Tokens:            %d (%d clases)%n", tokens.size(), secuencial.getArbol().getCantidadHijos());
+        salida.printf("Secuencial:        %s%n", milisegundos(tiempoSecuencial));
+        salida.printf("Paralelo:          %s (%.1fx, %d hilos)%n", milisegundos(tiempoParalelo),
+            (double) tiempoSecuencial / tiempoParalelo, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    // ------------------ LÉXICO ------------------
+
+    /** Camino normal del léxico contra el modo rápido, sobre programas de distinto perfil */
+    private static void lexico(PrintStream salida) {
+        salida.println("== Léxico: normal vs. modo rápido ==");
+
+        StringBuilder comentado = new StringBuilder();
+        StringBuilder cadenas = new StringBuilder("public class Mensajes {\n    public static void main(String[] args) {\n");
+        for (int i = 0; i < 300; i++) {
+            for (String linea : PROGRAMA_CARGA.split("\n")) {
+                comentado.append(linea).append("   // revisión ").append(i).append(": cálculo y códigos\n");
+            }
+            cadenas.append("        System.out.println(\"Año ").append(i).append(": niño, acción, pingüino\" + ")
+                .append(i).append(" * 2.5);\n");
+        }
+        cadenas.append("    }\n}\n");
+
+        Map<String, String> corpus = Map.of(
+            "clases generadas", programaConClases(600),
+            "con comentarios", comentado.toString(),
+            "cadenas no ASCII", cadenas.toString().repeat(40)
+        );
+        for (String nombre : List.of("clases generadas", "con comentarios", "cadenas no ASCII")) {
+            String codigo = corpus.get(nombre);
+            AnalizadorLexico normal = new AnalizadorLexico();
+            normal.analizar(codigo);
+            AnalizadorLexico rapido = new AnalizadorLexico();
+            rapido.setModoRapido(true);
+            rapido.analizar(codigo);
+            if (!mismosTokens(normal, rapido)) {
+                salida.println("El modo rápido no coincide con el normal en: " + nombre);
+                return;
+            }
+
+            long tiempoNormal = medir(() -> new AnalizadorLexico().analizar(codigo), REPETICIONES);
+            long tiempoRapido = medir(() -> {
+                AnalizadorLexico analizador = new AnalizadorLexico();
+                analizador.setModoRapido(true);
+                analizador.analizar(codigo);
+            }, REPETICIONES);
+            salida.printf("%-18s %d KB, %d tokens%n", nombre + ":", codigo.length() / 1024, normal.getTokens().size());
+            salida.printf("  Normal:          %s%n", milisegundos(tiempoNormal));
+            salida.printf("  Rápido:          %s (%.1fx, %.0f MB/s)%n", milisegundos(tiempoRapido),
+                (double) tiempoNormal / tiempoRapido, codigo.length() / (tiempoRapido / 1e3));
+        }
+    }
+
+    // ------------------ ESCALADO ------------------
+
+    /**
+     * Tiempo del sintáctico sobre programas generados cada vez el doble de grandes,
+     * válidos y con errores inyectados (el camino de recuperación). Si al duplicar los tokens el tiempo crece más
+     * de 1.5 veces lo esperado, el tamaño se marca como superlineal.
+     */
+    private static void escalado(PrintStream salida) {
+        salida.println("== Escalado del sintáctico con programas generados ==");
+        for (boolean conErrores : new boolean[] {false, true}) {
+            salida.println(conErrores ? "Con 20 errores inyectados:" : "Programas válidos:");
+            long tokensAnteriores = 0, tiempoAnterior = 0;
+            for (int clases = 25; clases <= 800; clases *= 2) {
+                GeneradorMiniJava generador = new GeneradorMiniJava(clases);
+                generador.setClases(clases);
+                generador.setProfundidad(2);
+                // Pocos errores: con más, el sintáctico llega a su límite y deja de analizar
+                if (conErrores) generador.setErrores(20);
+                AnalizadorLexico lexico = new AnalizadorLexico();
+                lexico.setModoRapido(true);
+                lexico.analizar(generador.generar());
+                List<Token> tokens = lexico.getTokens();
+
+                long tiempo = medir(() -> new AnalizadorSintactico().analizar(tokens), 3);
+                String crecimiento = "";
+                if (tokensAnteriores > 0) {
+                    double relativo = ((double) tiempo / tiempoAnterior) / ((double) tokens.size() / tokensAnteriores);
+                    crecimiento = String.format("  x%.2f%s", relativo, relativo > 1.5 ? "  SUPERLINEAL" : "");
+                }
+                salida.printf("  %4d clases %8d tokens  %10s  %6.0f ns/token%s%n", clases, tokens.size(),
+                    milisegundos(tiempo), (double) tiempo / tokens.size(), crecimiento);
+                tokensAnteriores = tokens.size();
+                tiempoAnterior = tiempo;
+            }
+        }
+    }
+
+    // ------------------ LL(1) ------------------
+
+    /** Programa que usa solo lo que describe MiniJAVA_BNF.md, para que lo acepten los dos analizadores */
+    static String programaGramaticaBase(int clases) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class Principal {\n");
+        sb.append("    public static void main(String[] args) {\n");
+        sb.append("        System.out.println(new Clase0().calcular(10));\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        for (int i = 0; i < clases; i++) {
+            sb.append("class Clase").append(i).append(i > 0 ? " extends Clase" + (i - 1) : "").append(" {\n");
+            sb.append("    int contador").append(i).append(";\n");
+            sb.append("    int[] datos").append(i).append(";\n");
+            sb.append("    boolean listo;\n");
+            sb.append("    public int calcular(int n) {\n");
+            sb.append("        int total;\n");
+            sb.append("        int i;\n");
+            sb.append("        total = 0;\n");
+            sb.append("        i = 0;\n");
+            sb.append("        while (i < n) {\n");
+            sb.append("            if (!listo && i < 3) { total = total + i * contador").append(i).append("; }\n");
+            sb.append("            else { total = total - (i + 1) * 2; }\n");
+            sb.append("            i = i + 1;\n");
+            sb.append("        }\n");
+            sb.append("        return total;\n");
+            sb.append("    }\n");
+            sb.append("    public int llenar(int n, Clase").append(i).append(" otro) {\n");
+            sb.append("        int k;\n");
+            sb.append("        datos").append(i).append(" = new int[n];\n");
+            sb.append("        k = 0;\n");
+            sb.append("        while (k < datos").append(i).append(".length) { datos").append(i)
+                .append("[k] = k * k + this.calcular(k); k = k + 1; }\n");
+            sb.append("        System.out.println(\"lleno\");\n");
+            sb.append("        return otro.calcular(datos").append(i).append("[0]);\n");
+            sb.append("    }\n");
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Analizador predictivo generado de la BNF contra el descendente recursivo. El
+     * recursivo además construye el árbol y la tabla de símbolos y recupera errores;
+     * la comparación mide lo que cuesta reconocer la entrada con cada uno.
+     */
+    private static void ll1(PrintStream salida) {
+        salida.println("== Sintáctico: descendente recursivo vs. LL(1) por tabla ==");
+
+        AnalizadorLexico lexico = new AnalizadorLexico();
+        lexico.setModoRapido(true);
+        lexico.analizar(programaGramaticaBase(1000));
+        List<Token> tokens = lexico.getTokens();
+
+        AnalizadorSintactico recursivo = new AnalizadorSintactico();
+        recursivo.analizar(tokens);
+        AnalizadorLL1 tabla = new AnalizadorLL1();
+        tabla.analizar(tokens);
+        if (!recursivo.getErrores().isEmpty() || !tabla.getErrores().isEmpty()) {
+            salida.println("El programa de prueba no es válido para los dos analizadores:");
+            for (String error : recursivo.getErrores()) salida.println("  recursivo: " + error);
+            for (String error : tabla.getErrores()) salida.println("  LL(1): " + error);
+            return;
+        }
+
+        long tiempoRecursivo = medir(() -> new AnalizadorSintactico().analizar(tokens), REPETICIONES);
+        long tiempoTabla = medir(() -> new AnalizadorLL1().analizar(tokens), REPETICIONES);
+        long tiempoCodificar = medir(() -> AnalizadorLL1.codificar(tokens), REPETICIONES);
+
+        salida.printf("Tokens:            %d (%d producciones aplicadas)%n", tokens.size(), tabla.getProducciones());
+        salida.printf("Recursivo:         %s (%.0f ns/token)%n", milisegundos(tiempoRecursivo),
+            (double) tiempoRecursivo / tokens.size());
+        salida.printf("LL(1):             %s (%.1fx, %.0f ns/token; %s en codificar tokens)%n",
+            milisegundos(tiempoTabla), (double) tiempoRecursivo / tiempoTabla,
+            (double) tiempoTabla / tokens.size(), milisegundos(tiempoCodificar));
+    }
+
+    private static boolean mismosTokens(AnalizadorLexico a, AnalizadorLexico b) {
+        if (!a.getErrores().equals(b.getErrores()) || a.getTokens().size() != b.getTokens().size()) return false;
+        for (int i = 0; i < a.getTokens().size(); i++) {
+            Token x = a.getTokens().get(i), y = b.getTokens().get(i);
+            if (!x.getTipo().equals(y.getTipo()) || !x.getLexema().equals(y.getLexema()) ||
+                x.getLinea() != y.getLinea() || x.getColumna() != y.getColumna()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean mismoArbol(Nodo a, Nodo b) {
+        if (!a.getTipo().equals(b.getTipo()) || !Objects.equals(a.getValor(), b.getValor()) ||
+            a.getToken() != b.getToken() || a.getCantidadHijos() != b.getCantidadHijos()) {
+            return false;
+        }
+        for (int i = 0; i < a.getCantidadHijos(); i++) {
+            if (!mismoArbol(a.getHijo(i), b.getHijo(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean coincide(PrintStream salida, String motor, String esperado, String obtenido) {
+        if (esperado.equals(obtenido)) return true;
+        salida.println("La salida de " + motor + " no coincide con la esperada:");
+        salida.println(esperado);
+        salida.println(obtenido);
+        return false;
+    }
+
+    private interface Ejecucion {
+        void ejecutar(PrintStream salida);
+    }
+
+    private static String capturar(Ejecucion ejecucion) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream salida = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        ejecucion.ejecutar(salida);
+        salida.flush();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+package Util;
+
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cargador de las clases que produce GeneradorClases.
+ * Busca primero entre las clases del programa para que una clase MiniJava con el
+ * mismo nombre que una del analizador (App, por ejemplo) no se resuelva contra
+ * esta última.
+ */
+public class CargadorClases extends ClassLoader {
+
+    private static final long TAMANO_PILA_HILO = 1L << 28;   // Para recursión profunda en MiniJava
+
+    private final Map<String, byte[]> clases;
+
+    public CargadorClases(Map<String, byte[]> clases) {
+        super(CargadorClases.class.getClassLoader());
+        this.clases = clases;
+    }
+
+    @Override
+    protected Class<?> loadClass(String nombre, boolean resolver) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(nombre)) {
+            Class<?> clase = findLoadedClass(nombre);
+            if (clase == null && clases.containsKey(nombre)) clase = findClass(nombre);
+            if (clase == null) return super.loadClass(nombre, resolver);
+            if (resolver) resolveClass(clase);
+            return clase;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String nombre) throws ClassNotFoundException {
+        byte[] bytes = clases.get(nombre);
+        if (bytes == null) throw new ClassNotFoundException(nombre);
+        return defineClass(nombre, bytes, 0, bytes.length);
+    }
+
+    /** main de la clase indicada, listo para invocar */
+    public Method buscarMain(String clasePrincipal) {
+        try {
+            return Class.forName(clasePrincipal, true, this).getMethod("main", String[].class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new ErrorEjecucion("No se encontró el método main de '" + clasePrincipal + "'.");
+        } catch (LinkageError e) {
+            throw new ErrorEjecucion("La JVM rechazó el código generado: " + e);
+        }
+    }
+
+    /**
+     * Ejecuta main con System.out redirigido a salida. Corre en un hilo con pila
+     * amplia, igual que InterpreteBytecode, para admitir la misma profundidad de
+     * recursión.
+     */
+    public static void ejecutar(Method main, PrintStream salida) {
+        AtomicReference<RuntimeException> fallo = new AtomicReference<>();
+
+        synchronized (CargadorClases.class) {
+            PrintStream original = System.out;
+            System.setOut(salida);
+            Thread hilo = new Thread(null, () -> {
+                try {
+                    main.invoke(null, (Object) new String[0]);
+                } catch (InvocationTargetException e) {
+                    fallo.set(traducir(e.getCause()));
+                } catch (IllegalAccessException e) {
+                    fallo.set(new ErrorEjecucion("No se pudo invocar main: " + e.getMessage()));
+                } catch (LinkageError e) {
+                    // Las demás clases se verifican al usarse por primera vez
+                    fallo.set(new ErrorEjecucion("La JVM rechazó el código generado: " + e));
+                }
+            }, "jvm-minijava", TAMANO_PILA_HILO);
+
+            try {
+                hilo.start();
+                hilo.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                salida.flush();
+                System.setOut(original);
+            }
+        }
+
+        if (fallo.get() != null) throw fallo.get();
+    }
+
+    /** Mismo formato de mensaje que InterpreteBytecode */
+    private static RuntimeException traducir(Throwable causa) {
+        if (causa instanceof StackOverflowError) {
+            return new ErrorEjecucion("Error de ejecución: desbordamiento de pila (recursión demasiado profunda).");
+        }
+
+        String mensaje;
+        if (causa instanceof ArithmeticException) {
+            mensaje = "división entre cero";
+        } else if (causa instanceof ArrayIndexOutOfBoundsException) {
+            mensaje = "índice fuera de rango (" + causa.getMessage() + ")";
+        } else if (causa instanceof NegativeArraySizeException) {
+            mensaje = "tamaño de arreglo negativo (" + causa.getMessage() + ")";
+        } else if (causa instanceof NullPointerException) {
+            mensaje = "uso de una referencia null";
+        } else {
+            mensaje = String.valueOf(causa);
+        }
+
+        StackTraceElement[] traza = causa.getStackTrace();
+        String lugar = traza.length > 0 ? " en " + traza[0].getClassName() + "." + traza[0].getMethodName() : "";
+        return new ErrorEjecucion("Error de ejecución" + lugar + ": " + mensaje + ".");
+    }
+}
@@ -0,0 +1,60 @@
+package Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Cliente liviano de ServidorAnalisis: envía archivos al servidor y muestra los
+ * diagnósticos. No carga ninguna fase del análisis, por eso arranca rápido.
+ */
+public class ClienteAnalisis {
+
+    private ClienteAnalisis() {
+    }
+
+    /**
+     * Envía cada archivo por la misma conexión. Los errores van a errores y las
+     * advertencias a salida, igual que en el modo directo. Devuelve 1 si algún
+     * archivo tiene errores.
+     */
+    public static int analizar(Path socket, Iterable<Path> archivos, PrintStream salida, PrintStream errores) throws IOException {
+        int codigo = 0;
+        try (SocketChannel conexion = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+             InputStream entrada = new BufferedInputStream(Channels.newInputStream(conexion));
+             OutputStream envio = new BufferedOutputStream(Channels.newOutputStream(conexion))) {
+            for (Path archivo : archivos) {
+                byte[] contenido = Files.readAllBytes(archivo);
+                ServidorAnalisis.escribir(envio, "analizar " + contenido.length + "\n");
+                envio.write(contenido);
+                envio.flush();
+
+                String linea;
+                while ((linea = ServidorAnalisis.leerLinea(entrada)) != null && !linea.startsWith("fin ")) {
+                    (linea.startsWith("Advertencia") ? salida : errores).println(archivo + ": " + linea);
+                }
+                if (linea == null) throw new IOException("el servidor cerró la conexión");
+                if (!linea.startsWith("fin 0 ")) codigo = 1;
+            }
+        }
+        return codigo;
+    }
+
+    /** Pide al servidor que termine */
+    public static void detener(Path socket) throws IOException {
+        try (SocketChannel conexion = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+             InputStream entrada = Channels.newInputStream(conexion);
+             OutputStream envio = Channels.newOutputStream(conexion)) {
+            ServidorAnalisis.escribir(envio, "detener\n");
+            ServidorAnalisis.leerLinea(entrada);
+        }
+    }
+}
@@ -0,0 +1,1093 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static Util.ProgramaBytecode.*;
+
+/**
+ * Compilador de MiniJava a bytecode de pila (ProgramaBytecode).
+ * Trabaja sobre el árbol ya anotado por AnalizadorSemantico: el tipo de cada
+ * expresión decide si se usan instrucciones de enteros o de referencias, y la
+ * JerarquiaClases da el orden de herencia para distribuir atributos y armar las
+ * tablas de métodos virtuales. Solo debe invocarse sobre programas sin errores
+ * semánticos.
+ *
+ * Subconjunto soportado: int, boolean, char, byte, short, String, clases y
+ * arreglos de una dimensión. long, float, double, excepciones, bloques static y
+ * arreglos multidimensionales se reportan como errores de compilación.
+ */
+public class CompiladorBytecode {
+
+    // Efecto de cada instrucción sobre las pilas de enteros y de referencias
+    // (INVOKE se ajusta aparte según el método destino)
+    private static final int[] EFECTO_ENTEROS = new int[NOMBRES.length];
+    private static final int[] EFECTO_REFERENCIAS = new int[NOMBRES.length];
+
+    static {
+        efecto(1, 0, ICONST, ILOAD, DUPI);
+        efecto(0, 1, SCONST, NULL, RLOAD, NEW, DUPR);
+        efecto(-1, 0, ISTORE, IADD, ISUB, IMUL, IDIV, IREM, IAND, IOR, IXOR, ISHL, ISHR, IUSHR,
+               ILT, ILE, IGT, IGE, IEQ, INE, JZ, JNZ, POPI, PRINTI, PRINTB, PRINTC, RALOAD);
+        efecto(0, -1, RSTORE, POPR, PRINTR, IALOAD, CONCAT);
+        efecto(1, -2, REQ, RNE);
+        efecto(-1, 1, NEWARRI, NEWARRR, I2S, B2S, C2S);
+        efecto(-2, -1, IASTORE);
+        efecto(-1, -2, RASTORE);
+        efecto(1, -1, ARRLEN, GETI);
+        efecto(-1, -1, PUTI);
+        efecto(0, -2, PUTR);
+    }
+
+    private static void efecto(int enteros, int referencias, int... operaciones) {
+        for (int op : operaciones) {
+            EFECTO_ENTEROS[op] = enteros;
+            EFECTO_REFERENCIAS[op] = referencias;
+        }
+    }
+
+    /** Variable local: posición en el marco y categoría ('I' entero, 'R' referencia) */
+    private static class Local {
+        final int indice;
+        final char categoria;
+
+        Local(int indice, char categoria) {
+            this.indice = indice;
+            this.categoria = categoria;
+        }
+    }
+
+    /** Ciclo o switch abierto: saltos pendientes de break y continue */
+    private static class Ciclo {
+        final boolean esSwitch;
+        final List<Integer> saltosBreak = new ArrayList<>();
+        final List<Integer> saltosContinue = new ArrayList<>();
+
+        Ciclo(boolean esSwitch) {
+            this.esSwitch = esSwitch;
+        }
+    }
+
+    private static final String DESBORDAMIENTO =
+        "desbordamiento de pila (expresiones o sentencias anidadas demasiado profundo para compilar).";
+
+    private List<String> errores;
+    private JerarquiaClases jerarquia;
+    private ProgramaBytecode programa;
+
+    private Map<String, Integer> indicesClases;
+    private Map<String, Map<String, Integer>> indicesCampos;    // clase -> atributo -> posición
+    private Map<String, Map<String, Integer>> indicesMetodos;   // clase -> método -> entrada de la vtable
+    private Map<Nodo, ProgramaBytecode.Metodo> metodosCompilados;
+    private Map<ProgramaBytecode.Metodo, String> firmas;
+    private Map<String, Integer> indicesConstantes;
+
+    // Estado del método en compilación
+    private String claseActual;
+    private boolean contextoEstatico;
+    private int[] codigo;
+    private int tamano;
+    private int pilaEnteros, pilaReferencias;
+    private int maxPilaEnteros, maxPilaReferencias;
+    private int localesEnteros, localesReferencia;
+    private Deque<Map<String, Local>> ambitos;
+    private Deque<Ciclo> ciclos;
+
+    public CompiladorBytecode() {
+        this.errores = new ArrayList<>();
+    }
+
+    /**
+     * Compila el árbol de un programa. Devuelve null si hubo errores
+     * (ver getErrores).
+     */
+    public ProgramaBytecode compilar(Nodo arbol, JerarquiaClases jerarquia) {
+        this.errores.clear();
+        this.jerarquia = jerarquia;
+        this.programa = new ProgramaBytecode();
+        this.indicesClases = new HashMap<>();
+        this.indicesCampos = new HashMap<>();
+        this.indicesMetodos = new HashMap<>();
+        this.metodosCompilados = new IdentityHashMap<>();
+        this.firmas = new IdentityHashMap<>();
+        this.indicesConstantes = new HashMap<>();
+
+        if (arbol == null) return null;
+
+        // Primero se distribuyen todas las clases para que cualquier cuerpo pueda
+        // referirse a cualquier método o atributo
+        for (String nombre : jerarquia.getOrdenTopologico()) {
+            distribuirClase(nombre);
+        }
+
+        for (String nombre : jerarquia.getOrdenTopologico()) {
+            compilarClase(nombre);
+        }
+
+        if (programa.principal == null) {
+            errores.add("Error de compilación: el programa no tiene método main.");
+        }
+
+        return errores.isEmpty() ? programa : null;
+    }
+
+    // ------------------ DISTRIBUCIÓN DE CLASES ------------------
+
+    private void distribuirClase(String nombre) {
+        Nodo nodoClase = jerarquia.getClase(nombre);
+        String nombrePadre = jerarquia.getPadre(nombre);
+        ProgramaBytecode.Clase padre = null;
+
+        if (nombrePadre != null) {
+            Integer indicePadre = indicesClases.get(nombrePadre);
+            if (indicePadre == null) {
+                registrarError(nodoClase, "La clase padre '" + nombrePadre + "' no está disponible para el compilador.");
+            } else {
+                padre = programa.clases.get(indicePadre);
+            }
+        }
+
+        ProgramaBytecode.Clase clase = new ProgramaBytecode.Clase(nombre, padre);
+        Map<String, Integer> campos = new HashMap<>();
+        Map<String, Integer> metodos = new HashMap<>();
+        List<ProgramaBytecode.Metodo> vtable = new ArrayList<>();
+
+        if (padre != null) {
+            clase.camposEnteros = padre.camposEnteros;
+            clase.camposReferencia = padre.camposReferencia;
+            campos.putAll(indicesCampos.get(nombrePadre));
+            metodos.putAll(indicesMetodos.get(nombrePadre));
+            vtable.addAll(Arrays.asList(padre.vtable));
+        }
+
+        for (Nodo miembro : nodoClase.getHijos()) {
+            switch (miembro.getTipo()) {
+                case "Variable":
+                    if (categoria(miembro.getTipoDato(), miembro) == 'I') {
+                        campos.put(miembro.getValor(), clase.camposEnteros++);
+                    } else {
+                        campos.put(miembro.getValor(), clase.camposReferencia++);
+                    }
+                    break;
+                case "Metodo": {
+                    ProgramaBytecode.Metodo metodo = declararMetodo(miembro, clase);
+                    Integer entrada = metodos.get(miembro.getValor());
+                    if (entrada == null) {
+                        metodos.put(miembro.getValor(), vtable.size());
+                        vtable.add(metodo);
+                    } else {
+                        if (!firmas.get(vtable.get(entrada)).equals(firmas.get(metodo))) {
+                            registrarError(miembro, "La sobrescritura de '" + miembro.getValor() + "' cambia los tipos de parámetros o de retorno.");
+                        }
+                        vtable.set(entrada, metodo);
+                    }
+                    break;
+                }
+                case "Main":
+                    if (programa.principal == null) {
+                        ProgramaBytecode.Metodo principal = new ProgramaBytecode.Metodo("main", clase);
+                        principal.parametrosReferencia = 1;
+                        principal.retorno = 'V';
+                        programa.principal = principal;
+                        metodosCompilados.put(miembro, principal);
+                    }
+                    break;
+                case "Estatico":
+                    registrarError(miembro, "Los bloques static no están soportados.");
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        clase.vtable = vtable.toArray(new ProgramaBytecode.Metodo[0]);
+        indicesClases.put(nombre, programa.clases.size());
+        programa.clases.add(clase);
+        indicesCampos.put(nombre, campos);
+        indicesMetodos.put(nombre, metodos);
+    }
+
+    private ProgramaBytecode.Metodo declararMetodo(Nodo nodo, ProgramaBytecode.Clase clase) {
+        ProgramaBytecode.Metodo metodo = new ProgramaBytecode.Metodo(nodo.getValor(), clase);
+        StringBuilder firma = new StringBuilder();
+
+        metodo.parametrosReferencia = 1;    // this
+        for (Nodo hijo : nodo.getHijos()) {
+            if (!hijo.getTipo().equals("Parametro")) continue;
+            char cat = categoria(hijo.getTipoDato(), hijo);
+            if (cat == 'I') metodo.parametrosEnteros++;
+            else metodo.parametrosReferencia++;
+            firma.append(cat);
+        }
+        metodo.retorno = nodo.getTipoDato().equals("void") ? 'V' : categoria(nodo.getTipoDato(), nodo);
+        firma.append(')').append(metodo.retorno);
+
+        firmas.put(metodo, firma.toString());
+        metodosCompilados.put(nodo, metodo);
+        return metodo;
+    }
+
+    // ------------------ MÉTODOS ------------------
+
+    private void compilarClase(String nombre) {
+        Nodo nodoClase = jerarquia.getClase(nombre);
+        ProgramaBytecode.Clase clase = programa.clases.get(indicesClases.get(nombre));
+
+        // La compilación recorre el árbol recursivamente: un anidamiento que agota la
+        // pila se reporta como error del método en vez de cortar el programa
+        for (Nodo miembro : nodoClase.getHijos()) {
+            ProgramaBytecode.Metodo metodo = metodosCompilados.get(miembro);
+            if (metodo == null) continue;
+            try {
+                compilarMetodo(miembro, metodo, nombre);
+            } catch (StackOverflowError e) {
+                registrarError(miembro, DESBORDAMIENTO);
+            }
+        }
+
+        try {
+            compilarInicializador(clase);
+        } catch (StackOverflowError e) {
+            registrarError(nodoClase, DESBORDAMIENTO);
+        }
+    }
+
+    private void compilarMetodo(Nodo nodo, ProgramaBytecode.Metodo metodo, String clase) {
+        iniciarMetodo(clase, nodo.getTipo().equals("Main"));
+
+        for (Nodo hijo : nodo.getHijos()) {
+            if (hijo.getTipo().equals("Parametro")) {
+                declararLocal(hijo);
+            } else {
+                // El cuerpo comparte el ámbito de los parámetros
+                for (Nodo s : hijo.getHijos()) sentencia(s);
+            }
+        }
+
+        // Retorno por omisión si la ejecución llega al final del cuerpo
+        if (metodo.retorno == 'I') {
+            emitir(ICONST, 0);
+            emitir(RETI);
+        } else if (metodo.retorno == 'R') {
+            emitir(NULL);
+            emitir(RETR);
+        } else {
+            emitir(RET);
+        }
+
+        terminarMetodo(metodo);
+    }
+
+    /**
+     * Los valores iniciales de los atributos se asignan en un método aparte que el
+     * intérprete ejecuta al crear cada objeto. Incluye los de las clases ancestro,
+     * desde la más lejana, igual que el orden de los constructores en Java.
+     */
+    private void compilarInicializador(ProgramaBytecode.Clase clase) {
+        List<ProgramaBytecode.Clase> cadena = new ArrayList<>();
+        for (ProgramaBytecode.Clase c = clase; c != null; c = c.padre) cadena.add(0, c);
+
+        iniciarMetodo(clase.nombre, false);
+        boolean vacio = true;
+
+        for (ProgramaBytecode.Clase c : cadena) {
+            claseActual = c.nombre;
+            for (Nodo miembro : jerarquia.getClase(c.nombre).getHijos()) {
+                if (!miembro.getTipo().equals("Variable") || miembro.getCantidadHijos() == 0) continue;
+                emitir(RLOAD, 0);
+                expresion(miembro.getHijo(0));
+                int campo = indicesCampos.get(c.nombre).get(miembro.getValor());
+                emitir(categoria(miembro.getTipoDato(), miembro) == 'I' ? PUTI : PUTR, campo);
+                vacio = false;
+            }
+        }
+        emitir(RET);
+
+        if (!vacio) {
+            ProgramaBytecode.Metodo inicializador = new ProgramaBytecode.Metodo("<init>", clase);
+            inicializador.parametrosReferencia = 1;
+            inicializador.retorno = 'V';
+            terminarMetodo(inicializador);
+            clase.inicializador = inicializador;
+        }
+    }
+
+    private void iniciarMetodo(String clase, boolean estatico) {
+        claseActual = clase;
+        contextoEstatico = estatico;
+        codigo = new int[64];
+        tamano = 0;
+        pilaEnteros = pilaReferencias = 0;
+        maxPilaEnteros = maxPilaReferencias = 0;
+        localesEnteros = 0;
+        localesReferencia = estatico ? 0 : 1;   // En métodos de instancia la posición 0 es this
+        ambitos = new ArrayDeque<>();
+        ciclos = new ArrayDeque<>();
+        abrirAmbito();
+    }
+
+    private void terminarMetodo(ProgramaBytecode.Metodo metodo) {
+        metodo.codigo = Arrays.copyOf(codigo, tamano);
+        metodo.localesEnteros = localesEnteros;
+        metodo.localesReferencia = localesReferencia;
+        metodo.pilaEnteros = maxPilaEnteros;
+        metodo.pilaReferencias = maxPilaReferencias;
+    }
+
+    // ------------------ SENTENCIAS ------------------
+
+    private void sentencia(Nodo s) {
+        switch (s.getTipo()) {
+            case "Bloque":
+                abrirAmbito();
+                for (Nodo hijo : s.getHijos()) sentencia(hijo);
+                cerrarAmbito();
+                break;
+            case "Variable": {
+                Local local = declararLocal(s);
+                if (s.getCantidadHijos() > 0) {
+                    expresion(s.getHijo(0));
+                    emitir(local.categoria == 'I' ? ISTORE : RSTORE, local.indice);
+                }
+                break;
+            }
+            case "If": {
+                expresion(s.getHijo(0));
+                int saltoFalso = saltar(JZ);
+                sentencia(s.getHijo(1));
+                if (s.getCantidadHijos() > 2) {
+                    int saltoFin = saltar(JMP);
+                    parchear(saltoFalso);
+                    sentencia(s.getHijo(2));
+                    parchear(saltoFin);
+                } else {
+                    parchear(saltoFalso);
+                }
+                break;
+            }
+            case "While": {
+                int inicio = tamano;
+                expresion(s.getHijo(0));
+                int saltoFin = saltar(JZ);
+                Ciclo ciclo = abrirCiclo(false);
+                sentencia(s.getHijo(1));
+                emitir(JMP, inicio);
+                cerrarCiclo(ciclo, tamano, inicio);
+                parchear(saltoFin);
+                break;
+            }
+            case "DoWhile": {
+                int inicio = tamano;
+                Ciclo ciclo = abrirCiclo(false);
+                sentencia(s.getHijo(0));
+                int condicion = tamano;
+                expresion(s.getHijo(1));
+                emitir(JNZ, inicio);
+                cerrarCiclo(ciclo, tamano, condicion);
+                break;
+            }
+            case "For":
+                cicloFor(s);
+                break;
+            case "Switch":
+                sentenciaSwitch(s);
+                break;
+            case "Imprimir":
+                imprimir(s);
+                break;
+            case "Return":
+                if (s.getCantidadHijos() == 0) {
+                    emitir(RET);
+                } else {
+                    expresion(s.getHijo(0));
+                    emitir(categoria(s.getHijo(0).getTipoDato(), s) == 'I' ? RETI : RETR);
+                }
+                break;
+            case "Break":
+            case "Continue":
+                saltoDeCiclo(s);
+                break;
+            case "Asignacion":
+                asignar(s.getHijo(0), s.getValor(), s.getHijo(1));
+                break;
+            case "ExpresionSentencia":
+                expresionSentencia(s.getHijo(0));
+                break;
+            case "Try":
+            case "Throw":
+                registrarError(s, "Las excepciones no están soportadas por el compilador.");
+                break;
+            default:
+                registrarError(s, "Sentencia no soportada: " + s.getTipo() + ".");
+                break;
+        }
+    }
+
+    private void cicloFor(Nodo s) {
+        abrirAmbito();
+        for (Nodo inicial : s.getHijo(0).getHijos()) sentencia(inicial);
+
+        int inicio = tamano;
+        int saltoFin = -1;
+        if (!s.getHijo(1).getTipo().equals("Vacio")) {
+            expresion(s.getHijo(1));
+            saltoFin = saltar(JZ);
+        }
+
+        Ciclo ciclo = abrirCiclo(false);
+        sentencia(s.getHijo(3));
+        int actualizacion = tamano;
+        if (!s.getHijo(2).getTipo().equals("Vacio")) sentencia(s.getHijo(2));
+        emitir(JMP, inicio);
+        cerrarCiclo(ciclo, tamano, actualizacion);
+
+        if (saltoFin >= 0) parchear(saltoFin);
+        cerrarAmbito();
+    }
+
+    /**
+     * El switch se compila como una cadena de comparaciones contra un local
+     * temporal; los cuerpos quedan en orden para respetar la caída entre casos.
+     */
+    private void sentenciaSwitch(Nodo s) {
+        Nodo selector = s.getHijo(0);
+        if (categoria(selector.getTipoDato(), selector) != 'I') {
+            registrarError(selector, "Solo se admite switch sobre valores enteros.");
+            return;
+        }
+
+        int temporal = localesEnteros++;
+        expresion(selector);
+        emitir(ISTORE, temporal);
+
+        int casos = s.getCantidadHijos() - 1;
+        int[] saltosCaso = new int[casos];
+        int indiceDefault = -1;
+        for (int i = 0; i < casos; i++) {
+            Nodo caso = s.getHijo(i + 1);
+            if (caso.getValor().equals("default")) {
+                indiceDefault = i;
+                continue;
+            }
+            emitir(ILOAD, temporal);
+            expresion(caso.getHijo(0));
+            emitir(IEQ);
+            saltosCaso[i] = saltar(JNZ);
+        }
+        int saltoSinCaso = saltar(JMP);
+
+        Ciclo ciclo = abrirCiclo(true);
+        for (int i = 0; i < casos; i++) {
+            Nodo caso = s.getHijo(i + 1);
+            if (i == indiceDefault) {
+                parchear(saltoSinCaso);
+            } else {
+                parchear(saltosCaso[i]);
+            }
+            abrirAmbito();
+            for (int j = caso.getValor().equals("case") ? 1 : 0; j < caso.getCantidadHijos(); j++) {
+                sentencia(caso.getHijo(j));
+            }
+            cerrarAmbito();
+        }
+        if (indiceDefault < 0) parchear(saltoSinCaso);
+        cerrarCiclo(ciclo, tamano, -1);
+    }
+
+    private void imprimir(Nodo s) {
+        int salto = s.getValor().equals("println") ? 1 : 0;
+        if (s.getCantidadHijos() == 0) {
+            if (salto == 1) emitir(PRINTLN);
+            return;
+        }
+
+        Nodo valor = s.getHijo(0);
+        expresion(valor);
+        switch (valor.getTipoDato()) {
+            case "boolean": emitir(PRINTB, salto); break;
+            case "char": emitir(PRINTC, salto); break;
+            default:
+                emitir(categoria(valor.getTipoDato(), valor) == 'I' ? PRINTI : PRINTR, salto);
+                break;
+        }
+    }
+
+    private void saltoDeCiclo(Nodo s) {
+        boolean esBreak = s.getTipo().equals("Break");
+        for (Ciclo ciclo : ciclos) {
+            // continue atraviesa los switch hasta el ciclo que los contiene
+            if (!esBreak && ciclo.esSwitch) continue;
+            (esBreak ? ciclo.saltosBreak : ciclo.saltosContinue).add(saltar(JMP));
+            return;
+        }
+        registrarError(s, "'" + s.getTipo().toLowerCase() + "' fuera de un ciclo.");
+    }
+
+    private void expresionSentencia(Nodo e) {
+        // x++ y ++x como sentencia no necesitan dejar el valor anterior en la pila
+        if (e.getTipo().equals("Postfija") ||
+            (e.getTipo().equals("Unaria") && (e.getValor().equals("++") || e.getValor().equals("--")))) {
+            Nodo uno = new Nodo("Literal", "1", e.getToken());
+            uno.setTipoDato("int");
+            asignar(e.getHijo(0), e.getValor().equals("++") ? "+=" : "-=", uno);
+            return;
+        }
+
+        expresion(e);
+        if (!e.getTipoDato().equals("void")) {
+            emitir(categoria(e.getTipoDato(), e) == 'I' ? POPI : POPR);
+        }
+    }
+
+    /** Asignación simple o compuesta (op: "=", "+=", "<<="...) sobre cualquier destino */
+    private void asignar(Nodo destino, String op, Nodo valor) {
+        boolean compuesta = !op.equals("=");
+        char cat = categoria(destino.getTipoDato(), destino);
+
+        switch (destino.getTipo()) {
+            case "Identificador": {
+                Local local = buscarLocal(destino.getValor());
+                if (local != null) {
+                    // x += constante se resuelve con una sola instrucción
+                    if (cat == 'I' && (op.equals("+=") || op.equals("-=")) && esLiteralEntero(valor)) {
+                        int k = literalEntero(valor);
+                        emitir(IINC, local.indice, op.equals("+=") ? k : -k);
+                        return;
+                    }
+                    if (compuesta) emitir(cat == 'I' ? ILOAD : RLOAD, local.indice);
+                    valorAsignado(destino, op, valor);
+                    emitir(cat == 'I' ? ISTORE : RSTORE, local.indice);
+                    return;
+                }
+                cargarThis(destino);
+                asignarCampo(claseActual, destino, cat, compuesta, op, valor);
+                return;
+            }
+            case "Acceso": {
+                String clase = receptor(destino.getHijo(0));
+                if (clase == null) return;
+                asignarCampo(clase, destino, cat, compuesta, op, valor);
+                return;
+            }
+            case "Indice":
+                expresion(destino.getHijo(0));
+                expresion(destino.getHijo(1));
+                if (compuesta) {
+                    emitir(DUPR);
+                    emitir(DUPI);
+                    emitir(cat == 'I' ? IALOAD : RALOAD);
+                }
+                valorAsignado(destino, op, valor);
+                emitir(cat == 'I' ? IASTORE : RASTORE);
+                return;
+            default:
+                registrarError(destino, "Destino de asignación no soportado.");
+        }
+    }
+
+    /** Con el receptor ya en la pila, asigna el atributo indicado por destino */
+    private void asignarCampo(String clase, Nodo destino, char cat, boolean compuesta, String op, Nodo valor) {
+        int campo = indiceCampo(clase, destino);
+        if (compuesta) {
+            emitir(DUPR);
+            emitir(cat == 'I' ? GETI : GETR, campo);
+        }
+        valorAsignado(destino, op, valor);
+        emitir(cat == 'I' ? PUTI : PUTR, campo);
+    }
+
+    /** Deja en la pila el valor a guardar; en las compuestas el valor actual ya está en la pila */
+    private void valorAsignado(Nodo destino, String op, Nodo valor) {
+        if (op.equals("=")) {
+            expresion(valor);
+        } else if (op.equals("+=") && destino.getTipoDato().equals("String")) {
+            comoCadena(valor);
+            emitir(CONCAT);
+        } else {
+            expresion(valor);
+            emitir(operacionEntera(op.substring(0, op.length() - 1), destino));
+        }
+    }
+
+    // ------------------ EXPRESIONES ------------------
+
+    /** Emite el código que deja el valor de la expresión en la pila que le corresponde */
+    private void expresion(Nodo e) {
+        switch (e.getTipo()) {
+            case "Literal":
+                literal(e);
+                break;
+            case "Identificador": {
+                Local local = buscarLocal(e.getValor());
+                if (local != null) {
+                    emitir(local.categoria == 'I' ? ILOAD : RLOAD, local.indice);
+                } else {
+                    cargarThis(e);
+                    int campo = indiceCampo(claseActual, e);
+                    emitir(categoria(e.getTipoDato(), e) == 'I' ? GETI : GETR, campo);
+                }
+                break;
+            }
+            case "This":
+                cargarThis(e);
+                break;
+            case "Binaria":
+                binaria(e);
+                break;
+            case "Unaria":
+                unaria(e);
+                break;
+            case "Postfija": {
+                Local local = localEntero(e.getHijo(0));
+                if (local == null) return;
+                emitir(ILOAD, local.indice);
+                emitir(IINC, local.indice, e.getValor().equals("++") ? 1 : -1);
+                break;
+            }
+            case "Indice":
+                expresion(e.getHijo(0));
+                expresion(e.getHijo(1));
+                emitir(categoria(e.getTipoDato(), e) == 'I' ? IALOAD : RALOAD);
+                break;
+            case "Longitud":
+                expresion(e.getHijo(0));
+                emitir(ARRLEN);
+                break;
+            case "Acceso": {
+                String clase = receptor(e.getHijo(0));
+                if (clase == null) return;
+                int campo = indiceCampo(clase, e);
+                emitir(categoria(e.getTipoDato(), e) == 'I' ? GETI : GETR, campo);
+                break;
+            }
+            case "Llamada":
+                llamada(e);
+                break;
+            case "NuevoObjeto":
+                nuevoObjeto(e);
+                break;
+            case "NuevoArreglo": {
+                if (e.getCantidadHijos() != 1 || e.getHijo(0).getTipo().equals("Vacio")) {
+                    registrarError(e, "Solo se admiten arreglos de una dimensión con tamaño.");
+                    return;
+                }
+                expresion(e.getHijo(0));
+                emitir(categoria(e.getValor(), e) == 'I' ? NEWARRI : NEWARRR);
+                break;
+            }
+            default:
+                registrarError(e, "Expresión no soportada: " + e.getTipo() + ".");
+                break;
+        }
+    }
+
+    private void literal(Nodo e) {
+        String lex = e.getValor();
+        switch (e.getTipoDato()) {
+            case "boolean":
+                emitir(ICONST, lex.equals("true") ? 1 : 0);
+                break;
+            case "null":
+                emitir(NULL);
+                break;
+            case "int":
+                emitir(ICONST, literalEntero(e));
+                break;
+            case "char":
+                emitir(ICONST, desescapar(lex.substring(1, lex.length() - 1)).charAt(0));
+                break;
+            case "String":
+                emitir(SCONST, constante(desescapar(lex.substring(1, lex.length() - 1))));
+                break;
+            default:
+                registrarError(e, "Literal de tipo '" + e.getTipoDato() + "' no soportado.");
+                break;
+        }
+    }
+
+    private void binaria(Nodo e) {
+        String op = e.getValor();
+        Nodo izq = e.getHijo(0);
+        Nodo der = e.getHijo(1);
+
+        switch (op) {
+            case "&&": {
+                expresion(izq);
+                int saltoFalso = saltar(JZ);
+                expresion(der);
+                int saltoFin = saltar(JMP);
+                parchear(saltoFalso);
+                emitir(ICONST, 0);
+                parchear(saltoFin);
+                pilaEnteros--;  // Solo una de las dos ramas deja su valor
+                return;
+            }
+            case "||": {
+                expresion(izq);
+                int saltoVerdadero = saltar(JNZ);
+                expresion(der);
+                int saltoFin = saltar(JMP);
+                parchear(saltoVerdadero);
+                emitir(ICONST, 1);
+                parchear(saltoFin);
+                pilaEnteros--;
+                return;
+            }
+            case "instanceof":
+                registrarError(e, "El operador 'instanceof' no está soportado.");
+                return;
+            default:
+                break;
+        }
+
+        if (op.equals("+") && e.getTipoDato().equals("String")) {
+            comoCadena(izq);
+            comoCadena(der);
+            emitir(CONCAT);
+            return;
+        }
+
+        expresion(izq);
+        expresion(der);
+        if ((op.equals("==") || op.equals("!=")) && categoria(izq.getTipoDato(), izq) == 'R') {
+            emitir(op.equals("==") ? REQ : RNE);
+        } else {
+            emitir(operacionEntera(op, e));
+        }
+    }
+
+    private void unaria(Nodo e) {
+        switch (e.getValor()) {
+            case "!":
+                expresion(e.getHijo(0));
+                emitir(INOT);
+                break;
+            case "-":
+                if (esLiteralEntero(e.getHijo(0))) {
+                    // -2147483648 solo está en rango con el signo: se pliega antes de verificarlo
+                    emitir(ICONST, literalEntero(e.getHijo(0), true));
+                    break;
+                }
+                expresion(e.getHijo(0));
+                emitir(INEG);
+                break;
+            case "~":
+                expresion(e.getHijo(0));
+                emitir(ICOMPL);
+                break;
+            case "+":
+                expresion(e.getHijo(0));
+                break;
+            default: {
+                // ++x / --x
+                Local local = localEntero(e.getHijo(0));
+                if (local == null) return;
+                emitir(IINC, local.indice, e.getValor().equals("++") ? 1 : -1);
+                emitir(ILOAD, local.indice);
+                break;
+            }
+        }
+    }
+
+    private void llamada(Nodo e) {
+        Nodo receptorNodo = e.getHijo(0);
+        String clase;
+        if (receptorNodo.getTipo().equals("Vacio")) {
+            cargarThis(e);
+            clase = claseActual;
+        } else {
+            clase = receptor(receptorNodo);
+            if (clase == null) return;
+        }
+
+        Nodo declaracion = jerarquia.buscarMetodo(clase, e.getValor());
+        ProgramaBytecode.Metodo destino = declaracion != null ? metodosCompilados.get(declaracion) : null;
+        if (destino == null || destino == programa.principal) {
+            registrarError(e, "Solo se pueden invocar métodos de instancia de las clases del programa.");
+            return;
+        }
+
+        for (int i = 1; i < e.getCantidadHijos(); i++) {
+            expresion(e.getHijo(i));
+        }
+
+        emitir(INVOKE, indicesMetodos.get(clase).get(e.getValor()), destino.parametrosReferencia);
+        pilaEnteros -= destino.parametrosEnteros;
+        pilaReferencias -= destino.parametrosReferencia;
+        if (destino.retorno == 'I') apilar(1, 0);
+        else if (destino.retorno == 'R') apilar(0, 1);
+    }
+
+    private void nuevoObjeto(Nodo e) {
+        if (e.getValor().equals("String") && e.getCantidadHijos() == 0) {
+            emitir(SCONST, constante(""));
+            return;
+        }
+        Integer indice = indicesClases.get(e.getValor());
+        if (indice == null) {
+            registrarError(e, "La clase '" + e.getValor() + "' no está disponible para el compilador.");
+        } else if (e.getCantidadHijos() > 0) {
+            registrarError(e, "Los constructores con argumentos no están soportados.");
+        } else {
+            emitir(NEW, indice);
+        }
+    }
+
+    /**
+     * Compila el receptor de un acceso o llamada y devuelve su clase. Un nombre de
+     * clase como receptor sería un acceso estático, que no se soporta.
+     */
+    private String receptor(Nodo receptor) {
+        if (receptor.getTipo().equals("Identificador") && buscarLocal(receptor.getValor()) == null &&
+            jerarquia.buscarCampo(claseActual, receptor.getValor()) == null) {
+            registrarError(receptor, "El acceso estático a '" + receptor.getValor() + "' no está soportado.");
+            return null;
+        }
+
+        expresion(receptor);
+        String clase = receptor.getTipoDato();
+        if (!indicesClases.containsKey(clase)) {
+            registrarError(receptor, "El tipo '" + clase + "' no tiene miembros accesibles para el compilador.");
+            return null;
+        }
+        return clase;
+    }
+
+    /** Convierte a String el valor de la expresión para concatenarlo */
+    private void comoCadena(Nodo e) {
+        expresion(e);
+        switch (e.getTipoDato()) {
+            case "boolean": emitir(B2S); break;
+            case "char": emitir(C2S); break;
+            default:
+                if (categoria(e.getTipoDato(), e) == 'I') emitir(I2S);
+                break;
+        }
+    }
+
+    private void cargarThis(Nodo e) {
+        if (contextoEstatico) {
+            registrarError(e, "No hay 'this' en un contexto estático.");
+        }
+        emitir(RLOAD, 0);
+    }
+
+    private int operacionEntera(String op, Nodo nodo) {
+        switch (op) {
+            case "+": return IADD;
+            case "-": return ISUB;
+            case "*": return IMUL;
+            case "/": return IDIV;
+            case "%": return IREM;
+            case "&": return IAND;
+            case "|": return IOR;
+            case "^": return IXOR;
+            case "<<": return ISHL;
+            case ">>": return ISHR;
+            case ">>>": return IUSHR;
+            case "<": return ILT;
+            case "<=": return ILE;
+            case ">": return IGT;
+            case ">=": return IGE;
+            case "==": return IEQ;
+            case "!=": return INE;
+            default:
+                registrarError(nodo, "Operador '" + op + "' no soportado.");
+                return IADD;
+        }
+    }
+
+    // ------------------ LOCALES Y MIEMBROS ------------------
+
+    private void abrirAmbito() {
+        ambitos.push(new HashMap<>());
+    }
+
+    private void cerrarAmbito() {
+        ambitos.pop();
+    }
+
+    /** Cada declaración recibe una posición propia; no se reutilizan entre ámbitos */
+    private Local declararLocal(Nodo declaracion) {
+        char cat = categoria(declaracion.getTipoDato(), declaracion);
+        Local local = new Local(cat == 'I' ? localesEnteros++ : localesReferencia++, cat);
+        ambitos.peek().put(declaracion.getValor(), local);
+        return local;
+    }
+
+    private Local buscarLocal(String nombre) {
+        for (Map<String, Local> ambito : ambitos) {
+            Local local = ambito.get(nombre);
+            if (local != null) return local;
+        }
+        return null;
+    }
+
+    /** ++ y -- dentro de expresiones solo se admiten sobre variables locales enteras */
+    private Local localEntero(Nodo e) {
+        Local local = e.getTipo().equals("Identificador") ? buscarLocal(e.getValor()) : null;
+        if (local == null || local.categoria != 'I') {
+            registrarError(e, "'++' y '--' dentro de una expresión solo se admiten sobre variables locales.");
+            return null;
+        }
+        return local;
+    }
+
+    private int indiceCampo(String clase, Nodo acceso) {
+        Integer indice = indicesCampos.get(clase).get(acceso.getValor());
+        if (indice == null) {
+            registrarError(acceso, "El atributo '" + acceso.getValor() + "' no existe en la clase '" + clase + "'.");
+            return 0;
+        }
+        return indice;
+    }
+
+    private int constante(String valor) {
+        Integer indice = indicesConstantes.get(valor);
+        if (indice == null) {
+            indice = programa.constantes.size();
+            programa.constantes.add(valor);
+            indicesConstantes.put(valor, indice);
+        }
+        return indice;
+    }
+
+    // ------------------ TIPOS Y LITERALES ------------------
+
+    /** 'I' para tipos que caben en un int, 'R' para referencias */
+    private char categoria(String tipo, Nodo nodo) {
+        if (tipo == null) tipo = "?";
+        switch (tipo) {
+            case "int":
+            case "boolean":
+            case "char":
+            case "byte":
+            case "short":
+                return 'I';
+            case "long":
+            case "float":
+            case "double":
+            case "void":
+            case "?":
+                registrarError(nodo, "Tipo '" + tipo + "' no soportado por el compilador.");
+                return 'I';
+            default:
+                return 'R';
+        }
+    }
+
+    private boolean esLiteralEntero(Nodo e) {
+        return e.getTipo().equals("Literal") && "int".equals(e.getTipoDato());
+    }
+
+    private int literalEntero(Nodo e) {
+        return literalEntero(e, false);
+    }
+
+    private int literalEntero(Nodo e, boolean negado) {
+        Integer valor = valorEntero(e.getValor(), negado);
+        if (valor == null) {
+            registrarError(e, "El literal '" + (negado ? "-" : "") + e.getValor() + "' excede el rango de int.");
+            return 0;
+        }
+        return valor;
+    }
+
+    /**
+     * Valor de un literal int, con el signo si va precedido de un '-'; null si
+     * excede el rango (también lo usan GeneradorClases y EvaluadorArbol)
+     */
+    static Integer valorEntero(String lexema, boolean negado) {
+        try {
+            if (negado && !lexema.startsWith("-")) return Integer.parseInt("-" + lexema);
+            // Un literal plegado por el optimizador ya trae su signo: se niega como lo haría INEG
+            int valor = Integer.parseInt(lexema);
+            return negado ? -valor : valor;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /** Resuelve las secuencias de escape del contenido de un literal */
+    static String desescapar(String texto) {
+        if (texto.indexOf('\\') < 0) return texto;
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c != '\\' || i + 1 == texto.length()) {
+                sb.append(c);
+                continue;
+            }
+            char siguiente = texto.charAt(++i);
+            switch (siguiente) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case '0': sb.append('\0'); break;
+                default: sb.append(siguiente); break;
+            }
+        }
+        return sb.toString();
+    }
+
+    // ------------------ EMISIÓN ------------------
+
+    private void emitir(int op, int... inmediatos) {
+        if (tamano + 1 + inmediatos.length > codigo.length) {
+            codigo = Arrays.copyOf(codigo, codigo.length * 2);
+        }
+        codigo[tamano++] = op;
+        for (int v : inmediatos) codigo[tamano++] = v;
+        apilar(EFECTO_ENTEROS[op], EFECTO_REFERENCIAS[op]);
+    }
+
+    private void apilar(int enteros, int referencias) {
+        pilaEnteros += enteros;
+        pilaReferencias += referencias;
+        if (pilaEnteros > maxPilaEnteros) maxPilaEnteros = pilaEnteros;
+        if (pilaReferencias > maxPilaReferencias) maxPilaReferencias = pilaReferencias;
+    }
+
+    /** Emite un salto con destino pendiente y devuelve la posición a parchear */
+    private int saltar(int op) {
+        emitir(op, -1);
+        return tamano - 1;
+    }
+
+    private void parchear(int posicion) {
+        codigo[posicion] = tamano;
+    }
+
+    private Ciclo abrirCiclo(boolean esSwitch) {
+        Ciclo ciclo = new Ciclo(esSwitch);
+        ciclos.push(ciclo);
+        return ciclo;
+    }
+
+    private void cerrarCiclo(Ciclo ciclo, int destinoBreak, int destinoContinue) {
+        ciclos.pop();
+        for (int posicion : ciclo.saltosBreak) codigo[posicion] = destinoBreak;
+        for (int posicion : ciclo.saltosContinue) codigo[posicion] = destinoContinue;
+    }
+
+    // ------------------ ERRORES ------------------
+
+    private void registrarError(Nodo nodo, String mensaje) {
+        if (nodo != null && nodo.getToken() != null) {
+            errores.add(String.format("Error de compilación en línea %d, columna %d: %s",
+                nodo.getLinea(), nodo.getColumna(), mensaje));
+        } else {
+            errores.add("Error de compilación: " + mensaje);
+        }
+    }
+
+    public List<String> getErrores() {
+        return errores;
+    }
+}
@@ -0,0 +1,297 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Documento abierto en un editor, analizado de forma incremental.
+ * Los tokens se guardan por línea: como ningún token cruza de una línea a otra,
+ * un cambio solo vuelve a pasar por el léxico las líneas que tocó (las de más
+ * abajo solo se renumeran si cambió la cantidad de líneas). El sintáctico
+ * reutiliza el árbol de cada clase cuyos tokens no cambiaron; el semántico se
+ * repite completo porque un cambio en una clase puede afectar a las demás.
+ *
+ * Los cambios y el análisis pueden venir de hilos distintos: los cambios se
+ * sincronizan sobre el documento y los análisis se ejecutan de a uno.
+ */
+public class DocumentoFuente {
+
+    /** Resultado de analizar una versión del documento */
+    public static final class Analisis {
+        private final int version;
+        private final List<Token> tokens;
+        private final List<String> errores;
+        private final List<String> advertencias;
+        private final List<Simbolo> simbolos;
+        private final Nodo arbol;
+        private final Map<Nodo, Nodo> referencias;
+        private final int clasesReutilizadas;
+
+        Analisis(int version, List<Token> tokens, List<String> errores, List<String> advertencias,
+                 List<Simbolo> simbolos, Nodo arbol, Map<Nodo, Nodo> referencias, int clasesReutilizadas) {
+            this.version = version;
+            this.tokens = tokens;
+            this.errores = errores;
+            this.advertencias = advertencias;
+            this.simbolos = simbolos;
+            this.arbol = arbol;
+            this.referencias = referencias;
+            this.clasesReutilizadas = clasesReutilizadas;
+        }
+
+        public int getVersion() { return version; }
+        public List<Token> getTokens() { return tokens; }
+        public List<String> getErrores() { return errores; }
+        public List<String> getAdvertencias() { return advertencias; }
+        public List<Simbolo> getSimbolos() { return simbolos; }
+        /** Árbol del programa; null si hubo errores léxicos */
+        public Nodo getArbol() { return arbol; }
+        /** Usos resueltos por el semántico; vacío si hubo errores léxicos o sintácticos */
+        public Map<Nodo, Nodo> getReferencias() { return referencias; }
+        public int getClasesReutilizadas() { return clasesReutilizadas; }
+
+        /** Token que contiene la posición (línea y columna desde 1); null si no hay ninguno */
+        public Token tokenEn(int linea, int columna) {
+            int bajo = 0, alto = tokens.size() - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                Token t = tokens.get(medio);
+                if (t.getLinea() < linea || t.getLinea() == linea && t.getColumna() + t.getLexema().length() <= columna) {
+                    bajo = medio + 1;
+                } else if (t.getLinea() > linea || t.getColumna() > columna) {
+                    alto = medio - 1;
+                } else {
+                    return t;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Tokens de una clase comparados por contenido y posición, para el caché de árboles */
+    private static final class ClaveClase {
+        private final List<Token> tokens;
+        private final int hash;
+
+        ClaveClase(List<Token> tokens) {
+            this.tokens = tokens;
+            int h = 1;
+            for (Token t : tokens) h = 31 * (31 * (31 * h + t.getLexema().hashCode()) + t.getLinea()) + t.getColumna();
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            if (!(otro instanceof ClaveClase)) return false;
+            List<Token> ajenos = ((ClaveClase) otro).tokens;
+            if (ajenos.size() != tokens.size()) return false;
+            for (int i = 0; i < tokens.size(); i++) {
+                Token a = tokens.get(i), b = ajenos.get(i);
+                if (a.getLinea() != b.getLinea() || a.getColumna() != b.getColumna() ||
+                    !a.getLexema().equals(b.getLexema()) || !a.getTipo().equals(b.getTipo())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final AnalizadorLexico lexico = new AnalizadorLexico();
+    private final List<String> lineas = new ArrayList<>();
+    private final List<List<Token>> tokensPorLinea = new ArrayList<>();
+    private final List<List<String>> erroresPorLinea = new ArrayList<>();
+    private int version;
+
+    // Solo lo usa el análisis en curso (los análisis no se superponen)
+    private final Object analizando = new Object();
+    private Map<ClaveClase, AnalizadorSintactico> cacheClases = new HashMap<>();
+
+    public DocumentoFuente(String texto) {
+        lexico.setModoRapido(true);
+        reemplazar(texto);
+    }
+
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    public synchronized String getTexto() {
+        return String.join("\n", lineas);
+    }
+
+    public synchronized String getLinea(int indice) {
+        return indice >= 0 && indice < lineas.size() ? lineas.get(indice) : "";
+    }
+
+    /** Reemplaza todo el contenido */
+    public synchronized void reemplazar(String texto) {
+        lineas.clear();
+        tokensPorLinea.clear();
+        erroresPorLinea.clear();
+        insertarLineas(0, Arrays.asList(texto.split("\n", -1)));
+        version++;
+    }
+
+    /**
+     * Reemplaza el texto entre dos posiciones (líneas y columnas desde 0, como en
+     * LSP) y vuelve a analizar léxicamente solo las líneas afectadas.
+     */
+    public synchronized void cambiar(int lineaInicio, int columnaInicio, int lineaFin, int columnaFin, String texto) {
+        lineaInicio = Math.max(0, Math.min(lineaInicio, lineas.size() - 1));
+        lineaFin = Math.max(lineaInicio, Math.min(lineaFin, lineas.size() - 1));
+        String primera = lineas.get(lineaInicio);
+        String ultima = lineas.get(lineaFin);
+        String nuevo = primera.substring(0, Math.min(columnaInicio, primera.length())) + texto +
+            ultima.substring(Math.min(columnaFin, ultima.length()));
+
+        int quitadas = lineaFin - lineaInicio + 1;
+        for (int i = 0; i < quitadas; i++) {
+            lineas.remove(lineaInicio);
+            tokensPorLinea.remove(lineaInicio);
+            erroresPorLinea.remove(lineaInicio);
+        }
+        List<String> nuevas = Arrays.asList(nuevo.split("\n", -1));
+        insertarLineas(lineaInicio, nuevas);
+
+        if (nuevas.size() != quitadas) renumerar(lineaInicio + nuevas.size());
+        version++;
+    }
+
+    private void insertarLineas(int desde, List<String> nuevas) {
+        for (int i = 0; i < nuevas.size(); i++) {
+            List<Token> tokens = new ArrayList<>();
+            List<String> errores = new ArrayList<>();
+            lexico.analizarLinea(nuevas.get(i), desde + i + 1, tokens, errores);
+            lineas.add(desde + i, nuevas.get(i));
+            tokensPorLinea.add(desde + i, tokens);
+            erroresPorLinea.add(desde + i, errores);
+        }
+    }
+
+    /** Las líneas que se desplazaron conservan sus tokens con el número de línea nuevo */
+    private void renumerar(int desde) {
+        for (int i = desde; i < lineas.size(); i++) {
+            int numero = i + 1;
+            List<Token> tokens = tokensPorLinea.get(i);
+            if (!erroresPorLinea.get(i).isEmpty()) {
+                // Los mensajes llevan el número de línea: es más simple volver a analizarla
+                tokens.clear();
+                erroresPorLinea.get(i).clear();
+                lexico.analizarLinea(lineas.get(i), numero, tokens, erroresPorLinea.get(i));
+                continue;
+            }
+            for (int j = 0; j < tokens.size(); j++) {
+                Token t = tokens.get(j);
+                if (t.getLinea() != numero) tokens.set(j, new Token(t.getTipo(), t.getLexema(), numero, t.getColumna()));
+            }
+        }
+    }
+
+    // ------------------ ANÁLISIS ------------------
+
+    /**
+     * Analiza la versión actual. cancelado se consulta entre fases y entre clases:
+     * si devuelve true el análisis se abandona y se devuelve null.
+     */
+    public Analisis analizar(BooleanSupplier cancelado) {
+        synchronized (analizando) {
+            int versionAnalizada;
+            List<Token> tokens = new ArrayList<>();
+            List<String> erroresLexicos = new ArrayList<>();
+            synchronized (this) {
+                versionAnalizada = version;
+                for (List<Token> linea : tokensPorLinea) tokens.addAll(linea);
+                for (List<String> errores : erroresPorLinea) erroresLexicos.addAll(errores);
+            }
+            tokens = Collections.unmodifiableList(tokens);
+            MetricasAnalizador metricas = MetricasAnalizador.GLOBAL;
+            metricas.registrarArchivo(tokens.size());
+            metricas.registrarErrores(MetricasAnalizador.LEXICO, erroresLexicos.size());
+
+            if (!erroresLexicos.isEmpty()) {
+                return new Analisis(versionAnalizada, tokens, erroresLexicos, Collections.emptyList(),
+                    Collections.emptyList(), null, Collections.emptyMap(), 0);
+            }
+            if (cancelado.getAsBoolean()) return null;
+
+            Nodo arbol = new Nodo("Programa", null, null);
+            List<Simbolo> simbolos = new ArrayList<>();
+            List<String> errores = new ArrayList<>();
+            long inicio = System.nanoTime();
+            int reutilizadas = sintactico(tokens, arbol, simbolos, errores, cancelado);
+            if (reutilizadas < 0) return null;
+            metricas.registrarFase(MetricasAnalizador.SINTACTICO, System.nanoTime() - inicio);
+            metricas.registrarErrores(MetricasAnalizador.SINTACTICO, errores.size());
+            if (!errores.isEmpty()) {
+                return new Analisis(versionAnalizada, tokens, errores, Collections.emptyList(), simbolos, arbol,
+                    Collections.emptyMap(), reutilizadas);
+            }
+            if (cancelado.getAsBoolean()) return null;
+
+            inicio = System.nanoTime();
+            AnalizadorSemantico semantico = new AnalizadorSemantico();
+            semantico.analizar(arbol);
+            metricas.registrarFase(MetricasAnalizador.SEMANTICO, System.nanoTime() - inicio);
+            metricas.registrarErrores(MetricasAnalizador.SEMANTICO, semantico.getErrores().size());
+            return new Analisis(versionAnalizada, tokens, new ArrayList<>(semantico.getErrores()),
+                new ArrayList<>(semantico.getAdvertencias()), simbolos, arbol,
+                new IdentityHashMap<>(semantico.getReferencias()), reutilizadas);
+        }
+    }
+
+    /**
+     * Análisis sintáctico clase por clase con el caché del análisis anterior.
+     * Devuelve cuántas clases se reutilizaron, o -1 si se canceló.
+     */
+    private int sintactico(List<Token> tokens, Nodo arbol, List<Simbolo> simbolos, List<String> errores,
+                           BooleanSupplier cancelado) {
+        List<int[]> segmentos = AnalizadorSintactico.dividirEnClases(tokens);
+        Map<ClaveClase, AnalizadorSintactico> nuevoCache = new HashMap<>();
+        List<AnalizadorSintactico> clases = new ArrayList<>();
+        int reutilizadas = 0;
+
+        if (segmentos != null) {
+            for (int[] segmento : segmentos) {
+                if (cancelado.getAsBoolean()) return -1;
+                ClaveClase clave = new ClaveClase(tokens.subList(segmento[0], segmento[1]));
+                AnalizadorSintactico clase = cacheClases.get(clave);
+                if (clase != null) reutilizadas++;
+                else clase = AnalizadorSintactico.analizarSegmento(clave.tokens);
+                nuevoCache.put(clave, clase);
+                clases.add(clase);
+            }
+        }
+        cacheClases = nuevoCache;
+        if (segmentos != null) MetricasAnalizador.GLOBAL.registrarCache(reutilizadas, segmentos.size() - reutilizadas);
+
+        boolean completo = segmentos != null && !segmentos.isEmpty();
+        for (AnalizadorSintactico clase : clases) completo &= clase.segmentoCompleto();
+        if (completo) {
+            for (AnalizadorSintactico clase : clases) {
+                for (Nodo hijo : clase.getArbol().getHijos()) arbol.agregarHijo(hijo);
+                simbolos.addAll(clase.getTablaSimbolos());
+            }
+            return reutilizadas;
+        }
+
+        // Con errores (o sin clases bien delimitadas) se analiza todo junto, así los
+        // mensajes y la recuperación coinciden con el análisis normal
+        AnalizadorSintactico sintactico = new AnalizadorSintactico();
+        sintactico.analizar(tokens);
+        for (Nodo hijo : sintactico.getArbol().getHijos()) arbol.agregarHijo(hijo);
+        simbolos.addAll(sintactico.getTablaSimbolos());
+        errores.addAll(sintactico.getErrores());
+        return 0;
+    }
+}
@@ -0,0 +1,154 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Eliminación de ramas muertas: resuelve if, while, do-while y for cuya
+ * condición es un literal boolean, descarta bloques vacíos y las sentencias
+ * inalcanzables que siguen a return, break, continue o throw.
+ * Normalmente se aplica después de PlegadoConstantes, que es quien convierte
+ * las condiciones en literales.
+ */
+public class EliminacionRamasMuertas implements PaseOptimizacion {
+
+    private int cambios;
+
+    @Override
+    public String getNombre() {
+        return "Eliminación de ramas muertas";
+    }
+
+    @Override
+    public int aplicar(Nodo programa) {
+        cambios = 0;
+        for (Nodo clase : programa.getHijos()) {
+            for (Nodo miembro : clase.getHijos()) {
+                if (!miembro.getTipo().equals("Metodo") && !miembro.getTipo().equals("Main")) continue;
+                Nodo cuerpo = miembro.getHijo(miembro.getCantidadHijos() - 1);
+                if (cuerpo.getTipo().equals("Bloque")) lista(cuerpo, 0);
+            }
+        }
+        return cambios;
+    }
+
+    /**
+     * Simplifica una sentencia y devuelve la que la reemplaza: la misma, una de
+     * sus ramas o null si no queda nada que ejecutar.
+     */
+    private Nodo sentencia(Nodo s) {
+        switch (s.getTipo()) {
+            case "Bloque":
+                lista(s, 0);
+                return s;
+            case "If": {
+                for (int i = 1; i < s.getCantidadHijos(); i++) ranura(s, i);
+                Boolean condicion = constante(s.getHijo(0));
+                if (condicion == null) return s;
+                cambios++;
+                if (condicion) return s.getHijo(1);
+                return s.getCantidadHijos() > 2 ? s.getHijo(2) : null;
+            }
+            case "While":
+                ranura(s, 1);
+                if (!Boolean.FALSE.equals(constante(s.getHijo(0)))) return s;
+                cambios++;
+                return null;
+            case "DoWhile":
+                // El cuerpo se ejecuta una vez, salvo que dependa de break/continue
+                ranura(s, 0);
+                if (!Boolean.FALSE.equals(constante(s.getHijo(1))) || contieneSalto(s.getHijo(0))) return s;
+                cambios++;
+                return s.getHijo(0);
+            case "For": {
+                Nodo inicializacion = s.getHijo(0);
+                lista(inicializacion, 0);
+                ranura(s, 3);
+                if (!Boolean.FALSE.equals(constante(s.getHijo(1)))) return s;
+                cambios++;
+                return inicializacion.getCantidadHijos() > 0 ? inicializacion : null;
+            }
+            case "Switch":
+                for (int i = 1; i < s.getCantidadHijos(); i++) {
+                    Nodo caso = s.getHijo(i);
+                    lista(caso, caso.getValor().equals("case") ? 1 : 0);
+                }
+                return s;
+            case "Try":
+                for (Nodo hijo : s.getHijos()) {
+                    if (hijo.getTipo().equals("Bloque")) lista(hijo, 0);
+                    else if (hijo.getCantidadHijos() > 0) ranura(hijo, 0);
+                }
+                return s;
+            default:
+                return s;
+        }
+    }
+
+    /** Sentencias de un bloque o caso a partir de inicio */
+    private void lista(Nodo contenedor, int inicio) {
+        int i = inicio;
+        while (i < contenedor.getCantidadHijos()) {
+            Nodo original = contenedor.getHijo(i);
+            Nodo resultado = sentencia(original);
+
+            if (resultado == null || resultado.getTipo().equals("Bloque") && resultado.getCantidadHijos() == 0) {
+                contenedor.eliminarHijo(i);
+                if (resultado == original) cambios++;
+                continue;
+            }
+            if (resultado != original) contenedor.setHijo(i, envolver(resultado));
+
+            if (esSalto(resultado) && i + 1 < contenedor.getCantidadHijos()) {
+                while (contenedor.getCantidadHijos() > i + 1) contenedor.eliminarHijo(i + 1);
+                cambios++;
+            }
+            i++;
+        }
+    }
+
+    /** Sentencia que ocupa una posición fija (rama de if, cuerpo de ciclo...) */
+    private void ranura(Nodo padre, int indice) {
+        Nodo original = padre.getHijo(indice);
+        Nodo resultado = sentencia(original);
+        if (resultado == null) padre.setHijo(indice, new Nodo("Bloque", null, original.getToken()));
+        else if (resultado != original) padre.setHijo(indice, envolver(resultado));
+    }
+
+    /** Una declaración que sube de nivel conserva su propio ámbito */
+    private static Nodo envolver(Nodo s) {
+        if (!s.getTipo().equals("Variable")) return s;
+        Nodo bloque = new Nodo("Bloque", null, s.getToken());
+        bloque.agregarHijo(s);
+        return bloque;
+    }
+
+    private static Boolean constante(Nodo condicion) {
+        Object valor = PlegadoConstantes.valor(condicion);
+        return valor instanceof Boolean ? (Boolean) valor : null;
+    }
+
+    private static boolean esSalto(Nodo s) {
+        switch (s.getTipo()) {
+            case "Return":
+            case "Break":
+            case "Continue":
+            case "Throw":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Recorre también las expresiones del cuerpo, que pueden ser muy profundas: la pila es explícita */
+    private static boolean contieneSalto(Nodo raiz) {
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.pop();
+            if (nodo.getTipo().equals("Break") || nodo.getTipo().equals("Continue")) return true;
+            for (Nodo hijo : nodo.getHijos()) pendientes.push(hijo);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package Util;
+
+/**
+ * Error al ejecutar un programa MiniJava (división entre cero, índice fuera de
+ * rango, referencia null...). Lo lanzan tanto el intérprete de bytecode como el
+ * evaluador sobre el árbol.
+ */
+public class ErrorEjecucion extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ErrorEjecucion(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,499 @@
+package Util;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluador directo sobre el árbol sintáctico, sin compilar.
+ * Es la implementación ingenua de referencia: valores empaquetados, entornos en
+ * mapas y excepciones para return/break/continue. Sirve para comparar la salida y
+ * el rendimiento de InterpreteBytecode; soporta el mismo subconjunto de MiniJava.
+ */
+public class EvaluadorArbol {
+
+    /** Objeto de una clase MiniJava */
+    private static final class Instancia {
+        final String clase;
+        final Map<String, Object> campos = new HashMap<>();
+
+        Instancia(String clase) {
+            this.clase = clase;
+        }
+
+        @Override
+        public String toString() {
+            return clase + "@" + Integer.toHexString(hashCode());
+        }
+    }
+
+    /** Señales de control de flujo; no necesitan traza */
+    private static class Salto extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Salto() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Retorno extends Salto {
+        private static final long serialVersionUID = 1L;
+
+        final Object valor;
+
+        Retorno(Object valor) {
+            this.valor = valor;
+        }
+    }
+
+    private static final Salto BREAK = new Salto();
+    private static final Salto CONTINUE = new Salto();
+
+    private final Nodo programa;
+    private final JerarquiaClases jerarquia;
+    private PrintStream salida;
+
+    private Instancia actual;
+    private Deque<Map<String, Object>> entorno;
+
+    public EvaluadorArbol(Nodo programa, JerarquiaClases jerarquia) {
+        this.programa = programa;
+        this.jerarquia = jerarquia;
+    }
+
+    public void ejecutar(PrintStream salida) {
+        this.salida = salida;
+        Nodo principal = null;
+        for (Nodo clase : programa.getHijos()) {
+            for (Nodo miembro : clase.getHijos()) {
+                if (miembro.getTipo().equals("Main") && principal == null) principal = miembro;
+            }
+        }
+        if (principal == null) throw new ErrorEjecucion("El programa no tiene método main.");
+
+        try {
+            invocar(principal, null, new ArrayList<>(Arrays.asList((Object) null)));
+        } catch (StackOverflowError e) {
+            throw new ErrorEjecucion("Error de ejecución: desbordamiento de pila (recursión demasiado profunda).");
+        } finally {
+            salida.flush();
+        }
+    }
+
+    private Object invocar(Nodo metodo, Instancia receptor, List<Object> argumentos) {
+        Instancia anterior = actual;
+        Deque<Map<String, Object>> entornoAnterior = entorno;
+        actual = receptor;
+        entorno = new ArrayDeque<>();
+        entorno.push(new HashMap<>());
+
+        try {
+            int i = 0;
+            for (Nodo hijo : metodo.getHijos()) {
+                if (hijo.getTipo().equals("Parametro")) {
+                    entorno.peek().put(hijo.getValor(), convertir(argumentos.get(i++), hijo.getTipoDato()));
+                } else {
+                    for (Nodo s : hijo.getHijos()) sentencia(s);
+                }
+            }
+            return null;
+        } catch (Retorno r) {
+            return r.valor;
+        } finally {
+            actual = anterior;
+            entorno = entornoAnterior;
+        }
+    }
+
+    // ------------------ SENTENCIAS ------------------
+
+    private void sentencia(Nodo s) {
+        switch (s.getTipo()) {
+            case "Bloque":
+                entorno.push(new HashMap<>());
+                try {
+                    for (Nodo hijo : s.getHijos()) sentencia(hijo);
+                } finally {
+                    entorno.pop();
+                }
+                break;
+            case "Variable":
+                entorno.peek().put(s.getValor(), s.getCantidadHijos() > 0
+                    ? convertir(evaluar(s.getHijo(0)), s.getTipoDato())
+                    : valorPorDefecto(s.getTipoDato()));
+                break;
+            case "If":
+                if (esVerdadero(evaluar(s.getHijo(0)))) sentencia(s.getHijo(1));
+                else if (s.getCantidadHijos() > 2) sentencia(s.getHijo(2));
+                break;
+            case "While":
+                while (esVerdadero(evaluar(s.getHijo(0)))) {
+                    if (cuerpoCiclo(s.getHijo(1))) break;
+                }
+                break;
+            case "DoWhile":
+                do {
+                    if (cuerpoCiclo(s.getHijo(0))) break;
+                } while (esVerdadero(evaluar(s.getHijo(1))));
+                break;
+            case "For":
+                entorno.push(new HashMap<>());
+                try {
+                    for (Nodo inicial : s.getHijo(0).getHijos()) sentencia(inicial);
+                    while (s.getHijo(1).getTipo().equals("Vacio") || esVerdadero(evaluar(s.getHijo(1)))) {
+                        if (cuerpoCiclo(s.getHijo(3))) break;
+                        if (!s.getHijo(2).getTipo().equals("Vacio")) sentencia(s.getHijo(2));
+                    }
+                } finally {
+                    entorno.pop();
+                }
+                break;
+            case "Switch":
+                sentenciaSwitch(s);
+                break;
+            case "Imprimir":
+                if (s.getCantidadHijos() == 0) {
+                    if (s.getValor().equals("println")) salida.println();
+                } else {
+                    String texto = String.valueOf(evaluar(s.getHijo(0)));
+                    if (s.getValor().equals("println")) salida.println(texto);
+                    else salida.print(texto);
+                }
+                break;
+            case "Return":
+                throw new Retorno(s.getCantidadHijos() > 0 ? evaluar(s.getHijo(0)) : null);
+            case "Break":
+                throw BREAK;
+            case "Continue":
+                throw CONTINUE;
+            case "Asignacion":
+                asignar(s.getHijo(0), s.getValor(), s.getHijo(1));
+                break;
+            case "ExpresionSentencia":
+                evaluar(s.getHijo(0));
+                break;
+            default:
+                throw new ErrorEjecucion("Sentencia no soportada: " + s.getTipo() + ".");
+        }
+    }
+
+    /** Ejecuta el cuerpo de un ciclo; devuelve true si terminó con break */
+    private boolean cuerpoCiclo(Nodo cuerpo) {
+        try {
+            sentencia(cuerpo);
+        } catch (Salto salto) {
+            if (salto == BREAK) return true;
+            if (salto != CONTINUE) throw salto;
+        }
+        return false;
+    }
+
+    private void sentenciaSwitch(Nodo s) {
+        int selector = entero(evaluar(s.getHijo(0)));
+        int inicio = -1;
+        for (int i = 1; i < s.getCantidadHijos() && inicio < 0; i++) {
+            Nodo caso = s.getHijo(i);
+            if (caso.getValor().equals("case") && entero(evaluar(caso.getHijo(0))) == selector) inicio = i;
+        }
+        for (int i = 1; i < s.getCantidadHijos() && inicio < 0; i++) {
+            if (s.getHijo(i).getValor().equals("default")) inicio = i;
+        }
+        if (inicio < 0) return;
+
+        try {
+            for (int i = inicio; i < s.getCantidadHijos(); i++) {
+                Nodo caso = s.getHijo(i);
+                entorno.push(new HashMap<>());
+                try {
+                    for (int j = caso.getValor().equals("case") ? 1 : 0; j < caso.getCantidadHijos(); j++) {
+                        sentencia(caso.getHijo(j));
+                    }
+                } finally {
+                    entorno.pop();
+                }
+            }
+        } catch (Salto salto) {
+            if (salto != BREAK) throw salto;
+        }
+    }
+
+    private void asignar(Nodo destino, String op, Nodo valorNodo) {
+        Object valor = evaluar(valorNodo);
+        String tipo = destino.getTipoDato();
+
+        switch (destino.getTipo()) {
+            case "Identificador": {
+                Map<String, Object> ambito = ambitoDe(destino.getValor());
+                Map<String, Object> campos = ambito != null ? ambito : actual.campos;
+                if (!op.equals("=")) valor = operar(op.substring(0, op.length() - 1), campos.get(destino.getValor()), valor, tipo);
+                campos.put(destino.getValor(), convertir(valor, tipo));
+                break;
+            }
+            case "Acceso": {
+                Instancia objeto = (Instancia) evaluar(destino.getHijo(0));
+                if (objeto == null) throw new ErrorEjecucion("Error de ejecución: uso de una referencia null.");
+                if (!op.equals("=")) valor = operar(op.substring(0, op.length() - 1), objeto.campos.get(destino.getValor()), valor, tipo);
+                objeto.campos.put(destino.getValor(), convertir(valor, tipo));
+                break;
+            }
+            case "Indice": {
+                Object[] arreglo = arreglo(evaluar(destino.getHijo(0)));
+                int indice = indice(arreglo, evaluar(destino.getHijo(1)));
+                if (!op.equals("=")) valor = operar(op.substring(0, op.length() - 1), arreglo[indice], valor, tipo);
+                arreglo[indice] = convertir(valor, tipo);
+                break;
+            }
+            default:
+                throw new ErrorEjecucion("Destino de asignación no soportado.");
+        }
+    }
+
+    // ------------------ EXPRESIONES ------------------
+
+    private Object evaluar(Nodo e) {
+        switch (e.getTipo()) {
+            case "Literal":
+                return literal(e);
+            case "Identificador": {
+                Map<String, Object> ambito = ambitoDe(e.getValor());
+                return ambito != null ? ambito.get(e.getValor()) : actual.campos.get(e.getValor());
+            }
+            case "This":
+                return actual;
+            case "Binaria":
+                return binaria(e);
+            case "Unaria":
+                return unaria(e);
+            case "Postfija": {
+                Object anterior = evaluar(e.getHijo(0));
+                Nodo uno = new Nodo("Literal", "1", e.getToken());
+                uno.setTipoDato("int");
+                asignar(e.getHijo(0), e.getValor().equals("++") ? "+=" : "-=", uno);
+                return anterior;
+            }
+            case "Indice": {
+                Object[] arreglo = arreglo(evaluar(e.getHijo(0)));
+                return arreglo[indice(arreglo, evaluar(e.getHijo(1)))];
+            }
+            case "Longitud":
+                return arreglo(evaluar(e.getHijo(0))).length;
+            case "Acceso": {
+                Instancia objeto = (Instancia) evaluar(e.getHijo(0));
+                if (objeto == null) throw new ErrorEjecucion("Error de ejecución: uso de una referencia null.");
+                return objeto.campos.get(e.getValor());
+            }
+            case "Llamada":
+                return llamada(e);
+            case "NuevoObjeto":
+                return nuevoObjeto(e.getValor());
+            case "NuevoArreglo": {
+                int tamano = entero(evaluar(e.getHijo(0)));
+                if (tamano < 0) throw new ErrorEjecucion("Error de ejecución: tamaño de arreglo negativo (" + tamano + ").");
+                Object[] arreglo = new Object[tamano];
+                Arrays.fill(arreglo, valorPorDefecto(e.getValor()));
+                return arreglo;
+            }
+            default:
+                throw new ErrorEjecucion("Expresión no soportada: " + e.getTipo() + ".");
+        }
+    }
+
+    private Object literal(Nodo e) {
+        String lex = e.getValor();
+        switch (e.getTipoDato()) {
+            case "boolean": return lex.equals("true");
+            case "null": return null;
+            case "int": return literalEntero(e, false);
+            case "char": return CompiladorBytecode.desescapar(lex.substring(1, lex.length() - 1)).charAt(0);
+            case "String": return CompiladorBytecode.desescapar(lex.substring(1, lex.length() - 1)).intern();
+            default: throw new ErrorEjecucion("Literal no soportado: " + lex + ".");
+        }
+    }
+
+    private int literalEntero(Nodo e, boolean negado) {
+        Integer valor = CompiladorBytecode.valorEntero(e.getValor(), negado);
+        if (valor == null) {
+            throw new ErrorEjecucion(String.format("Error de ejecución en línea %d, columna %d: El literal '%s' excede el rango de int.",
+                e.getLinea(), e.getColumna(), (negado ? "-" : "") + e.getValor()));
+        }
+        return valor;
+    }
+
+    private Object binaria(Nodo e) {
+        String op = e.getValor();
+        if (op.equals("&&")) return esVerdadero(evaluar(e.getHijo(0))) && esVerdadero(evaluar(e.getHijo(1)));
+        if (op.equals("||")) return esVerdadero(evaluar(e.getHijo(0))) || esVerdadero(evaluar(e.getHijo(1)));
+        if (op.equals("instanceof")) return esInstancia(evaluar(e.getHijo(0)), e.getHijo(1).getValor());
+        return operar(op, evaluar(e.getHijo(0)), evaluar(e.getHijo(1)), e.getTipoDato());
+    }
+
+    private Object operar(String op, Object izq, Object der, String tipo) {
+        if (op.equals("+") && "String".equals(tipo)) return String.valueOf(izq) + String.valueOf(der);
+
+        if (op.equals("==") || op.equals("!=")) {
+            boolean iguales = esNumero(izq) && esNumero(der) ? entero(izq) == entero(der)
+                : izq instanceof Boolean ? izq.equals(der) : izq == der;
+            return op.equals("==") == iguales;
+        }
+        if (izq instanceof Boolean) {
+            boolean a = (Boolean) izq, b = (Boolean) der;
+            switch (op) {
+                case "&": return a & b;
+                case "|": return a | b;
+                case "^": return a ^ b;
+                default: break;
+            }
+        }
+
+        int a = entero(izq), b = entero(der);
+        switch (op) {
+            case "+": return a + b;
+            case "-": return a - b;
+            case "*": return a * b;
+            case "/":
+            case "%":
+                if (b == 0) throw new ErrorEjecucion("Error de ejecución: división entre cero.");
+                return op.equals("/") ? a / b : a % b;
+            case "&": return a & b;
+            case "|": return a | b;
+            case "^": return a ^ b;
+            case "<<": return a << b;
+            case ">>": return a >> b;
+            case ">>>": return a >>> b;
+            case "<": return a < b;
+            case "<=": return a <= b;
+            case ">": return a > b;
+            case ">=": return a >= b;
+            default: throw new ErrorEjecucion("Operador no soportado: " + op + ".");
+        }
+    }
+
+    /** null no es instancia de nada; un objeto lo es de su clase real y de sus ancestros e interfaces */
+    private boolean esInstancia(Object valor, String clase) {
+        if (valor instanceof Instancia) return jerarquia.esSubtipo(((Instancia) valor).clase, clase);
+        return valor instanceof String && clase.equals("String");
+    }
+
+    private Object unaria(Nodo e) {
+        switch (e.getValor()) {
+            case "!": return !esVerdadero(evaluar(e.getHijo(0)));
+            case "-":
+                // -2147483648 solo está en rango con el signo: se pliega antes de verificarlo
+                if (e.getHijo(0).getTipo().equals("Literal") && "int".equals(e.getHijo(0).getTipoDato())) {
+                    return literalEntero(e.getHijo(0), true);
+                }
+                return -entero(evaluar(e.getHijo(0)));
+            case "~": return ~entero(evaluar(e.getHijo(0)));
+            case "+": return entero(evaluar(e.getHijo(0)));
+            default: {
+                Nodo uno = new Nodo("Literal", "1", e.getToken());
+                uno.setTipoDato("int");
+                asignar(e.getHijo(0), e.getValor().equals("++") ? "+=" : "-=", uno);
+                return evaluar(e.getHijo(0));
+            }
+        }
+    }
+
+    private Object llamada(Nodo e) {
+        Instancia receptor = e.getHijo(0).getTipo().equals("Vacio") ? actual : (Instancia) evaluar(e.getHijo(0));
+        if (receptor == null) throw new ErrorEjecucion("Error de ejecución: uso de una referencia null.");
+
+        List<Object> argumentos = new ArrayList<>();
+        for (int i = 1; i < e.getCantidadHijos(); i++) argumentos.add(evaluar(e.getHijo(i)));
+
+        // Despacho virtual: se busca el método en la clase real del objeto
+        Nodo metodo = jerarquia.buscarMetodo(receptor.clase, e.getValor());
+        if (metodo == null) throw new ErrorEjecucion("Método no encontrado: " + e.getValor() + ".");
+        return invocar(metodo, receptor, argumentos);
+    }
+
+    private Instancia nuevoObjeto(String clase) {
+        Instancia objeto = new Instancia(clase);
+        List<String> cadena = new ArrayList<>();
+        for (String c = clase; c != null && jerarquia.existeClase(c); c = jerarquia.getPadre(c)) cadena.add(0, c);
+
+        Instancia anterior = actual;
+        Deque<Map<String, Object>> entornoAnterior = entorno;
+        actual = objeto;
+        entorno = new ArrayDeque<>();
+        try {
+            for (String c : cadena) {
+                for (Nodo miembro : jerarquia.getClase(c).getHijos()) {
+                    if (!miembro.getTipo().equals("Variable")) continue;
+                    objeto.campos.put(miembro.getValor(), miembro.getCantidadHijos() > 0
+                        ? convertir(evaluar(miembro.getHijo(0)), miembro.getTipoDato())
+                        : valorPorDefecto(miembro.getTipoDato()));
+                }
+            }
+        } finally {
+            actual = anterior;
+            entorno = entornoAnterior;
+        }
+        return objeto;
+    }
+
+    // ------------------ VALORES ------------------
+
+    private Map<String, Object> ambitoDe(String nombre) {
+        for (Map<String, Object> ambito : entorno) {
+            if (ambito.containsKey(nombre)) return ambito;
+        }
+        return null;
+    }
+
+    private static boolean esVerdadero(Object valor) {
+        return (Boolean) valor;
+    }
+
+    private static boolean esNumero(Object valor) {
+        return valor instanceof Integer || valor instanceof Character;
+    }
+
+    private static int entero(Object valor) {
+        return valor instanceof Character ? (Character) valor : (Integer) valor;
+    }
+
+    private static Object[] arreglo(Object valor) {
+        if (valor == null) throw new ErrorEjecucion("Error de ejecución: uso de una referencia null.");
+        return (Object[]) valor;
+    }
+
+    private static int indice(Object[] arreglo, Object valor) {
+        int indice = entero(valor);
+        if (indice < 0 || indice >= arreglo.length) {
+            throw new ErrorEjecucion("Error de ejecución: índice fuera de rango (Index " + indice +
+                " out of bounds for length " + arreglo.length + ").");
+        }
+        return indice;
+    }
+
+    /** Ajusta el valor al tipo declarado del destino (char e int comparten aritmética) */
+    private static Object convertir(Object valor, String tipo) {
+        if (tipo == null) return valor;
+        switch (tipo) {
+            case "char": return valor instanceof Integer ? (char) (int) (Integer) valor : valor;
+            case "int": return valor instanceof Character ? (int) (Character) valor : valor;
+            default: return valor;
+        }
+    }
+
+    private static Object valorPorDefecto(String tipo) {
+        switch (tipo) {
+            case "int":
+            case "byte":
+            case "short":
+                return 0;
+            case "boolean":
+                return false;
+            case "char":
+                return '\0';
+            default:
+                return null;
+        }
+    }
+}
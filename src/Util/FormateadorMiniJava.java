@@ -0,0 +1,501 @@
+package Util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Formateador de código MiniJava: vuelve a escribir el archivo con sangría de
+ * cuatro espacios por bloque, una sentencia por línea y espacios normalizados
+ * entre tokens. Trabaja solo sobre el flujo de tokens de AnalizadorLexico, sin
+ * correr el sintáctico: la sangría sale de contar llaves y paréntesis, y la
+ * clase de cada bloque (clase, método o sentencia, cuerpo de switch o de
+ * do-while, inicializador de arreglo) se deduce de los tokens que rodean a la
+ * llave que lo abre.
+ *
+ * El archivo se lee línea por línea y cada línea formateada se compara con el
+ * original mientras se produce: si todas coinciden no se escribe nada (el caso
+ * de un archivo que ya está en formato canónico cuesta una lectura). En la
+ * primera diferencia se abre un temporal al lado del archivo, se copia lo que ya
+ * coincidía y desde ahí se escribe; al final el temporal reemplaza al original.
+ * En ningún momento se arma el archivo completo en memoria. Al solo verificar
+ * también se lee el archivo entero aunque ya haya una diferencia, porque un
+ * problema que impide formatearlo puede aparecer recién al final.
+ *
+ * Los comentarios // se conservan: el léxico los descarta, pero como ningún
+ * token cruza de línea lo que sigue al último token de la línea es el comentario.
+ * Un archivo con errores léxicos o llaves o paréntesis desbalanceados no se
+ * modifica y se informa como error, también al verificar.
+ */
+public class FormateadorMiniJava {
+
+    private static final String SANGRIA = "    ";
+
+    // Bloques abiertos
+    private static final int BLOQUE = 0;
+    private static final int SWITCH = 1;
+    private static final int DO = 2;
+    private static final int INICIALIZADOR = 3;
+    private static final int CASO = 4;          // "case 1: {": el bloque reemplaza la sangría del caso
+
+    private static final Set<String> SIGUEN_A_LLAVE = Set.of("else", "catch", "finally");
+    private static final Set<String> LLAMABLES = Set.of("this", "super", "print", "println");
+    private static final Set<String> ANTES_DE_UNARIO = Set.of(
+        "(", "[", ",", ";", "{", "}", ":", "return", "case", "throw");
+
+    // Pares de caracteres que el léxico leería como un solo operador (o un comentario):
+    // dos tokens que los formen al juntarse se separan con un espacio
+    private static final Set<String> PARES = new HashSet<>(Arrays.asList(
+        "++", "--", "==", "!=", ">=", "<=", "&&", "||", "<<", ">>", "+=", "-=", "*=", "/=",
+        "%=", "&=", "|=", "^=", "->", "::", "//", "/*"));
+
+    /** Resultado de formatear un archivo */
+    public static final class Resultado {
+        private final Path archivo;
+        private final boolean cambiado;
+        private final String error;
+
+        Resultado(Path archivo, boolean cambiado, String error) {
+            this.archivo = archivo;
+            this.cambiado = cambiado;
+            this.error = error;
+        }
+
+        public Path getArchivo() { return archivo; }
+        /** true si el archivo no estaba en formato canónico (y, salvo al verificar, se reescribió) */
+        public boolean isCambiado() { return cambiado; }
+        /** Motivo por el que no se pudo formatear; null si no hubo problemas */
+        public String getError() { return error; }
+    }
+
+    private final AnalizadorLexico lexico = new AnalizadorLexico();
+    private final List<Token> tokensLinea = new ArrayList<>();
+    private final List<String> erroresLinea = new ArrayList<>();
+
+    // Estado del recorrido
+    private int[] bloques = new int[16];
+    private boolean[] enCaso = new boolean[16];
+    private int profundidad;
+    private int parentesis;
+    private Token anterior;
+    private boolean anteriorUnario;
+    private int ultimoCerrado;
+    private boolean switchPendiente;
+    private boolean etiquetaPendiente;
+    private boolean saltoPendiente;
+    private boolean continuacion;
+    private int lineasVacias;
+    private boolean hayLineas;
+    private boolean ultimaAbreBloque;
+    private final StringBuilder linea = new StringBuilder();
+    private Destino destino;
+
+    public FormateadorMiniJava() {
+        lexico.setModoRapido(true);
+    }
+
+    /** Formatea los archivos en paralelo, uno por hilo; el resultado sigue el orden de la lista */
+    public static List<Resultado> formatear(List<Path> archivos, boolean soloVerificar) {
+        return archivos.parallelStream()
+            .map(archivo -> new FormateadorMiniJava().formatearArchivo(archivo, soloVerificar))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Formatea el archivo en su lugar. Con soloVerificar no escribe, pero recorre
+     * el archivo completo: uno que no se puede formatear devuelve el error y no
+     * se informa como "sin formato".
+     */
+    public Resultado formatearArchivo(Path archivo, boolean soloVerificar) {
+        reiniciar();
+        try (BufferedReader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+             Destino salida = new Destino(archivo, soloVerificar)) {
+            destino = salida;
+            String texto;
+            int numero = 1;
+            while ((texto = entrada.readLine()) != null) {
+                procesarLinea(texto, numero++);
+            }
+            terminar();
+            return new Resultado(archivo, salida.confirmar(), null);
+        } catch (IllegalArgumentException e) {
+            return new Resultado(archivo, false, e.getMessage());
+        } catch (IOException e) {
+            return new Resultado(archivo, false, "Error de entrada/salida: " + e.getMessage());
+        } finally {
+            destino = null;
+        }
+    }
+
+    private void reiniciar() {
+        profundidad = 0;
+        parentesis = 0;
+        anterior = null;
+        anteriorUnario = false;
+        ultimoCerrado = BLOQUE;
+        switchPendiente = false;
+        etiquetaPendiente = false;
+        saltoPendiente = false;
+        continuacion = false;
+        lineasVacias = 0;
+        hayLineas = false;
+        ultimaAbreBloque = false;
+        linea.setLength(0);
+    }
+
+    // ------------------ LÍNEAS ------------------
+
+    private void procesarLinea(String texto, int numero) throws IOException {
+        tokensLinea.clear();
+        erroresLinea.clear();
+        lexico.analizarLinea(texto, numero, tokensLinea, erroresLinea);
+        if (!erroresLinea.isEmpty()) throw new IllegalArgumentException(erroresLinea.get(0));
+        for (int i = 1; i < tokensLinea.size(); i++) {
+            Token a = tokensLinea.get(i - 1), b = tokensLinea.get(i);
+            // El léxico no conoce /* */: lo lee como operadores y separarlos rompería el comentario
+            if (a.getLexema().equals("/") && b.getLexema().equals("*") && b.getColumna() == a.getColumna() + 1) {
+                throw new IllegalArgumentException("Comentario de bloque en línea " + numero + ": solo se admiten comentarios //.");
+            }
+        }
+
+        String comentario = comentario(texto);
+        if (tokensLinea.isEmpty() && comentario == null) {
+            lineasVacias++;
+            return;
+        }
+        for (Token token : tokensLinea) token(token);
+        if (comentario != null) comentario(comentario, tokensLinea.isEmpty());
+    }
+
+    /** Comentario // que sigue al último token de la línea, sin espacios al final; null si no hay */
+    private String comentario(String texto) {
+        int desde = 0;
+        if (!tokensLinea.isEmpty()) {
+            Token ultimo = tokensLinea.get(tokensLinea.size() - 1);
+            desde = ultimo.getColumna() - 1 + ultimo.getLexema().length();
+        }
+        int inicio = texto.indexOf("//", desde);
+        if (inicio < 0) return null;
+        return texto.substring(inicio).stripTrailing();
+    }
+
+    private void comentario(String comentario, boolean propio) throws IOException {
+        if (propio) {
+            // En medio de una sentencia el comentario corta la línea y la sentencia sigue después
+            boolean enSentencia = !saltoPendiente && linea.length() > 0;
+            terminarLinea();
+            continuacion = enSentencia;
+            empezarLinea(null);
+            linea.append(comentario);
+            lineasVacias = 0;
+        } else {
+            linea.append(' ').append(comentario);
+            if (!saltoPendiente) {
+                // El token siguiente no debe quedar dentro del comentario
+                terminarLinea();
+                continuacion = true;
+                return;
+            }
+        }
+        boolean seguia = continuacion;
+        terminarLinea();
+        continuacion = seguia;
+    }
+
+    private void terminar() throws IOException {
+        terminarLinea();
+        if (profundidad > 0) throw new IllegalArgumentException("Quedan " + profundidad + " bloques sin cerrar al final del archivo.");
+        if (parentesis != 0) throw new IllegalArgumentException("Paréntesis desbalanceados en el archivo.");
+    }
+
+    private void terminarLinea() throws IOException {
+        saltoPendiente = false;
+        continuacion = false;
+        if (linea.length() == 0) return;
+        ultimaAbreBloque = linea.charAt(linea.length() - 1) == '{';
+        destino.linea(linea);
+        linea.setLength(0);
+        hayLineas = true;
+    }
+
+    /** Sangría de la línea que empieza con el token (null para un comentario) */
+    private void empezarLinea(Token token) throws IOException {
+        if (lineasVacias > 0 && hayLineas && !ultimaAbreBloque && !continuacion &&
+            (token == null || !token.getLexema().equals("}"))) {
+            destino.linea("");
+            ultimaAbreBloque = false;
+        }
+        int nivel = 0;
+        for (int i = 0; i < profundidad; i++) {
+            if (bloques[i] == INICIALIZADOR) continue;
+            nivel++;
+            if (bloques[i] == SWITCH && enCaso[i]) nivel++;
+        }
+        if (continuacion) nivel += 2;
+        for (int i = 0; i < nivel; i++) linea.append(SANGRIA);
+    }
+
+    // ------------------ TOKENS ------------------
+
+    private void token(Token t) throws IOException {
+        String lexema = t.getLexema();
+        int actual = profundidad > 0 ? bloques[profundidad - 1] : BLOQUE;
+
+        // Cierre de bloque: sale del bloque antes de decidir la línea
+        if (lexema.equals("}")) {
+            if (profundidad == 0) {
+                throw new IllegalArgumentException("Llave de cierre sin bloque abierto en línea " + t.getLinea() + ".");
+            }
+            profundidad--;
+            ultimoCerrado = actual;
+            if (actual != INICIALIZADOR) terminarLinea();
+        } else if (saltoPendiente && !continuaEnLinea(lexema)) {
+            terminarLinea();
+        }
+        saltoPendiente = false;
+
+        if (profundidad > 0 && bloques[profundidad - 1] == SWITCH && parentesis == 0 &&
+            (lexema.equals("case") || lexema.equals("default")) && linea.length() == 0) {
+            enCaso[profundidad - 1] = false;
+            etiquetaPendiente = true;
+        }
+
+        boolean unario = esUnario(t);
+        if (linea.length() == 0) empezarLinea(t);
+        else if (espacio(t, actual, unario)) linea.append(' ');
+        linea.append(lexema);
+        lineasVacias = 0;
+
+        switch (lexema) {
+            case "(":
+                parentesis++;
+                break;
+            case ")":
+                parentesis--;
+                break;
+            case "switch":
+                switchPendiente = true;
+                break;
+            case "{":
+                abrirBloque();
+                break;
+            case "}":
+                if (ultimoCerrado != INICIALIZADOR) saltoPendiente = true;
+                if (ultimoCerrado == CASO) enCaso[profundidad - 1] = true;
+                break;
+            case ";":
+                if (parentesis == 0 && actual != INICIALIZADOR) saltoPendiente = true;
+                break;
+            case ":":
+                if (parentesis == 0 && etiquetaPendiente) {
+                    etiquetaPendiente = false;
+                    if (profundidad > 0 && bloques[profundidad - 1] == SWITCH) enCaso[profundidad - 1] = true;
+                    saltoPendiente = true;
+                }
+                break;
+            default:
+                break;
+        }
+        anterior = t;
+        anteriorUnario = unario;
+    }
+
+    /** Token que sigue en la misma línea aunque haya un salto pendiente */
+    private boolean continuaEnLinea(String lexema) {
+        if (anterior == null) return false;
+        String previo = anterior.getLexema();
+        if (previo.equals("}")) {
+            if (SIGUEN_A_LLAVE.contains(lexema)) return true;
+            if (lexema.equals("while") && ultimoCerrado == DO) return true;
+            return lexema.equals(";") || lexema.equals(")") || lexema.equals(",");
+        }
+        // "case 1: {" y "default: {"
+        return previo.equals(":") && lexema.equals("{");
+    }
+
+    private void abrirBloque() {
+        int tipo;
+        String previo = anterior != null ? anterior.getLexema() : "";
+        boolean enInicializador = profundidad > 0 && bloques[profundidad - 1] == INICIALIZADOR;
+        if (previo.equals("=") || previo.equals("]") || (enInicializador && (previo.equals("{") || previo.equals(",")))) {
+            tipo = INICIALIZADOR;
+        } else if (previo.equals("do")) {
+            tipo = DO;
+        } else if (switchPendiente && parentesis == 0) {
+            tipo = SWITCH;
+        } else if (previo.equals(":") && profundidad > 0 && bloques[profundidad - 1] == SWITCH && enCaso[profundidad - 1]) {
+            tipo = CASO;
+            enCaso[profundidad - 1] = false;
+        } else {
+            tipo = BLOQUE;
+        }
+        if (tipo != INICIALIZADOR) switchPendiente = false;
+
+        if (profundidad == bloques.length) {
+            bloques = Arrays.copyOf(bloques, profundidad * 2);
+            enCaso = Arrays.copyOf(enCaso, profundidad * 2);
+        }
+        bloques[profundidad] = tipo;
+        enCaso[profundidad] = false;
+        profundidad++;
+        if (tipo != INICIALIZADOR) saltoPendiente = true;
+    }
+
+    /** Operador prefijo: no lleva espacio después */
+    private boolean esUnario(Token t) {
+        String lexema = t.getLexema();
+        if (lexema.equals("!") || lexema.equals("~") || lexema.equals("@")) return true;
+        boolean despuesDeOperando = anterior != null && (anterior.getTipo().equals("Identificador") ||
+            anterior.getTipo().equals("Entero") || anterior.getTipo().equals("Decimal") ||
+            anterior.getTipo().equals("Cadena") || anterior.getTipo().equals("Carácter") ||
+            anterior.getLexema().equals(")") || anterior.getLexema().equals("]") ||
+            anterior.getLexema().equals("this") || anterior.getLexema().equals("true") ||
+            anterior.getLexema().equals("false") || anterior.getLexema().equals("null"));
+        if (lexema.equals("++") || lexema.equals("--")) return !despuesDeOperando;
+        if (lexema.equals("+") || lexema.equals("-")) {
+            if (anterior == null) return true;
+            if (anterior.getTipo().equals("Operador")) {
+                String previo = anterior.getLexema();
+                // Tras un ++/-- sufijo el signo es binario
+                return !((previo.equals("++") || previo.equals("--")) && !anteriorUnario);
+            }
+            return ANTES_DE_UNARIO.contains(anterior.getLexema());
+        }
+        return false;
+    }
+
+    private boolean espacio(Token t, int bloque, boolean unario) {
+        String previo = anterior.getLexema();
+        String lexema = t.getLexema();
+
+        // Nunca juntar dos tokens que el léxico leería como uno solo
+        if (PARES.contains("" + previo.charAt(previo.length() - 1) + lexema.charAt(0))) return true;
+        if (esPalabra(previo) && esPalabra(lexema)) return true;
+
+        switch (lexema) {
+            case ";": case ",": case ")": case "]": case ".": case "::": case "[":
+                return false;
+            case ":":
+                return !etiquetaPendiente;
+            case "(":
+                return !(anterior.getTipo().equals("Identificador") || LLAMABLES.contains(previo)) &&
+                    !previo.equals("(") && !previo.equals("[") && !previo.equals(".") && !anteriorUnario;
+            case "}":
+                return bloque != INICIALIZADOR;
+            case "++": case "--":
+                if (!unario) return false;      // sufijo
+                break;
+            default:
+                break;
+        }
+        switch (previo) {
+            case "(": case "[": case ".": case "::":
+                return false;
+            case "{":
+                return profundidad == 0 || bloques[profundidad - 1] != INICIALIZADOR;
+            default:
+                return !anteriorUnario;
+        }
+    }
+
+    private static boolean esPalabra(String lexema) {
+        char c = lexema.charAt(lexema.length() - 1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '"' || c == '\'';
+    }
+
+    // ------------------ DESTINO ------------------
+
+    /**
+     * Compara cada línea producida con el archivo original y solo empieza a escribir
+     * (en un temporal del mismo directorio) desde la primera diferencia.
+     */
+    private static final class Destino implements Closeable {
+        private final Path archivo;
+        private final boolean soloVerificar;
+        private final Reader original;
+        private long coincidentes;
+        private boolean distinto;
+        private Path temporal;
+        private Writer escritor;
+
+        Destino(Path archivo, boolean soloVerificar) throws IOException {
+            this.archivo = archivo;
+            this.soloVerificar = soloVerificar;
+            this.original = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+        }
+
+        void linea(CharSequence texto) throws IOException {
+            if (escritor != null) {
+                escritor.append(texto).append('\n');
+                return;
+            }
+            if (distinto) return;
+            for (int i = 0; i <= texto.length(); i++) {
+                char c = i < texto.length() ? texto.charAt(i) : '\n';
+                if (original.read() != c) {
+                    divergir();
+                    if (escritor != null) escritor.append(texto, i, texto.length()).append('\n');
+                    return;
+                }
+                coincidentes++;
+            }
+        }
+
+        private void divergir() throws IOException {
+            distinto = true;
+            if (soloVerificar) return;
+            Path directorio = archivo.toAbsolutePath().getParent();
+            temporal = Files.createTempFile(directorio, "." + archivo.getFileName(), ".formato");
+            try {
+                Files.setPosixFilePermissions(temporal, Files.getPosixFilePermissions(archivo));
+            } catch (UnsupportedOperationException e) {
+                // Sistema de archivos sin permisos POSIX: el temporal queda con los de por defecto
+            }
+            escritor = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8);
+            // Lo que ya coincidía se copia del original
+            try (Reader copia = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                char[] bufer = new char[8192];
+                long pendientes = coincidentes;
+                while (pendientes > 0) {
+                    int leidos = copia.read(bufer, 0, (int) Math.min(bufer.length, pendientes));
+                    if (leidos < 0) break;
+                    escritor.write(bufer, 0, leidos);
+                    pendientes -= leidos;
+                }
+            }
+        }
+
+        /** Reemplaza el original si hubo diferencias; devuelve si las hubo */
+        boolean confirmar() throws IOException {
+            // Un original más largo (líneas vacías al final) también difiere
+            if (!distinto && original.read() >= 0) divergir();
+            if (escritor != null) {
+                escritor.close();
+                escritor = null;
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                temporal = null;
+            }
+            return distinto;
+        }
+
+        /** Sin confirmar (por un error) el temporal se descarta y el original queda como estaba */
+        @Override
+        public void close() throws IOException {
+            original.close();
+            if (escritor != null) escritor.close();
+            if (temporal != null) Files.deleteIfExists(temporal);
+        }
+    }
+}
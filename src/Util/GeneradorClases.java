@@ -0,0 +1,1280 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generador de archivos class de la JVM a partir del árbol anotado por
+ * AnalizadorSemantico. Cada clase MiniJava se convierte en una clase JVM con el
+ * mismo nombre, sus atributos y métodos públicos; main queda como método
+ * estático. El resultado se carga con CargadorClases y corre con el JIT de la
+ * propia JVM.
+ *
+ * Admite el mismo subconjunto que CompiladorBytecode y además arreglos
+ * multidimensionales, instanceof e incrementos sobre atributos y elementos de
+ * arreglos.
+ */
+public class GeneradorClases {
+
+    // Códigos de operación de la JVM que usa el generador
+    private static final int ACONST_NULL = 0x01, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11;
+    private static final int LDC = 0x12, LDC_W = 0x13;
+    private static final int ILOAD = 0x15, ALOAD = 0x19, ISTORE = 0x36, ASTORE = 0x3a;
+    private static final int IALOAD = 0x2e, AALOAD = 0x32, BALOAD = 0x33, CALOAD = 0x34, SALOAD = 0x35;
+    private static final int IASTORE = 0x4f, AASTORE = 0x53, BASTORE = 0x54, CASTORE = 0x55, SASTORE = 0x56;
+    private static final int POP = 0x57, DUP = 0x59, DUP_X1 = 0x5a, DUP_X2 = 0x5b, DUP2 = 0x5c;
+    private static final int IADD = 0x60, ISUB = 0x64, IMUL = 0x68, IDIV = 0x6c, IREM = 0x70, INEG = 0x74;
+    private static final int ISHL = 0x78, ISHR = 0x7a, IUSHR = 0x7c, IAND = 0x7e, IOR = 0x80, IXOR = 0x82;
+    private static final int IINC = 0x84, I2B = 0x91, I2C = 0x92, I2S = 0x93;
+    private static final int IFEQ = 0x99, IFNE = 0x9a;
+    private static final int IF_ICMPEQ = 0x9f, IF_ICMPNE = 0xa0, IF_ICMPLT = 0xa1, IF_ICMPGE = 0xa2,
+                             IF_ICMPGT = 0xa3, IF_ICMPLE = 0xa4, IF_ACMPEQ = 0xa5, IF_ACMPNE = 0xa6;
+    private static final int GOTO = 0xa7, LOOKUPSWITCH = 0xab;
+    private static final int IRETURN = 0xac, ARETURN = 0xb0, RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2, GETFIELD = 0xb4, PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8;
+    private static final int NEW = 0xbb, NEWARRAY = 0xbc, ANEWARRAY = 0xbd, ARRAYLENGTH = 0xbe;
+    private static final int INSTANCEOF = 0xc1, WIDE = 0xc4, MULTIANEWARRAY = 0xc5, IFNULL = 0xc6, IFNONNULL = 0xc7;
+
+    private static final String OBJETO = "java/lang/Object";
+    private static final String CADENA = "java/lang/String";
+
+    /** Variable local: posición en el marco y tipo MiniJava */
+    private static class Local {
+        final int indice;
+        final String tipo;
+
+        Local(int indice, String tipo) {
+            this.indice = indice;
+            this.tipo = tipo;
+        }
+    }
+
+    /** Posición del código que puede usarse antes de conocerse */
+    private static class Etiqueta {
+        int posicion = -1;
+        final List<int[]> pendientes = new ArrayList<>();  // {instrucción, posición del desplazamiento, ancho}
+    }
+
+    /** Ciclo o switch abierto: destinos de break y continue (null en un switch) */
+    private static class Ciclo {
+        final Etiqueta fin;
+        final Etiqueta continuar;
+
+        Ciclo(Etiqueta fin, Etiqueta continuar) {
+            this.fin = fin;
+            this.continuar = continuar;
+        }
+    }
+
+    private static final String DESBORDAMIENTO =
+        "desbordamiento de pila (expresiones o sentencias anidadas demasiado profundo para compilar).";
+
+    private List<String> errores;
+    private JerarquiaClases jerarquia;
+    private Map<String, byte[]> clases;
+    private String clasePrincipal;
+
+    // Estado de la clase y del método en generación
+    private ArchivoClase archivo;
+    private String claseActual;
+    private boolean contextoEstatico;
+    private byte[] codigo;
+    private int tamano;
+    private int pila, maxPila;
+    private int locales;
+    private Deque<Map<String, Local>> ambitos;
+    private Deque<Ciclo> ciclos;
+
+    public GeneradorClases() {
+        this.errores = new ArrayList<>();
+    }
+
+    /**
+     * Genera un archivo class por cada clase del programa, en orden de herencia.
+     * Devuelve null si hubo errores (ver getErrores).
+     */
+    public Map<String, byte[]> generar(Nodo arbol, JerarquiaClases jerarquia) {
+        this.errores.clear();
+        this.jerarquia = jerarquia;
+        this.clases = new LinkedHashMap<>();
+        this.clasePrincipal = null;
+
+        if (arbol == null) return null;
+
+        for (String nombre : jerarquia.getOrdenTopologico()) {
+            generarClase(nombre);
+        }
+
+        if (clasePrincipal == null) {
+            errores.add("Error de compilación: el programa no tiene método main.");
+        }
+        return errores.isEmpty() ? clases : null;
+    }
+
+    /** Clase que contiene el main del programa */
+    public String getClasePrincipal() {
+        return clasePrincipal;
+    }
+
+    // ------------------ CLASES Y MÉTODOS ------------------
+
+    private void generarClase(String nombre) {
+        Nodo nodoClase = jerarquia.getClase(nombre);
+        String padre = jerarquia.getPadre(nombre);
+        if (padre != null && !jerarquia.existeClase(padre)) {
+            registrarError(nodoClase, "La clase padre '" + padre + "' no está disponible para el compilador.");
+            return;
+        }
+
+        claseActual = nombre;
+        archivo = new ArchivoClase(nombre, padre != null ? padre : OBJETO);
+
+        for (Nodo miembro : nodoClase.getHijos()) {
+            if (miembro.getTipo().equals("Variable")) {
+                archivo.agregarCampo(ArchivoClase.ACC_PUBLIC, miembro.getValor(), descriptor(miembro.getTipoDato(), miembro));
+            }
+        }
+
+        // La generación recorre el árbol recursivamente: un anidamiento que agota la
+        // pila se reporta como error del método en vez de cortar el programa
+        try {
+            generarConstructor(nodoClase, padre != null ? padre : OBJETO);
+        } catch (StackOverflowError e) {
+            registrarError(nodoClase, DESBORDAMIENTO);
+        }
+
+        for (Nodo miembro : nodoClase.getHijos()) {
+            switch (miembro.getTipo()) {
+                case "Metodo":
+                case "Main": {
+                    boolean esMain = miembro.getTipo().equals("Main");
+                    if (esMain && clasePrincipal == null) clasePrincipal = nombre;
+                    try {
+                        generarMetodo(miembro, esMain);
+                    } catch (StackOverflowError e) {
+                        registrarError(miembro, DESBORDAMIENTO);
+                    }
+                    break;
+                }
+                case "Estatico":
+                    registrarError(miembro, "Los bloques static no están soportados.");
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        clases.put(nombre, archivo.generar());
+    }
+
+    /** Constructor sin argumentos: llama al del padre y asigna los valores iniciales de los atributos */
+    private void generarConstructor(Nodo nodoClase, String padre) {
+        iniciarMetodo(false);
+        emitir(ALOAD, 0, 1);
+        invocar(INVOKESPECIAL, padre, "<init>", "()V", -1);
+
+        for (Nodo miembro : nodoClase.getHijos()) {
+            if (!miembro.getTipo().equals("Variable") || miembro.getCantidadHijos() == 0) continue;
+            emitir(ALOAD, 0, 1);
+            expresion(miembro.getHijo(0));
+            campo(PUTFIELD, claseActual, miembro.getValor(), miembro.getTipoDato(), miembro);
+        }
+        emitir(RETURN, 0);
+
+        archivo.agregarMetodo(ArchivoClase.ACC_PUBLIC, "<init>", "()V", terminarMetodo(), maxPila, locales);
+    }
+
+    private void generarMetodo(Nodo metodo, boolean esMain) {
+        iniciarMetodo(esMain);
+
+        for (Nodo hijo : metodo.getHijos()) {
+            if (hijo.getTipo().equals("Parametro")) {
+                declararLocal(hijo);
+            } else {
+                for (Nodo s : hijo.getHijos()) sentencia(s);
+            }
+        }
+
+        // Retorno por omisión si la ejecución llega al final del cuerpo
+        String retorno = metodo.getTipoDato();
+        if (retorno.equals("void")) {
+            emitir(RETURN, 0);
+        } else if (esReferencia(retorno)) {
+            emitir(ACONST_NULL, 1);
+            emitir(ARETURN, -1);
+        } else {
+            emitir(ICONST_0, 1);
+            emitir(IRETURN, -1);
+        }
+
+        int acceso = ArchivoClase.ACC_PUBLIC | (esMain ? ArchivoClase.ACC_STATIC : 0);
+        String descriptor = esMain ? "([Ljava/lang/String;)V" : descriptorMetodo(metodo);
+        archivo.agregarMetodo(acceso, metodo.getValor(), descriptor, terminarMetodo(), maxPila, locales);
+    }
+
+    private void iniciarMetodo(boolean estatico) {
+        contextoEstatico = estatico;
+        codigo = new byte[256];
+        tamano = 0;
+        pila = maxPila = 0;
+        locales = estatico ? 0 : 1;     // En métodos de instancia la posición 0 es this
+        ambitos = new ArrayDeque<>();
+        ciclos = new ArrayDeque<>();
+        ambitos.push(new HashMap<>());
+    }
+
+    private byte[] terminarMetodo() {
+        if (tamano > 0xFFFF) {
+            errores.add("Error de compilación: un método de la clase '" + claseActual + "' excede 64 KB de código.");
+        }
+        return Arrays.copyOf(codigo, tamano);
+    }
+
+    // ------------------ SENTENCIAS ------------------
+
+    private void sentencia(Nodo s) {
+        switch (s.getTipo()) {
+            case "Bloque":
+                ambitos.push(new HashMap<>());
+                for (Nodo hijo : s.getHijos()) sentencia(hijo);
+                ambitos.pop();
+                break;
+            case "Variable": {
+                Local local = declararLocal(s);
+                // Sin inicializador se asigna el valor por omisión: el verificador de la
+                // JVM exige que toda lectura tenga una escritura previa en cada camino
+                if (s.getCantidadHijos() > 0) {
+                    expresion(s.getHijo(0));
+                } else if (esReferencia(local.tipo)) {
+                    emitir(ACONST_NULL, 1);
+                } else {
+                    constanteEntera(0);
+                }
+                guardarLocal(local);
+                break;
+            }
+            case "If": {
+                Etiqueta sino = new Etiqueta();
+                saltarSiFalso(s.getHijo(0), sino);
+                sentencia(s.getHijo(1));
+                if (s.getCantidadHijos() > 2) {
+                    Etiqueta fin = new Etiqueta();
+                    saltar(GOTO, fin);
+                    marcar(sino);
+                    sentencia(s.getHijo(2));
+                    marcar(fin);
+                } else {
+                    marcar(sino);
+                }
+                break;
+            }
+            case "While": {
+                Etiqueta inicio = new Etiqueta();
+                Etiqueta fin = new Etiqueta();
+                marcar(inicio);
+                saltarSiFalso(s.getHijo(0), fin);
+                cuerpoCiclo(s.getHijo(1), fin, inicio);
+                saltar(GOTO, inicio);
+                marcar(fin);
+                break;
+            }
+            case "DoWhile": {
+                Etiqueta inicio = new Etiqueta();
+                Etiqueta condicion = new Etiqueta();
+                Etiqueta fin = new Etiqueta();
+                marcar(inicio);
+                cuerpoCiclo(s.getHijo(0), fin, condicion);
+                marcar(condicion);
+                saltarSiVerdadero(s.getHijo(1), inicio);
+                marcar(fin);
+                break;
+            }
+            case "For": {
+                ambitos.push(new HashMap<>());
+                for (Nodo inicial : s.getHijo(0).getHijos()) sentencia(inicial);
+                Etiqueta inicio = new Etiqueta();
+                Etiqueta actualizacion = new Etiqueta();
+                Etiqueta fin = new Etiqueta();
+                marcar(inicio);
+                if (!s.getHijo(1).getTipo().equals("Vacio")) saltarSiFalso(s.getHijo(1), fin);
+                cuerpoCiclo(s.getHijo(3), fin, actualizacion);
+                marcar(actualizacion);
+                if (!s.getHijo(2).getTipo().equals("Vacio")) sentencia(s.getHijo(2));
+                saltar(GOTO, inicio);
+                marcar(fin);
+                ambitos.pop();
+                break;
+            }
+            case "Switch":
+                sentenciaSwitch(s);
+                break;
+            case "Imprimir":
+                imprimir(s);
+                break;
+            case "Return":
+                if (s.getCantidadHijos() == 0) {
+                    emitir(RETURN, 0);
+                } else {
+                    expresion(s.getHijo(0));
+                    emitir(esReferencia(s.getHijo(0).getTipoDato()) ? ARETURN : IRETURN, -1);
+                }
+                break;
+            case "Break":
+            case "Continue":
+                saltoDeCiclo(s);
+                break;
+            case "Asignacion":
+                asignar(s.getHijo(0), s.getValor(), s.getHijo(1));
+                break;
+            case "ExpresionSentencia": {
+                Nodo e = s.getHijo(0);
+                if (e.getTipo().equals("Postfija") ||
+                    (e.getTipo().equals("Unaria") && (e.getValor().equals("++") || e.getValor().equals("--")))) {
+                    incremento(e.getHijo(0), e.getValor().equals("++") ? 1 : -1, false, false);
+                } else {
+                    expresion(e);
+                    if (!e.getTipoDato().equals("void")) emitir(POP, -1);
+                }
+                break;
+            }
+            case "Try":
+            case "Throw":
+                registrarError(s, "Las excepciones no están soportadas por el compilador.");
+                break;
+            default:
+                registrarError(s, "Sentencia no soportada: " + s.getTipo() + ".");
+                break;
+        }
+    }
+
+    private void cuerpoCiclo(Nodo cuerpo, Etiqueta fin, Etiqueta continuar) {
+        ciclos.push(new Ciclo(fin, continuar));
+        sentencia(cuerpo);
+        ciclos.pop();
+    }
+
+    private void saltoDeCiclo(Nodo s) {
+        boolean esBreak = s.getTipo().equals("Break");
+        for (Ciclo ciclo : ciclos) {
+            // continue atraviesa los switch hasta el ciclo que los contiene
+            if (!esBreak && ciclo.continuar == null) continue;
+            saltar(GOTO, esBreak ? ciclo.fin : ciclo.continuar);
+            return;
+        }
+        registrarError(s, "'" + s.getTipo().toLowerCase() + "' fuera de un ciclo.");
+    }
+
+    /** switch con lookupswitch: las etiquetas de los casos deben ser constantes */
+    private void sentenciaSwitch(Nodo s) {
+        Nodo selector = s.getHijo(0);
+        if (esReferencia(selector.getTipoDato())) {
+            registrarError(selector, "Solo se admite switch sobre valores enteros.");
+            return;
+        }
+
+        int casos = s.getCantidadHijos() - 1;
+        Etiqueta[] etiquetas = new Etiqueta[casos];
+        TreeMap<Integer, Etiqueta> tabla = new TreeMap<>();
+        Etiqueta fin = new Etiqueta();
+        Etiqueta porOmision = fin;
+
+        for (int i = 0; i < casos; i++) {
+            Nodo caso = s.getHijo(i + 1);
+            etiquetas[i] = new Etiqueta();
+            if (caso.getValor().equals("default")) {
+                porOmision = etiquetas[i];
+                continue;
+            }
+            Integer valor = constanteDeCaso(caso.getHijo(0));
+            if (valor == null) {
+                registrarError(caso.getHijo(0), "La etiqueta de un case debe ser una constante entera.");
+            } else if (tabla.put(valor, etiquetas[i]) != null) {
+                registrarError(caso.getHijo(0), "Etiqueta de case duplicada: " + valor + ".");
+            }
+        }
+
+        expresion(selector);
+        int instruccion = tamano;
+        emitir(LOOKUPSWITCH, -1);
+        while (tamano % 4 != 0) byte1(0);
+        desplazamiento32(instruccion, porOmision);
+        entero32(tabla.size());
+        for (Map.Entry<Integer, Etiqueta> entrada : tabla.entrySet()) {
+            entero32(entrada.getKey());
+            desplazamiento32(instruccion, entrada.getValue());
+        }
+
+        ciclos.push(new Ciclo(fin, null));
+        for (int i = 0; i < casos; i++) {
+            Nodo caso = s.getHijo(i + 1);
+            marcar(etiquetas[i]);
+            ambitos.push(new HashMap<>());
+            for (int j = caso.getValor().equals("case") ? 1 : 0; j < caso.getCantidadHijos(); j++) {
+                sentencia(caso.getHijo(j));
+            }
+            ambitos.pop();
+        }
+        ciclos.pop();
+        marcar(fin);
+    }
+
+    private Integer constanteDeCaso(Nodo e) {
+        if (e.getTipo().equals("Literal")) {
+            if (e.getTipoDato().equals("int")) return literalEntero(e);
+            if (e.getTipoDato().equals("char")) return (int) caracter(e);
+        }
+        if (e.getTipo().equals("Unaria") && e.getValor().equals("-")) {
+            if (esLiteralEntero(e.getHijo(0))) return literalEntero(e.getHijo(0), true);
+            Integer valor = constanteDeCaso(e.getHijo(0));
+            return valor != null ? -valor : null;
+        }
+        return null;
+    }
+
+    private void imprimir(Nodo s) {
+        String metodo = s.getValor();
+        if (s.getCantidadHijos() == 0) {
+            if (!metodo.equals("println")) return;
+            campoEstatico("java/lang/System", "out", "Ljava/io/PrintStream;");
+            invocar(INVOKEVIRTUAL, "java/io/PrintStream", "println", "()V", -1);
+            return;
+        }
+
+        Nodo valor = s.getHijo(0);
+        campoEstatico("java/lang/System", "out", "Ljava/io/PrintStream;");
+        expresion(valor);
+        invocar(INVOKEVIRTUAL, "java/io/PrintStream", metodo, "(" + descriptorImpresion(valor.getTipoDato()) + ")V", -2);
+    }
+
+    // ------------------ ASIGNACIONES ------------------
+
+    /** Asignación simple o compuesta (op: "=", "+=", "<<="...) sobre cualquier destino */
+    private void asignar(Nodo destino, String op, Nodo valor) {
+        String tipo = destino.getTipoDato();
+        boolean compuesta = !op.equals("=");
+
+        switch (destino.getTipo()) {
+            case "Identificador": {
+                Local local = buscarLocal(destino.getValor());
+                if (local != null) {
+                    if (tipo.equals("int") && (op.equals("+=") || op.equals("-=")) && esLiteralEntero(valor)) {
+                        int k = literalEntero(valor) * (op.equals("+=") ? 1 : -1);
+                        if (k >= Short.MIN_VALUE && k <= Short.MAX_VALUE) {
+                            incrementarLocal(local, k);
+                            return;
+                        }
+                    }
+                    if (compuesta) cargarLocal(local);
+                    valorAsignado(tipo, op, valor);
+                    guardarLocal(local);
+                    return;
+                }
+                cargarThis(destino);
+                asignarCampo(claseActual, destino, tipo, compuesta, op, valor);
+                return;
+            }
+            case "Acceso": {
+                String clase = receptor(destino.getHijo(0));
+                if (clase == null) return;
+                asignarCampo(clase, destino, tipo, compuesta, op, valor);
+                return;
+            }
+            case "Indice":
+                expresion(destino.getHijo(0));
+                expresion(destino.getHijo(1));
+                if (compuesta) {
+                    emitir(DUP2, 2);
+                    emitir(cargaArreglo(tipo), -1);
+                }
+                valorAsignado(tipo, op, valor);
+                emitir(guardadoArreglo(tipo), -3);
+                return;
+            default:
+                registrarError(destino, "Destino de asignación no soportado.");
+        }
+    }
+
+    private void asignarCampo(String clase, Nodo destino, String tipo, boolean compuesta, String op, Nodo valor) {
+        if (compuesta) {
+            emitir(DUP, 1);
+            campo(GETFIELD, clase, destino.getValor(), tipo, destino);
+        }
+        valorAsignado(tipo, op, valor);
+        campo(PUTFIELD, clase, destino.getValor(), tipo, destino);
+    }
+
+    /** Deja en la pila el valor a guardar; en las compuestas el valor actual ya está en la pila */
+    private void valorAsignado(String tipo, String op, Nodo valor) {
+        if (op.equals("=")) {
+            expresion(valor);
+        } else if (op.equals("+=") && tipo.equals("String")) {
+            invocar(INVOKESTATIC, CADENA, "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;", 0);
+            expresion(valor);
+            invocar(INVOKESTATIC, CADENA, "valueOf", "(" + descriptorImpresion(valor.getTipoDato()) + ")Ljava/lang/String;", 0);
+            invocar(INVOKEVIRTUAL, CADENA, "concat", "(Ljava/lang/String;)Ljava/lang/String;", -1);
+        } else {
+            expresion(valor);
+            emitir(operacionEntera(op.substring(0, op.length() - 1), valor), -1);
+            estrechar(tipo);
+        }
+    }
+
+    /**
+     * ++ y -- sobre variables, atributos o elementos de arreglo. Con conValor deja
+     * en la pila el valor anterior (postfijo) o el nuevo (prefijo).
+     */
+    private void incremento(Nodo destino, int delta, boolean prefijo, boolean conValor) {
+        String tipo = destino.getTipoDato();
+        int duplicado;
+
+        switch (destino.getTipo()) {
+            case "Identificador": {
+                Local local = buscarLocal(destino.getValor());
+                if (local != null) {
+                    if (tipo.equals("int")) {
+                        if (conValor && !prefijo) cargarLocal(local);
+                        incrementarLocal(local, delta);
+                        if (conValor && prefijo) cargarLocal(local);
+                        return;
+                    }
+                    cargarLocal(local);
+                    if (conValor && !prefijo) emitir(DUP, 1);
+                    constanteEntera(delta);
+                    emitir(IADD, -1);
+                    estrechar(tipo);
+                    if (conValor && prefijo) emitir(DUP, 1);
+                    guardarLocal(local);
+                    return;
+                }
+                cargarThis(destino);
+                emitir(DUP, 1);
+                campo(GETFIELD, claseActual, destino.getValor(), tipo, destino);
+                duplicado = DUP_X1;
+                break;
+            }
+            case "Acceso": {
+                String clase = receptor(destino.getHijo(0));
+                if (clase == null) return;
+                emitir(DUP, 1);
+                campo(GETFIELD, clase, destino.getValor(), tipo, destino);
+                duplicado = DUP_X1;
+                break;
+            }
+            case "Indice":
+                expresion(destino.getHijo(0));
+                expresion(destino.getHijo(1));
+                emitir(DUP2, 2);
+                emitir(cargaArreglo(tipo), -1);
+                duplicado = DUP_X2;
+                break;
+            default:
+                registrarError(destino, "'++' y '--' requieren una variable.");
+                return;
+        }
+
+        if (conValor && !prefijo) emitir(duplicado, 1);
+        constanteEntera(delta);
+        emitir(IADD, -1);
+        estrechar(tipo);
+        if (conValor && prefijo) emitir(duplicado, 1);
+
+        if (destino.getTipo().equals("Indice")) {
+            emitir(guardadoArreglo(tipo), -3);
+        } else {
+            String clase = destino.getTipo().equals("Acceso") ? destino.getHijo(0).getTipoDato() : claseActual;
+            campo(PUTFIELD, clase, destino.getValor(), tipo, destino);
+        }
+    }
+
+    // ------------------ EXPRESIONES ------------------
+
+    /** Emite el código que deja el valor de la expresión en la pila (nada si es void) */
+    private void expresion(Nodo e) {
+        switch (e.getTipo()) {
+            case "Literal":
+                literal(e);
+                break;
+            case "Identificador": {
+                Local local = buscarLocal(e.getValor());
+                if (local != null) {
+                    cargarLocal(local);
+                } else {
+                    cargarThis(e);
+                    campo(GETFIELD, claseActual, e.getValor(), e.getTipoDato(), e);
+                }
+                break;
+            }
+            case "This":
+                cargarThis(e);
+                break;
+            case "Binaria":
+                binaria(e);
+                break;
+            case "Unaria":
+                unaria(e);
+                break;
+            case "Postfija":
+                incremento(e.getHijo(0), e.getValor().equals("++") ? 1 : -1, false, true);
+                break;
+            case "Indice":
+                expresion(e.getHijo(0));
+                expresion(e.getHijo(1));
+                emitir(cargaArreglo(e.getTipoDato()), -1);
+                break;
+            case "Longitud":
+                expresion(e.getHijo(0));
+                emitir(ARRAYLENGTH, 0);
+                break;
+            case "Acceso": {
+                String clase = receptor(e.getHijo(0));
+                if (clase == null) return;
+                campo(GETFIELD, clase, e.getValor(), e.getTipoDato(), e);
+                break;
+            }
+            case "Llamada":
+                llamada(e);
+                break;
+            case "NuevoObjeto":
+                nuevoObjeto(e);
+                break;
+            case "NuevoArreglo":
+                nuevoArreglo(e);
+                break;
+            default:
+                registrarError(e, "Expresión no soportada: " + e.getTipo() + ".");
+                break;
+        }
+    }
+
+    private void literal(Nodo e) {
+        switch (e.getTipoDato()) {
+            case "boolean":
+                constanteEntera(e.getValor().equals("true") ? 1 : 0);
+                break;
+            case "null":
+                emitir(ACONST_NULL, 1);
+                break;
+            case "int":
+                constanteEntera(literalEntero(e));
+                break;
+            case "char":
+                constanteEntera(caracter(e));
+                break;
+            case "String": {
+                String lex = e.getValor();
+                cargarConstante(archivo.cadena(CompiladorBytecode.desescapar(lex.substring(1, lex.length() - 1))));
+                break;
+            }
+            default:
+                registrarError(e, "Literal de tipo '" + e.getTipoDato() + "' no soportado.");
+                break;
+        }
+    }
+
+    private void binaria(Nodo e) {
+        String op = e.getValor();
+        switch (op) {
+            case "&&": case "||":
+            case "<": case "<=": case ">": case ">=": case "==": case "!=":
+                valorBooleano(e);
+                return;
+            case "instanceof": {
+                Nodo tipo = e.getHijo(1);
+                if (!tipo.getTipo().equals("Identificador") || !jerarquia.existeClase(tipo.getValor())) {
+                    registrarError(e, "'instanceof' requiere el nombre de una clase del programa.");
+                    return;
+                }
+                expresion(e.getHijo(0));
+                emitir(INSTANCEOF, 0);
+                indice16(archivo.clase(tipo.getValor()));
+                return;
+            }
+            default:
+                break;
+        }
+
+        if (op.equals("+") && e.getTipoDato().equals("String")) {
+            concatenacion(e);
+            return;
+        }
+
+        expresion(e.getHijo(0));
+        expresion(e.getHijo(1));
+        emitir(operacionEntera(op, e), -1);
+    }
+
+    private void unaria(Nodo e) {
+        switch (e.getValor()) {
+            case "!":
+                valorBooleano(e);
+                break;
+            case "-":
+                if (esLiteralEntero(e.getHijo(0))) {
+                    // -2147483648 solo está en rango con el signo: se pliega antes de verificarlo
+                    constanteEntera(literalEntero(e.getHijo(0), true));
+                    break;
+                }
+                expresion(e.getHijo(0));
+                emitir(INEG, 0);
+                break;
+            case "~":
+                expresion(e.getHijo(0));
+                constanteEntera(-1);
+                emitir(IXOR, -1);
+                break;
+            case "+":
+                expresion(e.getHijo(0));
+                break;
+            default:
+                incremento(e.getHijo(0), e.getValor().equals("++") ? 1 : -1, true, true);
+                break;
+        }
+    }
+
+    /** Cadena de + entre cadenas: un solo StringBuilder para todos los operandos */
+    private void concatenacion(Nodo e) {
+        List<Nodo> operandos = new ArrayList<>();
+        aplanarConcatenacion(e, operandos);
+
+        emitir(NEW, 1);
+        indice16(archivo.clase("java/lang/StringBuilder"));
+        emitir(DUP, 1);
+        invocar(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V", -1);
+        for (Nodo operando : operandos) {
+            expresion(operando);
+            invocar(INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+                "(" + descriptorImpresion(operando.getTipoDato()) + ")Ljava/lang/StringBuilder;", -1);
+        }
+        invocar(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", 0);
+    }
+
+    private void aplanarConcatenacion(Nodo e, List<Nodo> operandos) {
+        if (e.getTipo().equals("Binaria") && e.getValor().equals("+") && "String".equals(e.getTipoDato())) {
+            aplanarConcatenacion(e.getHijo(0), operandos);
+            aplanarConcatenacion(e.getHijo(1), operandos);
+        } else {
+            operandos.add(e);
+        }
+    }
+
+    private void llamada(Nodo e) {
+        Nodo receptorNodo = e.getHijo(0);
+        String clase;
+        if (receptorNodo.getTipo().equals("Vacio")) {
+            cargarThis(e);
+            clase = claseActual;
+        } else {
+            clase = receptor(receptorNodo);
+            if (clase == null) return;
+        }
+
+        Nodo metodo = jerarquia.buscarMetodo(clase, e.getValor());
+        if (metodo == null || !metodo.getTipo().equals("Metodo")) {
+            registrarError(e, "Solo se pueden invocar métodos de instancia de las clases del programa.");
+            return;
+        }
+
+        int argumentos = e.getCantidadHijos() - 1;
+        for (int i = 1; i < e.getCantidadHijos(); i++) expresion(e.getHijo(i));
+
+        int efecto = -(argumentos + 1) + (metodo.getTipoDato().equals("void") ? 0 : 1);
+        invocar(INVOKEVIRTUAL, clase, e.getValor(), descriptorMetodo(metodo), efecto);
+    }
+
+    private void nuevoObjeto(Nodo e) {
+        String clase = e.getValor().equals("String") ? CADENA : e.getValor();
+        if (!clase.equals(CADENA) && !jerarquia.existeClase(clase)) {
+            registrarError(e, "La clase '" + e.getValor() + "' no está disponible para el compilador.");
+            return;
+        }
+        if (e.getCantidadHijos() > 0) {
+            registrarError(e, "Los constructores con argumentos no están soportados.");
+            return;
+        }
+        emitir(NEW, 1);
+        indice16(archivo.clase(clase));
+        emitir(DUP, 1);
+        invocar(INVOKESPECIAL, clase, "<init>", "()V", -1);
+    }
+
+    /** new T[a][b][]...: las dimensiones con tamaño deben ir primero */
+    private void nuevoArreglo(Nodo e) {
+        int dimensiones = e.getCantidadHijos();
+        int conTamano = 0;
+        while (conTamano < dimensiones && !e.getHijo(conTamano).getTipo().equals("Vacio")) conTamano++;
+        for (int i = conTamano; i < dimensiones; i++) {
+            if (!e.getHijo(i).getTipo().equals("Vacio")) {
+                registrarError(e, "Las dimensiones sin tamaño deben ir al final.");
+                return;
+            }
+        }
+        if (conTamano == 0) {
+            registrarError(e, "Un arreglo nuevo necesita al menos un tamaño.");
+            return;
+        }
+
+        for (int i = 0; i < conTamano; i++) expresion(e.getHijo(i));
+
+        String tipoArreglo = e.getTipoDato();
+        String elemento = tipoArreglo.substring(0, tipoArreglo.length() - 2);
+        if (conTamano > 1) {
+            emitir(MULTIANEWARRAY, 1 - conTamano);
+            indice16(archivo.clase(descriptor(tipoArreglo, e)));
+            byte1(conTamano);
+        } else if (esReferencia(elemento)) {
+            emitir(ANEWARRAY, 0);
+            indice16(archivo.clase(elemento.endsWith("[]") ? descriptor(elemento, e) : nombreInterno(elemento)));
+        } else {
+            emitir(NEWARRAY, 0);
+            byte1(tipoArregloPrimitivo(elemento));
+        }
+    }
+
+    /**
+     * Compila el receptor de un acceso o llamada y devuelve su clase. Un nombre de
+     * clase como receptor sería un acceso estático, que no se soporta.
+     */
+    private String receptor(Nodo receptor) {
+        if (receptor.getTipo().equals("Identificador") && buscarLocal(receptor.getValor()) == null &&
+            jerarquia.buscarCampo(claseActual, receptor.getValor()) == null) {
+            registrarError(receptor, "El acceso estático a '" + receptor.getValor() + "' no está soportado.");
+            return null;
+        }
+
+        expresion(receptor);
+        String clase = receptor.getTipoDato();
+        if (!jerarquia.existeClase(clase)) {
+            registrarError(receptor, "El tipo '" + clase + "' no tiene miembros accesibles para el compilador.");
+            return null;
+        }
+        return clase;
+    }
+
+    // ------------------ CONDICIONES ------------------
+
+    /** Valor 0/1 de una expresión booleana compilada como saltos */
+    private void valorBooleano(Nodo e) {
+        Etiqueta falso = new Etiqueta();
+        Etiqueta fin = new Etiqueta();
+        saltarSiFalso(e, falso);
+        constanteEntera(1);
+        saltar(GOTO, fin);
+        marcar(falso);
+        constanteEntera(0);
+        marcar(fin);
+        pila--;     // Solo una de las dos ramas deja su valor
+    }
+
+    private void saltarSiFalso(Nodo e, Etiqueta destino) {
+        condicion(e, destino, false);
+    }
+
+    private void saltarSiVerdadero(Nodo e, Etiqueta destino) {
+        condicion(e, destino, true);
+    }
+
+    /** Salta a destino si la condición vale saltarSi; si no, continúa en la siguiente instrucción */
+    private void condicion(Nodo e, Etiqueta destino, boolean saltarSi) {
+        String op = e.getValor();
+        if (e.getTipo().equals("Unaria") && op.equals("!")) {
+            condicion(e.getHijo(0), destino, !saltarSi);
+            return;
+        }
+        if (e.getTipo().equals("Literal") && e.getTipoDato().equals("boolean")) {
+            if (op.equals("true") == saltarSi) saltar(GOTO, destino);
+            return;
+        }
+        if (!e.getTipo().equals("Binaria")) {
+            expresion(e);
+            saltar(saltarSi ? IFNE : IFEQ, destino);
+            return;
+        }
+
+        switch (op) {
+            case "&&":
+            case "||": {
+                // a && b salta si falso cuando cualquiera es falso; a || b es el caso dual
+                boolean cortoCircuito = op.equals("&&") != saltarSi;
+                if (cortoCircuito) {
+                    condicion(e.getHijo(0), destino, saltarSi);
+                    condicion(e.getHijo(1), destino, saltarSi);
+                } else {
+                    Etiqueta sigue = new Etiqueta();
+                    condicion(e.getHijo(0), sigue, !saltarSi);
+                    condicion(e.getHijo(1), destino, saltarSi);
+                    marcar(sigue);
+                }
+                return;
+            }
+            case "<": case "<=": case ">": case ">=": case "==": case "!=":
+                break;
+            default:
+                expresion(e);
+                saltar(saltarSi ? IFNE : IFEQ, destino);
+                return;
+        }
+
+        String comparacion = saltarSi ? op : negar(op);
+        Nodo izq = e.getHijo(0);
+        Nodo der = e.getHijo(1);
+
+        if (esReferencia(izq.getTipoDato()) || esReferencia(der.getTipoDato())) {
+            if (der.getTipoDato().equals("null")) {
+                expresion(izq);
+                saltar(comparacion.equals("==") ? IFNULL : IFNONNULL, destino);
+            } else {
+                expresion(izq);
+                expresion(der);
+                saltar(comparacion.equals("==") ? IF_ACMPEQ : IF_ACMPNE, destino);
+            }
+            return;
+        }
+
+        expresion(izq);
+        expresion(der);
+        switch (comparacion) {
+            case "<": saltar(IF_ICMPLT, destino); break;
+            case "<=": saltar(IF_ICMPLE, destino); break;
+            case ">": saltar(IF_ICMPGT, destino); break;
+            case ">=": saltar(IF_ICMPGE, destino); break;
+            case "==": saltar(IF_ICMPEQ, destino); break;
+            default: saltar(IF_ICMPNE, destino); break;
+        }
+    }
+
+    private static String negar(String op) {
+        switch (op) {
+            case "<": return ">=";
+            case "<=": return ">";
+            case ">": return "<=";
+            case ">=": return "<";
+            case "==": return "!=";
+            default: return "==";
+        }
+    }
+
+    // ------------------ LOCALES, CAMPOS Y LLAMADAS ------------------
+
+    private Local declararLocal(Nodo declaracion) {
+        descriptor(declaracion.getTipoDato(), declaracion);
+        Local local = new Local(locales++, declaracion.getTipoDato());
+        ambitos.peek().put(declaracion.getValor(), local);
+        return local;
+    }
+
+    private Local buscarLocal(String nombre) {
+        for (Map<String, Local> ambito : ambitos) {
+            Local local = ambito.get(nombre);
+            if (local != null) return local;
+        }
+        return null;
+    }
+
+    private void cargarLocal(Local local) {
+        instruccionLocal(esReferencia(local.tipo) ? ALOAD : ILOAD, local.indice, 1);
+    }
+
+    private void guardarLocal(Local local) {
+        instruccionLocal(esReferencia(local.tipo) ? ASTORE : ISTORE, local.indice, -1);
+    }
+
+    /** Usa las formas cortas (iload_0...) y el prefijo wide cuando hace falta */
+    private void instruccionLocal(int op, int indice, int efecto) {
+        if (indice <= 3) {
+            int base = op == ILOAD ? 0x1a : op == ALOAD ? 0x2a : op == ISTORE ? 0x3b : 0x4b;
+            emitir(base + indice, efecto);
+        } else if (indice <= 0xFF) {
+            emitir(op, efecto);
+            byte1(indice);
+        } else {
+            byte1(WIDE);
+            emitir(op, efecto);
+            indice16(indice);
+        }
+    }
+
+    private void incrementarLocal(Local local, int delta) {
+        if (local.indice <= 0xFF && delta >= Byte.MIN_VALUE && delta <= Byte.MAX_VALUE) {
+            emitir(IINC, 0);
+            byte1(local.indice);
+            byte1(delta);
+        } else {
+            byte1(WIDE);
+            emitir(IINC, 0);
+            indice16(local.indice);
+            indice16(delta);
+        }
+    }
+
+    private void cargarThis(Nodo e) {
+        if (contextoEstatico) {
+            registrarError(e, "No hay 'this' en un contexto estático.");
+        }
+        emitir(ALOAD, 0, 1);
+    }
+
+    private void campo(int op, String clase, String nombre, String tipo, Nodo nodo) {
+        emitir(op, op == GETFIELD ? 0 : -2);
+        indice16(archivo.campo(clase, nombre, descriptor(tipo, nodo)));
+    }
+
+    private void campoEstatico(String clase, String nombre, String descriptor) {
+        emitir(GETSTATIC, 1);
+        indice16(archivo.campo(clase, nombre, descriptor));
+    }
+
+    private void invocar(int op, String clase, String nombre, String descriptor, int efecto) {
+        emitir(op, efecto);
+        indice16(archivo.metodo(clase, nombre, descriptor));
+    }
+
+    private void constanteEntera(int valor) {
+        if (valor >= -1 && valor <= 5) {
+            emitir(ICONST_0 + valor, 1);
+        } else if (valor >= Byte.MIN_VALUE && valor <= Byte.MAX_VALUE) {
+            emitir(BIPUSH, 1);
+            byte1(valor);
+        } else if (valor >= Short.MIN_VALUE && valor <= Short.MAX_VALUE) {
+            emitir(SIPUSH, 1);
+            indice16(valor);
+        } else {
+            cargarConstante(archivo.entero(valor));
+        }
+    }
+
+    private void cargarConstante(int indice) {
+        if (indice <= 0xFF) {
+            emitir(LDC, 1);
+            byte1(indice);
+        } else {
+            emitir(LDC_W, 1);
+            indice16(indice);
+        }
+    }
+
+    // ------------------ TIPOS ------------------
+
+    private boolean esReferencia(String tipo) {
+        switch (tipo) {
+            case "int": case "boolean": case "char": case "byte": case "short":
+            case "long": case "float": case "double": case "void":
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private String descriptor(String tipo, Nodo nodo) {
+        if (tipo.endsWith("[]")) return "[" + descriptor(tipo.substring(0, tipo.length() - 2), nodo);
+        switch (tipo) {
+            case "int": return "I";
+            case "boolean": return "Z";
+            case "char": return "C";
+            case "byte": return "B";
+            case "short": return "S";
+            case "void": return "V";
+            case "String": return "Ljava/lang/String;";
+            case "long":
+            case "float":
+            case "double":
+            case "?":
+                registrarError(nodo, "Tipo '" + tipo + "' no soportado por el compilador.");
+                return "I";
+            default:
+                return "L" + tipo + ";";
+        }
+    }
+
+    private String descriptorMetodo(Nodo metodo) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Nodo hijo : metodo.getHijos()) {
+            if (hijo.getTipo().equals("Parametro")) sb.append(descriptor(hijo.getTipoDato(), hijo));
+        }
+        return sb.append(')').append(descriptor(metodo.getTipoDato(), metodo)).toString();
+    }
+
+    /** Parámetro de println, append y valueOf según el tipo del valor */
+    private String descriptorImpresion(String tipo) {
+        switch (tipo) {
+            case "boolean": return "Z";
+            case "char": return "C";
+            case "int": case "byte": case "short": return "I";
+            case "String": return "Ljava/lang/String;";
+            default: return "Ljava/lang/Object;";
+        }
+    }
+
+    private String nombreInterno(String clase) {
+        return clase.equals("String") ? CADENA : clase;
+    }
+
+    private int tipoArregloPrimitivo(String elemento) {
+        switch (elemento) {
+            case "boolean": return 4;
+            case "char": return 5;
+            case "byte": return 8;
+            case "short": return 9;
+            default: return 10;
+        }
+    }
+
+    private int cargaArreglo(String elemento) {
+        switch (elemento) {
+            case "boolean": case "byte": return BALOAD;
+            case "char": return CALOAD;
+            case "short": return SALOAD;
+            case "int": return IALOAD;
+            default: return AALOAD;
+        }
+    }
+
+    private int guardadoArreglo(String elemento) {
+        switch (elemento) {
+            case "boolean": case "byte": return BASTORE;
+            case "char": return CASTORE;
+            case "short": return SASTORE;
+            case "int": return IASTORE;
+            default: return AASTORE;
+        }
+    }
+
+    /** Tras una operación, ajusta el resultado a char, byte o short como hace Java */
+    private void estrechar(String tipo) {
+        switch (tipo) {
+            case "char": emitir(I2C, 0); break;
+            case "byte": emitir(I2B, 0); break;
+            case "short": emitir(I2S, 0); break;
+            default: break;
+        }
+    }
+
+    private int operacionEntera(String op, Nodo nodo) {
+        switch (op) {
+            case "+": return IADD;
+            case "-": return ISUB;
+            case "*": return IMUL;
+            case "/": return IDIV;
+            case "%": return IREM;
+            case "&": return IAND;
+            case "|": return IOR;
+            case "^": return IXOR;
+            case "<<": return ISHL;
+            case ">>": return ISHR;
+            case ">>>": return IUSHR;
+            default:
+                registrarError(nodo, "Operador '" + op + "' no soportado.");
+                return IADD;
+        }
+    }
+
+    private boolean esLiteralEntero(Nodo e) {
+        return e.getTipo().equals("Literal") && "int".equals(e.getTipoDato());
+    }
+
+    private int literalEntero(Nodo e) {
+        return literalEntero(e, false);
+    }
+
+    private int literalEntero(Nodo e, boolean negado) {
+        Integer valor = CompiladorBytecode.valorEntero(e.getValor(), negado);
+        if (valor == null) {
+            registrarError(e, "El literal '" + (negado ? "-" : "") + e.getValor() + "' excede el rango de int.");
+            return 0;
+        }
+        return valor;
+    }
+
+    private char caracter(Nodo e) {
+        String lex = e.getValor();
+        return CompiladorBytecode.desescapar(lex.substring(1, lex.length() - 1)).charAt(0);
+    }
+
+    // ------------------ EMISIÓN ------------------
+
+    private void emitir(int op, int efecto) {
+        byte1(op);
+        pila += efecto;
+        if (pila > maxPila) maxPila = pila;
+    }
+
+    private void emitir(int op, int local, int efecto) {
+        instruccionLocal(op, local, efecto);
+    }
+
+    private void byte1(int valor) {
+        if (tamano == codigo.length) codigo = Arrays.copyOf(codigo, codigo.length * 2);
+        codigo[tamano++] = (byte) valor;
+    }
+
+    private void indice16(int valor) {
+        byte1(valor >> 8);
+        byte1(valor);
+    }
+
+    private void entero32(int valor) {
+        indice16(valor >> 16);
+        indice16(valor);
+    }
+
+    private void saltar(int op, Etiqueta destino) {
+        int instruccion = tamano;
+        int efecto = op == GOTO ? 0 : op >= IF_ICMPEQ && op <= IF_ACMPNE ? -2 : -1;
+        emitir(op, efecto);
+        referenciaEtiqueta(instruccion, destino, 2);
+    }
+
+    private void desplazamiento32(int instruccion, Etiqueta destino) {
+        referenciaEtiqueta(instruccion, destino, 4);
+    }
+
+    private void referenciaEtiqueta(int instruccion, Etiqueta destino, int ancho) {
+        int posicion = tamano;
+        for (int i = 0; i < ancho; i++) byte1(0);
+        if (destino.posicion >= 0) {
+            escribirDesplazamiento(instruccion, posicion, ancho, destino.posicion);
+        } else {
+            destino.pendientes.add(new int[] { instruccion, posicion, ancho });
+        }
+    }
+
+    private void marcar(Etiqueta etiqueta) {
+        etiqueta.posicion = tamano;
+        for (int[] p : etiqueta.pendientes) escribirDesplazamiento(p[0], p[1], p[2], tamano);
+        etiqueta.pendientes.clear();
+    }
+
+    private void escribirDesplazamiento(int instruccion, int posicion, int ancho, int destino) {
+        int desplazamiento = destino - instruccion;
+        if (ancho == 2 && (desplazamiento < Short.MIN_VALUE || desplazamiento > Short.MAX_VALUE)) {
+            errores.add("Error de compilación: un salto en la clase '" + claseActual + "' excede el rango de 32 KB.");
+            return;
+        }
+        for (int i = ancho - 1; i >= 0; i--) {
+            codigo[posicion + i] = (byte) desplazamiento;
+            desplazamiento >>= 8;
+        }
+    }
+
+    // ------------------ ERRORES ------------------
+
+    private void registrarError(Nodo nodo, String mensaje) {
+        if (nodo != null && nodo.getToken() != null) {
+            errores.add(String.format("Error de compilación en línea %d, columna %d: %s",
+                nodo.getLinea(), nodo.getColumna(), mensaje));
+        } else {
+            errores.add("Error de compilación: " + mensaje);
+        }
+    }
+
+    public List<String> getErrores() {
+        return errores;
+    }
+}
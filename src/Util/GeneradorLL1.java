@@ -0,0 +1,563 @@
+package Util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Genera la tabla del analizador predictivo LL(1) a partir de la gramática de
+ * MiniJAVA_BNF.md. La gramática se transforma hasta que sea LL(1):
+ *
+ *   1. Se eliminan los operadores EBNF: cada grupo, "( )?" y "( )*" pasa a ser
+ *      un no terminal nuevo con alternativa vacía donde corresponde.
+ *   2. Se elimina la recursión izquierda inmediata (Expression).
+ *   3. Se factoriza por la izquierda. Si dos alternativas comparten terminales
+ *      en su PRIMERO pero empiezan con símbolos distintos, se sustituye el no
+ *      terminal inicial por sus producciones para exponer el prefijo común
+ *      (así "VarDeclaration | Statement" se separa en el segundo Identifier).
+ *
+ * Con los conjuntos PRIMERO y SIGUIENTE se llena la tabla. Los conflictos que
+ * quedan son los de una alternativa vacía contra una que consume el token
+ * (operadores binarios sin precedencia en la BNF); se resuelven a favor de la
+ * que consume, igual que el "else" colgante, y se informan como advertencias.
+ *
+ * El resultado se escribe como código Java (TablaLL1) para que el analizador no
+ * lea ni transforme la gramática al arrancar.
+ */
+public class GeneradorLL1 {
+
+    public static final String FIN = "<EOF>";
+
+    private static final Pattern SIMBOLO = Pattern.compile(
+        "\"[^\"]*\"|<[A-Z_]+>|[A-Za-z_][A-Za-z0-9_]*|[()|*?+]");
+    private static final int LIMITE_SUSTITUCIONES = 500;
+
+    // Terminales: "\"lexema\"" o "<CLASE>"; no terminales: el nombre sin comillas
+    private final Map<String, List<List<String>>> reglas = new LinkedHashMap<>();
+    private final Map<String, Integer> nuevos = new HashMap<>();
+    private final List<String> advertencias = new ArrayList<>();
+    private String inicial;
+
+    private Map<String, Set<String>> primeros;
+    private Map<String, Set<String>> siguientes;
+
+    private final List<String> terminales = new ArrayList<>();
+    private final List<String> noTerminales = new ArrayList<>();
+    private final List<String> izquierdas = new ArrayList<>();
+    private final List<List<String>> derechas = new ArrayList<>();
+    private int[] tabla;
+
+    public GeneradorLL1(String gramatica) {
+        leer(gramatica);
+        eliminarRecursionIzquierda();
+        factorizar();
+        eliminarInalcanzables();
+        calcularPrimeros();
+        calcularSiguientes();
+        construirTabla();
+    }
+
+    public static GeneradorLL1 desdeArchivo(Path archivo) throws IOException {
+        return new GeneradorLL1(Files.readString(archivo, StandardCharsets.UTF_8));
+    }
+
+    public List<String> getAdvertencias() { return advertencias; }
+    public int getTerminales() { return terminales.size(); }
+    public int getNoTerminales() { return noTerminales.size(); }
+    public int getProducciones() { return derechas.size(); }
+
+    // ------------------ LECTURA ------------------
+
+    /** Reglas "Nombre ::= ..." y sus continuaciones "| ..."; el resto del archivo se ignora */
+    private void leer(String gramatica) {
+        String actual = null;
+        for (String linea : gramatica.split("\\R")) {
+            String texto = linea.trim();
+            int separador = texto.indexOf("::=");
+            String derecha;
+            if (separador > 0) {
+                actual = texto.substring(0, separador).trim();
+                derecha = texto.substring(separador + 3);
+                if (inicial == null) inicial = actual;
+            } else if (texto.startsWith("|") && actual != null) {
+                derecha = texto.substring(1);
+            } else {
+                continue;
+            }
+            List<String> simbolos = simbolos(derecha);
+            int[] posicion = {0};
+            List<List<String>> alternativas = alternativas(actual, simbolos, posicion);
+            if (posicion[0] != simbolos.size()) {
+                throw new IllegalArgumentException("Gramática mal formada en la regla " + actual + ": " + texto);
+            }
+            reglas.computeIfAbsent(actual, k -> new ArrayList<>()).addAll(alternativas);
+        }
+        if (inicial == null) throw new IllegalArgumentException("La gramática no tiene reglas");
+
+        for (List<List<String>> alternativas : reglas.values()) {
+            for (List<String> alternativa : alternativas) {
+                for (String simbolo : alternativa) {
+                    if (!esTerminal(simbolo) && !reglas.containsKey(simbolo)) {
+                        throw new IllegalArgumentException("No terminal sin reglas: " + simbolo);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Separa el lado derecho en símbolos. Los terminales entre comillas se pasan por
+     * el analizador léxico: "System.out.println" son cinco tokens para el analizador
+     * y así también en la tabla.
+     */
+    private static List<String> simbolos(String derecha) {
+        List<String> simbolos = new ArrayList<>();
+        Matcher m = SIMBOLO.matcher(derecha);
+        while (m.find()) {
+            String s = m.group();
+            if (s.startsWith("\"")) {
+                AnalizadorLexico lexico = new AnalizadorLexico();
+                lexico.analizar(s.substring(1, s.length() - 1));
+                for (Token token : lexico.getTokens()) simbolos.add("\"" + token.getLexema() + "\"");
+            } else {
+                simbolos.add(s);
+            }
+        }
+        return simbolos;
+    }
+
+    private List<List<String>> alternativas(String regla, List<String> simbolos, int[] posicion) {
+        List<List<String>> alternativas = new ArrayList<>();
+        alternativas.add(secuencia(regla, simbolos, posicion));
+        while (posicion[0] < simbolos.size() && simbolos.get(posicion[0]).equals("|")) {
+            posicion[0]++;
+            alternativas.add(secuencia(regla, simbolos, posicion));
+        }
+        return alternativas;
+    }
+
+    private List<String> secuencia(String regla, List<String> simbolos, int[] posicion) {
+        List<String> secuencia = new ArrayList<>();
+        while (posicion[0] < simbolos.size()) {
+            String s = simbolos.get(posicion[0]);
+            if (s.equals("|") || s.equals(")")) break;
+            posicion[0]++;
+
+            List<List<String>> grupo;
+            if (s.equals("(")) {
+                grupo = alternativas(regla, simbolos, posicion);
+                if (posicion[0] >= simbolos.size() || !simbolos.get(posicion[0]).equals(")")) {
+                    throw new IllegalArgumentException("Falta ')' en la regla " + regla);
+                }
+                posicion[0]++;
+            } else {
+                grupo = List.of(List.of(s));
+            }
+
+            String sufijo = posicion[0] < simbolos.size() ? simbolos.get(posicion[0]) : "";
+            if (sufijo.equals("?") || sufijo.equals("*") || sufijo.equals("+")) {
+                posicion[0]++;
+                String repeticion = nuevo(regla);
+                List<List<String>> alternativasNuevo = new ArrayList<>();
+                for (List<String> alternativa : grupo) {
+                    List<String> copia = new ArrayList<>(alternativa);
+                    if (!sufijo.equals("?")) copia.add(repeticion);
+                    alternativasNuevo.add(copia);
+                }
+                alternativasNuevo.add(new ArrayList<>());
+                reglas.put(repeticion, alternativasNuevo);
+                // X+ es X X*
+                if (sufijo.equals("+")) secuencia.add(enLinea(regla, grupo));
+                secuencia.add(repeticion);
+            } else if (grupo.size() == 1) {
+                secuencia.addAll(grupo.get(0));
+            } else {
+                secuencia.add(enLinea(regla, grupo));
+            }
+        }
+        return secuencia;
+    }
+
+    /** No terminal nuevo para un grupo con varias alternativas */
+    private String enLinea(String regla, List<List<String>> grupo) {
+        String nombre = nuevo(regla);
+        List<List<String>> copia = new ArrayList<>();
+        for (List<String> alternativa : grupo) copia.add(new ArrayList<>(alternativa));
+        reglas.put(nombre, copia);
+        return nombre;
+    }
+
+    private String nuevo(String regla) {
+        int n = nuevos.merge(regla, 1, Integer::sum);
+        return regla + "_" + n;
+    }
+
+    static boolean esTerminal(String simbolo) {
+        return simbolo.startsWith("\"") || simbolo.startsWith("<");
+    }
+
+    // ------------------ TRANSFORMACIONES ------------------
+
+    /** A ::= A α | β  pasa a  A ::= β A';  A' ::= α A' | ε */
+    private void eliminarRecursionIzquierda() {
+        for (String nombre : new ArrayList<>(reglas.keySet())) {
+            List<List<String>> recursivas = new ArrayList<>();
+            List<List<String>> resto = new ArrayList<>();
+            for (List<String> alternativa : reglas.get(nombre)) {
+                if (!alternativa.isEmpty() && alternativa.get(0).equals(nombre)) recursivas.add(alternativa);
+                else resto.add(alternativa);
+            }
+            if (recursivas.isEmpty()) continue;
+            if (resto.isEmpty()) throw new IllegalArgumentException("Recursión izquierda sin salida en " + nombre);
+
+            String cola = nuevo(nombre);
+            List<List<String>> nuevasReglas = new ArrayList<>();
+            for (List<String> alternativa : resto) {
+                List<String> copia = new ArrayList<>(alternativa);
+                copia.add(cola);
+                nuevasReglas.add(copia);
+            }
+            List<List<String>> reglasCola = new ArrayList<>();
+            for (List<String> alternativa : recursivas) {
+                List<String> copia = new ArrayList<>(alternativa.subList(1, alternativa.size()));
+                copia.add(cola);
+                reglasCola.add(copia);
+            }
+            reglasCola.add(new ArrayList<>());
+            reglas.put(nombre, nuevasReglas);
+            reglas.put(cola, reglasCola);
+        }
+    }
+
+    private void factorizar() {
+        int sustituciones = 0;
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            calcularPrimeros();
+            for (String nombre : new ArrayList<>(reglas.keySet())) {
+                List<List<String>> alternativas = reglas.get(nombre);
+                if (factorizarPrefijo(nombre, alternativas)) {
+                    cambio = true;
+                    break;
+                }
+                if (sustituciones < LIMITE_SUSTITUCIONES && sustituirInicial(nombre, alternativas)) {
+                    sustituciones++;
+                    cambio = true;
+                    break;
+                }
+            }
+        }
+        if (sustituciones >= LIMITE_SUSTITUCIONES) {
+            advertencias.add("Se alcanzó el límite de " + LIMITE_SUSTITUCIONES + " sustituciones al factorizar");
+        }
+    }
+
+    /** Saca el prefijo común más largo de las alternativas que empiezan con el mismo símbolo */
+    private boolean factorizarPrefijo(String nombre, List<List<String>> alternativas) {
+        for (int i = 0; i < alternativas.size(); i++) {
+            List<String> primera = alternativas.get(i);
+            if (primera.isEmpty()) continue;
+
+            List<List<String>> grupo = new ArrayList<>();
+            for (List<String> alternativa : alternativas) {
+                if (!alternativa.isEmpty() && alternativa.get(0).equals(primera.get(0))) grupo.add(alternativa);
+            }
+            if (grupo.size() < 2) continue;
+
+            int prefijo = 1;
+            while (true) {
+                boolean comun = true;
+                for (List<String> alternativa : grupo) {
+                    if (alternativa.size() <= prefijo || !alternativa.get(prefijo).equals(primera.get(prefijo))) {
+                        comun = false;
+                        break;
+                    }
+                }
+                if (!comun) break;
+                prefijo++;
+            }
+
+            String resto = nuevo(nombre);
+            List<List<String>> reglasResto = new ArrayList<>();
+            for (List<String> alternativa : grupo) {
+                List<String> sufijo = new ArrayList<>(alternativa.subList(prefijo, alternativa.size()));
+                if (!reglasResto.contains(sufijo)) reglasResto.add(sufijo);
+            }
+            reglas.put(resto, reglasResto);
+
+            List<String> factorizada = new ArrayList<>(primera.subList(0, prefijo));
+            factorizada.add(resto);
+            int posicion = alternativas.indexOf(primera);
+            alternativas.removeAll(grupo);
+            alternativas.add(Math.min(posicion, alternativas.size()), factorizada);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Si dos alternativas pueden empezar con el mismo terminal sin compartir el
+     * primer símbolo, reemplaza el no terminal inicial de una de ellas por sus
+     * producciones; la siguiente pasada de factorizarPrefijo las une.
+     */
+    private boolean sustituirInicial(String nombre, List<List<String>> alternativas) {
+        for (int i = 0; i < alternativas.size(); i++) {
+            Set<String> primeroI = primeros(alternativas.get(i));
+            for (int j = i + 1; j < alternativas.size(); j++) {
+                Set<String> comunes = new HashSet<>(primeroI);
+                comunes.retainAll(primeros(alternativas.get(j)));
+                comunes.remove("");
+                if (comunes.isEmpty()) continue;
+
+                List<String> aExpandir = alternativas.get(i);
+                if (aExpandir.isEmpty() || esTerminal(aExpandir.get(0))) aExpandir = alternativas.get(j);
+                if (aExpandir.isEmpty() || esTerminal(aExpandir.get(0))) continue;
+
+                String inicialAlternativa = aExpandir.get(0);
+                List<String> cola = aExpandir.subList(1, aExpandir.size());
+                int posicion = alternativas.indexOf(aExpandir);
+                alternativas.remove(posicion);
+                for (List<String> produccion : reglas.get(inicialAlternativa)) {
+                    List<String> expandida = new ArrayList<>(produccion);
+                    expandida.addAll(cola);
+                    if (!alternativas.contains(expandida)) alternativas.add(posicion++, expandida);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void eliminarInalcanzables() {
+        Set<String> alcanzables = new LinkedHashSet<>();
+        List<String> pendientes = new ArrayList<>(List.of(inicial));
+        while (!pendientes.isEmpty()) {
+            String nombre = pendientes.remove(pendientes.size() - 1);
+            if (!alcanzables.add(nombre)) continue;
+            for (List<String> alternativa : reglas.get(nombre)) {
+                for (String simbolo : alternativa) {
+                    if (!esTerminal(simbolo) && !alcanzables.contains(simbolo)) pendientes.add(simbolo);
+                }
+            }
+        }
+        reglas.keySet().retainAll(alcanzables);
+    }
+
+    // ------------------ PRIMERO Y SIGUIENTE ------------------
+
+    /** "" representa la cadena vacía */
+    private void calcularPrimeros() {
+        primeros = new HashMap<>();
+        for (String nombre : reglas.keySet()) primeros.put(nombre, new HashSet<>());
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (Map.Entry<String, List<List<String>>> regla : reglas.entrySet()) {
+                Set<String> conjunto = primeros.get(regla.getKey());
+                for (List<String> alternativa : regla.getValue()) {
+                    if (conjunto.addAll(primeros(alternativa))) cambio = true;
+                }
+            }
+        }
+    }
+
+    private Set<String> primeros(List<String> secuencia) {
+        Set<String> resultado = new HashSet<>();
+        for (String simbolo : secuencia) {
+            if (esTerminal(simbolo)) {
+                resultado.add(simbolo);
+                return resultado;
+            }
+            Set<String> delSimbolo = primeros.get(simbolo);
+            for (String t : delSimbolo) if (!t.isEmpty()) resultado.add(t);
+            if (!delSimbolo.contains("")) return resultado;
+        }
+        resultado.add("");
+        return resultado;
+    }
+
+    private void calcularSiguientes() {
+        siguientes = new HashMap<>();
+        for (String nombre : reglas.keySet()) siguientes.put(nombre, new HashSet<>());
+        siguientes.get(inicial).add(FIN);
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (Map.Entry<String, List<List<String>>> regla : reglas.entrySet()) {
+                for (List<String> alternativa : regla.getValue()) {
+                    for (int i = 0; i < alternativa.size(); i++) {
+                        String simbolo = alternativa.get(i);
+                        if (esTerminal(simbolo)) continue;
+                        Set<String> resto = primeros(alternativa.subList(i + 1, alternativa.size()));
+                        Set<String> conjunto = siguientes.get(simbolo);
+                        for (String t : resto) if (!t.isEmpty() && conjunto.add(t)) cambio = true;
+                        if (resto.contains("") && conjunto.addAll(siguientes.get(regla.getKey()))) cambio = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // ------------------ TABLA ------------------
+
+    private void construirTabla() {
+        terminales.add(FIN);
+        noTerminales.addAll(reglas.keySet());
+        for (List<List<String>> alternativas : reglas.values()) {
+            for (List<String> alternativa : alternativas) {
+                for (String simbolo : alternativa) {
+                    if (esTerminal(simbolo) && !terminales.contains(simbolo)) terminales.add(simbolo);
+                }
+            }
+        }
+        int columnas = terminales.size();
+        tabla = new int[noTerminales.size() * columnas];
+        Arrays.fill(tabla, -1);
+        boolean[] porSiguiente = new boolean[tabla.length];
+
+        for (Map.Entry<String, List<List<String>>> regla : reglas.entrySet()) {
+            int fila = noTerminales.indexOf(regla.getKey()) * columnas;
+            for (List<String> alternativa : regla.getValue()) {
+                int produccion = derechas.size();
+                izquierdas.add(regla.getKey());
+                derechas.add(alternativa);
+
+                Set<String> primero = primeros(alternativa);
+                for (String t : primero) {
+                    if (t.isEmpty()) continue;
+                    int celda = fila + terminales.indexOf(t);
+                    if (tabla[celda] >= 0 && !porSiguiente[celda]) {
+                        advertencias.add("Conflicto en " + regla.getKey() + " con " + t + ": se mantiene "
+                            + produccion(tabla[celda]) + " sobre " + produccion(produccion));
+                        continue;
+                    }
+                    if (tabla[celda] >= 0) aviso(regla.getKey(), t, produccion, tabla[celda]);
+                    tabla[celda] = produccion;
+                    porSiguiente[celda] = false;
+                }
+                if (!primero.contains("")) continue;
+                for (String t : siguientes.get(regla.getKey())) {
+                    int celda = fila + terminales.indexOf(t);
+                    if (tabla[celda] >= 0) {
+                        aviso(regla.getKey(), t, tabla[celda], produccion);
+                        continue;
+                    }
+                    tabla[celda] = produccion;
+                    porSiguiente[celda] = true;
+                }
+            }
+        }
+    }
+
+    /** Conflicto entre una alternativa que consume el token y una vacía: gana la primera */
+    private void aviso(String nombre, String terminal, int elegida, int descartada) {
+        advertencias.add("Conflicto PRIMERO/SIGUIENTE en " + nombre + " con " + terminal
+            + ": se prefiere " + produccion(elegida) + " sobre " + produccion(descartada));
+    }
+
+    private String produccion(int p) {
+        List<String> derecha = derechas.get(p);
+        return izquierdas.get(p) + " ::= " + (derecha.isEmpty() ? "ε" : String.join(" ", derecha));
+    }
+
+    /** Gramática transformada, una producción por línea */
+    public String gramaticaTransformada() {
+        StringBuilder sb = new StringBuilder();
+        for (int p = 0; p < derechas.size(); p++) sb.append(p).append(": ").append(produccion(p)).append('\n');
+        return sb.toString();
+    }
+
+    // ------------------ CÓDIGO GENERADO ------------------
+
+    /**
+     * Clase TablaLL1 con la tabla aplanada y los lados derechos ya invertidos, listos
+     * para apilar. Los símbolos se codifican como enteros: 0..T-1 terminales (0 es
+     * el fin de archivo) y T + i el no terminal i.
+     */
+    public String generarJava(String origen) {
+        int columnas = terminales.size();
+        StringBuilder sb = new StringBuilder();
+        sb.append("package Util;\n\n");
+        sb.append("/**\n");
+        sb.append(" * Tabla del analizador predictivo LL(1), generada por GeneradorLL1 a partir de\n");
+        sb.append(" * ").append(origen).append(". No editar a mano: regenerar con\n");
+        sb.append(" *   java App --generar-ll1 ").append(origen).append(" src/Util/TablaLL1.java\n");
+        sb.append(" *\n");
+        sb.append(" * ").append(columnas).append(" terminales, ").append(noTerminales.size())
+            .append(" no terminales, ").append(derechas.size()).append(" producciones.\n");
+        sb.append(" */\n");
+        sb.append("final class TablaLL1 {\n\n");
+        sb.append("    private TablaLL1() {}\n\n");
+
+        sb.append("    /** Lexema del terminal entre comillas o clase de token entre <> */\n");
+        sb.append("    static final String[] TERMINALES = {");
+        lista(sb, terminales, true);
+        sb.append("};\n\n");
+
+        sb.append("    static final String[] NO_TERMINALES = {");
+        lista(sb, noTerminales, true);
+        sb.append("};\n\n");
+
+        sb.append("    static final int INICIAL = ").append(columnas + noTerminales.indexOf(inicial)).append(";\n\n");
+
+        sb.append("    /** TABLA[noTerminal * TERMINALES.length + terminal]: producción a aplicar, -1 error */\n");
+        sb.append("    static final short[] TABLA = {");
+        List<String> valores = new ArrayList<>();
+        for (int celda : tabla) valores.add(String.valueOf(celda));
+        lista(sb, valores, false);
+        sb.append("};\n\n");
+
+        List<String> inicios = new ArrayList<>();
+        List<String> simbolos = new ArrayList<>();
+        for (List<String> derecha : derechas) {
+            inicios.add(String.valueOf(simbolos.size()));
+            for (int i = derecha.size() - 1; i >= 0; i--) {
+                String simbolo = derecha.get(i);
+                int codigo = esTerminal(simbolo) ? terminales.indexOf(simbolo) : columnas + noTerminales.indexOf(simbolo);
+                simbolos.add(String.valueOf(codigo));
+            }
+        }
+        inicios.add(String.valueOf(simbolos.size()));
+
+        sb.append("    /** Lado derecho invertido de la producción p en DERECHAS[INICIOS[p] .. INICIOS[p + 1]) */\n");
+        sb.append("    static final short[] DERECHAS = {");
+        lista(sb, simbolos, false);
+        sb.append("};\n\n");
+        sb.append("    static final short[] INICIOS = {");
+        lista(sb, inicios, false);
+        sb.append("};\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void lista(StringBuilder sb, List<String> valores, boolean cadenas) {
+        int ancho = 100;
+        for (int i = 0; i < valores.size(); i++) {
+            String valor = cadenas ? "\"" + valores.get(i).replace("\\", "\\\\").replace("\"", "\\\"") + "\"" : valores.get(i);
+            if (ancho + valor.length() + 2 > 100) {
+                sb.append("\n        ");
+                ancho = 8;
+            } else if (i > 0) {
+                sb.append(' ');
+                ancho++;
+            }
+            sb.append(valor);
+            if (i < valores.size() - 1) sb.append(',');
+            ancho += valor.length() + 1;
+        }
+        sb.append("\n    ");
+    }
+}
@@ -0,0 +1,519 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador de programas MiniJava al azar para pruebas de carga y robustez.
+ * Sigue la gramática de MiniJAVA_BNF.md más lo que el sintáctico acepta además
+ * (for, do-while, switch, try-catch, operadores compuestos e inicializadores).
+ *
+ * Los programas pasan el análisis léxico, sintáctico y semántico: cada variable
+ * se declara con valor inicial, los tipos de cada expresión coinciden y los
+ * métodos solo llaman a métodos anteriores (los de la misma clase con índice
+ * menor y los de clases anteriores), así que no hay recursión. Los ciclos tienen
+ * un contador que el cuerpo no modifica. No se garantiza que la ejecución no
+ * falle: un atributo arreglo puede seguir en null o un índice quedar fuera de rango.
+ *
+ * Con setErrores se inyectan errores léxicos, sintácticos y semánticos en
+ * sentencias elegidas al azar; getErroresInyectados dice dónde quedó cada uno.
+ * La misma semilla con la misma configuración da siempre el mismo programa.
+ */
+public class GeneradorMiniJava {
+
+    private static final String[] TIPOS = {"int", "boolean", "int[]"};
+
+    private static final class Variable {
+        final String tipo;
+        final String nombre;
+        final boolean soloLectura;
+
+        Variable(String tipo, String nombre, boolean soloLectura) {
+            this.tipo = tipo;
+            this.nombre = nombre;
+            this.soloLectura = soloLectura;
+        }
+    }
+
+    private static final class Metodo {
+        final int clase;
+        final String nombre;
+        final String retorno;
+        final List<String> parametros = new ArrayList<>();
+
+        Metodo(int clase, String nombre, String retorno) {
+            this.clase = clase;
+            this.nombre = nombre;
+            this.retorno = retorno;
+        }
+    }
+
+    private static final class Clase {
+        final int indice;
+        final String nombre;
+        final int padre;
+        final List<Variable> campos = new ArrayList<>();
+        final List<Metodo> metodos = new ArrayList<>();
+
+        Clase(int indice, String nombre, int padre) {
+            this.indice = indice;
+            this.nombre = nombre;
+            this.padre = padre;
+        }
+    }
+
+    private final Random azar;
+    private int cantidadClases = 20;
+    private int metodosPorClase = 3;
+    private int sentenciasPorMetodo = 8;
+    private int profundidad = 3;
+    private int cantidadErrores;
+    private boolean excepciones = true;
+
+    // Estado de la generación en curso
+    private final List<Clase> clases = new ArrayList<>();
+    private final List<String> lineas = new ArrayList<>();
+    private final List<Integer> sentenciasSimples = new ArrayList<>();
+    private final List<String> erroresInyectados = new ArrayList<>();
+    private final Deque<List<Variable>> ambitos = new ArrayDeque<>();
+    private Clase claseActual;
+    private Metodo metodoActual;
+    private boolean estatico;
+    private int nivel;
+    private int siguienteLocal;
+
+    public GeneradorMiniJava(long semilla) {
+        this.azar = new Random(semilla);
+    }
+
+    /** Clases además de la principal */
+    public void setClases(int cantidad) { this.cantidadClases = Math.max(1, cantidad); }
+    public void setMetodos(int porClase) { this.metodosPorClase = Math.max(1, porClase); }
+    /** Sentencias en el primer nivel de cada método; los bloques anidados llevan menos */
+    public void setSentencias(int porMetodo) { this.sentenciasPorMetodo = Math.max(0, porMetodo); }
+    /** Anidamiento máximo de sentencias y de expresiones */
+    public void setProfundidad(int profundidad) { this.profundidad = Math.max(0, profundidad); }
+    public void setErrores(int cantidad) { this.cantidadErrores = Math.max(0, cantidad); }
+    /** Sin try-catch los programas también se pueden compilar (el compilador no admite excepciones) */
+    public void setExcepciones(boolean excepciones) { this.excepciones = excepciones; }
+
+    /** Descripción de cada error inyectado en el último programa generado, con su línea */
+    public List<String> getErroresInyectados() {
+        return Collections.unmodifiableList(erroresInyectados);
+    }
+
+    public String generar() {
+        clases.clear();
+        lineas.clear();
+        sentenciasSimples.clear();
+        erroresInyectados.clear();
+        planificar();
+
+        principal();
+        for (Clase clase : clases) clase(clase);
+        inyectarErrores();
+        return String.join("\n", lineas) + "\n";
+    }
+
+    // ------------------ DECLARACIONES ------------------
+
+    /** Decide clases, atributos y firmas antes de escribir, para poder llamar a cualquiera */
+    private void planificar() {
+        for (int i = 0; i < cantidadClases; i++) {
+            int padre = i > 0 && azar.nextInt(3) == 0 ? azar.nextInt(i) : -1;
+            Clase clase = new Clase(i, "Clase" + i, padre);
+            int campos = 1 + azar.nextInt(3);
+            for (int k = 0; k < campos; k++) clase.campos.add(new Variable(tipoAlAzar(), "c" + i + "_" + k, false));
+            for (int k = 0; k < metodosPorClase; k++) {
+                Metodo metodo = new Metodo(i, "m" + i + "_" + k, azar.nextInt(3) == 0 ? "boolean" : "int");
+                int parametros = azar.nextInt(4);
+                for (int p = 0; p < parametros; p++) metodo.parametros.add(tipoAlAzar());
+                clase.metodos.add(metodo);
+            }
+            clases.add(clase);
+        }
+    }
+
+    private void principal() {
+        linea("public class Principal {");
+        nivel++;
+        linea("public static void main(String[] args) {");
+        nivel++;
+        estatico = true;
+        claseActual = null;
+        metodoActual = null;
+        ambitos.push(new ArrayList<>());
+        for (int i = 0; i < Math.min(clases.size(), 10); i++) {
+            Metodo metodo = clases.get(clases.size() - 1 - i).metodos.get(0);
+            linea("System.out.println(" + llamada(metodo, 1) + ");");
+        }
+        ambitos.pop();
+        estatico = false;
+        nivel--;
+        linea("}");
+        nivel--;
+        linea("}");
+    }
+
+    private void clase(Clase clase) {
+        claseActual = clase;
+        linea("class " + clase.nombre + (clase.padre >= 0 ? " extends " + clases.get(clase.padre).nombre : "") + " {");
+        nivel++;
+        for (Variable campo : clase.campos) linea(campo.tipo + " " + campo.nombre + ";");
+        for (Metodo metodo : clase.metodos) metodo(metodo);
+        nivel--;
+        linea("}");
+    }
+
+    private void metodo(Metodo metodo) {
+        metodoActual = metodo;
+        siguienteLocal = 0;
+        List<Variable> parametros = new ArrayList<>();
+        List<String> firma = new ArrayList<>();
+        for (String tipo : metodo.parametros) {
+            Variable parametro = new Variable(tipo, "p" + parametros.size(), false);
+            parametros.add(parametro);
+            firma.add(tipo + " " + parametro.nombre);
+        }
+        linea("public " + metodo.retorno + " " + metodo.nombre + "(" + String.join(", ", firma) + ") {");
+        nivel++;
+        ambitos.push(parametros);
+        ambitos.push(new ArrayList<>());
+        declaraciones(1 + azar.nextInt(3));
+        for (int i = 0; i < sentenciasPorMetodo; i++) sentencia(profundidad);
+        linea("return " + expresion(metodo.retorno, profundidad) + ";");
+        ambitos.pop();
+        ambitos.pop();
+        nivel--;
+        linea("}");
+    }
+
+    /**
+     * Variables locales con valor inicial al principio del bloque actual. Una de
+     * cada cuatro es final (el sintáctico debe aceptar modificadores en locales)
+     * y ninguna sentencia le asigna después.
+     */
+    private void declaraciones(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            String tipo = tipoAlAzar();
+            // El valor se genera antes de declarar: la variable no puede usarse a sí misma
+            String valor = expresion(tipo, profundidad);
+            boolean constante = azar.nextInt(4) == 0;
+            Variable local = new Variable(tipo, "v" + siguienteLocal++, constante);
+            ambitos.peek().add(local);
+            linea((constante ? "final " : "") + tipo + " " + local.nombre + " = " + valor + ";");
+        }
+    }
+
+    // ------------------ SENTENCIAS ------------------
+
+    private void sentencia(int restante) {
+        int opcion = restante > 0 ? azar.nextInt(12) : 0;
+        switch (opcion) {
+            case 1:
+                linea("if (" + expresion("boolean", profundidad) + ") {");
+                bloque(restante - 1);
+                linea("} else {");
+                bloque(restante - 1);
+                linea("}");
+                break;
+            case 2: {
+                // Los ciclos van en un bloque propio para que el contador no choque con nada
+                linea("{");
+                nivel++;
+                ambitos.push(new ArrayList<>());
+                Variable contador = contador();
+                linea("int " + contador.nombre + " = 0;");
+                linea("while (" + contador.nombre + " < " + (1 + azar.nextInt(10)) + ") {");
+                bloque(restante - 1, contador.nombre + "++;");
+                linea("}");
+                ambitos.pop();
+                nivel--;
+                linea("}");
+                break;
+            }
+            case 3: {
+                ambitos.push(new ArrayList<>());
+                Variable contador = contador();
+                linea("for (int " + contador.nombre + " = 0; " + contador.nombre + " < " + (1 + azar.nextInt(10)) + "; " +
+                    contador.nombre + "++) {");
+                bloque(restante - 1);
+                linea("}");
+                ambitos.pop();
+                break;
+            }
+            case 4: {
+                linea("{");
+                nivel++;
+                ambitos.push(new ArrayList<>());
+                Variable contador = contador();
+                linea("int " + contador.nombre + " = 0;");
+                linea("do {");
+                bloque(restante - 1, contador.nombre + "++;");
+                linea("} while (" + contador.nombre + " < " + (1 + azar.nextInt(10)) + ");");
+                ambitos.pop();
+                nivel--;
+                linea("}");
+                break;
+            }
+            case 5: {
+                linea("switch (" + expresion("int", profundidad - 1) + ") {");
+                nivel++;
+                int casos = 1 + azar.nextInt(3);
+                for (int i = 0; i < casos; i++) {
+                    linea("case " + i + ":");
+                    nivel++;
+                    // Las sentencias de un caso no pueden ser declaraciones: se envuelven en un bloque
+                    linea("{");
+                    bloque(restante - 1);
+                    linea("}");
+                    linea("break;");
+                    nivel--;
+                }
+                linea("default:");
+                nivel++;
+                sentencia(0);
+                nivel--;
+                nivel--;
+                linea("}");
+                break;
+            }
+            case 6:
+                if (!excepciones) {
+                    sentencia(restante - 1);
+                    break;
+                }
+                linea("try {");
+                bloque(restante - 1);
+                ambitos.push(new ArrayList<>());
+                linea("} catch (Exception e" + siguienteLocal++ + ") {");
+                bloque(restante - 1);
+                ambitos.pop();
+                if (azar.nextBoolean()) {
+                    linea("} finally {");
+                    bloque(restante - 1);
+                }
+                linea("}");
+                break;
+            case 7:
+                linea("{");
+                bloque(restante - 1);
+                linea("}");
+                break;
+            default:
+                simple();
+                break;
+        }
+    }
+
+    /** Contenido de un bloque ya abierto: declaraciones y algunas sentencias */
+    private void bloque(int restante, String... alFinal) {
+        nivel++;
+        ambitos.push(new ArrayList<>());
+        declaraciones(azar.nextInt(2));
+        int cantidad = 1 + azar.nextInt(3);
+        for (int i = 0; i < cantidad; i++) sentencia(restante);
+        for (String linea : alFinal) linea(linea);
+        ambitos.pop();
+        nivel--;
+    }
+
+    private Variable contador() {
+        Variable contador = new Variable("int", "i" + siguienteLocal++, true);
+        ambitos.peek().add(contador);
+        return contador;
+    }
+
+    /** Asignación o impresión: las únicas sentencias donde se inyectan errores */
+    private void simple() {
+        List<Variable> destinos = new ArrayList<>();
+        for (Variable v : visibles()) if (!v.soloLectura) destinos.add(v);
+
+        int opcion = azar.nextInt(6);
+        String texto;
+        if (opcion <= 1 && !destinos.isEmpty()) {
+            Variable destino = destinos.get(azar.nextInt(destinos.size()));
+            if (destino.tipo.equals("int") && opcion == 1) {
+                texto = azar.nextBoolean() ? destino.nombre + "++;" :
+                    destino.nombre + " " + elegir("+=", "-=", "*=") + " " + expresion("int", profundidad - 1) + ";";
+            } else if (destino.tipo.equals("int[]") && opcion == 1) {
+                texto = destino.nombre + "[" + expresion("int", 1) + "] = " + expresion("int", profundidad - 1) + ";";
+            } else {
+                texto = destino.nombre + " = " + expresion(destino.tipo, profundidad) + ";";
+            }
+        } else if (opcion == 2) {
+            // Una sentencia tiene que empezar con un identificador: la llamada se imprime
+            Metodo metodo = llamable(null);
+            texto = "System.out.println(" + (metodo != null ? llamada(metodo, profundidad) : "0") + ");";
+        } else {
+            texto = "System.out.println(" + expresion(azar.nextBoolean() ? "int" : "boolean", profundidad) + ");";
+        }
+        sentenciasSimples.add(lineas.size());
+        linea(texto);
+    }
+
+    // ------------------ EXPRESIONES ------------------
+
+    private String expresion(String tipo, int restante) {
+        switch (tipo) {
+            case "boolean": return booleana(restante);
+            case "int[]": return arreglo(restante);
+            default: return entera(restante);
+        }
+    }
+
+    private String entera(int restante) {
+        int opcion = restante > 0 ? azar.nextInt(10) : azar.nextInt(2);
+        switch (opcion) {
+            case 0:
+                return String.valueOf(azar.nextInt(100));
+            case 1: {
+                Variable v = variable("int");
+                return v != null ? v.nombre : String.valueOf(azar.nextInt(100));
+            }
+            case 2:
+            case 3:
+                return "(" + entera(restante - 1) + " " + elegir("+", "-", "*") + " " + entera(restante - 1) + ")";
+            case 4:
+                return "(" + entera(restante - 1) + " " + elegir("/", "%") + " " + (1 + azar.nextInt(9)) + ")";
+            case 5: {
+                Variable v = variable("int[]");
+                if (v == null) return entera(restante - 1);
+                return azar.nextBoolean() ? v.nombre + ".length" : v.nombre + "[" + entera(restante - 1) + "]";
+            }
+            case 6: {
+                Metodo metodo = llamable("int");
+                return metodo != null ? llamada(metodo, restante - 1) : entera(restante - 1);
+            }
+            default:
+                return entera(restante - 1);
+        }
+    }
+
+    private String booleana(int restante) {
+        int opcion = restante > 0 ? azar.nextInt(8) : azar.nextInt(2);
+        switch (opcion) {
+            case 0:
+                return azar.nextBoolean() ? "true" : "false";
+            case 1: {
+                Variable v = variable("boolean");
+                return v != null ? v.nombre : (azar.nextBoolean() ? "true" : "false");
+            }
+            case 2:
+            case 3:
+                return "(" + entera(restante - 1) + " " + elegir("<", ">", "<=", ">=", "==", "!=") + " " + entera(restante - 1) + ")";
+            case 4:
+                return "(" + booleana(restante - 1) + " " + elegir("&&", "||") + " " + booleana(restante - 1) + ")";
+            case 5:
+                return "!(" + booleana(restante - 1) + ")";
+            case 6: {
+                Metodo metodo = llamable("boolean");
+                return metodo != null ? llamada(metodo, restante - 1) : booleana(restante - 1);
+            }
+            default:
+                return booleana(restante - 1);
+        }
+    }
+
+    private String arreglo(int restante) {
+        Variable v = variable("int[]");
+        if (v != null && azar.nextBoolean()) return v.nombre;
+        return "new int[" + (restante > 1 ? entera(1) + " % 10 + 1" : String.valueOf(1 + azar.nextInt(10))) + "]";
+    }
+
+    private String llamada(Metodo metodo, int restante) {
+        List<String> argumentos = new ArrayList<>();
+        for (String tipo : metodo.parametros) argumentos.add(expresion(tipo, Math.min(restante, 1)));
+        String receptor = claseActual != null && metodo.clase == claseActual.indice ?
+            "this" : "new " + clases.get(metodo.clase).nombre + "()";
+        return receptor + "." + metodo.nombre + "(" + String.join(", ", argumentos) + ")";
+    }
+
+    /**
+     * Método que se puede llamar desde el actual sin formar ciclos: uno anterior de
+     * la misma clase o cualquiera de una clase anterior. tipo null acepta cualquiera.
+     */
+    private Metodo llamable(String tipo) {
+        if (claseActual == null) return null;
+        int indiceClase = claseActual.indice;
+        int intentos = 4;
+        while (intentos-- > 0) {
+            int clase = azar.nextInt(indiceClase + 1);
+            List<Metodo> metodos = clases.get(clase).metodos;
+            int limite = clase == indiceClase ? metodos.indexOf(metodoActual) : metodos.size();
+            if (limite <= 0) continue;
+            Metodo metodo = metodos.get(azar.nextInt(limite));
+            if (tipo == null || metodo.retorno.equals(tipo)) return metodo;
+        }
+        return null;
+    }
+
+    /** Variable visible del tipo pedido: local, parámetro o atributo propio o heredado */
+    private Variable variable(String tipo) {
+        List<Variable> candidatas = new ArrayList<>();
+        for (Variable v : visibles()) if (v.tipo.equals(tipo)) candidatas.add(v);
+        return candidatas.isEmpty() ? null : candidatas.get(azar.nextInt(candidatas.size()));
+    }
+
+    private List<Variable> visibles() {
+        List<Variable> visibles = new ArrayList<>();
+        for (List<Variable> ambito : ambitos) visibles.addAll(ambito);
+        if (!estatico) {
+            for (Clase clase = claseActual; clase != null; clase = clase.padre >= 0 ? clases.get(clase.padre) : null) {
+                visibles.addAll(clase.campos);
+            }
+        }
+        return visibles;
+    }
+
+    // ------------------ ERRORES ------------------
+
+    /** Reemplaza sentencias simples al azar por una con un error de cada fase, por turno */
+    private void inyectarErrores() {
+        Collections.shuffle(sentenciasSimples, azar);
+        int cantidad = Math.min(cantidadErrores, sentenciasSimples.size());
+        List<Integer> elegidas = new ArrayList<>(sentenciasSimples.subList(0, cantidad));
+        Collections.sort(elegidas);
+        for (int i = 0; i < elegidas.size(); i++) {
+            int indice = elegidas.get(i);
+            String linea = lineas.get(indice);
+            String sangria = linea.substring(0, linea.length() - linea.stripLeading().length());
+            String sentencia = linea.stripLeading();
+            String descripcion;
+            switch (azar.nextInt(3)) {
+                case 0:
+                    // Un número pegado a letras no es ni número ni identificador
+                    lineas.set(indice, sangria + "int 9x" + i + " = 0;");
+                    descripcion = "léxico (lexema '9x" + i + "')";
+                    break;
+                case 1:
+                    lineas.set(indice, sangria + sentencia.substring(0, sentencia.length() - 1));
+                    descripcion = "sintáctico (falta ';')";
+                    break;
+                default:
+                    lineas.set(indice, sangria + "noDeclarada" + i + " = 1;");
+                    descripcion = "semántico (variable no declarada)";
+                    break;
+            }
+            erroresInyectados.add("Línea " + (indice + 1) + ": error " + descripcion);
+        }
+    }
+
+    // ------------------ AUXILIARES ------------------
+
+    private void linea(String texto) {
+        lineas.add("    ".repeat(nivel) + texto);
+    }
+
+    private String tipoAlAzar() {
+        return TIPOS[azar.nextInt(TIPOS.length)];
+    }
+
+    private String elegir(String... opciones) {
+        return opciones[azar.nextInt(opciones.length)];
+    }
+}
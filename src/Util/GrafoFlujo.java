@@ -0,0 +1,592 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grafo de flujo de control de un método.
+ * Baja las sentencias estructuradas del árbol (if, while, for, do, switch,
+ * try/catch/finally, break, continue, return, throw) a bloques básicos de
+ * instrucciones sin saltos internos. Cada instrucción guarda qué variables
+ * locales lee y escribe, identificadas por un índice denso para que los análisis
+ * de AnalisisFlujo trabajen con BitSet.
+ */
+public class GrafoFlujo {
+
+    /** Sentencia simple o condición, con las variables que usa y define */
+    public static final class Instruccion {
+        private final Nodo nodo;
+        private final int[] usos;
+        private final Nodo[] nodosUso;      // Identificador de cada uso, para ubicar mensajes
+        private final int[] definiciones;
+        private final int declarada;        // Variable declarada sin valor inicial, o -1
+
+        Instruccion(Nodo nodo, int[] usos, Nodo[] nodosUso, int[] definiciones, int declarada) {
+            this.nodo = nodo;
+            this.usos = usos;
+            this.nodosUso = nodosUso;
+            this.definiciones = definiciones;
+            this.declarada = declarada;
+        }
+
+        public Nodo getNodo() { return nodo; }
+        public int[] getUsos() { return usos; }
+        public Nodo[] getNodosUso() { return nodosUso; }
+        public int[] getDefiniciones() { return definiciones; }
+        public int getDeclarada() { return declarada; }
+    }
+
+    public static final class BloqueBasico {
+        private final int id;
+        private final List<Instruccion> instrucciones = new ArrayList<>(4);
+        private int[] sucesores = new int[0];
+        private int[] predecesores = new int[0];
+
+        BloqueBasico(int id) {
+            this.id = id;
+        }
+
+        public int getId() { return id; }
+        public List<Instruccion> getInstrucciones() { return instrucciones; }
+        public int[] getSucesores() { return sucesores; }
+        public int[] getPredecesores() { return predecesores; }
+    }
+
+    /** Destinos de break y continue del ciclo o switch que los encierra */
+    private static final class Contexto {
+        final BloqueBasico ruptura;
+        final BloqueBasico continuacion;    // null en un switch
+        final int finalizadores;
+
+        Contexto(BloqueBasico ruptura, BloqueBasico continuacion, int finalizadores) {
+            this.ruptura = ruptura;
+            this.continuacion = continuacion;
+            this.finalizadores = finalizadores;
+        }
+    }
+
+    /** Bloque finally pendiente y los destinos a los que sigue tras ejecutarse */
+    private static final class Finalizador {
+        final BloqueBasico entrada;
+        final List<BloqueBasico> destinos = new ArrayList<>();
+
+        Finalizador(BloqueBasico entrada) {
+            this.entrada = entrada;
+        }
+    }
+
+    private final String nombre;
+    private final List<BloqueBasico> bloques = new ArrayList<>();
+    private final List<Nodo> variables = new ArrayList<>();
+    private final BloqueBasico entrada;
+    private final BloqueBasico salida;
+    private int aristas;
+
+    // Estado de la construcción
+    private final List<int[]> enlaces = new ArrayList<>();
+    private final Map<String, Deque<Integer>> visibles = new HashMap<>();
+    private final Deque<List<String>> ambitos = new ArrayDeque<>();
+    private final Deque<Contexto> contextos = new ArrayDeque<>();
+    private final Deque<Finalizador> finalizadores = new ArrayDeque<>();
+    private BloqueBasico actual;
+
+    private GrafoFlujo(String nombre) {
+        this.nombre = nombre;
+        this.entrada = nuevo();
+        this.salida = nuevo();
+    }
+
+    /**
+     * Construye el grafo de un método, del main o de un bloque estático
+     * (nodos "Metodo", "Main" o "Estatico").
+     */
+    public static GrafoFlujo construir(String nombre, Nodo metodo) {
+        GrafoFlujo grafo = new GrafoFlujo(nombre);
+        grafo.actual = grafo.entrada;
+        grafo.ambitos.push(new ArrayList<>());
+
+        // Los parámetros llegan asignados: se modelan como definiciones en la entrada
+        for (Nodo hijo : metodo.getHijos()) {
+            if (hijo.getTipo().equals("Parametro")) {
+                int indice = grafo.declarar(hijo);
+                grafo.actual.instrucciones.add(new Instruccion(hijo, new int[0], new Nodo[0], new int[] {indice}, -1));
+            }
+        }
+
+        // El cuerpo comparte el ámbito de los parámetros
+        Nodo cuerpo = metodo.getHijo(metodo.getCantidadHijos() - 1);
+        grafo.enlazar(grafo.actual, grafo.actual = grafo.nuevo());
+        for (Nodo s : cuerpo.getHijos()) grafo.sentencia(s);
+        grafo.enlazar(grafo.actual, grafo.salida);
+
+        grafo.cerrarAristas();
+        return grafo;
+    }
+
+    public String getNombre() { return nombre; }
+    public List<BloqueBasico> getBloques() { return bloques; }
+    public BloqueBasico getEntrada() { return entrada; }
+    public BloqueBasico getSalida() { return salida; }
+    public int getCantidadAristas() { return aristas; }
+
+    /**
+     * Declaraciones (Parametro, Variable o Catch) en el orden de su índice. Las
+     * de un finally aparecen dos veces, una por cada copia del bloque.
+     */
+    public List<Nodo> getVariables() { return variables; }
+
+    /** Bloques alcanzables desde la entrada en orden posterior inverso */
+    public int[] ordenPosteriorInverso() {
+        int[] orden = new int[bloques.size()];
+        int posicion = bloques.size();
+        boolean[] visitado = new boolean[bloques.size()];
+
+        // DFS iterativa: cada marco guarda el bloque y el siguiente sucesor a visitar
+        Deque<int[]> pila = new ArrayDeque<>();
+        pila.push(new int[] {entrada.id, 0});
+        visitado[entrada.id] = true;
+        while (!pila.isEmpty()) {
+            int[] marco = pila.peek();
+            int[] sucesores = bloques.get(marco[0]).sucesores;
+            if (marco[1] < sucesores.length) {
+                int siguiente = sucesores[marco[1]++];
+                if (!visitado[siguiente]) {
+                    visitado[siguiente] = true;
+                    pila.push(new int[] {siguiente, 0});
+                }
+            } else {
+                orden[--posicion] = pila.pop()[0];
+            }
+        }
+        return Arrays.copyOfRange(orden, posicion, orden.length);
+    }
+
+    // ------------------ SENTENCIAS ------------------
+
+    private void sentencia(Nodo s) {
+        switch (s.getTipo()) {
+            case "Bloque":
+                abrirAmbito();
+                for (Nodo hijo : s.getHijos()) sentencia(hijo);
+                cerrarAmbito();
+                break;
+            case "Variable":
+                if (s.getCantidadHijos() > 0) {
+                    // El valor inicial se resuelve antes de que la variable sea visible
+                    reiniciar();
+                    recolectar(s.getHijo(0));
+                    emitir(s, declarar(s));
+                } else {
+                    actual.instrucciones.add(new Instruccion(s, new int[0], new Nodo[0], new int[0], declarar(s)));
+                }
+                break;
+            case "If":
+                sentenciaIf(s);
+                break;
+            case "While":
+                sentenciaWhile(s);
+                break;
+            case "DoWhile":
+                sentenciaDoWhile(s);
+                break;
+            case "For":
+                sentenciaFor(s);
+                break;
+            case "Switch":
+                sentenciaSwitch(s);
+                break;
+            case "Try":
+                sentenciaTry(s);
+                break;
+            case "Break": {
+                Contexto contexto = contextos.peek();
+                if (contexto != null) saltar(contexto.ruptura, contexto.finalizadores);
+                break;
+            }
+            case "Continue": {
+                for (Contexto contexto : contextos) {
+                    if (contexto.continuacion != null) {
+                        saltar(contexto.continuacion, contexto.finalizadores);
+                        break;
+                    }
+                }
+                break;
+            }
+            case "Return":
+                instruccion(s, s.getCantidadHijos() > 0 ? s.getHijo(0) : null);
+                saltar(salida, 0);
+                break;
+            case "Throw":
+                instruccion(s, s.getHijo(0));
+                // Dentro de un try las aristas hacia catch y finally salen de toda la región
+                enlazar(actual, salida);
+                actual = nuevo();
+                break;
+            case "Asignacion":
+                asignacion(s);
+                break;
+            case "Imprimir":
+            case "ExpresionSentencia":
+                instruccion(s, s.getCantidadHijos() > 0 ? s.getHijo(0) : null);
+                break;
+            default:
+                // Error: nodos de la recuperación de errores, sin efecto en el flujo
+                break;
+        }
+    }
+
+    private void sentenciaIf(Nodo s) {
+        Boolean condicion = condicion(s, s.getHijo(0));
+        BloqueBasico antes = actual;
+        BloqueBasico despues = nuevo();
+
+        actual = nuevo();
+        if (!Boolean.FALSE.equals(condicion)) enlazar(antes, actual);
+        sentencia(s.getHijo(1));
+        enlazar(actual, despues);
+
+        actual = nuevo();
+        if (!Boolean.TRUE.equals(condicion)) enlazar(antes, actual);
+        if (s.getCantidadHijos() > 2) sentencia(s.getHijo(2));
+        enlazar(actual, despues);
+
+        actual = despues;
+    }
+
+    private void sentenciaWhile(Nodo s) {
+        BloqueBasico cabecera = nuevo();
+        BloqueBasico despues = nuevo();
+        enlazar(actual, cabecera);
+        actual = cabecera;
+        Boolean condicion = condicion(s, s.getHijo(0));
+        if (!Boolean.TRUE.equals(condicion)) enlazar(cabecera, despues);
+
+        actual = nuevo();
+        if (!Boolean.FALSE.equals(condicion)) enlazar(cabecera, actual);
+        ciclo(s.getHijo(1), despues, cabecera);
+        enlazar(actual, cabecera);
+        actual = despues;
+    }
+
+    private void sentenciaDoWhile(Nodo s) {
+        BloqueBasico cuerpo = nuevo();
+        BloqueBasico prueba = nuevo();
+        BloqueBasico despues = nuevo();
+        enlazar(actual, cuerpo);
+        actual = cuerpo;
+        ciclo(s.getHijo(0), despues, prueba);
+        enlazar(actual, prueba);
+
+        actual = prueba;
+        Boolean condicion = condicion(s, s.getHijo(1));
+        if (!Boolean.FALSE.equals(condicion)) enlazar(prueba, cuerpo);
+        if (!Boolean.TRUE.equals(condicion)) enlazar(prueba, despues);
+        actual = despues;
+    }
+
+    private void sentenciaFor(Nodo s) {
+        abrirAmbito();
+        for (Nodo inicial : s.getHijo(0).getHijos()) sentencia(inicial);
+
+        BloqueBasico cabecera = nuevo();
+        BloqueBasico actualizacion = nuevo();
+        BloqueBasico despues = nuevo();
+        enlazar(actual, cabecera);
+        actual = cabecera;
+        Boolean condicion = s.getHijo(1).getTipo().equals("Vacio") ? Boolean.TRUE : condicion(s, s.getHijo(1));
+        if (!Boolean.TRUE.equals(condicion)) enlazar(cabecera, despues);
+
+        actual = nuevo();
+        if (!Boolean.FALSE.equals(condicion)) enlazar(cabecera, actual);
+        ciclo(s.getHijo(3), despues, actualizacion);
+        enlazar(actual, actualizacion);
+
+        actual = actualizacion;
+        if (!s.getHijo(2).getTipo().equals("Vacio")) sentencia(s.getHijo(2));
+        enlazar(actual, cabecera);
+
+        cerrarAmbito();
+        actual = despues;
+    }
+
+    private void ciclo(Nodo cuerpo, BloqueBasico ruptura, BloqueBasico continuacion) {
+        contextos.push(new Contexto(ruptura, continuacion, finalizadores.size()));
+        sentencia(cuerpo);
+        contextos.pop();
+    }
+
+    private void sentenciaSwitch(Nodo s) {
+        instruccion(s, s.getHijo(0));
+        BloqueBasico selector = actual;
+        BloqueBasico despues = nuevo();
+        boolean hayDefault = false;
+
+        contextos.push(new Contexto(despues, null, finalizadores.size()));
+        BloqueBasico anterior = null;
+        for (int i = 1; i < s.getCantidadHijos(); i++) {
+            Nodo caso = s.getHijo(i);
+            boolean esCase = caso.getValor().equals("case");
+            hayDefault |= !esCase;
+
+            actual = nuevo();
+            enlazar(selector, actual);
+            if (anterior != null) enlazar(anterior, actual);     // Caída al siguiente caso
+            abrirAmbito();
+            for (int j = esCase ? 1 : 0; j < caso.getCantidadHijos(); j++) sentencia(caso.getHijo(j));
+            cerrarAmbito();
+            anterior = actual;
+        }
+        contextos.pop();
+
+        enlazar(anterior != null ? anterior : selector, despues);
+        if (!hayDefault) enlazar(selector, despues);
+        actual = despues;
+    }
+
+    /**
+     * Cualquier punto del cuerpo del try puede saltar a cada catch y al finally.
+     * Se enlazan el bloque previo y todos los bloques creados dentro del cuerpo
+     * con los manejadores, que es lo que necesitan tanto la asignación definida
+     * (intersección) como la vida de variables (unión).
+     *
+     * El finally se baja dos veces, como lo compila javac: una copia para la
+     * terminación normal del try o de un catch, que sigue después de la sentencia,
+     * y otra para las excepciones y los saltos pendientes, que relanza o completa
+     * el salto. Con una sola copia el camino excepcional llegaría a lo que sigue y
+     * la asignación definida perdería lo asignado en el try.
+     */
+    private void sentenciaTry(Nodo s) {
+        List<Nodo> capturas = new ArrayList<>();
+        Nodo finalmente = null;
+        for (int i = 1; i < s.getCantidadHijos(); i++) {
+            if (s.getHijo(i).getTipo().equals("Catch")) capturas.add(s.getHijo(i));
+            else finalmente = s.getHijo(i);
+        }
+
+        List<BloqueBasico> manejadores = new ArrayList<>();
+        for (int i = 0; i < capturas.size(); i++) manejadores.add(nuevo());
+        Finalizador finalizador = finalmente != null ? new Finalizador(nuevo()) : null;
+        BloqueBasico despues = nuevo();
+        BloqueBasico normal = finalizador != null ? nuevo() : despues;
+
+        if (finalizador != null) finalizadores.push(finalizador);
+
+        // Cuerpo del try
+        BloqueBasico antes = actual;
+        int inicio = bloques.size();
+        actual = nuevo();
+        enlazar(antes, actual);
+        sentencia(s.getHijo(0));
+        enlazar(actual, normal);
+        int fin = bloques.size();
+
+        for (BloqueBasico manejador : manejadores) enlazar(antes, manejador);
+        if (finalizador != null) enlazar(antes, finalizador.entrada);
+        for (int b = inicio; b < fin; b++) {
+            for (BloqueBasico manejador : manejadores) enlazar(bloques.get(b), manejador);
+            if (finalizador != null) enlazar(bloques.get(b), finalizador.entrada);
+        }
+
+        // Bloques catch: una excepción dentro de ellos también pasa por el finally
+        for (int i = 0; i < capturas.size(); i++) {
+            Nodo captura = capturas.get(i);
+            inicio = bloques.size();
+            actual = manejadores.get(i);
+            abrirAmbito();
+            if (captura.getValor() != null) {
+                actual.instrucciones.add(new Instruccion(captura, new int[0], new Nodo[0], new int[] {declarar(captura)}, -1));
+            }
+            sentencia(captura.getHijo(0));
+            cerrarAmbito();
+            enlazar(actual, normal);
+            if (finalizador != null) {
+                enlazar(manejadores.get(i), finalizador.entrada);
+                for (int b = inicio; b < bloques.size(); b++) enlazar(bloques.get(b), finalizador.entrada);
+            }
+        }
+
+        if (finalizador != null) {
+            finalizadores.pop();
+            actual = normal;
+            sentencia(finalmente.getHijo(0));
+            enlazar(actual, despues);
+
+            // Tras la copia excepcional se relanza la excepción o se completa el salto pendiente
+            actual = finalizador.entrada;
+            sentencia(finalmente.getHijo(0));
+            enlazar(actual, salida);
+            for (BloqueBasico destino : finalizador.destinos) enlazar(actual, destino);
+        }
+        actual = despues;
+    }
+
+    /**
+     * break, continue o return. Si el salto abandona un try con finally pasa
+     * primero por ese finally, que luego continúa hacia el destino.
+     */
+    private void saltar(BloqueBasico destino, int finalizadoresDestino) {
+        if (finalizadores.size() > finalizadoresDestino) {
+            Finalizador finalizador = finalizadores.peek();
+            enlazar(actual, finalizador.entrada);
+            finalizador.destinos.add(destino);
+        } else {
+            enlazar(actual, destino);
+        }
+        actual = nuevo();   // Lo que sigue es inalcanzable
+    }
+
+    private void asignacion(Nodo s) {
+        Nodo destino = s.getHijo(0);
+        int indice = destino.getTipo().equals("Identificador") ? buscar(destino.getValor()) : -1;
+        reiniciar();
+        // En la asignación compuesta el destino también se lee; si es un atributo
+        // o un elemento de arreglo, todo lo que aparece en él se lee
+        if (indice < 0 || !s.getValor().equals("=")) recolectar(destino);
+        recolectar(s.getHijo(1));
+        emitir(s, indice);
+    }
+
+    /** Registra una condición y devuelve su valor si es un literal */
+    private Boolean condicion(Nodo s, Nodo condicion) {
+        instruccion(s, condicion);
+        Object valor = PlegadoConstantes.valor(condicion);
+        return valor instanceof Boolean ? (Boolean) valor : null;
+    }
+
+    // ------------------ USOS Y DEFINICIONES ------------------
+
+    private final List<Integer> usosTemporales = new ArrayList<>();
+    private final List<Nodo> nodosTemporales = new ArrayList<>();
+    private final List<Integer> definicionesTemporales = new ArrayList<>();
+
+    /** Instrucción con las variables que lee (y modifica con ++/--) la expresión */
+    private void instruccion(Nodo s, Nodo expresion) {
+        reiniciar();
+        if (expresion != null) recolectar(expresion);
+        emitir(s, -1);
+    }
+
+    private void reiniciar() {
+        usosTemporales.clear();
+        nodosTemporales.clear();
+        definicionesTemporales.clear();
+    }
+
+    /** Agrega al bloque actual la instrucción recolectada; definida es la variable que asigna o -1 */
+    private void emitir(Nodo s, int definida) {
+        if (definida >= 0) definicionesTemporales.add(definida);
+        int[] usos = new int[usosTemporales.size()];
+        for (int i = 0; i < usos.length; i++) usos[i] = usosTemporales.get(i);
+        int[] definiciones = new int[definicionesTemporales.size()];
+        for (int i = 0; i < definiciones.length; i++) definiciones[i] = definicionesTemporales.get(i);
+        actual.instrucciones.add(new Instruccion(s, usos, nodosTemporales.toArray(new Nodo[0]), definiciones, -1));
+    }
+
+    /** Usos y modificaciones de la expresión en preorden; la pila es explícita porque la expresión puede ser muy profunda */
+    private void recolectar(Nodo raiz) {
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            Nodo e = pendientes.pop();
+            switch (e.getTipo()) {
+                case "Identificador": {
+                    int indice = buscar(e.getValor());
+                    if (indice >= 0) {
+                        usosTemporales.add(indice);
+                        nodosTemporales.add(e);
+                    }
+                    continue;
+                }
+                case "Postfija":
+                    modificar(e.getHijo(0));
+                    break;
+                case "Unaria":
+                    if (e.getValor().equals("++") || e.getValor().equals("--")) modificar(e.getHijo(0));
+                    break;
+                default:
+                    break;
+            }
+            for (int i = e.getCantidadHijos() - 1; i >= 0; i--) pendientes.push(e.getHijo(i));
+        }
+    }
+
+    private void modificar(Nodo destino) {
+        if (!destino.getTipo().equals("Identificador")) return;
+        int indice = buscar(destino.getValor());
+        if (indice >= 0) definicionesTemporales.add(indice);
+    }
+
+    // ------------------ ÁMBITOS ------------------
+
+    private void abrirAmbito() {
+        ambitos.push(new ArrayList<>());
+    }
+
+    private void cerrarAmbito() {
+        for (String nombreVariable : ambitos.pop()) {
+            Deque<Integer> pila = visibles.get(nombreVariable);
+            pila.pop();
+            if (pila.isEmpty()) visibles.remove(nombreVariable);
+        }
+    }
+
+    private int declarar(Nodo declaracion) {
+        int indice = variables.size();
+        variables.add(declaracion);
+        visibles.computeIfAbsent(declaracion.getValor(), k -> new ArrayDeque<>()).push(indice);
+        ambitos.peek().add(declaracion.getValor());
+        return indice;
+    }
+
+    /** Índice de la variable local visible; -1 si el nombre es un atributo o una clase */
+    private int buscar(String nombreVariable) {
+        Deque<Integer> pila = visibles.get(nombreVariable);
+        return pila != null ? pila.peek() : -1;
+    }
+
+    // ------------------ ARISTAS ------------------
+
+    private BloqueBasico nuevo() {
+        BloqueBasico bloque = new BloqueBasico(bloques.size());
+        bloques.add(bloque);
+        return bloque;
+    }
+
+    private void enlazar(BloqueBasico origen, BloqueBasico destino) {
+        enlaces.add(new int[] {origen.id, destino.id});
+    }
+
+    /** Pasa las aristas acumuladas a arreglos de sucesores y predecesores sin duplicados */
+    private void cerrarAristas() {
+        int[] cantidadSucesores = new int[bloques.size()];
+        int[] cantidadPredecesores = new int[bloques.size()];
+        enlaces.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+
+        List<int[]> unicos = new ArrayList<>(enlaces.size());
+        for (int[] enlace : enlaces) {
+            int[] anterior = unicos.isEmpty() ? null : unicos.get(unicos.size() - 1);
+            if (anterior != null && anterior[0] == enlace[0] && anterior[1] == enlace[1]) continue;
+            unicos.add(enlace);
+            cantidadSucesores[enlace[0]]++;
+            cantidadPredecesores[enlace[1]]++;
+        }
+
+        for (BloqueBasico bloque : bloques) {
+            bloque.sucesores = new int[cantidadSucesores[bloque.id]];
+            bloque.predecesores = new int[cantidadPredecesores[bloque.id]];
+            cantidadSucesores[bloque.id] = 0;
+            cantidadPredecesores[bloque.id] = 0;
+        }
+        for (int[] enlace : unicos) {
+            bloques.get(enlace[0]).sucesores[cantidadSucesores[enlace[0]]++] = enlace[1];
+            bloques.get(enlace[1]).predecesores[cantidadPredecesores[enlace[1]]++] = enlace[0];
+        }
+        aristas = unicos.size();
+        enlaces.clear();
+    }
+}
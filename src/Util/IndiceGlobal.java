@@ -0,0 +1,87 @@
+package Util;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice de las clases de un proyecto compartido entre los hilos del análisis.
+ * Cada archivo publica sus clases y miembros sin bloquear a los demás; si dos
+ * archivos declaran la misma clase gana el que va primero en el orden del
+ * proyecto, así el resultado no depende de qué hilo publica antes.
+ */
+public class IndiceGlobal {
+
+    /** Clase publicada por un archivo, con sus atributos y métodos propios */
+    public static final class Declaracion {
+        private final Path archivo;
+        private final int orden;
+        private final Nodo clase;
+        private final Map<String, Nodo> miembros;
+
+        Declaracion(Path archivo, int orden, Nodo clase) {
+            this.archivo = archivo;
+            this.orden = orden;
+            this.clase = clase;
+            Map<String, Nodo> propios = new HashMap<>();
+            for (Nodo miembro : clase.getHijos()) {
+                switch (miembro.getTipo()) {
+                    case "Variable":
+                    case "Metodo":
+                    case "Main":
+                        propios.putIfAbsent(miembro.getValor(), miembro);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.miembros = Collections.unmodifiableMap(propios);
+        }
+
+        public Path getArchivo() { return archivo; }
+        public Nodo getClase() { return clase; }
+        public Map<String, Nodo> getMiembros() { return miembros; }
+    }
+
+    private final ConcurrentHashMap<String, Declaracion> clases = new ConcurrentHashMap<>();
+
+    /** Publica todas las clases del árbol de un archivo; orden es su posición en el proyecto */
+    public void publicar(Path archivo, int orden, Nodo programa) {
+        for (Nodo clase : programa.getHijos()) {
+            if (clase.getValor() == null) continue;
+            clases.merge(clase.getValor(), new Declaracion(archivo, orden, clase),
+                (actual, nueva) -> nueva.orden < actual.orden ? nueva : actual);
+        }
+    }
+
+    /** Quita la clase si la publicó ese archivo; si la declaración vigente es de otro, no cambia nada */
+    public void retirar(Path archivo, String clase) {
+        clases.computeIfPresent(clase, (nombre, actual) -> actual.archivo.equals(archivo) ? null : actual);
+    }
+
+    public void limpiar() {
+        clases.clear();
+    }
+
+    /** Declaración vigente de una clase; null si ningún archivo la declara */
+    public Declaracion buscar(String clase) {
+        return clases.get(clase);
+    }
+
+    /** Atributo o método declarado directamente en la clase; null si no existe */
+    public Nodo buscarMiembro(String clase, String nombre) {
+        Declaracion declaracion = clases.get(clase);
+        return declaracion != null ? declaracion.miembros.get(nombre) : null;
+    }
+
+    public Collection<Declaracion> getDeclaraciones() {
+        return clases.values();
+    }
+
+    public int getCantidadClases() {
+        return clases.size();
+    }
+}
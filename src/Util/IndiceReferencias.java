@@ -0,0 +1,362 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de referencias cruzadas que arma el sintáctico (setIndiceReferencias).
+ * Cada declaración se identifica por su posición en la tabla de símbolos y
+ * guarda los usos como posiciones de token en arreglos ordenados: buscar los
+ * usos de un símbolo o la declaración de un token es una búsqueda binaria,
+ * sin volver a recorrer los tokens.
+ *
+ * La resolución es por nombre y tipo declarado, igual que la tabla de símbolos:
+ * un nombre simple es la última variable local o parámetro del método declarado
+ * antes del uso en un bloque que todavía lo encierra (los mismos ámbitos que
+ * abre AnalizadorSemantico: bloque, for y caso de switch), si no un campo o
+ * método de la clase o sus padres, y si no una clase. Un acceso con '.' se resuelve en la clase del receptor cuando es this,
+ * new X, una clase o una variable de tipo conocido; si no se puede saber, el uso
+ * se agrega a todos los miembros con ese nombre.
+ */
+public class IndiceReferencias {
+
+    private static final int NOMBRE = 0;
+    private static final int MIEMBRO = 1;
+    private static final int TIPO = 2;
+
+    private static final int[] VACIO = new int[0];
+
+    /** Declaraciones y usos tal como los encuentra el sintáctico, antes de resolverlos */
+    static final class Registro {
+        private final List<Token> declaraciones = new ArrayList<>();
+        private final List<String> ambitos = new ArrayList<>();
+        private final List<Token> usos = new ArrayList<>();
+        private final List<Integer> clasesUso = new ArrayList<>();
+        private final List<String[]> contextos = new ArrayList<>();
+        private final List<Token> iniciosBloque = new ArrayList<>();
+        private final List<Token> finesBloque = new ArrayList<>();
+
+        /** Token del símbolo agregado a la tabla; ámbito "" (clase), "C" (miembro) o "C.m" (local) */
+        void declaracion(Token token, String ambito) {
+            declaraciones.add(token);
+            ambitos.add(ambito);
+        }
+
+        /** Primer y último token de un ámbito de locales dentro de un método */
+        void bloque(Token inicio, Token fin) {
+            iniciosBloque.add(inicio);
+            finesBloque.add(fin);
+        }
+
+        void nombre(Token token, String clase, String metodo) {
+            uso(token, NOMBRE, clase, metodo, null, null);
+        }
+
+        /** tipoReceptor si se conoce la clase del receptor; si no, nombreReceptor si es un identificador */
+        void miembro(Token token, String clase, String metodo, String tipoReceptor, String nombreReceptor) {
+            uso(token, MIEMBRO, clase, metodo, tipoReceptor, nombreReceptor);
+        }
+
+        void tipo(Token token) {
+            if (token.getTipo().equals("Identificador")) uso(token, TIPO, "", "", null, null);
+        }
+
+        private void uso(Token token, int clase, String claseActual, String metodo, String tipoReceptor,
+                         String nombreReceptor) {
+            usos.add(token);
+            clasesUso.add(clase);
+            contextos.add(new String[] {claseActual, metodo, tipoReceptor, nombreReceptor});
+        }
+
+        /** Agrega lo registrado por el analizador de otra clase (modo paralelo) */
+        void agregar(Registro otro) {
+            declaraciones.addAll(otro.declaraciones);
+            ambitos.addAll(otro.ambitos);
+            usos.addAll(otro.usos);
+            clasesUso.addAll(otro.clasesUso);
+            contextos.addAll(otro.contextos);
+            iniciosBloque.addAll(otro.iniciosBloque);
+            finesBloque.addAll(otro.finesBloque);
+        }
+    }
+
+    private final int[] tokenDeclaracion;
+    private final int[][] usos;
+    // Todos los usos ordenados por posición, con la declaración de cada uno
+    private final int[] posicionesUso;
+    private final int[] declaracionUso;
+    // Declaraciones ordenadas por posición de su token
+    private final int[] posicionesDeclaracion;
+    private final int[] declaracionOrdenada;
+
+    private IndiceReferencias(int[] tokenDeclaracion, int[][] usos, int[] posicionesUso, int[] declaracionUso) {
+        this.tokenDeclaracion = tokenDeclaracion;
+        this.usos = usos;
+        this.posicionesUso = posicionesUso;
+        this.declaracionUso = declaracionUso;
+
+        int n = tokenDeclaracion.length;
+        long[] pares = new long[n];
+        for (int i = 0; i < n; i++) pares[i] = ((long) tokenDeclaracion[i] << 32) | i;
+        Arrays.sort(pares);
+        this.posicionesDeclaracion = new int[n];
+        this.declaracionOrdenada = new int[n];
+        for (int i = 0; i < n; i++) {
+            posicionesDeclaracion[i] = (int) (pares[i] >> 32);
+            declaracionOrdenada[i] = (int) pares[i];
+        }
+    }
+
+    public int getCantidadDeclaraciones() {
+        return tokenDeclaracion.length;
+    }
+
+    /** Posición (índice en la lista de tokens) del nombre declarado; -1 si no tiene */
+    public int getTokenDeclaracion(int id) {
+        return tokenDeclaracion[id];
+    }
+
+    /** Posiciones de los usos de la declaración id, ordenadas */
+    public int[] getUsos(int id) {
+        return usos[id].clone();
+    }
+
+    public int getCantidadUsos(int id) {
+        return usos[id].length;
+    }
+
+    /**
+     * Declaración a la que pertenece el token en la posición dada, sea un uso o
+     * el nombre declarado; -1 si no es ninguna. Un uso que no se pudo resolver a
+     * un solo miembro devuelve el primero.
+     */
+    public int declaracionEn(int posicion) {
+        int i = Arrays.binarySearch(posicionesDeclaracion, posicion);
+        if (i >= 0) return declaracionOrdenada[i];
+        i = primero(posicionesUso, posicion);
+        return i >= 0 ? declaracionUso[i] : -1;
+    }
+
+    /** Declaración y usos juntos, ordenados: lo que cambiaría al renombrar el símbolo */
+    public int[] ocurrencias(int id) {
+        int[] propios = usos[id];
+        if (tokenDeclaracion[id] < 0) return propios.clone();
+        int[] todas = Arrays.copyOf(propios, propios.length + 1);
+        todas[propios.length] = tokenDeclaracion[id];
+        Arrays.sort(todas);
+        return todas;
+    }
+
+    /** Primera posición igual a la buscada (puede haber repetidas); -1 si no está */
+    private static int primero(int[] ordenado, int valor) {
+        int bajo = 0, alto = ordenado.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (ordenado[medio] < valor) bajo = medio + 1;
+            else alto = medio;
+        }
+        return bajo < ordenado.length && ordenado[bajo] == valor ? bajo : -1;
+    }
+
+    // ------------------ CONSTRUCCIÓN ------------------
+
+    /** Resuelve lo registrado contra la tabla de símbolos (alineada con las declaraciones del registro) */
+    static IndiceReferencias construir(List<Token> tokens, List<Simbolo> simbolos, Registro registro) {
+        return new Resolucion(tokens, simbolos, registro).indice();
+    }
+
+    private static final class Resolucion {
+        private final List<Token> tokens;
+        private final List<Simbolo> simbolos;
+        private final Registro registro;
+        private final Map<Token, Integer> posiciones = new IdentityHashMap<>();
+        private final int[] tokenDeclaracion;
+        // Último token del bloque más interno que encierra cada local; MAX_VALUE si es del método entero
+        private final int[] finAlcance;
+
+        private final Map<String, Integer> clases = new HashMap<>();
+        private final Map<String, String> padres = new HashMap<>();
+        // Ámbito ("C" o "C.m") -> nombre -> declaraciones en orden de aparición
+        private final Map<String, Map<String, List<Integer>>> porAmbito = new HashMap<>();
+        private final Map<String, List<Integer>> miembrosPorNombre = new HashMap<>();
+
+        Resolucion(List<Token> tokens, List<Simbolo> simbolos, Registro registro) {
+            this.tokens = tokens;
+            this.simbolos = simbolos;
+            this.registro = registro;
+            for (int i = 0; i < tokens.size(); i++) posiciones.put(tokens.get(i), i);
+
+            tokenDeclaracion = new int[simbolos.size()];
+            for (int id = 0; id < simbolos.size(); id++) {
+                Simbolo s = simbolos.get(id);
+                tokenDeclaracion[id] = posiciones.getOrDefault(registro.declaraciones.get(id), -1);
+                String ambito = registro.ambitos.get(id);
+                if (s.getRol().equals("Clase")) {
+                    clases.putIfAbsent(s.getNombre(), id);
+                    if (!s.getClase().equals("-")) padres.putIfAbsent(s.getNombre(), s.getClase());
+                    continue;
+                }
+                porAmbito.computeIfAbsent(ambito, a -> new HashMap<>())
+                    .computeIfAbsent(s.getNombre(), n -> new ArrayList<>()).add(id);
+                if (ambito.indexOf('.') < 0) {
+                    miembrosPorNombre.computeIfAbsent(s.getNombre(), n -> new ArrayList<>()).add(id);
+                }
+            }
+            finAlcance = alcances();
+        }
+
+        /**
+         * Los bloques están anidados: recorriendo bloques y declaraciones por posición
+         * con una pila de bloques abiertos, el tope es el más interno de cada local.
+         */
+        private int[] alcances() {
+            int n = tokenDeclaracion.length;
+            int[] fines = new int[n];
+            Arrays.fill(fines, Integer.MAX_VALUE);
+
+            List<long[]> bloques = new ArrayList<>();
+            for (int b = 0; b < registro.iniciosBloque.size(); b++) {
+                Integer inicio = posiciones.get(registro.iniciosBloque.get(b));
+                Integer fin = posiciones.get(registro.finesBloque.get(b));
+                if (inicio != null && fin != null && inicio <= fin) bloques.add(new long[] {inicio, fin});
+            }
+            // Por inicio, y el más externo primero si dos empiezan en el mismo token
+            bloques.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+
+            long[] locales = new long[n];
+            int cantidad = 0;
+            for (int id = 0; id < n; id++) {
+                if (tokenDeclaracion[id] >= 0 && registro.ambitos.get(id).indexOf('.') >= 0) {
+                    locales[cantidad++] = ((long) tokenDeclaracion[id] << 32) | id;
+                }
+            }
+            Arrays.sort(locales, 0, cantidad);
+
+            long[] abiertos = new long[bloques.size()];
+            int tope = 0, siguiente = 0;
+            for (int i = 0; i < cantidad; i++) {
+                int posicion = (int) (locales[i] >> 32);
+                while (siguiente < bloques.size() && bloques.get(siguiente)[0] <= posicion) {
+                    long[] bloque = bloques.get(siguiente++);
+                    while (tope > 0 && abiertos[tope - 1] < bloque[0]) tope--;
+                    abiertos[tope++] = bloque[1];
+                }
+                while (tope > 0 && abiertos[tope - 1] < posicion) tope--;
+                if (tope > 0) fines[(int) locales[i]] = (int) abiertos[tope - 1];
+            }
+            return fines;
+        }
+
+        IndiceReferencias indice() {
+            List<List<Integer>> usosPorDeclaracion = new ArrayList<>();
+            for (int i = 0; i < simbolos.size(); i++) usosPorDeclaracion.add(new ArrayList<>());
+            List<long[]> pares = new ArrayList<>();
+
+            for (int u = 0; u < registro.usos.size(); u++) {
+                Integer posicion = posiciones.get(registro.usos.get(u));
+                if (posicion == null) continue;
+                for (int id : resolver(u, posicion)) {
+                    usosPorDeclaracion.get(id).add(posicion);
+                    pares.add(new long[] {posicion, id});
+                }
+            }
+
+            int[][] usos = new int[simbolos.size()][];
+            for (int id = 0; id < usos.length; id++) {
+                List<Integer> lista = usosPorDeclaracion.get(id);
+                if (lista.isEmpty()) {
+                    usos[id] = VACIO;
+                    continue;
+                }
+                usos[id] = new int[lista.size()];
+                for (int i = 0; i < lista.size(); i++) usos[id][i] = lista.get(i);
+                Arrays.sort(usos[id]);
+            }
+
+            pares.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            int[] posicionesUso = new int[pares.size()];
+            int[] declaracionUso = new int[pares.size()];
+            for (int i = 0; i < pares.size(); i++) {
+                posicionesUso[i] = (int) pares.get(i)[0];
+                declaracionUso[i] = (int) pares.get(i)[1];
+            }
+            return new IndiceReferencias(tokenDeclaracion, usos, posicionesUso, declaracionUso);
+        }
+
+        private List<Integer> resolver(int u, int posicion) {
+            String nombre = registro.usos.get(u).getLexema();
+            String[] contexto = registro.contextos.get(u);
+            boolean llamada = posicion + 1 < tokens.size() && tokens.get(posicion + 1).getLexema().equals("(");
+
+            switch (registro.clasesUso.get(u)) {
+                case TIPO:
+                    return clase(nombre);
+                case MIEMBRO: {
+                    String tipo = contexto[2];
+                    if (tipo == null && contexto[3] != null) tipo = tipoDe(contexto[3], contexto[0], contexto[1], posicion);
+                    if (tipo != null) {
+                        int id = enJerarquia(tipo, nombre, llamada);
+                        if (id >= 0) return List.of(id);
+                    }
+                    // Receptor de tipo desconocido: todos los candidatos
+                    List<Integer> candidatos = new ArrayList<>();
+                    for (int id : miembrosPorNombre.getOrDefault(nombre, List.of())) {
+                        if (esMetodo(id) == llamada) candidatos.add(id);
+                    }
+                    return candidatos;
+                }
+                default: {
+                    int id = nombreSimple(nombre, contexto[0], contexto[1], posicion, llamada);
+                    return id >= 0 ? List.of(id) : clase(nombre);
+                }
+            }
+        }
+
+        private List<Integer> clase(String nombre) {
+            Integer id = clases.get(nombre);
+            return id != null ? List.of(id) : List.of();
+        }
+
+        /** Local o parámetro declarado antes del uso en un bloque que lo encierra, o campo o método de la clase y sus padres */
+        private int nombreSimple(String nombre, String clase, String metodo, int posicion, boolean llamada) {
+            if (!llamada && !metodo.isEmpty()) {
+                List<Integer> locales = porAmbito.getOrDefault(clase + "." + metodo, Map.of()).get(nombre);
+                if (locales != null) {
+                    for (int i = locales.size() - 1; i >= 0; i--) {
+                        int id = locales.get(i);
+                        if (tokenDeclaracion[id] < posicion && posicion <= finAlcance[id]) return id;
+                    }
+                }
+            }
+            return enJerarquia(clase, nombre, llamada);
+        }
+
+        /** Clase del receptor: la de la variable, o la clase misma si el nombre es una clase */
+        private String tipoDe(String receptor, String clase, String metodo, int posicion) {
+            int id = nombreSimple(receptor, clase, metodo, posicion, false);
+            if (id >= 0) return simbolos.get(id).getTipo();
+            return clases.containsKey(receptor) ? receptor : null;
+        }
+
+        private int enJerarquia(String clase, String nombre, boolean llamada) {
+            for (int vueltas = 0; clase != null && vueltas <= clases.size(); vueltas++) {
+                List<Integer> candidatos = porAmbito.getOrDefault(clase, Map.of()).get(nombre);
+                if (candidatos != null) {
+                    for (int id : candidatos) {
+                        if (esMetodo(id) == llamada) return id;
+                    }
+                }
+                clase = padres.get(clase);
+            }
+            return -1;
+        }
+
+        private boolean esMetodo(int id) {
+            return simbolos.get(id).getRol().equals("Método");
+        }
+    }
+}
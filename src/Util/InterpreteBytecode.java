@@ -0,0 +1,252 @@
+package Util;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static Util.ProgramaBytecode.*;
+
+/**
+ * Intérprete del bytecode que genera CompiladorBytecode.
+ * Un único ciclo de despacho por método, con las pilas de enteros y de
+ * referencias compartidas por todos los marcos: los argumentos de una llamada ya
+ * quedan en su lugar como parámetros del método invocado, sin copiarlos.
+ */
+public class InterpreteBytecode {
+
+    private static final int TAMANO_PILA = 1 << 20;
+    private static final long TAMANO_PILA_HILO = 1L << 28;   // Para recursión profunda en MiniJava
+
+    /** Objeto de una clase MiniJava: atributos enteros y de referencia por separado */
+    static final class Objeto {
+        final ProgramaBytecode.Clase clase;
+        final int[] enteros;
+        final Object[] referencias;
+
+        Objeto(ProgramaBytecode.Clase clase) {
+            this.clase = clase;
+            this.enteros = new int[clase.camposEnteros];
+            this.referencias = new Object[clase.camposReferencia];
+        }
+
+        @Override
+        public String toString() {
+            return clase.nombre + "@" + Integer.toHexString(hashCode());
+        }
+    }
+
+    private final ProgramaBytecode.Clase[] clases;
+    private final String[] constantes;
+    private final ProgramaBytecode.Metodo principal;
+    private final int[] pilaEnteros;
+    private final Object[] pilaReferencias;
+    private PrintStream salida;
+
+    public InterpreteBytecode(ProgramaBytecode programa) {
+        this.clases = programa.clases.toArray(new ProgramaBytecode.Clase[0]);
+        this.constantes = programa.constantes.toArray(new String[0]);
+        this.principal = programa.principal;
+        this.pilaEnteros = new int[TAMANO_PILA];
+        this.pilaReferencias = new Object[TAMANO_PILA];
+    }
+
+    /**
+     * Ejecuta main escribiendo en salida. Corre en un hilo con pila amplia porque
+     * cada llamada MiniJava es una llamada recursiva del intérprete.
+     */
+    public void ejecutar(PrintStream salida) {
+        this.salida = salida;
+        AtomicReference<RuntimeException> fallo = new AtomicReference<>();
+
+        Thread hilo = new Thread(null, () -> {
+            try {
+                pilaReferencias[0] = null;   // String[] args
+                invocar(principal, 0, 0);
+            } catch (StackOverflowError e) {
+                fallo.set(new ErrorEjecucion("Error de ejecución: desbordamiento de pila (recursión demasiado profunda)."));
+            } catch (RuntimeException e) {
+                fallo.set(e);
+            }
+        }, "interprete-minijava", TAMANO_PILA_HILO);
+
+        hilo.start();
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        salida.flush();
+        if (fallo.get() != null) throw fallo.get();
+    }
+
+    private void invocar(ProgramaBytecode.Metodo metodo, int baseI, int baseR) {
+        final int[] codigo = metodo.codigo;
+        final int[] pi = pilaEnteros;
+        final Object[] pr = pilaReferencias;
+
+        int spI = baseI + metodo.localesEnteros;
+        int spR = baseR + metodo.localesReferencia;
+        if (spI + metodo.pilaEnteros > pi.length || spR + metodo.pilaReferencias > pr.length) {
+            throw new ErrorEjecucion("Error de ejecución: desbordamiento de pila (recursión demasiado profunda).");
+        }
+        for (int i = baseI + metodo.parametrosEnteros; i < spI; i++) pi[i] = 0;
+        for (int i = baseR + metodo.parametrosReferencia; i < spR; i++) pr[i] = null;
+
+        int pc = 0;
+        try {
+            while (true) {
+                switch (codigo[pc++]) {
+                    case ICONST: pi[spI++] = codigo[pc++]; break;
+                    case SCONST: pr[spR++] = constantes[codigo[pc++]]; break;
+                    case NULL: pr[spR++] = null; break;
+                    case ILOAD: pi[spI++] = pi[baseI + codigo[pc++]]; break;
+                    case ISTORE: pi[baseI + codigo[pc++]] = pi[--spI]; break;
+                    case RLOAD: pr[spR++] = pr[baseR + codigo[pc++]]; break;
+                    case RSTORE: pr[baseR + codigo[pc++]] = pr[--spR]; break;
+                    case IINC: pi[baseI + codigo[pc]] += codigo[pc + 1]; pc += 2; break;
+
+                    case IADD: spI--; pi[spI - 1] += pi[spI]; break;
+                    case ISUB: spI--; pi[spI - 1] -= pi[spI]; break;
+                    case IMUL: spI--; pi[spI - 1] *= pi[spI]; break;
+                    case IDIV: spI--; pi[spI - 1] /= pi[spI]; break;
+                    case IREM: spI--; pi[spI - 1] %= pi[spI]; break;
+                    case INEG: pi[spI - 1] = -pi[spI - 1]; break;
+                    case INOT: pi[spI - 1] ^= 1; break;
+                    case ICOMPL: pi[spI - 1] = ~pi[spI - 1]; break;
+                    case IAND: spI--; pi[spI - 1] &= pi[spI]; break;
+                    case IOR: spI--; pi[spI - 1] |= pi[spI]; break;
+                    case IXOR: spI--; pi[spI - 1] ^= pi[spI]; break;
+                    case ISHL: spI--; pi[spI - 1] <<= pi[spI]; break;
+                    case ISHR: spI--; pi[spI - 1] >>= pi[spI]; break;
+                    case IUSHR: spI--; pi[spI - 1] >>>= pi[spI]; break;
+
+                    case ILT: spI--; pi[spI - 1] = pi[spI - 1] < pi[spI] ? 1 : 0; break;
+                    case ILE: spI--; pi[spI - 1] = pi[spI - 1] <= pi[spI] ? 1 : 0; break;
+                    case IGT: spI--; pi[spI - 1] = pi[spI - 1] > pi[spI] ? 1 : 0; break;
+                    case IGE: spI--; pi[spI - 1] = pi[spI - 1] >= pi[spI] ? 1 : 0; break;
+                    case IEQ: spI--; pi[spI - 1] = pi[spI - 1] == pi[spI] ? 1 : 0; break;
+                    case INE: spI--; pi[spI - 1] = pi[spI - 1] != pi[spI] ? 1 : 0; break;
+                    case REQ: spR -= 2; pi[spI++] = pr[spR] == pr[spR + 1] ? 1 : 0; break;
+                    case RNE: spR -= 2; pi[spI++] = pr[spR] != pr[spR + 1] ? 1 : 0; break;
+
+                    case JMP: pc = codigo[pc]; break;
+                    case JZ: pc = pi[--spI] == 0 ? codigo[pc] : pc + 1; break;
+                    case JNZ: pc = pi[--spI] != 0 ? codigo[pc] : pc + 1; break;
+                    case POPI: spI--; break;
+                    case POPR: pr[--spR] = null; break;
+
+                    case NEWARRI: pr[spR++] = new int[pi[--spI]]; break;
+                    case NEWARRR: pr[spR++] = new Object[pi[--spI]]; break;
+                    case IALOAD: {
+                        int[] arreglo = (int[]) pr[--spR];
+                        pi[spI - 1] = arreglo[pi[spI - 1]];
+                        break;
+                    }
+                    case IASTORE: {
+                        int[] arreglo = (int[]) pr[--spR];
+                        spI -= 2;
+                        arreglo[pi[spI]] = pi[spI + 1];
+                        break;
+                    }
+                    case RALOAD: {
+                        Object[] arreglo = (Object[]) pr[spR - 1];
+                        pr[spR - 1] = arreglo[pi[--spI]];
+                        break;
+                    }
+                    case RASTORE: {
+                        spR -= 2;
+                        ((Object[]) pr[spR])[pi[--spI]] = pr[spR + 1];
+                        break;
+                    }
+                    case ARRLEN: {
+                        Object arreglo = pr[--spR];
+                        pi[spI++] = arreglo instanceof int[] ? ((int[]) arreglo).length : ((Object[]) arreglo).length;
+                        break;
+                    }
+
+                    case NEW: {
+                        ProgramaBytecode.Clase clase = clases[codigo[pc++]];
+                        pr[spR++] = new Objeto(clase);
+                        if (clase.inicializador != null) invocar(clase.inicializador, spI, spR - 1);
+                        break;
+                    }
+                    case GETI: pi[spI++] = ((Objeto) pr[--spR]).enteros[codigo[pc++]]; break;
+                    case PUTI: ((Objeto) pr[--spR]).enteros[codigo[pc++]] = pi[--spI]; break;
+                    case GETR: pr[spR - 1] = ((Objeto) pr[spR - 1]).referencias[codigo[pc++]]; break;
+                    case PUTR: spR -= 2; ((Objeto) pr[spR]).referencias[codigo[pc++]] = pr[spR + 1]; break;
+
+                    case INVOKE: {
+                        int entrada = codigo[pc++];
+                        int nuevaBaseR = spR - codigo[pc++];
+                        Objeto receptor = (Objeto) pr[nuevaBaseR];
+                        ProgramaBytecode.Metodo destino = receptor.clase.vtable[entrada];
+                        int nuevaBaseI = spI - destino.parametrosEnteros;
+                        invocar(destino, nuevaBaseI, nuevaBaseR);
+                        spI = nuevaBaseI;
+                        spR = nuevaBaseR;
+                        if (destino.retorno == 'I') spI++;
+                        else if (destino.retorno == 'R') spR++;
+                        break;
+                    }
+                    case RETI:
+                        pi[baseI] = pi[spI - 1];
+                        liberar(pr, baseR + 1, spR);
+                        return;
+                    case RETR:
+                        pr[baseR] = pr[spR - 1];
+                        liberar(pr, baseR + 1, spR);
+                        return;
+                    case RET:
+                        liberar(pr, baseR + 1, spR);
+                        return;
+
+                    case PRINTI: imprimir(String.valueOf(pi[--spI]), codigo[pc++]); break;
+                    case PRINTB: imprimir(pi[--spI] != 0 ? "true" : "false", codigo[pc++]); break;
+                    case PRINTC: imprimir(String.valueOf((char) pi[--spI]), codigo[pc++]); break;
+                    case PRINTR: imprimir(String.valueOf(pr[--spR]), codigo[pc++]); pr[spR] = null; break;
+                    case PRINTLN: salida.println(); break;
+
+                    case I2S: pr[spR++] = String.valueOf(pi[--spI]); break;
+                    case B2S: pr[spR++] = pi[--spI] != 0 ? "true" : "false"; break;
+                    case C2S: pr[spR++] = String.valueOf((char) pi[--spI]); break;
+                    case CONCAT:
+                        spR--;
+                        pr[spR - 1] = String.valueOf(pr[spR - 1]).concat(String.valueOf(pr[spR]));
+                        pr[spR] = null;
+                        break;
+                    case DUPI: pi[spI] = pi[spI - 1]; spI++; break;
+                    case DUPR: pr[spR] = pr[spR - 1]; spR++; break;
+
+                    default:
+                        throw new ErrorEjecucion("Código de operación inválido " + codigo[pc - 1] + " en " + nombre(metodo) + ".");
+                }
+            }
+        } catch (ErrorEjecucion e) {
+            throw e;
+        } catch (ArithmeticException e) {
+            throw error(metodo, "división entre cero");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw error(metodo, "índice fuera de rango (" + e.getMessage() + ")");
+        } catch (NegativeArraySizeException e) {
+            throw error(metodo, "tamaño de arreglo negativo (" + e.getMessage() + ")");
+        } catch (NullPointerException e) {
+            throw error(metodo, "uso de una referencia null");
+        }
+    }
+
+    private void imprimir(String texto, int saltoLinea) {
+        if (saltoLinea != 0) salida.println(texto);
+        else salida.print(texto);
+    }
+
+    private static void liberar(Object[] pr, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) pr[i] = null;
+    }
+
+    private static String nombre(ProgramaBytecode.Metodo metodo) {
+        return metodo.clase != null ? metodo.clase.nombre + "." + metodo.nombre : metodo.nombre;
+    }
+
+    private static ErrorEjecucion error(ProgramaBytecode.Metodo metodo, String mensaje) {
+        return new ErrorEjecucion("Error de ejecución en " + nombre(metodo) + ": " + mensaje + ".");
+    }
+}
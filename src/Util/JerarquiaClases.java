@@ -0,0 +1,238 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de la jerarquía de clases de un programa.
+ * Relaciona cada clase con su padre e interfaces, detecta herencia cíclica y
+ * precalcula tablas aplanadas de atributos y métodos (incluyendo los heredados),
+ * de modo que buscar un miembro o preguntar por un subtipo es O(1) en lugar de
+ * recorrer la cadena de herencia en cada consulta.
+ */
+public class JerarquiaClases {
+
+    private Map<String, Nodo> clases;
+    private Map<String, String> padres;
+    private Map<String, List<String>> interfaces;
+
+    // Tablas precalculadas
+    private Map<String, Set<String>> ancestros;
+    private Map<String, Map<String, Nodo>> camposAplanados;
+    private Map<String, Map<String, Nodo>> metodosAplanados;
+    private Map<Nodo, String> clasesDeclarantes;
+    private List<String> ordenTopologico;
+    private Set<Nodo> externas;
+
+    private List<String> errores;
+
+    public JerarquiaClases() {
+        this.clases = new LinkedHashMap<>();
+        this.padres = new HashMap<>();
+        this.interfaces = new HashMap<>();
+        this.ancestros = new HashMap<>();
+        this.camposAplanados = new HashMap<>();
+        this.metodosAplanados = new HashMap<>();
+        this.clasesDeclarantes = new IdentityHashMap<>();
+        this.ordenTopologico = new ArrayList<>();
+        this.externas = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.errores = new ArrayList<>();
+    }
+
+    /** Construye el índice a partir del árbol de un programa (nodo "Programa") */
+    public void construir(Nodo programa) {
+        construir(programa, Collections.emptyList());
+    }
+
+    /**
+     * Igual que construir(programa), pero además indexa clases declaradas en otros
+     * archivos. Un ciclo solo se reporta si pasa por alguna clase propia.
+     */
+    public void construir(Nodo programa, Collection<Nodo> clasesExternas) {
+        clases.clear();
+        padres.clear();
+        interfaces.clear();
+        ancestros.clear();
+        camposAplanados.clear();
+        metodosAplanados.clear();
+        clasesDeclarantes.clear();
+        ordenTopologico.clear();
+        externas.clear();
+        errores.clear();
+
+        if (programa == null) return;
+
+        for (Nodo clase : programa.getHijos()) {
+            registrar(clase);
+        }
+        for (Nodo clase : clasesExternas) {
+            if (registrar(clase)) externas.add(clase);
+        }
+
+        ordenarYDetectarCiclos();
+
+        // Los padres se procesan antes que sus hijos, así cada tabla copia la del padre ya completa
+        for (String nombre : ordenTopologico) {
+            aplanar(nombre);
+        }
+    }
+
+    private boolean registrar(Nodo clase) {
+        // Ante clases duplicadas prevalece la primera declaración
+        if (clases.putIfAbsent(clase.getValor(), clase) != null) return false;
+
+        List<String> implementadas = new ArrayList<>();
+        for (Nodo hijo : clase.getHijos()) {
+            if (hijo.getTipo().equals("Extiende")) padres.put(clase.getValor(), hijo.getValor());
+            else if (hijo.getTipo().equals("Implementa")) implementadas.add(hijo.getValor());
+        }
+        interfaces.put(clase.getValor(), implementadas);
+        return true;
+    }
+
+    /**
+     * Recorre la cadena de padres de cada clase una sola vez (cada clase tiene como
+     * máximo un padre). Si la cadena vuelve a una clase en curso hay un ciclo: se
+     * reporta y se corta para que el aplanado termine.
+     */
+    private void ordenarYDetectarCiclos() {
+        Map<String, Integer> estado = new HashMap<>();   // 1 = en curso, 2 = terminado
+
+        for (String inicio : clases.keySet()) {
+            if (estado.containsKey(inicio)) continue;
+
+            List<String> cadena = new ArrayList<>();
+            String actual = inicio;
+            while (actual != null && clases.containsKey(actual) && !estado.containsKey(actual)) {
+                estado.put(actual, 1);
+                cadena.add(actual);
+                actual = padres.get(actual);
+            }
+
+            if (actual != null && estado.getOrDefault(actual, 0) == 1) {
+                int desde = cadena.indexOf(actual);
+                List<String> ciclo = new ArrayList<>(cadena.subList(desde, cadena.size()));
+                ciclo.add(actual);
+                // Se reporta en la primera clase propia del ciclo; si todas son externas, lo reporta su archivo
+                Nodo clase = null;
+                for (String nombre : ciclo) {
+                    if (!externas.contains(clases.get(nombre))) {
+                        clase = clases.get(nombre);
+                        break;
+                    }
+                }
+                if (clase != null) {
+                    errores.add(String.format("Error semántico en línea %d, columna %d: Herencia cíclica: %s.",
+                        clase.getLinea(), clase.getColumna(), String.join(" -> ", ciclo)));
+                }
+                padres.remove(cadena.get(cadena.size() - 1));
+            }
+
+            // El final de la cadena es el ancestro más lejano: se agrega primero
+            for (int i = cadena.size() - 1; i >= 0; i--) {
+                estado.put(cadena.get(i), 2);
+                ordenTopologico.add(cadena.get(i));
+            }
+        }
+    }
+
+    private void aplanar(String nombre) {
+        String padre = padres.get(nombre);
+        boolean padreDeclarado = padre != null && clases.containsKey(padre);
+
+        Set<String> tiposAncestros = new HashSet<>();
+        Map<String, Nodo> campos = new HashMap<>();
+        Map<String, Nodo> metodos = new HashMap<>();
+
+        if (padreDeclarado) {
+            tiposAncestros.addAll(ancestros.get(padre));
+            campos.putAll(camposAplanados.get(padre));
+            metodos.putAll(metodosAplanados.get(padre));
+        } else if (padre != null) {
+            tiposAncestros.add(padre);
+        }
+        tiposAncestros.add(nombre);
+        tiposAncestros.addAll(interfaces.get(nombre));
+
+        // Los miembros propios ocultan o sobrescriben a los heredados
+        for (Nodo miembro : clases.get(nombre).getHijos()) {
+            if (miembro.getTipo().equals("Variable")) {
+                campos.put(miembro.getValor(), miembro);
+                clasesDeclarantes.put(miembro, nombre);
+            } else if (miembro.getTipo().equals("Metodo") || miembro.getTipo().equals("Main")) {
+                metodos.put(miembro.getValor(), miembro);
+                clasesDeclarantes.put(miembro, nombre);
+            }
+        }
+
+        ancestros.put(nombre, tiposAncestros);
+        camposAplanados.put(nombre, campos);
+        metodosAplanados.put(nombre, metodos);
+    }
+
+    // ------------------ CONSULTAS ------------------
+
+    public boolean existeClase(String nombre) {
+        return clases.containsKey(nombre);
+    }
+
+    public Nodo getClase(String nombre) {
+        return clases.get(nombre);
+    }
+
+    public String getPadre(String clase) {
+        return padres.get(clase);
+    }
+
+    public List<String> getInterfaces(String clase) {
+        return interfaces.getOrDefault(clase, Collections.emptyList());
+    }
+
+    /** Atributo propio o heredado; null si la clase no lo tiene */
+    public Nodo buscarCampo(String clase, String nombre) {
+        Map<String, Nodo> campos = camposAplanados.get(clase);
+        return campos != null ? campos.get(nombre) : null;
+    }
+
+    /** Método propio o heredado (la versión más cercana en la jerarquía); null si no existe */
+    public Nodo buscarMetodo(String clase, String nombre) {
+        Map<String, Nodo> metodos = metodosAplanados.get(clase);
+        return metodos != null ? metodos.get(nombre) : null;
+    }
+
+    public Map<String, Nodo> getCampos(String clase) {
+        return camposAplanados.getOrDefault(clase, Collections.emptyMap());
+    }
+
+    public Map<String, Nodo> getMetodos(String clase) {
+        return metodosAplanados.getOrDefault(clase, Collections.emptyMap());
+    }
+
+    /** Clase que declara el atributo o método indicado */
+    public String getClaseDeclarante(Nodo miembro) {
+        return clasesDeclarantes.get(miembro);
+    }
+
+    /** true si clase es ancestro (o la misma clase) o una interfaz que implementa alguno de ellos */
+    public boolean esSubtipo(String clase, String ancestro) {
+        Set<String> tipos = ancestros.get(clase);
+        return tipos != null && tipos.contains(ancestro);
+    }
+
+    /** Clases en orden de herencia: cada clase aparece después de su padre */
+    public List<String> getOrdenTopologico() {
+        return ordenTopologico;
+    }
+
+    public List<String> getErrores() {
+        return errores;
+    }
+}
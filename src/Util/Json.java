@@ -0,0 +1,209 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura de JSON con las estructuras de Java: objeto = Map,
+ * arreglo = List, número = Long o Double, y String, Boolean o null.
+ * Alcanza para los mensajes del protocolo LSP sin depender de otra biblioteca.
+ */
+public final class Json {
+
+    private final String texto;
+    private int pos;
+
+    private Json(String texto) {
+        this.texto = texto;
+    }
+
+    public static Object leer(String texto) {
+        Json lector = new Json(texto);
+        lector.espacios();
+        Object valor = lector.valor();
+        lector.espacios();
+        if (lector.pos != texto.length()) throw lector.error("contenido después del valor");
+        return valor;
+    }
+
+    public static String escribir(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escribir(valor, sb);
+        return sb.toString();
+    }
+
+    /** Objeto a partir de pares clave, valor */
+    public static Map<String, Object> objeto(Object... pares) {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        for (int i = 0; i < pares.length; i += 2) objeto.put((String) pares[i], pares[i + 1]);
+        return objeto;
+    }
+
+    // ------------------ LECTURA ------------------
+
+    private Object valor() {
+        if (pos >= texto.length()) throw error("fin inesperado");
+        char c = texto.charAt(pos);
+        switch (c) {
+            case '{': return objeto();
+            case '[': return arreglo();
+            case '"': return cadena();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || Character.isDigit(c)) return numero();
+                throw error("carácter inesperado '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> objeto() {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        pos++;
+        espacios();
+        if (consumir('}')) return objeto;
+        do {
+            espacios();
+            if (pos >= texto.length() || texto.charAt(pos) != '"') throw error("se esperaba una clave");
+            String clave = cadena();
+            espacios();
+            if (!consumir(':')) throw error("se esperaba ':'");
+            espacios();
+            objeto.put(clave, valor());
+            espacios();
+        } while (consumir(','));
+        if (!consumir('}')) throw error("se esperaba '}'");
+        return objeto;
+    }
+
+    private List<Object> arreglo() {
+        List<Object> arreglo = new ArrayList<>();
+        pos++;
+        espacios();
+        if (consumir(']')) return arreglo;
+        do {
+            espacios();
+            arreglo.add(valor());
+            espacios();
+        } while (consumir(','));
+        if (!consumir(']')) throw error("se esperaba ']'");
+        return arreglo;
+    }
+
+    private String cadena() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < texto.length()) {
+            char c = texto.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= texto.length()) break;
+            char e = texto.charAt(pos++);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > texto.length()) throw error("escape \\u incompleto");
+                    sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default: sb.append(e); break;
+            }
+        }
+        throw error("cadena sin cerrar");
+    }
+
+    private Object numero() {
+        int inicio = pos;
+        if (texto.charAt(pos) == '-') pos++;
+        boolean decimal = false;
+        while (pos < texto.length()) {
+            char c = texto.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && pos > inicio)) decimal = true;
+            else if (!Character.isDigit(c)) break;
+            pos++;
+        }
+        String numero = texto.substring(inicio, pos);
+        return decimal ? (Object) Double.parseDouble(numero) : (Object) Long.parseLong(numero);
+    }
+
+    private Object literal(String palabra, Object valor) {
+        if (!texto.startsWith(palabra, pos)) throw error("se esperaba '" + palabra + "'");
+        pos += palabra.length();
+        return valor;
+    }
+
+    private boolean consumir(char c) {
+        if (pos < texto.length() && texto.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void espacios() {
+        while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException("JSON inválido en la posición " + pos + ": " + mensaje);
+    }
+
+    // ------------------ ESCRITURA ------------------
+
+    private static void escribir(Object valor, StringBuilder sb) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof String) {
+            cadena((String) valor, sb);
+        } else if (valor instanceof Map) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<?, ?> entrada : ((Map<?, ?>) valor).entrySet()) {
+                if (!primero) sb.append(',');
+                primero = false;
+                cadena(String.valueOf(entrada.getKey()), sb);
+                sb.append(':');
+                escribir(entrada.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (valor instanceof List) {
+            sb.append('[');
+            boolean primero = true;
+            for (Object elemento : (List<?>) valor) {
+                if (!primero) sb.append(',');
+                primero = false;
+                escribir(elemento, sb);
+            }
+            sb.append(']');
+        } else {
+            sb.append(valor);   // Number o Boolean
+        }
+    }
+
+    private static void cadena(String s, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
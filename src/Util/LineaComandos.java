@@ -0,0 +1,481 @@
+package Util;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modo de línea de comandos. Sin argumentos App abre la ventana; con argumentos
+ * se despacha aquí según la primera opción.
+ */
+public class LineaComandos {
+
+    public static int ejecutar(String[] args) {
+        String[] resto = Arrays.copyOfRange(args, 1, args.length);
+        try {
+            switch (args[0]) {
+                case "--ejecutar":
+                    return ejecutarPrograma(resto);
+                case "--compilar":
+                    return compilarPrograma(resto);
+                case "--optimizar":
+                    return optimizarPrograma(resto);
+                case "--verificar":
+                    return verificarPrograma(resto);
+                case "--proyecto":
+                    return analizarProyecto(resto);
+                case "--sombra":
+                    return compararMotores(resto);
+                case "--observar":
+                    return observarProyecto(resto);
+                case "--servidor":
+                    return iniciarServidor(resto);
+                case "--lsp":
+                    return new ServidorLenguaje(System.in, System.out).atender();
+                case "--cliente":
+                    return clienteAnalisis(resto);
+                case "--detener":
+                    ClienteAnalisis.detener(resto.length > 0 ? Path.of(resto[0]) : ServidorAnalisis.socketPorDefecto());
+                    return 0;
+                case "--formatear":
+                    return formatearArchivos(resto);
+                case "--generar":
+                    return generarPrograma(resto);
+                case "--generar-ll1":
+                    return generarTablaLL1(resto);
+                case "--benchmark":
+                    Benchmark.ejecutar(resto, System.out);
+                    return 0;
+                default:
+                    uso();
+                    return 2;
+            }
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void uso() {
+        System.err.println("Uso:");
+        System.err.println("  --ejecutar <archivo> [--arbol|--jvm] [--optimizar]");
+        System.err.println("                                   Compila y ejecuta un programa MiniJava");
+        System.err.println("                                   (--arbol usa el evaluador sobre el árbol,");
+        System.err.println("                                   --jvm genera clases de la JVM)");
+        System.err.println("  --compilar <archivo> <directorio>  Escribe los archivos .class del programa");
+        System.err.println("  --optimizar <archivo>            Aplica los pases de optimización e informa su efecto");
+        System.err.println("  --verificar <archivo>            Análisis completo con advertencias y grafos de flujo");
+        System.err.println("  --proyecto <directorio|archivo...>  Analiza varios archivos que se usan entre sí");
+        System.err.println("  --sombra [--muestra <fracción>] <directorio|archivo...>");
+        System.err.println("                                   Analiza el proyecto comparando el léxico y el sintáctico");
+        System.err.println("                                   originales con los rápidos (tokens, símbolos y errores)");
+        System.err.println("  --observar <directorio> [--sombra <fracción>]");
+        System.err.println("                                   Analiza el proyecto y lo reanaliza en cada cambio");
+        System.err.println("  --servidor [socket] [--memoria <MB>] [--limite-ms <ms>] [--limite-tokens <n>]");
+        System.err.println("                                   Queda escuchando pedidos de análisis en un socket local");
+        System.err.println("                                   (--memoria limita el heap de tokens y símbolos por pedido;");
+        System.err.println("                                   el resto va a archivos temporales. Con los límites, un");
+        System.err.println("                                   pedido que los agota responde con resultados parciales)");
+        System.err.println("                                   (--servidor, --lsp y --observar publican métricas y ajustes");
+        System.err.println("                                   por JMX como " + MetricasAnalizador.NOMBRE + ")");
+        System.err.println("  --cliente [--socket <ruta>] <archivo...>");
+        System.err.println("                                   Analiza los archivos con el servidor ya iniciado");
+        System.err.println("  --detener [socket]               Termina el servidor");
+        System.err.println("  --lsp                            Servidor del Language Server Protocol por stdio");
+        System.err.println("  --formatear [--verificar] <directorio|archivo...>");
+        System.err.println("                                   Reescribe los archivos en el formato canónico; con");
+        System.err.println("                                   --verificar solo lista los que no lo están (sale con 1");
+        System.err.println("                                   si alguno no lo está y con 3 si alguno no se puede");
+        System.err.println("                                   formatear, por ejemplo con paréntesis desbalanceados)");
+        System.err.println("  --generar [--clases N] [--metodos N] [--sentencias N] [--profundidad N]");
+        System.err.println("            [--errores N] [--semilla N] [--sin-excepciones] [archivo]");
+        System.err.println("                                   Genera un programa MiniJava al azar (a la salida si no");
+        System.err.println("                                   se indica archivo); los errores inyectados van a stderr");
+        System.err.println("  --generar-ll1 [gramática] [salida] [--gramatica]");
+        System.err.println("                                   Genera la tabla LL(1) (por defecto de MiniJAVA_BNF.md a");
+        System.err.println("                                   src/Util/TablaLL1.java); --gramatica muestra la gramática");
+        System.err.println("                                   transformada");
+        System.err.println("  --benchmark [suite...]           Mide el rendimiento (suites: " + String.join(", ", Benchmark.SUITES) + ")");
+    }
+
+    private static int ejecutarPrograma(String[] args) throws IOException {
+        if (args.length == 0) {
+            uso();
+            return 2;
+        }
+
+        List<String> opciones = Arrays.asList(args).subList(1, args.length);
+        String codigo = Files.readString(Path.of(args[0]), StandardCharsets.UTF_8);
+        AnalizadorSemantico semantico = analizar(codigo);
+        if (semantico == null) return 1;
+        if (opciones.contains("--optimizar")) new Optimizador().optimizar(semantico.getArbol());
+
+        PrintStream salida = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        try {
+            if (opciones.contains("--arbol")) {
+                new EvaluadorArbol(semantico.getArbol(), semantico.getJerarquia()).ejecutar(salida);
+                return 0;
+            }
+            if (opciones.contains("--jvm")) {
+                GeneradorClases generador = new GeneradorClases();
+                Map<String, byte[]> clases = generador.generar(semantico.getArbol(), semantico.getJerarquia());
+                if (clases == null) {
+                    imprimirErrores(generador.getErrores());
+                    return 1;
+                }
+                CargadorClases.ejecutar(new CargadorClases(clases).buscarMain(generador.getClasePrincipal()), salida);
+                return 0;
+            }
+
+            CompiladorBytecode compilador = new CompiladorBytecode();
+            ProgramaBytecode programa = compilador.compilar(semantico.getArbol(), semantico.getJerarquia());
+            if (programa == null) {
+                imprimirErrores(compilador.getErrores());
+                return 1;
+            }
+            new InterpreteBytecode(programa).ejecutar(salida);
+            return 0;
+        } catch (ErrorEjecucion e) {
+            salida.flush();
+            System.err.println(e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int compilarPrograma(String[] args) throws IOException {
+        if (args.length < 2) {
+            uso();
+            return 2;
+        }
+
+        AnalizadorSemantico semantico = analizar(Files.readString(Path.of(args[0]), StandardCharsets.UTF_8));
+        if (semantico == null) return 1;
+
+        GeneradorClases generador = new GeneradorClases();
+        Map<String, byte[]> clases = generador.generar(semantico.getArbol(), semantico.getJerarquia());
+        if (clases == null) {
+            imprimirErrores(generador.getErrores());
+            return 1;
+        }
+
+        Path directorio = Files.createDirectories(Path.of(args[1]));
+        for (Map.Entry<String, byte[]> clase : clases.entrySet()) {
+            Files.write(directorio.resolve(clase.getKey() + ".class"), clase.getValue());
+        }
+        System.out.println("Clase principal: " + generador.getClasePrincipal());
+        return 0;
+    }
+
+    private static int optimizarPrograma(String[] args) throws IOException {
+        if (args.length == 0) {
+            uso();
+            return 2;
+        }
+
+        AnalizadorSemantico semantico = analizar(Files.readString(Path.of(args[0]), StandardCharsets.UTF_8));
+        if (semantico == null) return 1;
+
+        Optimizador optimizador = new Optimizador();
+        optimizador.optimizar(semantico.getArbol());
+        optimizador.imprimirInforme(System.out);
+        return 0;
+    }
+
+    private static int verificarPrograma(String[] args) throws IOException {
+        if (args.length == 0) {
+            uso();
+            return 2;
+        }
+
+        AnalizadorSemantico semantico = analizar(Files.readString(Path.of(args[0]), StandardCharsets.UTF_8));
+        if (semantico == null) return 1;
+        for (String advertencia : semantico.getAdvertencias()) System.out.println(advertencia);
+
+        AnalisisFlujo flujo = new AnalisisFlujo();
+        long inicio = System.nanoTime();
+        flujo.analizar(semantico.getArbol());
+        long nanos = System.nanoTime() - inicio;
+        for (GrafoFlujo grafo : flujo.getGrafos()) {
+            System.out.printf("%s: %d bloques, %d aristas, %d variables%n", grafo.getNombre(),
+                grafo.getBloques().size(), grafo.getCantidadAristas(), grafo.getVariables().size());
+        }
+        System.out.printf("Análisis de flujo: %s%n", Benchmark.milisegundos(nanos));
+        return 0;
+    }
+
+    private static int analizarProyecto(String[] args) throws IOException {
+        if (args.length == 0) {
+            uso();
+            return 2;
+        }
+
+        List<Path> archivos = new ArrayList<>();
+        for (String arg : args) archivos.addAll(AnalizadorProyecto.buscarArchivos(Path.of(arg)));
+
+        AnalizadorProyecto proyecto = new AnalizadorProyecto();
+        List<AnalizadorProyecto.ResultadoArchivo> resultados = proyecto.analizar(archivos);
+
+        int errores = 0;
+        for (AnalizadorProyecto.ResultadoArchivo resultado : resultados) {
+            for (String error : resultado.getErrores()) System.err.println(resultado.getArchivo() + ": " + error);
+            for (String advertencia : resultado.getAdvertencias()) System.out.println(resultado.getArchivo() + ": " + advertencia);
+            errores += resultado.getErrores().size();
+        }
+        System.out.printf("%d archivos, %d clases, %d errores. Declaraciones: %s, resolución: %s%n",
+            resultados.size(), proyecto.getIndice().getCantidadClases(), errores,
+            Benchmark.milisegundos(proyecto.getNanosDeclaraciones()), Benchmark.milisegundos(proyecto.getNanosResolucion()));
+        return errores == 0 ? 0 : 1;
+    }
+
+    private static int formatearArchivos(String[] args) throws IOException {
+        boolean verificar = args.length > 0 && args[0].equals("--verificar");
+        int desde = verificar ? 1 : 0;
+        if (args.length == desde) {
+            uso();
+            return 2;
+        }
+
+        List<Path> archivos = new ArrayList<>();
+        for (int i = desde; i < args.length; i++) archivos.addAll(AnalizadorProyecto.buscarArchivos(Path.of(args[i])));
+
+        long inicio = System.nanoTime();
+        List<FormateadorMiniJava.Resultado> resultados = FormateadorMiniJava.formatear(archivos, verificar);
+        long nanos = System.nanoTime() - inicio;
+
+        int cambiados = 0, errores = 0;
+        for (FormateadorMiniJava.Resultado resultado : resultados) {
+            if (resultado.getError() != null) {
+                System.err.println(resultado.getArchivo() + ": " + resultado.getError());
+                errores++;
+            } else if (resultado.isCambiado()) {
+                System.out.println(resultado.getArchivo());
+                cambiados++;
+            }
+        }
+        System.out.printf("%d archivos, %d %s, %d ya en formato, %d con errores (%s)%n",
+            resultados.size(), cambiados, verificar ? "sin formato" : "formateados",
+            resultados.size() - cambiados - errores, errores, Benchmark.milisegundos(nanos));
+        // Un archivo que no se puede formatear no se arregla corriendo el formateador
+        if (errores > 0) return 3;
+        return verificar && cambiados > 0 ? 1 : 0;
+    }
+
+    private static int compararMotores(String[] args) throws IOException {
+        double fraccion = 1;
+        int desde = 0;
+        if (args.length >= 2 && args[0].equals("--muestra")) {
+            fraccion = Double.parseDouble(args[1]);
+            desde = 2;
+        }
+        if (desde == args.length) {
+            uso();
+            return 2;
+        }
+
+        List<Path> archivos = new ArrayList<>();
+        for (int i = desde; i < args.length; i++) archivos.addAll(AnalizadorProyecto.buscarArchivos(Path.of(args[i])));
+
+        AnalisisSombra sombra = new AnalisisSombra(fraccion);
+        sombra.setRegistro(System.out);
+        AnalizadorProyecto proyecto = new AnalizadorProyecto();
+        proyecto.setSombra(sombra);
+        proyecto.analizar(archivos);
+        sombra.imprimirResumen(System.out);
+        return sombra.getDivergentes() == 0 ? 0 : 1;
+    }
+
+    private static int observarProyecto(String[] args) throws IOException {
+        if (args.length == 0) {
+            uso();
+            return 2;
+        }
+
+        AnalizadorProyecto proyecto = new AnalizadorProyecto();
+        if (args.length >= 3 && args[1].equals("--sombra")) {
+            // Compara los motores en una muestra de los archivos de cada lote
+            AnalisisSombra sombra = new AnalisisSombra(Double.parseDouble(args[2]));
+            sombra.setRegistro(System.out);
+            proyecto.setSombra(sombra);
+        }
+        // Los diagnósticos de cada archivo se muestran apenas termina, sin esperar al resto del lote
+        proyecto.setOyente(resultado -> {
+            synchronized (System.out) {
+                System.out.printf("%s: %d errores, %d advertencias%n", resultado.getArchivo(),
+                    resultado.getErrores().size(), resultado.getAdvertencias().size());
+                for (String error : resultado.getErrores()) System.out.println("  " + error);
+            }
+        });
+
+        MetricasAnalizador.registrar();
+        try (ObservadorProyecto observador = new ObservadorProyecto(Path.of(args[0]), proyecto)) {
+            observador.setAlTerminarLote(resultados -> System.out.printf(
+                "%d archivos analizados, %d clases. Declaraciones: %s, resolución: %s%n", resultados.size(),
+                proyecto.getIndice().getCantidadClases(), Benchmark.milisegundos(proyecto.getNanosDeclaraciones()),
+                Benchmark.milisegundos(proyecto.getNanosResolucion())));
+            observador.observar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    private static int generarPrograma(String[] args) throws IOException {
+        long semilla = System.nanoTime();
+        Path archivo = null;
+        List<String[]> opciones = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--sin-excepciones")) {
+                opciones.add(new String[] {args[i], null});
+            } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                opciones.add(new String[] {args[i], args[++i]});
+            } else if (!args[i].startsWith("--") && archivo == null) {
+                archivo = Path.of(args[i]);
+            } else {
+                uso();
+                return 2;
+            }
+        }
+        for (String[] opcion : opciones) {
+            if (opcion[0].equals("--semilla")) semilla = Long.parseLong(opcion[1]);
+        }
+
+        GeneradorMiniJava generador = new GeneradorMiniJava(semilla);
+        for (String[] opcion : opciones) {
+            switch (opcion[0]) {
+                case "--clases": generador.setClases(Integer.parseInt(opcion[1])); break;
+                case "--metodos": generador.setMetodos(Integer.parseInt(opcion[1])); break;
+                case "--sentencias": generador.setSentencias(Integer.parseInt(opcion[1])); break;
+                case "--profundidad": generador.setProfundidad(Integer.parseInt(opcion[1])); break;
+                case "--errores": generador.setErrores(Integer.parseInt(opcion[1])); break;
+                case "--sin-excepciones": generador.setExcepciones(false); break;
+                case "--semilla": break;
+                default:
+                    uso();
+                    return 2;
+            }
+        }
+
+        String programa = generador.generar();
+        if (archivo != null) Files.writeString(archivo, programa, StandardCharsets.UTF_8);
+        else System.out.print(programa);
+        System.err.println("Semilla: " + semilla);
+        imprimirErrores(generador.getErroresInyectados());
+        return 0;
+    }
+
+    private static int generarTablaLL1(String[] args) throws IOException {
+        boolean mostrarGramatica = false;
+        List<String> rutas = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--gramatica")) mostrarGramatica = true;
+            else rutas.add(arg);
+        }
+        if (rutas.size() > 2) {
+            uso();
+            return 2;
+        }
+        Path gramatica = Path.of(rutas.size() > 0 ? rutas.get(0) : "MiniJAVA_BNF.md");
+        Path salida = Path.of(rutas.size() > 1 ? rutas.get(1) : "src/Util/TablaLL1.java");
+
+        GeneradorLL1 generador;
+        try {
+            generador = GeneradorLL1.desdeArchivo(gramatica);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        }
+        if (mostrarGramatica) System.out.print(generador.gramaticaTransformada());
+        for (String advertencia : generador.getAdvertencias()) System.err.println(advertencia);
+        Files.writeString(salida, generador.generarJava(gramatica.getFileName().toString()), StandardCharsets.UTF_8);
+        System.err.println(generador.getTerminales() + " terminales, " + generador.getNoTerminales()
+            + " no terminales, " + generador.getProducciones() + " producciones -> " + salida);
+        return 0;
+    }
+
+    private static int iniciarServidor(String[] args) throws IOException {
+        Path socket = ServidorAnalisis.socketPorDefecto();
+        long presupuesto = 0;
+        long limiteMilisegundos = 0;
+        int limiteTokens = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--memoria") && i + 1 < args.length) {
+                presupuesto = Long.parseLong(args[++i]) << 20;
+            } else if (args[i].equals("--limite-ms") && i + 1 < args.length) {
+                limiteMilisegundos = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--limite-tokens") && i + 1 < args.length) {
+                limiteTokens = Integer.parseInt(args[++i]);
+            } else if (!args[i].startsWith("--")) {
+                socket = Path.of(args[i]);
+            } else {
+                uso();
+                return 2;
+            }
+        }
+
+        ServidorAnalisis servidor = new ServidorAnalisis(socket);
+        servidor.setPresupuestoMemoria(presupuesto);
+        servidor.setLimites(limiteMilisegundos, limiteTokens);
+        servidor.atender();
+        return 0;
+    }
+
+    private static int clienteAnalisis(String[] args) throws IOException {
+        Path socket = ServidorAnalisis.socketPorDefecto();
+        int desde = 0;
+        if (args.length >= 2 && args[0].equals("--socket")) {
+            socket = Path.of(args[1]);
+            desde = 2;
+        }
+        if (desde == args.length) {
+            uso();
+            return 2;
+        }
+
+        List<Path> archivos = new ArrayList<>();
+        for (int i = desde; i < args.length; i++) archivos.add(Path.of(args[i]));
+        return ClienteAnalisis.analizar(socket, archivos, System.out, System.err);
+    }
+
+    /**
+     * Análisis léxico, sintáctico y semántico de un programa. Imprime los errores
+     * de la primera fase que falle y devuelve null en ese caso.
+     */
+    static AnalizadorSemantico analizar(String codigo) {
+        AnalizadorLexico lexico = new AnalizadorLexico();
+        lexico.setModoRapido(true);
+        lexico.analizar(codigo);
+        if (!lexico.getErrores().isEmpty()) {
+            imprimirErrores(lexico.getErrores());
+            return null;
+        }
+
+        AnalizadorSintactico sintactico = new AnalizadorSintactico();
+        sintactico.setModoParalelo(true);
+        sintactico.analizar(lexico.getTokens());
+        if (!sintactico.getErrores().isEmpty()) {
+            imprimirErrores(sintactico.getErrores());
+            return null;
+        }
+
+        AnalizadorSemantico semantico = new AnalizadorSemantico();
+        semantico.analizar(sintactico.getArbol());
+        if (!semantico.getErrores().isEmpty()) {
+            imprimirErrores(semantico.getErrores());
+            return null;
+        }
+        return semantico;
+    }
+
+    private static void imprimirErrores(List<String> errores) {
+        for (String error : errores) System.err.println(error);
+    }
+}
@@ -0,0 +1,233 @@
+package Util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Métricas acumuladas del analizador en un proceso de larga vida (servidor de
+ * análisis, servidor de lenguaje u observador de proyecto), publicadas por JMX
+ * como "Util:type=MetricasAnalizador" para verlas con jconsole o VisualVM.
+ *
+ * Registrar una medición no toma ningún lock: los contadores son LongAdder y las
+ * latencias van a histogramas de cubetas atómicas, así los hilos que analizan
+ * no compiten entre sí por las métricas. Los percentiles se calculan al leerlos.
+ *
+ * Además expone como atributos ajustables el límite de errores del sintáctico,
+ * su paralelismo y los límites del servidor de análisis.
+ */
+public class MetricasAnalizador implements MetricasAnalizadorMBean {
+
+    public static final MetricasAnalizador GLOBAL = new MetricasAnalizador();
+    public static final String NOMBRE = "Util:type=MetricasAnalizador";
+
+    public static final int LEXICO = 0;
+    public static final int SINTACTICO = 1;
+    public static final int SEMANTICO = 2;
+
+    private final LongAdder archivos = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder[] errores = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final LongAdder truncados = new LongAdder();
+    private final LongAdder aciertosCache = new LongAdder();
+    private final LongAdder fallosCache = new LongAdder();
+    private final LongAdder[] nanosFase = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final Histograma[] latencias = {new Histograma(), new Histograma(), new Histograma()};
+
+    // Servidor cuyos límites se ajustan desde JMX; null si el proceso no es uno
+    private volatile ServidorAnalisis servidor;
+
+    /** Publica GLOBAL en el servidor de MBeans de la plataforma; llamarlo más de una vez no tiene efecto */
+    public static void registrar() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(NOMBRE));
+        } catch (InstanceAlreadyExistsException e) {
+            // Ya publicado por otro servidor del mismo proceso
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+
+    /** Servidor de análisis cuyos límites y presupuesto de memoria se ajustan desde JMX */
+    void setServidor(ServidorAnalisis servidor) {
+        this.servidor = servidor;
+    }
+
+    // ------------------ REGISTRO ------------------
+
+    public void registrarFase(int fase, long nanos) {
+        nanosFase[fase].add(nanos);
+        latencias[fase].registrar(nanos);
+    }
+
+    public void registrarArchivo(int cantidadTokens) {
+        archivos.increment();
+        tokens.add(cantidadTokens);
+    }
+
+    public void registrarErrores(int fase, int cantidad) {
+        if (cantidad > 0) errores[fase].add(cantidad);
+    }
+
+    public void registrarTruncado() {
+        truncados.increment();
+    }
+
+    public void registrarCache(int aciertos, int fallos) {
+        aciertosCache.add(aciertos);
+        fallosCache.add(fallos);
+    }
+
+    // ------------------ ATRIBUTOS ------------------
+
+    @Override public long getArchivosAnalizados() { return archivos.sum(); }
+    @Override public long getTokensAnalizados() { return tokens.sum(); }
+    @Override public long getErroresLexicos() { return errores[LEXICO].sum(); }
+    @Override public long getErroresSintacticos() { return errores[SINTACTICO].sum(); }
+    @Override public long getErroresSemanticos() { return errores[SEMANTICO].sum(); }
+    @Override public long getAnalisisTruncados() { return truncados.sum(); }
+
+    @Override
+    public double getTokensPorSegundo() {
+        long nanos = nanosFase[LEXICO].sum() + nanosFase[SINTACTICO].sum();
+        return nanos == 0 ? 0 : tokens.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getTasaAciertosCache() {
+        long aciertos = aciertosCache.sum(), total = aciertos + fallosCache.sum();
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    @Override public double getLexicoP50Micros() { return latencias[LEXICO].percentil(0.50) / 1e3; }
+    @Override public double getLexicoP99Micros() { return latencias[LEXICO].percentil(0.99) / 1e3; }
+    @Override public double getSintacticoP50Micros() { return latencias[SINTACTICO].percentil(0.50) / 1e3; }
+    @Override public double getSintacticoP99Micros() { return latencias[SINTACTICO].percentil(0.99) / 1e3; }
+    @Override public double getSemanticoP50Micros() { return latencias[SEMANTICO].percentil(0.50) / 1e3; }
+    @Override public double getSemanticoP99Micros() { return latencias[SEMANTICO].percentil(0.99) / 1e3; }
+
+    // ------------------ AJUSTES ------------------
+
+    @Override public int getLimiteErrores() { return AnalizadorSintactico.getLimiteErrores(); }
+    @Override public void setLimiteErrores(int limite) { AnalizadorSintactico.setLimiteErrores(limite); }
+    @Override public int getParalelismo() { return AnalizadorSintactico.getParalelismo(); }
+    @Override public void setParalelismo(int hilos) { AnalizadorSintactico.setParalelismo(hilos); }
+
+    @Override
+    public long getLimiteMilisegundos() {
+        ServidorAnalisis actual = servidor;
+        return actual != null ? actual.getLimiteMilisegundos() : 0;
+    }
+
+    @Override
+    public void setLimiteMilisegundos(long milisegundos) {
+        ServidorAnalisis actual = servidorActivo();
+        actual.setLimites(milisegundos, actual.getLimiteTokens());
+    }
+
+    @Override
+    public int getLimiteTokens() {
+        ServidorAnalisis actual = servidor;
+        return actual != null ? actual.getLimiteTokens() : 0;
+    }
+
+    @Override
+    public void setLimiteTokens(int tokens) {
+        ServidorAnalisis actual = servidorActivo();
+        actual.setLimites(actual.getLimiteMilisegundos(), tokens);
+    }
+
+    @Override
+    public long getPresupuestoMemoriaMB() {
+        ServidorAnalisis actual = servidor;
+        return actual != null ? actual.getPresupuestoMemoria() >> 20 : 0;
+    }
+
+    @Override
+    public void setPresupuestoMemoriaMB(long megabytes) {
+        servidorActivo().setPresupuestoMemoria(megabytes << 20);
+    }
+
+    private ServidorAnalisis servidorActivo() {
+        ServidorAnalisis actual = servidor;
+        if (actual == null) throw new IllegalStateException("No hay un servidor de análisis en este proceso");
+        return actual;
+    }
+
+    @Override
+    public void reiniciar() {
+        archivos.reset();
+        tokens.reset();
+        truncados.reset();
+        aciertosCache.reset();
+        fallosCache.reset();
+        for (int fase = LEXICO; fase <= SEMANTICO; fase++) {
+            errores[fase].reset();
+            nanosFase[fase].reset();
+            latencias[fase].reiniciar();
+        }
+    }
+
+    // ------------------ HISTOGRAMA ------------------
+
+    /**
+     * Histograma logarítmico-lineal de duraciones en nanosegundos: cada potencia de
+     * dos se parte en SUBCUBETAS cubetas iguales, con error relativo menor a 1/16.
+     * Registrar es un incremento atómico de una cubeta; leer un percentil recorre
+     * las cubetas, que pueden seguir cambiando mientras tanto (el valor es una
+     * aproximación del momento, no una instantánea exacta).
+     */
+    static final class Histograma {
+        private static final int BITS = 4;
+        private static final int SUBCUBETAS = 1 << BITS;
+        private static final int CUBETAS = (64 - BITS) * SUBCUBETAS;
+
+        private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+
+        void registrar(long valor) {
+            cubetas.incrementAndGet(cubeta(Math.max(0, valor)));
+        }
+
+        static int cubeta(long valor) {
+            if (valor < SUBCUBETAS) return (int) valor;
+            int exponente = 63 - Long.numberOfLeadingZeros(valor);
+            int mantisa = (int) (valor >>> (exponente - BITS)) & (SUBCUBETAS - 1);
+            return (exponente - BITS + 1) * SUBCUBETAS + mantisa;
+        }
+
+        /** Valor central de la cubeta */
+        static double valor(int cubeta) {
+            if (cubeta < SUBCUBETAS) return cubeta;
+            int exponente = cubeta / SUBCUBETAS + BITS - 1;
+            long ancho = 1L << (exponente - BITS);
+            long desde = (long) (SUBCUBETAS + cubeta % SUBCUBETAS) << (exponente - BITS);
+            return desde + (ancho - 1) / 2.0;
+        }
+
+        /** Percentil q (entre 0 y 1) de lo registrado; 0 si no hay registros */
+        double percentil(double q) {
+            long[] copia = new long[CUBETAS];
+            long total = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                copia[i] = cubetas.get(i);
+                total += copia[i];
+            }
+            if (total == 0) return 0;
+            long rango = Math.max(1, (long) Math.ceil(q * total));
+            long acumulado = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                acumulado += copia[i];
+                if (acumulado >= rango) return valor(i);
+            }
+            return valor(CUBETAS - 1);
+        }
+
+        void reiniciar() {
+            for (int i = 0; i < CUBETAS; i++) cubetas.set(i, 0);
+        }
+    }
+}
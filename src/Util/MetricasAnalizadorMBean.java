@@ -0,0 +1,47 @@
+package Util;
+
+/**
+ * Interfaz JMX de MetricasAnalizador: los getters son atributos de solo lectura,
+ * los pares get/set atributos ajustables y reiniciar una operación.
+ */
+public interface MetricasAnalizadorMBean {
+
+    // ------------------ CONTADORES ------------------
+
+    long getArchivosAnalizados();
+    long getTokensAnalizados();
+    /** Tokens por segundo de análisis (tiempo sumado de las fases léxica y sintáctica) */
+    double getTokensPorSegundo();
+    long getErroresLexicos();
+    long getErroresSintacticos();
+    long getErroresSemanticos();
+    long getAnalisisTruncados();
+    /** Fracción de archivos y clases que se tomaron del análisis anterior sin repetirlo */
+    double getTasaAciertosCache();
+
+    // ------------------ LATENCIAS (microsegundos) ------------------
+
+    double getLexicoP50Micros();
+    double getLexicoP99Micros();
+    double getSintacticoP50Micros();
+    double getSintacticoP99Micros();
+    double getSemanticoP50Micros();
+    double getSemanticoP99Micros();
+
+    // ------------------ AJUSTES ------------------
+
+    int getLimiteErrores();
+    void setLimiteErrores(int limite);
+    /** Hilos del análisis sintáctico paralelo; 0 usa el ForkJoinPool común */
+    int getParalelismo();
+    void setParalelismo(int hilos);
+    long getLimiteMilisegundos();
+    void setLimiteMilisegundos(long milisegundos);
+    int getLimiteTokens();
+    void setLimiteTokens(int tokens);
+    long getPresupuestoMemoriaMB();
+    void setPresupuestoMemoriaMB(long megabytes);
+
+    /** Pone en cero contadores e histogramas; los ajustes se mantienen */
+    void reiniciar();
+}
@@ -0,0 +1,49 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Nodo del árbol sintáctico que construye AnalizadorSintactico.
+ * Las hojas no reservan lista de hijos para mantener el árbol compacto.
+ */
+public class Nodo {
+    private String tipo;        // "Binaria", "Literal", "Identificador", "Llamada" etc
+    private String valor;       // Operador, lexema o nombre según el tipo de nodo
+    private Token token;        // Token que originó el nodo (posición en el código)
+    private String tipoDato;    // Tipo declarado o inferido: "int", "boolean", "int[]"...
+    private List<Nodo> hijos;
+
+    public Nodo(String tipo, String valor, Token token) {
+        this.tipo = tipo;
+        this.valor = valor;
+        this.token = token;
+        this.hijos = Collections.emptyList();
+    }
+
+    public void agregarHijo(Nodo hijo) {
+        if (hijos.isEmpty()) hijos = new ArrayList<>(2);
+        hijos.add(hijo);
+    }
+
+    public void setHijo(int indice, Nodo hijo) { hijos.set(indice, hijo); }
+    public void eliminarHijo(int indice) { hijos.remove(indice); }
+    public Nodo getHijo(int indice) { return hijos.get(indice); }
+    public int getCantidadHijos() { return hijos.size(); }
+    public List<Nodo> getHijos() { return hijos; }
+
+    public String getTipo() { return tipo; }
+    public String getValor() { return valor; }
+    public Token getToken() { return token; }
+    public String getTipoDato() { return tipoDato; }
+    public void setTipoDato(String tipoDato) { this.tipoDato = tipoDato; }
+
+    public int getLinea() { return token != null ? token.getLinea() : 0; }
+    public int getColumna() { return token != null ? token.getColumna() : 0; }
+
+    @Override
+    public String toString() {
+        return valor == null ? tipo : tipo + " " + valor;
+    }
+}
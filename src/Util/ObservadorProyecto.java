@@ -0,0 +1,117 @@
+package Util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Observa un directorio con WatchService y mantiene actualizado el análisis del
+ * proyecto. Los eventos se acumulan hasta que pasa ESPERA_MS sin novedades (un
+ * editor suele generar varios eventos por guardado) y el lote, sin repetidos,
+ * se pasa a AnalizadorProyecto.actualizar: solo se vuelven a leer los archivos
+ * que cambiaron.
+ */
+public class ObservadorProyecto implements Closeable {
+
+    private static final long ESPERA_MS = 150;
+
+    private final Path raiz;
+    private final AnalizadorProyecto proyecto;
+    private final WatchService servicio;
+    private final Map<WatchKey, Path> directorios;
+    private Consumer<List<AnalizadorProyecto.ResultadoArchivo>> alTerminarLote;
+
+    public ObservadorProyecto(Path raiz, AnalizadorProyecto proyecto) throws IOException {
+        this.raiz = raiz;
+        this.proyecto = proyecto;
+        this.servicio = FileSystems.getDefault().newWatchService();
+        this.directorios = new HashMap<>();
+        registrar(raiz);
+    }
+
+    /** Recibe los resultados recalculados después de cada lote de cambios */
+    public void setAlTerminarLote(Consumer<List<AnalizadorProyecto.ResultadoArchivo>> alTerminarLote) {
+        this.alTerminarLote = alTerminarLote;
+    }
+
+    /** Análisis inicial completo y luego un lote por cada ráfaga de cambios, hasta que se interrumpa el hilo */
+    public void observar() throws IOException, InterruptedException {
+        List<AnalizadorProyecto.ResultadoArchivo> resultados = proyecto.analizar(AnalizadorProyecto.buscarArchivos(raiz));
+        if (alTerminarLote != null) alTerminarLote.accept(resultados);
+
+        while (true) {
+            Set<Path> cambios = new LinkedHashSet<>();
+            boolean desborde = procesar(servicio.take(), cambios);
+
+            WatchKey clave;
+            while ((clave = servicio.poll(ESPERA_MS, TimeUnit.MILLISECONDS)) != null) {
+                desborde |= procesar(clave, cambios);
+            }
+
+            // Si el sistema descartó eventos no se sabe qué cambió: se analiza todo de nuevo
+            if (desborde) {
+                resultados = proyecto.analizar(AnalizadorProyecto.buscarArchivos(raiz));
+            } else if (!cambios.isEmpty()) {
+                resultados = proyecto.actualizar(cambios);
+            } else {
+                continue;
+            }
+            if (alTerminarLote != null && !resultados.isEmpty()) alTerminarLote.accept(resultados);
+        }
+    }
+
+    /** Agrega los archivos fuente del evento al lote; devuelve true si hubo desborde */
+    private boolean procesar(WatchKey clave, Set<Path> cambios) throws IOException {
+        Path directorio = directorios.get(clave);
+        boolean desborde = false;
+
+        for (WatchEvent<?> evento : clave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                desborde = true;
+                continue;
+            }
+            Path ruta = directorio.resolve((Path) evento.context());
+            if (evento.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(ruta)) {
+                // Un directorio nuevo puede llegar con archivos ya copiados adentro
+                registrar(ruta);
+                try (Stream<Path> recorrido = Files.walk(ruta)) {
+                    recorrido.filter(Files::isRegularFile).filter(AnalizadorProyecto::esFuente).forEach(cambios::add);
+                }
+            } else if (AnalizadorProyecto.esFuente(ruta)) {
+                cambios.add(ruta);
+            }
+        }
+
+        if (!clave.reset()) directorios.remove(clave);
+        return desborde;
+    }
+
+    private void registrar(Path inicio) throws IOException {
+        try (Stream<Path> recorrido = Files.walk(inicio)) {
+            for (Path directorio : (Iterable<Path>) recorrido.filter(Files::isDirectory)::iterator) {
+                WatchKey clave = directorio.register(servicio, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                directorios.put(clave, directorio);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        servicio.close();
+    }
+}
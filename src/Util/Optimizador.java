@@ -0,0 +1,108 @@
+package Util;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Tubería de pases de optimización sobre el árbol anotado.
+ * Aplica los pases en orden y repite la secuencia mientras alguno cambie algo
+ * (el plegado habilita ramas muertas, la propagación habilita más plegado...),
+ * con un máximo de rondas. Por cada pase acumula el tiempo, la cantidad de
+ * transformaciones y los nodos del árbol que eliminó.
+ */
+public class Optimizador {
+
+    private static final int MAX_RONDAS = 10;
+
+    /** Resultados acumulados de un pase a lo largo de todas las rondas */
+    public static final class Estadistica {
+        private final String nombre;
+        private long nanos;
+        private int cambios;
+        private int nodosEliminados;
+
+        Estadistica(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public String getNombre() { return nombre; }
+        public long getNanos() { return nanos; }
+        public int getCambios() { return cambios; }
+        public int getNodosEliminados() { return nodosEliminados; }
+    }
+
+    private final List<PaseOptimizacion> pases;
+    private final List<Estadistica> estadisticas;
+    private int rondas;
+    private int nodosIniciales;
+    private int nodosFinales;
+
+    /** Plegado de constantes, ramas muertas y propagación de copias */
+    public Optimizador() {
+        this(List.of(new PlegadoConstantes(), new EliminacionRamasMuertas(), new PropagacionCopias()));
+    }
+
+    public Optimizador(List<PaseOptimizacion> pases) {
+        this.pases = pases;
+        this.estadisticas = new ArrayList<>();
+    }
+
+    /** Optimiza el programa en el lugar */
+    public void optimizar(Nodo programa) {
+        estadisticas.clear();
+        for (PaseOptimizacion pase : pases) estadisticas.add(new Estadistica(pase.getNombre()));
+        nodosIniciales = contarNodos(programa);
+        rondas = 0;
+
+        int nodos = nodosIniciales;
+        boolean huboCambios = true;
+        while (huboCambios && rondas < MAX_RONDAS) {
+            huboCambios = false;
+            rondas++;
+            for (int i = 0; i < pases.size(); i++) {
+                Estadistica estadistica = estadisticas.get(i);
+                long inicio = System.nanoTime();
+                int cambios = pases.get(i).aplicar(programa);
+                estadistica.nanos += System.nanoTime() - inicio;
+
+                if (cambios == 0) continue;
+                huboCambios = true;
+                int despues = contarNodos(programa);
+                estadistica.cambios += cambios;
+                estadistica.nodosEliminados += nodos - despues;
+                nodos = despues;
+            }
+        }
+        nodosFinales = nodos;
+    }
+
+    public List<Estadistica> getEstadisticas() { return estadisticas; }
+    public int getRondas() { return rondas; }
+    public int getNodosIniciales() { return nodosIniciales; }
+    public int getNodosFinales() { return nodosFinales; }
+
+    public void imprimirInforme(PrintStream salida) {
+        salida.printf("%-32s %10s %9s %10s%n", "Pase", "Tiempo", "Cambios", "Nodos -");
+        for (Estadistica e : estadisticas) {
+            salida.printf("%-32s %7.3f ms %9d %10d%n", e.getNombre(), e.getNanos() / 1e6, e.getCambios(), e.getNodosEliminados());
+        }
+        int eliminados = nodosIniciales - nodosFinales;
+        salida.printf("Rondas: %d. Nodos: %d -> %d (%.1f%% menos)%n", rondas, nodosIniciales, nodosFinales,
+            nodosIniciales == 0 ? 0.0 : 100.0 * eliminados / nodosIniciales);
+    }
+
+    static int contarNodos(Nodo raiz) {
+        int total = 0;
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.pop();
+            total++;
+            for (Nodo hijo : nodo.getHijos()) pendientes.push(hijo);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,14 @@
+package Util;
+
+/**
+ * Pase de optimización sobre el árbol ya anotado por AnalizadorSemantico.
+ * Cada pase transforma el árbol en el lugar y conserva las anotaciones de tipo,
+ * de modo que los pases se pueden encadenar en cualquier orden (ver Optimizador).
+ */
+public interface PaseOptimizacion {
+
+    String getNombre();
+
+    /** Aplica el pase al programa y devuelve la cantidad de transformaciones realizadas */
+    int aplicar(Nodo programa);
+}
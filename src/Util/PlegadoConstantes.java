@@ -0,0 +1,208 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Plegado de constantes: evalúa en compilación las expresiones aritméticas,
+ * lógicas y de concatenación cuyos operandos son literales, y simplifica
+ * && y || cuando el operando izquierdo es constante.
+ * No pliega divisiones entre cero (el error debe ocurrir al ejecutar) ni
+ * comparaciones de referencias.
+ */
+public class PlegadoConstantes implements PaseOptimizacion {
+
+    /** Nodo pendiente en el recorrido y el siguiente hijo a visitar */
+    private static final class Marco {
+        final Nodo nodo;
+        int hijo;
+
+        Marco(Nodo nodo) {
+            this.nodo = nodo;
+        }
+    }
+
+    private int cambios;
+
+    @Override
+    public String getNombre() {
+        return "Plegado de constantes";
+    }
+
+    @Override
+    public int aplicar(Nodo programa) {
+        cambios = 0;
+        visitar(programa);
+        return cambios;
+    }
+
+    /**
+     * Recorrido posorden: los hijos se pliegan antes que el padre. La pila es
+     * explícita porque una expresión puede anidarse tanto como acepta el sintáctico.
+     */
+    private void visitar(Nodo raiz) {
+        Deque<Marco> pila = new ArrayDeque<>();
+        pila.push(new Marco(raiz));
+        while (!pila.isEmpty()) {
+            Marco marco = pila.peek();
+            if (marco.hijo < marco.nodo.getCantidadHijos()) {
+                pila.push(new Marco(marco.nodo.getHijo(marco.hijo++)));
+                continue;
+            }
+            pila.pop();
+            Marco padre = pila.peek();
+            if (padre == null) continue;
+            Nodo plegado = plegar(marco.nodo);
+            if (plegado != marco.nodo) {
+                padre.nodo.setHijo(padre.hijo - 1, plegado);
+                cambios++;
+            }
+        }
+    }
+
+    private Nodo plegar(Nodo e) {
+        switch (e.getTipo()) {
+            case "Binaria":
+                return binaria(e);
+            case "Unaria":
+                return unaria(e);
+            default:
+                return e;
+        }
+    }
+
+    private Nodo binaria(Nodo e) {
+        String op = e.getValor();
+        Nodo izq = e.getHijo(0), der = e.getHijo(1);
+
+        // Cortocircuito: basta con que el lado izquierdo sea constante
+        if (op.equals("&&") || op.equals("||")) {
+            Object a = valor(izq);
+            if (!(a instanceof Boolean)) return e;
+            return (Boolean) a == op.equals("&&") ? der : izq;
+        }
+
+        Object a = valor(izq), b = valor(der);
+        if (a == null || b == null) return e;
+
+        String tipo = e.getTipoDato();
+        if (op.equals("+") && "String".equals(tipo)) return literal(e, String.valueOf(a) + String.valueOf(b));
+        if (a instanceof String || b instanceof String) return e;
+
+        if (op.equals("==") || op.equals("!=")) {
+            boolean iguales = a instanceof Boolean ? a.equals(b) : entero(a) == entero(b);
+            return literal(e, op.equals("==") == iguales);
+        }
+        if (a instanceof Boolean && b instanceof Boolean) {
+            boolean x = (Boolean) a, y = (Boolean) b;
+            switch (op) {
+                case "&": return literal(e, x & y);
+                case "|": return literal(e, x | y);
+                case "^": return literal(e, x ^ y);
+                default: return e;
+            }
+        }
+        if (a instanceof Boolean || b instanceof Boolean || !"int".equals(tipo) && !"boolean".equals(tipo)) return e;
+
+        int x = entero(a), y = entero(b);
+        switch (op) {
+            case "+": return literal(e, x + y);
+            case "-": return literal(e, x - y);
+            case "*": return literal(e, x * y);
+            case "/": return y == 0 ? e : literal(e, x / y);
+            case "%": return y == 0 ? e : literal(e, x % y);
+            case "&": return literal(e, x & y);
+            case "|": return literal(e, x | y);
+            case "^": return literal(e, x ^ y);
+            case "<<": return literal(e, x << y);
+            case ">>": return literal(e, x >> y);
+            case ">>>": return literal(e, x >>> y);
+            case "<": return literal(e, x < y);
+            case "<=": return literal(e, x <= y);
+            case ">": return literal(e, x > y);
+            case ">=": return literal(e, x >= y);
+            default: return e;
+        }
+    }
+
+    private Nodo unaria(Nodo e) {
+        Object a = valor(e.getHijo(0));
+        if (a == null || a instanceof String) return e;
+        switch (e.getValor()) {
+            case "!": return a instanceof Boolean ? literal(e, !(Boolean) a) : e;
+            case "-": return a instanceof Boolean ? e : literal(e, -entero(a));
+            case "~": return a instanceof Boolean ? e : literal(e, ~entero(a));
+            case "+": return a instanceof Boolean ? e : literal(e, entero(a));
+            default: return e;     // ++ y -- modifican una variable
+        }
+    }
+
+    // ------------------ LITERALES ------------------
+
+    /** Valor de un literal (Integer, Character, Boolean o String); null si no es constante */
+    static Object valor(Nodo e) {
+        if (!e.getTipo().equals("Literal") || e.getTipoDato() == null) return null;
+        String lex = e.getValor();
+        switch (e.getTipoDato()) {
+            case "boolean":
+                return lex.equals("true");
+            case "int":
+                try {
+                    return Integer.parseInt(lex);
+                } catch (NumberFormatException ex) {
+                    return null;    // Fuera de rango: el compilador reporta el error
+                }
+            case "char": {
+                String caracter = CompiladorBytecode.desescapar(lex.substring(1, lex.length() - 1));
+                return caracter.isEmpty() ? null : caracter.charAt(0);
+            }
+            case "String":
+                return CompiladorBytecode.desescapar(lex.substring(1, lex.length() - 1));
+            default:
+                return null;
+        }
+    }
+
+    /** Literal que reemplaza a la expresión original, en su misma posición */
+    private static Nodo literal(Nodo original, Object valor) {
+        String lexema, tipoToken, tipoDato;
+        if (valor instanceof Boolean) {
+            lexema = valor.toString();
+            tipoToken = "Palabra Clave";
+            tipoDato = "boolean";
+        } else if (valor instanceof Integer) {
+            lexema = valor.toString();
+            tipoToken = "Entero";
+            tipoDato = "int";
+        } else {
+            lexema = "\"" + escapar((String) valor) + "\"";
+            tipoToken = "Cadena";
+            tipoDato = "String";
+        }
+        Nodo nodo = new Nodo("Literal", lexema, new Token(tipoToken, lexema, original.getLinea(), original.getColumna()));
+        nodo.setTipoDato(tipoDato);
+        return nodo;
+    }
+
+    /** Inverso de CompiladorBytecode.desescapar */
+    private static String escapar(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length() + 8);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '\n': sb.append("\\n"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\0': sb.append("\\0"); break;
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                default: sb.append(c); break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int entero(Object valor) {
+        return valor instanceof Character ? (Character) valor : (Integer) valor;
+    }
+}
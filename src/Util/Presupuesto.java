@@ -0,0 +1,49 @@
+package Util;
+
+/**
+ * Límite de tiempo y de tokens para un análisis. Los analizadores lo consultan
+ * en los límites de sus producciones (el léxico por línea, el sintáctico al
+ * entrar a clases, métodos, sentencias y expresiones) y, si se agotó, cortan
+ * el análisis y marcan el resultado como truncado: lo reconocido hasta ese
+ * punto (tokens, árbol, símbolos y errores) queda disponible.
+ *
+ * El tiempo corre desde que se crea el presupuesto, así el mismo objeto se
+ * puede pasar a las dos fases y el límite vale para el pedido completo.
+ */
+public class Presupuesto {
+
+    public static final Presupuesto ILIMITADO = new Presupuesto(0, 0);
+
+    private final long fechaLimite;     // en System.nanoTime; 0 sin límite
+    private final int maximoTokens;     // 0 sin límite
+
+    /** milisegundos y maximoTokens en 0 significan sin límite */
+    public Presupuesto(long milisegundos, int maximoTokens) {
+        long limite = milisegundos > 0 ? System.nanoTime() + milisegundos * 1_000_000 : 0;
+        this.fechaLimite = limite == 0 && milisegundos > 0 ? 1 : limite;
+        this.maximoTokens = maximoTokens;
+    }
+
+    public boolean esIlimitado() {
+        return fechaLimite == 0 && maximoTokens == 0;
+    }
+
+    public boolean tiempoAgotado() {
+        return fechaLimite != 0 && System.nanoTime() - fechaLimite > 0;
+    }
+
+    /** true si ya se procesaron tantos tokens como permite el presupuesto */
+    public boolean tokensAgotados(int procesados) {
+        return maximoTokens > 0 && procesados >= maximoTokens;
+    }
+
+    public int getMaximoTokens() {
+        return maximoTokens;
+    }
+
+    /** Motivo del corte para mostrar junto al resultado parcial */
+    public String motivo(int procesados) {
+        if (tokensAgotados(procesados)) return "se alcanzó el límite de " + maximoTokens + " tokens";
+        return "se agotó el tiempo de análisis";
+    }
+}
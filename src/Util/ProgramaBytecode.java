@@ -0,0 +1,185 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Programa MiniJava compilado a bytecode de pila.
+ * Los valores enteros (int, boolean, char) y las referencias (arreglos, objetos,
+ * cadenas) viajan en pilas separadas, así el intérprete nunca empaqueta enteros
+ * en objetos. Cada instrucción es un entero seguido de sus operandos inmediatos.
+ */
+public class ProgramaBytecode {
+
+    // ------------------ CÓDIGOS DE OPERACIÓN ------------------
+
+    public static final int ICONST = 0;     // v        -> int v
+    public static final int SCONST = 1;     // i        -> ref constantes[i]
+    public static final int NULL = 2;       //          -> ref null
+    public static final int ILOAD = 3;      // l        -> int local l
+    public static final int ISTORE = 4;     // l        int ->
+    public static final int RLOAD = 5;      // l        -> ref local l
+    public static final int RSTORE = 6;     // l        ref ->
+    public static final int IINC = 7;       // l k      local l += k
+
+    public static final int IADD = 8;
+    public static final int ISUB = 9;
+    public static final int IMUL = 10;
+    public static final int IDIV = 11;
+    public static final int IREM = 12;
+    public static final int INEG = 13;
+    public static final int INOT = 14;      // ! lógico sobre 0/1
+    public static final int ICOMPL = 15;    // ~ bit a bit
+    public static final int IAND = 16;
+    public static final int IOR = 17;
+    public static final int IXOR = 18;
+    public static final int ISHL = 19;
+    public static final int ISHR = 20;
+    public static final int IUSHR = 21;
+
+    public static final int ILT = 22;       // comparaciones: int int -> int 0/1
+    public static final int ILE = 23;
+    public static final int IGT = 24;
+    public static final int IGE = 25;
+    public static final int IEQ = 26;
+    public static final int INE = 27;
+    public static final int REQ = 28;       // ref ref -> int 0/1 (identidad)
+    public static final int RNE = 29;
+
+    public static final int JMP = 30;       // d        salto absoluto
+    public static final int JZ = 31;        // d        int -> ; salta si es 0
+    public static final int JNZ = 32;       // d        int -> ; salta si no es 0
+    public static final int POPI = 33;
+    public static final int POPR = 34;
+
+    public static final int NEWARRI = 35;   // int n -> ref int[n]
+    public static final int NEWARRR = 36;   // int n -> ref Object[n]
+    public static final int IALOAD = 37;    // ref arr, int i -> int
+    public static final int IASTORE = 38;   // ref arr, int i, int v ->
+    public static final int RALOAD = 39;    // ref arr, int i -> ref
+    public static final int RASTORE = 40;   // ref arr, ref v, int i ->
+    public static final int ARRLEN = 41;    // ref arr -> int
+
+    public static final int NEW = 42;       // c        -> ref objeto de la clase c
+    public static final int GETI = 43;      // f        ref obj -> int
+    public static final int PUTI = 44;      // f        ref obj, int v ->
+    public static final int GETR = 45;      // f        ref obj -> ref
+    public static final int PUTR = 46;      // f        ref obj, ref v ->
+
+    public static final int INVOKE = 47;    // v r      despacho virtual por la entrada v de la vtable;
+                                            //          r = referencias pasadas (el receptor es la primera)
+    public static final int RETI = 48;
+    public static final int RETR = 49;
+    public static final int RET = 50;
+
+    public static final int PRINTI = 51;    // n        int -> ; n = 1 agrega salto de línea
+    public static final int PRINTB = 52;    // n        int (0/1) ->
+    public static final int PRINTC = 53;    // n        int (char) ->
+    public static final int PRINTR = 54;    // n        ref ->
+    public static final int PRINTLN = 55;   //          solo salto de línea
+
+    public static final int I2S = 56;       // int -> ref String
+    public static final int B2S = 57;
+    public static final int C2S = 58;
+    public static final int CONCAT = 59;    // ref a, ref b -> ref String.valueOf(a) + String.valueOf(b)
+    public static final int DUPI = 60;
+    public static final int DUPR = 61;
+
+    static final String[] NOMBRES = {
+        "ICONST", "SCONST", "NULL", "ILOAD", "ISTORE", "RLOAD", "RSTORE", "IINC",
+        "IADD", "ISUB", "IMUL", "IDIV", "IREM", "INEG", "INOT", "ICOMPL", "IAND", "IOR", "IXOR",
+        "ISHL", "ISHR", "IUSHR", "ILT", "ILE", "IGT", "IGE", "IEQ", "INE", "REQ", "RNE",
+        "JMP", "JZ", "JNZ", "POPI", "POPR", "NEWARRI", "NEWARRR", "IALOAD", "IASTORE", "RALOAD",
+        "RASTORE", "ARRLEN", "NEW", "GETI", "PUTI", "GETR", "PUTR", "INVOKE", "RETI", "RETR", "RET",
+        "PRINTI", "PRINTB", "PRINTC", "PRINTR", "PRINTLN", "I2S", "B2S", "C2S", "CONCAT",
+        "DUPI", "DUPR"
+    };
+
+    /** Cantidad de operandos inmediatos de cada código de operación */
+    static int operandos(int op) {
+        switch (op) {
+            case IINC: case INVOKE:
+                return 2;
+            case ICONST: case SCONST: case ILOAD: case ISTORE: case RLOAD: case RSTORE:
+            case JMP: case JZ: case JNZ: case NEW: case GETI: case PUTI: case GETR: case PUTR:
+            case PRINTI: case PRINTB: case PRINTC: case PRINTR:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    // ------------------ ESTRUCTURA DEL PROGRAMA ------------------
+
+    /** Clase compilada: distribución de atributos y tabla de métodos virtuales */
+    public static class Clase {
+        final String nombre;
+        final Clase padre;
+        int camposEnteros;
+        int camposReferencia;
+        Metodo[] vtable = new Metodo[0];
+        Metodo inicializador;   // Inicialización de atributos (null si no hay)
+
+        Clase(String nombre, Clase padre) {
+            this.nombre = nombre;
+            this.padre = padre;
+        }
+
+        public String getNombre() { return nombre; }
+    }
+
+    /** Método compilado: parámetros y locales separados en enteros y referencias */
+    public static class Metodo {
+        final String nombre;
+        final Clase clase;
+        int[] codigo;
+        int parametrosEnteros;
+        int parametrosReferencia;   // Incluye el receptor (this) en la posición 0
+        int localesEnteros;
+        int localesReferencia;
+        int pilaEnteros;            // Profundidad máxima de las pilas de operandos
+        int pilaReferencias;
+        char retorno;               // 'I' entero, 'R' referencia, 'V' void
+
+        Metodo(String nombre, Clase clase) {
+            this.nombre = nombre;
+            this.clase = clase;
+        }
+
+        public String getNombre() { return nombre; }
+    }
+
+    List<Clase> clases = new ArrayList<>();
+    List<String> constantes = new ArrayList<>();
+    Metodo principal;
+
+    public List<Clase> getClases() { return clases; }
+    public Metodo getPrincipal() { return principal; }
+
+    /** Tamaño total del código generado, en enteros */
+    public int getTamanoCodigo() {
+        int total = principal != null ? principal.codigo.length : 0;
+        for (Clase clase : clases) {
+            for (Metodo metodo : clase.vtable) {
+                if (metodo.clase == clase) total += metodo.codigo.length;
+            }
+            if (clase.inicializador != null) total += clase.inicializador.codigo.length;
+        }
+        return total;
+    }
+
+    /** Listado legible del bytecode, útil para depurar el compilador */
+    public String desensamblar(Metodo metodo) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(metodo.clase != null ? metodo.clase.nombre + "." : "").append(metodo.nombre).append(":\n");
+        int[] codigo = metodo.codigo;
+        for (int pc = 0; pc < codigo.length; ) {
+            int op = codigo[pc];
+            sb.append(String.format("%5d  %-8s", pc, NOMBRES[op]));
+            for (int i = 1; i <= operandos(op); i++) sb.append(' ').append(codigo[pc + i]);
+            sb.append('\n');
+            pc += 1 + operandos(op);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,288 @@
+package Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Propagación de constantes y copias dentro de cada método.
+ * Una variable local que nunca se reasigna y se inicializa con un literal o con
+ * otra variable que tampoco se reasigna se sustituye en todos sus usos por ese
+ * valor; si la declaración queda sin usos se elimina.
+ * Trabaja sobre los ámbitos del árbol y no sobre la tabla de símbolos: la tabla
+ * guarda el inicializador literal (Simbolo.valor) pero no sabe si la variable
+ * se reasigna después.
+ */
+public class PropagacionCopias implements PaseOptimizacion {
+
+    /** Aparición de un identificador que resuelve a una declaración local */
+    private static final class Uso {
+        final Nodo padre;
+        final int indice;
+        final Nodo declaracion;
+
+        Uso(Nodo padre, int indice, Nodo declaracion) {
+            this.padre = padre;
+            this.indice = indice;
+            this.declaracion = declaracion;
+        }
+    }
+
+    // Pasos del recorrido: visitar un nodo, abrir o cerrar un ámbito, declarar una variable ya recorrida
+    private static final int VISITAR = 0;
+    private static final int ABRIR = 1;
+    private static final int CERRAR = 2;
+    private static final int DECLARAR = 3;
+
+    /** Paso pendiente del recorrido sobre un nodo y la posición que ocupa en su padre */
+    private static final class Paso {
+        final int accion;
+        final Nodo nodo;
+        final Nodo padre;
+        final int indice;
+
+        Paso(int accion, Nodo nodo, Nodo padre, int indice) {
+            this.accion = accion;
+            this.nodo = nodo;
+            this.padre = padre;
+            this.indice = indice;
+        }
+    }
+
+    private Deque<Map<String, Nodo>> ambitos;
+    private Deque<Paso> pasos;
+    private Map<Nodo, Integer> asignaciones;
+    private Map<Nodo, Integer> cantidadUsos;
+    private Map<Nodo, Nodo> contenedores;     // Variable -> bloque o caso que la declara
+    private Map<Nodo, Nodo> resoluciones;     // Identificador -> declaración local
+    private List<Uso> usos;
+    private int cambios;
+
+    @Override
+    public String getNombre() {
+        return "Propagación de copias";
+    }
+
+    @Override
+    public int aplicar(Nodo programa) {
+        cambios = 0;
+        for (Nodo clase : programa.getHijos()) {
+            for (Nodo miembro : clase.getHijos()) {
+                if (miembro.getTipo().equals("Metodo") || miembro.getTipo().equals("Main")) metodo(miembro);
+            }
+        }
+        return cambios;
+    }
+
+    private void metodo(Nodo metodo) {
+        ambitos = new ArrayDeque<>();
+        asignaciones = new IdentityHashMap<>();
+        cantidadUsos = new IdentityHashMap<>();
+        contenedores = new IdentityHashMap<>();
+        resoluciones = new IdentityHashMap<>();
+        usos = new ArrayList<>();
+        pasos = new ArrayDeque<>();
+
+        // El cuerpo comparte el ámbito de los parámetros, igual que en AnalizadorSemantico
+        ambitos.push(new HashMap<>());
+        for (Nodo hijo : metodo.getHijos()) {
+            if (hijo.getTipo().equals("Parametro")) declarar(hijo);
+            else recorrer(hijo);
+        }
+
+        Map<Nodo, Nodo> valores = new IdentityHashMap<>();
+        for (Uso uso : usos) {
+            Nodo valor = valor(uso.declaracion, valores);
+            if (valor == null) continue;
+            Nodo nuevo = copia(valor, uso.padre.getHijo(uso.indice));
+            uso.padre.setHijo(uso.indice, nuevo);
+            cantidadUsos.merge(uso.declaracion, -1, Integer::sum);
+            Nodo origen = resoluciones.get(valor);
+            if (origen != null) {
+                resoluciones.put(nuevo, origen);
+                cantidadUsos.merge(origen, 1, Integer::sum);
+            }
+            cambios++;
+        }
+
+        for (Map.Entry<Nodo, Nodo> entrada : contenedores.entrySet()) {
+            Nodo declaracion = entrada.getKey();
+            if (cantidadUsos.getOrDefault(declaracion, 0) > 0 || asignaciones.containsKey(declaracion)) continue;
+            if (declaracion.getCantidadHijos() > 0 && !esCopiable(declaracion.getHijo(0))) continue;
+            List<Nodo> hermanos = entrada.getValue().getHijos();
+            for (int i = 0; i < hermanos.size(); i++) {
+                if (hermanos.get(i) == declaracion) {
+                    entrada.getValue().eliminarHijo(i);
+                    cambios++;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Valor con el que se puede sustituir una variable: un literal o el
+     * identificador de otra variable que nunca cambia. null si no se puede.
+     * Una cadena de copias (c = b, b = a, a = 1) se sigue con un ciclo hasta
+     * su origen y después cada copia toma el valor del origen o, si no lo
+     * tiene, el identificador que copia.
+     */
+    private Nodo valor(Nodo declaracion, Map<Nodo, Nodo> valores) {
+        List<Nodo> copias = new ArrayList<>();
+        Nodo actual = declaracion;
+        while (!valores.containsKey(actual)) {
+            valores.put(actual, null);      // Una copia circular queda sin valor
+            if (!actual.getTipo().equals("Variable") || actual.getCantidadHijos() == 0 ||
+                asignaciones.containsKey(actual)) break;
+            Nodo inicial = actual.getHijo(0);
+            if (!actual.getTipoDato().equals(inicial.getTipoDato())) break;
+            if (inicial.getTipo().equals("Literal")) {
+                valores.put(actual, inicial);
+                break;
+            }
+            if (!inicial.getTipo().equals("Identificador")) break;
+            Nodo origen = resoluciones.get(inicial);
+            if (origen == null || asignaciones.containsKey(origen)) break;
+            copias.add(actual);
+            actual = origen;
+        }
+
+        Nodo resultado = valores.get(actual);
+        for (int i = copias.size() - 1; i >= 0; i--) {
+            Nodo copia = copias.get(i);
+            if (resultado == null) resultado = copia.getHijo(0);
+            valores.put(copia, resultado);
+        }
+        return resultado;
+    }
+
+    private static boolean esCopiable(Nodo e) {
+        return e.getTipo().equals("Literal") || e.getTipo().equals("Identificador");
+    }
+
+    private static Nodo copia(Nodo valor, Nodo uso) {
+        Token token = valor.getToken() != null
+            ? new Token(valor.getToken().getTipo(), valor.getValor(), uso.getLinea(), uso.getColumna())
+            : uso.getToken();
+        Nodo nodo = new Nodo(valor.getTipo(), valor.getValor(), token);
+        nodo.setTipoDato(valor.getTipoDato());
+        return nodo;
+    }
+
+    // ------------------ RECORRIDO ------------------
+
+    /**
+     * Recorre los hijos del cuerpo en preorden con una pila explícita de pasos:
+     * las expresiones pueden anidarse tanto como acepta el sintáctico. Los
+     * pasos se apilan al revés para que se ejecuten en el orden de un
+     * recorrido recursivo, con las aperturas y cierres de ámbito en su lugar.
+     */
+    private void recorrer(Nodo cuerpo) {
+        hijos(cuerpo, 0);
+        while (!pasos.isEmpty()) {
+            Paso paso = pasos.pop();
+            switch (paso.accion) {
+                case ABRIR:
+                    ambitos.push(new HashMap<>());
+                    break;
+                case CERRAR:
+                    ambitos.pop();
+                    break;
+                case DECLARAR:
+                    declarar(paso.nodo);
+                    if (paso.padre.getTipo().equals("Bloque") || paso.padre.getTipo().equals("Caso")) {
+                        contenedores.put(paso.nodo, paso.padre);
+                    }
+                    break;
+                default:
+                    nodo(paso.nodo, paso.padre, paso.indice);
+                    break;
+            }
+        }
+    }
+
+    private void nodo(Nodo n, Nodo padre, int indice) {
+        switch (n.getTipo()) {
+            case "Bloque":
+                ambitos.push(new HashMap<>());
+                pasos.push(new Paso(CERRAR, n, padre, indice));
+                hijos(n, 0);
+                break;
+            case "Variable":
+                pasos.push(new Paso(DECLARAR, n, padre, indice));
+                hijos(n, 0);
+                break;
+            case "For":
+                // La inicialización comparte el ámbito del ciclo
+                ambitos.push(new HashMap<>());
+                pasos.push(new Paso(CERRAR, n, padre, indice));
+                hijos(n, 1);
+                hijos(n.getHijo(0), 0);
+                break;
+            case "Caso": {
+                int inicio = n.getValor().equals("case") ? 1 : 0;
+                pasos.push(new Paso(CERRAR, n, padre, indice));
+                hijos(n, inicio);
+                pasos.push(new Paso(ABRIR, n, padre, indice));
+                // La etiqueta se resuelve fuera del ámbito del caso
+                if (inicio == 1) pasos.push(new Paso(VISITAR, n.getHijo(0), n, 0));
+                break;
+            }
+            case "Catch":
+                ambitos.push(new HashMap<>());
+                if (n.getValor() != null) declarar(n);
+                pasos.push(new Paso(CERRAR, n, padre, indice));
+                hijos(n, 0);
+                break;
+            case "Asignacion":
+            case "Postfija":
+                modificar(n.getHijo(0));
+                hijos(n, 0);
+                break;
+            case "Unaria":
+                if (n.getValor().equals("++") || n.getValor().equals("--")) modificar(n.getHijo(0));
+                hijos(n, 0);
+                break;
+            case "Identificador": {
+                Nodo declaracion = buscar(n.getValor());
+                if (declaracion != null) {
+                    usos.add(new Uso(padre, indice, declaracion));
+                    resoluciones.put(n, declaracion);
+                    cantidadUsos.merge(declaracion, 1, Integer::sum);
+                }
+                break;
+            }
+            default:
+                hijos(n, 0);
+                break;
+        }
+    }
+
+    /** Apila la visita de los hijos desde inicio, el primero arriba */
+    private void hijos(Nodo n, int inicio) {
+        for (int i = n.getCantidadHijos() - 1; i >= inicio; i--) pasos.push(new Paso(VISITAR, n.getHijo(i), n, i));
+    }
+
+    private void modificar(Nodo destino) {
+        if (!destino.getTipo().equals("Identificador")) return;
+        Nodo declaracion = buscar(destino.getValor());
+        if (declaracion != null) asignaciones.merge(declaracion, 1, Integer::sum);
+    }
+
+    private void declarar(Nodo declaracion) {
+        ambitos.peek().put(declaracion.getValor(), declaracion);
+    }
+
+    /** Declaración local visible; null si el nombre es un atributo */
+    private Nodo buscar(String nombre) {
+        for (Map<String, Nodo> ambito : ambitos) {
+            Nodo declaracion = ambito.get(nombre);
+            if (declaracion != null) return declaracion;
+        }
+        return null;
+    }
+}
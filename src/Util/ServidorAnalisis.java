@@ -0,0 +1,320 @@
+package Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor de análisis que queda corriendo en segundo plano y atiende pedidos
+ * por un socket de dominio Unix. Así el editor o un script no pagan en cada
+ * archivo el arranque de la JVM ni un JIT frío: el análisis corre sobre clases
+ * ya cargadas y compiladas.
+ *
+ * Protocolo (texto UTF-8, una conexión puede enviar varios pedidos):
+ *   analizar <bytes>\n<código>  ->  un diagnóstico por línea y al final
+ *                                   "fin <errores> <advertencias> <microsegundos>"
+ *                                   (si se agotó el presupuesto del pedido, los
+ *                                   diagnósticos son parciales y el último error
+ *                                   empieza con "Análisis truncado")
+ *   detener\n                   ->  "fin 0 0 0" y el servidor termina
+ * Un pedido mal formado (otra palabra, un tamaño que no es número o una
+ * cabecera de más de MAXIMO_CABECERA bytes) recibe una línea de error y
+ * "fin 1 0 0", y después se cierra la conexión.
+ */
+public class ServidorAnalisis {
+
+    private static final int MAXIMO_PEDIDO = 64 << 20;
+    // Las cabeceras son una palabra y un número; una línea más larga no es un pedido
+    static final int MAXIMO_CABECERA = 1024;
+
+    private final Path socket;
+    private final ExecutorService hilos;
+    private ServerSocketChannel canal;
+    private volatile boolean activo;
+    // Ajustables también desde JMX mientras atiende (ver MetricasAnalizador)
+    private volatile long presupuestoMemoria;
+    private volatile long limiteMilisegundos;
+    private volatile int limiteTokens;
+
+    public ServidorAnalisis(Path socket) {
+        this.socket = socket;
+        // Una conexión por hilo; los hilos ociosos se reutilizan entre pedidos
+        this.hilos = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "analisis-conexion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Bytes de heap que pueden ocupar los tokens y, aparte, la tabla de símbolos de
+     * cada pedido; lo que sobra se guarda en archivos temporales mapeados.
+     * 0 (por defecto) no pone límite.
+     */
+    public void setPresupuestoMemoria(long bytes) {
+        this.presupuestoMemoria = bytes;
+    }
+
+    /**
+     * Tiempo y tokens que puede usar cada pedido (0 sin límite). Un pedido que
+     * los agota responde con lo analizado hasta ese punto, así un archivo
+     * patológico no retiene el hilo de la conexión.
+     */
+    public void setLimites(long milisegundos, int tokens) {
+        this.limiteMilisegundos = milisegundos;
+        this.limiteTokens = tokens;
+    }
+
+    public long getPresupuestoMemoria() { return presupuestoMemoria; }
+    public long getLimiteMilisegundos() { return limiteMilisegundos; }
+    public int getLimiteTokens() { return limiteTokens; }
+
+    /** Ruta del socket si no se indica otra */
+    public static Path socketPorDefecto() {
+        return Path.of(System.getProperty("java.io.tmpdir"), "analizador-minijava.sock");
+    }
+
+    /** Abre el socket y atiende conexiones hasta recibir "detener" */
+    public void atender() throws IOException {
+        if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            // Solo se borra un socket viejo: un archivo, carpeta o enlace en esa ruta es del usuario
+            BasicFileAttributes atributos = Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (atributos.isRegularFile() || atributos.isDirectory() || atributos.isSymbolicLink()) {
+                throw new IOException("la ruta " + socket + " está ocupada por algo que no es un socket");
+            }
+            // Un socket que no acepta conexiones quedó de un servidor que terminó mal
+            if (escuchando(socket)) throw new IOException("ya hay un servidor escuchando en " + socket);
+            Files.delete(socket);
+        }
+
+        calentar();
+        MetricasAnalizador.GLOBAL.setServidor(this);
+        MetricasAnalizador.registrar();
+        canal = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        canal.bind(UnixDomainSocketAddress.of(socket));
+        activo = true;
+        try {
+            while (activo) {
+                SocketChannel conexion;
+                try {
+                    conexion = canal.accept();
+                } catch (IOException e) {
+                    if (!activo) break;     // detener cerró el canal
+                    throw e;
+                }
+                hilos.execute(() -> atenderConexion(conexion));
+            }
+        } finally {
+            hilos.shutdownNow();
+            canal.close();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private static boolean escuchando(Path socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Analiza algunas veces un programa generado para que el JIT compile las fases antes del primer pedido */
+    private static void calentar() {
+        String programa = Benchmark.programaConClases(40);
+        for (int i = 0; i < 20; i++) diagnosticos(programa, 0, Presupuesto.ILIMITADO);
+        // Las métricas cuentan solo los pedidos
+        MetricasAnalizador.GLOBAL.reiniciar();
+    }
+
+    private void atenderConexion(SocketChannel conexion) {
+        try (conexion;
+             InputStream entrada = new BufferedInputStream(Channels.newInputStream(conexion));
+             OutputStream salida = new BufferedOutputStream(Channels.newOutputStream(conexion))) {
+            String pedido;
+            while ((pedido = leerCabecera(entrada, salida)) != null) {
+                if (pedido.equals("detener")) {
+                    escribir(salida, "fin 0 0 0\n");
+                    salida.flush();
+                    detener();
+                    return;
+                }
+                if (!pedido.startsWith("analizar ")) {
+                    escribir(salida, "Pedido no reconocido: " + pedido + "\nfin 1 0 0\n");
+                    salida.flush();
+                    return;
+                }
+
+                String tamano = pedido.substring("analizar ".length()).trim();
+                int longitud;
+                try {
+                    longitud = Integer.parseInt(tamano);
+                } catch (NumberFormatException e) {
+                    longitud = -1;
+                }
+                if (longitud < 0 || longitud > MAXIMO_PEDIDO) {
+                    escribir(salida, "Tamaño de pedido inválido: " + tamano + "\nfin 1 0 0\n");
+                    salida.flush();
+                    return;
+                }
+                byte[] contenido = entrada.readNBytes(longitud);
+                if (contenido.length < longitud) return;
+                String codigo = new String(contenido, StandardCharsets.UTF_8);
+
+                long inicio = System.nanoTime();
+                Diagnosticos resultado;
+                try {
+                    resultado = diagnosticos(codigo, presupuestoMemoria, new Presupuesto(limiteMilisegundos, limiteTokens));
+                } catch (RuntimeException | Error e) {
+                    // Una falla del analizador con este programa no debe cortar la conexión
+                    String motivo = e instanceof StackOverflowError ? "anidamiento demasiado profundo" : e.toString();
+                    System.err.println("Error interno al analizar un pedido: " + motivo);
+                    escribir(salida, "Error interno del analizador (" + motivo + ").\nfin 1 0 0\n");
+                    salida.flush();
+                    continue;
+                }
+                long micros = (System.nanoTime() - inicio) / 1000;
+
+                StringBuilder respuesta = new StringBuilder();
+                for (String linea : resultado.lineas) respuesta.append(linea).append('\n');
+                respuesta.append("fin ").append(resultado.errores).append(' ')
+                    .append(resultado.lineas.size() - resultado.errores).append(' ').append(micros).append('\n');
+                escribir(salida, respuesta.toString());
+                salida.flush();
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión: no hay a quién responder
+        }
+    }
+
+    /** Línea de pedido, o null si la conexión terminó o la línea superó el máximo (ya respondido) */
+    private static String leerCabecera(InputStream entrada, OutputStream salida) throws IOException {
+        try {
+            return leerLinea(entrada, MAXIMO_CABECERA);
+        } catch (LineaDemasiadoLarga e) {
+            escribir(salida, "Pedido inválido: " + e.getMessage() + ".\nfin 1 0 0\n");
+            salida.flush();
+            return null;
+        }
+    }
+
+    private void detener() throws IOException {
+        activo = false;
+        canal.close();
+    }
+
+    // ------------------ ANÁLISIS ------------------
+
+    /** Errores de la primera fase que falle, o los semánticos seguidos de las advertencias */
+    static final class Diagnosticos {
+        final List<String> lineas = new ArrayList<>();
+        int errores;
+    }
+
+    static Diagnosticos diagnosticos(String codigo, long presupuestoMemoria, Presupuesto presupuesto) {
+        Diagnosticos resultado = new Diagnosticos();
+        MetricasAnalizador metricas = MetricasAnalizador.GLOBAL;
+
+        long inicio = System.nanoTime();
+        AnalizadorLexico lexico = new AnalizadorLexico();
+        lexico.setModoRapido(true);
+        lexico.setPresupuestoMemoria(presupuestoMemoria);
+        lexico.setPresupuesto(presupuesto);
+        lexico.analizar(codigo);
+        metricas.registrarFase(MetricasAnalizador.LEXICO, System.nanoTime() - inicio);
+        metricas.registrarArchivo(lexico.getTokens().size());
+        metricas.registrarErrores(MetricasAnalizador.LEXICO, lexico.getErrores().size());
+        if (!lexico.getErrores().isEmpty() || lexico.isTruncado()) {
+            resultado.lineas.addAll(lexico.getErrores());
+            if (lexico.isTruncado()) truncado(resultado, presupuesto, lexico.getTokens().size());
+            resultado.errores = resultado.lineas.size();
+            return resultado;
+        }
+
+        inicio = System.nanoTime();
+        AnalizadorSintactico sintactico = new AnalizadorSintactico();
+        sintactico.setModoParalelo(true);
+        sintactico.setPresupuestoMemoria(presupuestoMemoria);
+        sintactico.setPresupuesto(presupuesto);
+        sintactico.analizar(lexico.getTokens());
+        metricas.registrarFase(MetricasAnalizador.SINTACTICO, System.nanoTime() - inicio);
+        metricas.registrarErrores(MetricasAnalizador.SINTACTICO, sintactico.getErrores().size());
+        if (!sintactico.getErrores().isEmpty() || sintactico.isTruncado() || presupuesto.tiempoAgotado()) {
+            resultado.lineas.addAll(sintactico.getErrores());
+            if (sintactico.isTruncado() || presupuesto.tiempoAgotado()) {
+                truncado(resultado, presupuesto, lexico.getTokens().size());
+            }
+            resultado.errores = resultado.lineas.size();
+            return resultado;
+        }
+
+        inicio = System.nanoTime();
+        AnalizadorSemantico semantico = new AnalizadorSemantico();
+        semantico.analizar(sintactico.getArbol());
+        metricas.registrarFase(MetricasAnalizador.SEMANTICO, System.nanoTime() - inicio);
+        metricas.registrarErrores(MetricasAnalizador.SEMANTICO, semantico.getErrores().size());
+        resultado.lineas.addAll(semantico.getErrores());
+        resultado.errores = resultado.lineas.size();
+        resultado.lineas.addAll(semantico.getAdvertencias());
+        return resultado;
+    }
+
+    private static void truncado(Diagnosticos resultado, Presupuesto presupuesto, int tokens) {
+        MetricasAnalizador.GLOBAL.registrarTruncado();
+        resultado.lineas.add("Análisis truncado: " + presupuesto.motivo(tokens) + "; los diagnósticos son parciales.");
+    }
+
+    // ------------------ PROTOCOLO ------------------
+
+    /** Línea terminada en '\n' sin el salto; null si la conexión se cerró antes de empezarla */
+    static String leerLinea(InputStream entrada) throws IOException {
+        return leerLinea(entrada, Integer.MAX_VALUE);
+    }
+
+    /** Como leerLinea, pero deja de leer si la línea pasa de maximo bytes */
+    static String leerLinea(InputStream entrada, int maximo) throws IOException {
+        ByteArrayOutputStream linea = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = entrada.read()) != '\n') {
+            if (b < 0) {
+                if (linea.size() == 0) return null;
+                throw new EOFException("conexión cerrada a mitad de línea");
+            }
+            if (linea.size() == maximo) throw new LineaDemasiadoLarga(maximo);
+            linea.write(b);
+        }
+        return linea.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Una línea de cabecera sin salto dentro del máximo: el resto del flujo ya no se puede interpretar */
+    static final class LineaDemasiadoLarga extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LineaDemasiadoLarga(int maximo) {
+            super("línea de más de " + maximo + " bytes sin salto");
+        }
+    }
+
+    static void escribir(OutputStream salida, String texto) throws IOException {
+        salida.write(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,352 @@
+package Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor del Language Server Protocol por entrada y salida estándar, para
+ * usar el analizador desde cualquier editor con cliente LSP.
+ * Publica diagnósticos, los símbolos del documento (la tabla de símbolos del
+ * sintáctico) e ir a la definición (las referencias del semántico).
+ *
+ * Los cambios se aplican en el hilo lector, que solo vuelve a analizar
+ * léxicamente las líneas tocadas (DocumentoFuente). El análisis corre en otro
+ * hilo; si llega un cambio mientras tanto, el análisis viejo se abandona en el
+ * siguiente punto de control y el pedido pendiente se descarta sin ejecutarse.
+ */
+public class ServidorLenguaje {
+
+    private static final Pattern POSICION = Pattern.compile("línea (\\d+)(?:, columna (\\d+))?");
+    private static final Pattern POSICION_SIMBOLO = Pattern.compile("Línea (\\d+), Columna (\\d+)");
+
+    private static final int SEVERIDAD_ERROR = 1;
+    private static final int SEVERIDAD_ADVERTENCIA = 2;
+    private static final int METODO_NO_ENCONTRADO = -32601;
+    private static final int ERROR_INTERNO = -32603;
+    private static final int PEDIDO_CANCELADO = -32800;
+
+    /** Documento abierto y el último análisis terminado */
+    private static final class Abierto {
+        final DocumentoFuente documento;
+        volatile DocumentoFuente.Analisis analisis;
+
+        Abierto(DocumentoFuente documento) {
+            this.documento = documento;
+        }
+    }
+
+    private final InputStream entrada;
+    private final OutputStream salida;
+    private final Map<String, Abierto> documentos = new ConcurrentHashMap<>();
+    private final Map<Object, Future<?>> pedidos = new ConcurrentHashMap<>();
+    private final ExecutorService hilos;
+    private boolean apagado;
+
+    public ServidorLenguaje(InputStream entrada, OutputStream salida) {
+        this.entrada = new BufferedInputStream(entrada);
+        this.salida = new BufferedOutputStream(salida);
+        this.hilos = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "lsp-analisis");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /** Atiende mensajes hasta "exit" o hasta que se cierre la entrada. Devuelve el código de salida */
+    public int atender() throws IOException {
+        MetricasAnalizador.registrar();
+        try {
+            String mensaje;
+            while ((mensaje = leerMensaje()) != null) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> json = (Map<String, Object>) Json.leer(mensaje);
+                if ("exit".equals(json.get("method"))) return apagado ? 0 : 1;
+                despachar(json);
+            }
+            return 1;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void despachar(Map<String, Object> json) {
+        String metodo = (String) json.get("method");
+        Object id = json.get("id");
+        Map<String, Object> parametros = (Map<String, Object>) json.getOrDefault("params", Map.of());
+        if (metodo == null) return;     // Respuesta del cliente a un pedido nuestro: no se usan
+
+        switch (metodo) {
+            case "initialize":
+                responder(id, Json.objeto(
+                    "capabilities", Json.objeto(
+                        "textDocumentSync", 2L,     // Incremental
+                        "definitionProvider", true,
+                        "documentSymbolProvider", true),
+                    "serverInfo", Json.objeto("name", "Analizador MiniJava")));
+                return;
+            case "initialized":
+                return;
+            case "shutdown":
+                apagado = true;
+                responder(id, null);
+                return;
+            case "$/cancelRequest": {
+                Future<?> pedido = pedidos.remove(parametros.get("id"));
+                if (pedido != null && pedido.cancel(true)) {
+                    responderError(parametros.get("id"), PEDIDO_CANCELADO, "Pedido cancelado");
+                }
+                return;
+            }
+            case "textDocument/didOpen": {
+                Map<String, Object> documento = (Map<String, Object>) parametros.get("textDocument");
+                Abierto abierto = new Abierto(new DocumentoFuente((String) documento.get("text")));
+                documentos.put((String) documento.get("uri"), abierto);
+                programarAnalisis((String) documento.get("uri"), abierto);
+                return;
+            }
+            case "textDocument/didChange":
+                cambiar(parametros);
+                return;
+            case "textDocument/didClose": {
+                String uri = (String) ((Map<String, Object>) parametros.get("textDocument")).get("uri");
+                documentos.remove(uri);
+                notificar("textDocument/publishDiagnostics", Json.objeto("uri", uri, "diagnostics", List.of()));
+                return;
+            }
+            case "textDocument/documentSymbol":
+                enSegundoPlano(id, () -> simbolos(parametros));
+                return;
+            case "textDocument/definition":
+                enSegundoPlano(id, () -> definicion(parametros));
+                return;
+            default:
+                // Las notificaciones desconocidas se ignoran; los pedidos se rechazan
+                if (id != null) responderError(id, METODO_NO_ENCONTRADO, "Método no soportado: " + metodo);
+        }
+    }
+
+    // ------------------ DOCUMENTOS ------------------
+
+    @SuppressWarnings("unchecked")
+    private void cambiar(Map<String, Object> parametros) {
+        String uri = (String) ((Map<String, Object>) parametros.get("textDocument")).get("uri");
+        Abierto abierto = documentos.get(uri);
+        if (abierto == null) return;
+
+        for (Object cambio : (List<Object>) parametros.get("contentChanges")) {
+            Map<String, Object> c = (Map<String, Object>) cambio;
+            String texto = (String) c.get("text");
+            Map<String, Object> rango = (Map<String, Object>) c.get("range");
+            if (rango == null) {
+                abierto.documento.reemplazar(texto);
+                continue;
+            }
+            Map<String, Object> inicio = (Map<String, Object>) rango.get("start");
+            Map<String, Object> fin = (Map<String, Object>) rango.get("end");
+            abierto.documento.cambiar(entero(inicio.get("line")), entero(inicio.get("character")),
+                entero(fin.get("line")), entero(fin.get("character")), texto);
+        }
+        programarAnalisis(uri, abierto);
+    }
+
+    /**
+     * Encola el análisis de la versión actual. Si antes de empezar (o durante) el
+     * documento cambia otra vez, este análisis ya no sirve y se abandona.
+     */
+    private void programarAnalisis(String uri, Abierto abierto) {
+        int version = abierto.documento.getVersion();
+        hilos.execute(() -> {
+            if (abierto.documento.getVersion() != version) return;
+            DocumentoFuente.Analisis analisis = abierto.documento.analizar(() -> abierto.documento.getVersion() != version);
+            if (analisis == null || documentos.get(uri) != abierto) return;
+            abierto.analisis = analisis;
+            notificar("textDocument/publishDiagnostics", Json.objeto("uri", uri, "diagnostics", diagnosticos(abierto, analisis)));
+        });
+    }
+
+    private static List<Object> diagnosticos(Abierto abierto, DocumentoFuente.Analisis analisis) {
+        List<Object> diagnosticos = new ArrayList<>();
+        for (String error : analisis.getErrores()) diagnosticos.add(diagnostico(abierto, error, SEVERIDAD_ERROR));
+        for (String advertencia : analisis.getAdvertencias()) diagnosticos.add(diagnostico(abierto, advertencia, SEVERIDAD_ADVERTENCIA));
+        return diagnosticos;
+    }
+
+    /** Los mensajes traen "línea N, columna M": el rango cubre la palabra que empieza ahí */
+    private static Map<String, Object> diagnostico(Abierto abierto, String mensaje, int severidad) {
+        int linea = 0, columna = 0;
+        boolean conColumna = false;
+        Matcher m = POSICION.matcher(mensaje);
+        if (m.find()) {
+            linea = Integer.parseInt(m.group(1)) - 1;
+            conColumna = m.group(2) != null;
+            if (conColumna) columna = Integer.parseInt(m.group(2)) - 1;
+        }
+        // Sin columna (errores léxicos) se marca la línea entera
+        String texto = abierto.documento.getLinea(linea);
+        int fin = columna;
+        while (conColumna && fin < texto.length() && Character.isJavaIdentifierPart(texto.charAt(fin))) fin++;
+        if (fin == columna) fin = conColumna ? columna + 1 : texto.length();
+
+        int separador = mensaje.indexOf(": ");
+        return Json.objeto(
+            "range", rango(linea, columna, fin),
+            "severity", (long) severidad,
+            "source", "minijava",
+            "message", separador >= 0 ? mensaje.substring(separador + 2) : mensaje);
+    }
+
+    // ------------------ PEDIDOS ------------------
+
+    /** Atiende el pedido en otro hilo; un $/cancelRequest lo interrumpe */
+    private void enSegundoPlano(Object id, Supplier<Object> tarea) {
+        // Se registra antes de encolarlo para que una respuesta rápida lo encuentre
+        FutureTask<Void> futuro = new FutureTask<>(() -> {
+            Object resultado;
+            try {
+                resultado = tarea.get();
+            } catch (RuntimeException | Error e) {
+                // Nadie lee la excepción guardada en el FutureTask: sin esta respuesta el cliente esperaría para siempre
+                if (pedidos.remove(id) != null) responderError(id, ERROR_INTERNO, "Error interno: " + e);
+                return;
+            }
+            // Si ya no está registrado se canceló y se respondió con PEDIDO_CANCELADO
+            if (pedidos.remove(id) != null && !Thread.currentThread().isInterrupted()) responder(id, resultado);
+        }, null);
+        pedidos.put(id, futuro);
+        hilos.execute(futuro);
+    }
+
+    private Object simbolos(Map<String, Object> parametros) {
+        String uri = uri(parametros);
+        Abierto abierto = documentos.get(uri);
+        DocumentoFuente.Analisis analisis = abierto != null ? abierto.analisis : null;
+        if (analisis == null) return List.of();
+
+        List<Object> simbolos = new ArrayList<>();
+        for (Simbolo simbolo : analisis.getSimbolos()) {
+            Matcher m = POSICION_SIMBOLO.matcher(simbolo.getPosicion());
+            if (!m.find()) continue;
+            int linea = Integer.parseInt(m.group(1)) - 1;
+            int columna = Integer.parseInt(m.group(2)) - 1;
+            simbolos.add(Json.objeto(
+                "name", simbolo.getNombre(),
+                "kind", (long) tipoSimbolo(simbolo),
+                "location", Json.objeto("uri", uri, "range", rango(linea, columna, columna + simbolo.getNombre().length())),
+                "containerName", simbolo.getRol().equals("Clase") ? null : simbolo.getClase()));
+        }
+        return simbolos;
+    }
+
+    /** SymbolKind de LSP: Class = 5, Method = 6, Field = 8, Variable = 13 */
+    private static int tipoSimbolo(Simbolo simbolo) {
+        switch (simbolo.getRol()) {
+            case "Clase": return 5;
+            case "Método": return 6;
+            case "Variable": return simbolo.getClase().contains(".") ? 13 : 8;
+            default: return 13;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object definicion(Map<String, Object> parametros) {
+        String uri = uri(parametros);
+        Abierto abierto = documentos.get(uri);
+        DocumentoFuente.Analisis analisis = abierto != null ? abierto.analisis : null;
+        if (analisis == null) return null;
+
+        Map<String, Object> posicion = (Map<String, Object>) parametros.get("position");
+        Token token = analisis.tokenEn(entero(posicion.get("line")) + 1, entero(posicion.get("character")) + 1);
+        if (token == null) return null;
+
+        for (Map.Entry<Nodo, Nodo> referencia : analisis.getReferencias().entrySet()) {
+            Nodo uso = referencia.getKey();
+            // En "new X()" el nodo guarda el token de new; el nombre de la clase es el que le sigue
+            boolean nombreDeNew = uso.getTipo().equals("NuevoObjeto") && uso.getToken() != null &&
+                uso.getToken().getLinea() == token.getLinea() && uso.getValor().equals(token.getLexema()) &&
+                uso.getToken().getColumna() < token.getColumna();
+            if (uso.getToken() != token && !nombreDeNew) continue;
+
+            Token declaracion = referencia.getValue().getToken();
+            if (declaracion == null) return null;
+            int columna = declaracion.getColumna() - 1;
+            return Json.objeto("uri", uri, "range",
+                rango(declaracion.getLinea() - 1, columna, columna + declaracion.getLexema().length()));
+        }
+        return null;
+    }
+
+    // ------------------ MENSAJES ------------------
+
+    private String leerMensaje() throws IOException {
+        int longitud = -1;
+        String cabecera;
+        while ((cabecera = ServidorAnalisis.leerLinea(entrada)) != null) {
+            cabecera = cabecera.trim();
+            if (cabecera.isEmpty()) break;
+            if (cabecera.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                longitud = Integer.parseInt(cabecera.substring(15).trim());
+            }
+        }
+        if (cabecera == null || longitud < 0) return null;
+        byte[] contenido = entrada.readNBytes(longitud);
+        return contenido.length < longitud ? null : new String(contenido, StandardCharsets.UTF_8);
+    }
+
+    private void responder(Object id, Object resultado) {
+        Map<String, Object> mensaje = Json.objeto("jsonrpc", "2.0", "id", id);
+        mensaje.put("result", resultado);
+        enviar(mensaje);
+    }
+
+    private void responderError(Object id, int codigo, String texto) {
+        enviar(Json.objeto("jsonrpc", "2.0", "id", id, "error", Json.objeto("code", (long) codigo, "message", texto)));
+    }
+
+    private void notificar(String metodo, Object parametros) {
+        enviar(Json.objeto("jsonrpc", "2.0", "method", metodo, "params", parametros));
+    }
+
+    private void enviar(Map<String, Object> mensaje) {
+        byte[] contenido = Json.escribir(mensaje).getBytes(StandardCharsets.UTF_8);
+        synchronized (salida) {
+            try {
+                salida.write(("Content-Length: " + contenido.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                salida.write(contenido);
+                salida.flush();
+            } catch (IOException e) {
+                // El cliente se fue: el hilo lector terminará al ver la entrada cerrada
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String uri(Map<String, Object> parametros) {
+        return (String) ((Map<String, Object>) parametros.get("textDocument")).get("uri");
+    }
+
+    private static Map<String, Object> rango(int linea, int desde, int hasta) {
+        return Json.objeto(
+            "start", Json.objeto("line", (long) linea, "character", (long) desde),
+            "end", Json.objeto("line", (long) linea, "character", (long) hasta));
+    }
+
+    private static int entero(Object numero) {
+        return ((Number) numero).intValue();
+    }
+}
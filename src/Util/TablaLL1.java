@@ -0,0 +1,124 @@
+package Util;
+
+/**
+ * Tabla del analizador predictivo LL(1), generada por GeneradorLL1 a partir de
+ * MiniJAVA_BNF.md. No editar a mano: regenerar con
+ *   java App --generar-ll1 MiniJAVA_BNF.md src/Util/TablaLL1.java
+ *
+ * 41 terminales, 34 no terminales, 90 producciones.
+ */
+final class TablaLL1 {
+
+    private TablaLL1() {}
+
+    /** Lexema del terminal entre comillas o clase de token entre <> */
+    static final String[] TERMINALES = {
+        "<EOF>", "\"public\"", "\"extends\"", "\"int\"", "\"boolean\"", "\";\"", "<IDENTIFIER>",
+        "\"{\"", "\"}\"", "\"if\"", "\"(\"", "\")\"", "\"else\"", "\"while\"", "\"System\"",
+        "\".\"", "\"out\"", "\"println\"", "\"class\"", "\"static\"", "\"void\"", "\"main\"",
+        "\"String\"", "\"[\"", "\"]\"", "\",\"", "\"return\"", "\"&&\"", "\"<\"", "\"+\"", "\"-\"",
+        "\"*\"", "<INTEGER_LITERAL>", "<STRING_LITERAL>", "\"true\"", "\"false\"", "\"this\"",
+        "\"new\"", "\"!\"", "\"=\"", "\"length\""
+    };
+
+    static final String[] NO_TERMINALES = {
+        "Goal_1", "Goal", "MainClass_1", "MainClass_2", "MainClass_3", "MainClass",
+        "ClassDeclaration_1", "ClassDeclaration_2", "ClassDeclaration_3", "ClassDeclaration",
+        "VarDeclaration", "MethodDeclaration_1", "MethodDeclaration_2", "MethodDeclaration_3",
+        "MethodDeclaration", "Type", "Statement_1", "Statement", "Expression_1", "Expression",
+        "Expression_2", "Expression_3", "Identifier", "Expression_4", "MainClass_3_1",
+        "MainClass_3_2", "MainClass_3_3", "MethodDeclaration_3_1", "MethodDeclaration_3_2",
+        "MethodDeclaration_3_3", "Type_1", "Statement_2", "Expression_5", "Expression_4_1"
+    };
+
+    static final int INICIAL = 42;
+
+    /** TABLA[noTerminal * TERMINALES.length + terminal]: producción a aplicar, -1 error */
+    static final short[] TABLA = {
+        1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 2, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 2, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 3, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, 4, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 5, -1, -1, -1, -1, 6, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, 7, 8, -1, 9, 10, 14, 11, -1, -1, -1, 12, 13, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 15, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 15, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 16, -1, -1, -1, -1, 17,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 19, -1, 18, 18, -1, 18, -1, 19, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, 20, -1, -1, -1, -1, -1, -1, 21, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 22, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 23, 23,
+        -1, 23, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, 25, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 24, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 26, 26, -1, 26, -1, -1, -1, -1, 27, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, 28, 29, -1, 30, 31, -1, 32, -1, -1, -1, 33, 34, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, 35, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 36,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 37, 38, -1, 39,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 40, 40, 41, 40, -1, -1,
+        -1, 40, 40, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 46, 42, -1, 43, -1, -1, -1, 44, 45, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, 47, 48, 49, 50, 51, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, 56, -1, -1, -1, 60, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, 52, 53, 54, 55, 57, 58, 59, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, 62, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 61, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 63, -1, -1, -1, 63, 64, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 63, 63, 63, 63, 63,
+        63, 63, -1, -1, -1, -1, -1, -1, -1, -1, 65, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, 69, -1, -1, -1, -1, -1, 69, -1, -1, -1, 68, -1, -1, -1, -1, -1, -1, -1, 67,
+        69, 69, -1, 66, 66, 66, 66, 66, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        71, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 70, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 73, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, 72, -1, -1, -1, -1, -1, -1, -1, 74, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, 75, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        75, -1, -1, -1, -1, -1, -1, -1, 77, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, 76, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 79, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 78, -1, -1, -1, -1, -1, -1, -1, 80, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 81, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, 81, -1, -1, -1, -1, -1, -1, -1, 83, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 82, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, 85, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 84, -1,
+        -1, -1, -1, 86, -1, -1, 87, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, 89, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 88
+    };
+
+    /** Lado derecho invertido de la producción p en DERECHAS[INICIOS[p] .. INICIOS[p + 1]) */
+    static final short[] DERECHAS = {
+        41, 50, 0, 41, 46, 1, 63, 2, 65, 3, 45, 5, 63, 4, 67, 6, 45, 8, 57, 7, 45, 58, 12, 58, 11,
+        60, 10, 9, 45, 58, 11, 60, 10, 13, 45, 5, 11, 60, 10, 17, 15, 16, 15, 14, 8, 8, 45, 7, 11,
+        63, 24, 23, 22, 10, 21, 20, 19, 1, 7, 44, 63, 18, 43, 63, 2, 48, 51, 49, 55, 8, 49, 48, 7,
+        47, 63, 18, 5, 63, 56, 52, 63, 56, 25, 52, 63, 56, 68, 3, 54, 5, 63, 4, 70, 6, 54, 8, 57, 7,
+        54, 58, 12, 58, 11, 60, 10, 9, 54, 58, 11, 60, 10, 13, 54, 5, 11, 60, 10, 17, 15, 16, 15,
+        14, 8, 5, 60, 26, 54, 7, 11, 53, 10, 63, 56, 1, 71, 3, 4, 63, 57, 58, 8, 57, 7, 58, 12, 58,
+        11, 60, 10, 9, 58, 11, 60, 10, 13, 5, 11, 60, 10, 17, 15, 16, 15, 14, 72, 63, 27, 28, 29,
+        30, 31, 64, 32, 64, 33, 64, 34, 64, 35, 64, 63, 64, 36, 73, 37, 64, 60, 38, 64, 11, 60, 10,
+        61, 60, 25, 61, 60, 6, 64, 60, 59, 64, 24, 60, 23, 74, 15, 45, 5, 63, 24, 23, 45, 5, 63, 45,
+        5, 60, 39, 45, 5, 60, 39, 24, 60, 23, 45, 5, 63, 66, 54, 5, 63, 24, 23, 54, 5, 63, 54, 5,
+        60, 39, 54, 5, 60, 39, 24, 60, 23, 54, 5, 63, 69, 24, 23, 5, 60, 39, 5, 60, 39, 24, 60, 23,
+        64, 24, 60, 23, 3, 64, 11, 10, 63, 64, 40, 64, 11, 62, 10, 63
+    };
+
+    static final short[] INICIOS = {
+        0, 2, 2, 5, 6, 6, 8, 8, 10, 14, 16, 20, 28, 34, 44, 44, 63, 65, 65, 67, 67, 69, 69, 76, 79,
+        83, 83, 86, 86, 88, 92, 94, 98, 106, 112, 122, 122, 134, 136, 137, 138, 140, 140, 143, 150,
+        155, 164, 166, 167, 168, 169, 170, 171, 173, 175, 177, 179, 181, 183, 185, 188, 192, 195,
+        195, 197, 197, 198, 201, 205, 207, 207, 212, 215, 219, 226, 229, 230, 235, 238, 242, 249,
+        252, 253, 255, 255, 258, 264, 269, 273, 275, 280
+    };
+}